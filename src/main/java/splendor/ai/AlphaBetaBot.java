@@ -0,0 +1,668 @@
+package splendor.ai;
+
+import splendor.game.actions.GameAction;
+import splendor.game.actions.MoveCodec;
+import splendor.game.engine.Game;
+import splendor.game.engine.StandardGameFactory;
+import splendor.game.engine.TurnUndo;
+import splendor.model.CardCatalog;
+import splendor.model.Player;
+import splendor.util.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deterministic tree-search bot: iterative-deepening alpha-beta.
+ *
+ * With two players this is plain minimax with alpha-beta pruning. With
+ * three or four it runs either the paranoid search (every opponent is
+ * assumed to play against this seat, which keeps alpha-beta pruning) or
+ * max-n (every seat maximizes its own value; no pruning, so shallower).
+ *
+ * The hidden information (deck order, opponents' face-down reserves) is
+ * sampled once per decision, as {@link MctsBot} does per iteration, and
+ * the search then treats the game as one of perfect information. Turns
+ * are made and unmade in place with {@link TurnResolver#playTurn(Game, int, TurnUndo)}
+ * and {@link Game#undoTurn(TurnUndo)}, so the search does not allocate.
+ *
+ * Several threads search the same root Lazy-SMP style: they share a
+ * {@link TranspositionTable}, helpers start one ply deeper and shuffle
+ * equally ranked moves, and the deepest finished iteration wins. Every
+ * thread checks the clock, so the think time is a hard limit. Called on a
+ * {@link BotScheduler} worker, the helpers are queued on the scheduler's
+ * own pool so they take its cores rather than threads of their own; a
+ * helper still queued when the main search ends is skipped. Once the
+ * final round has started the move comes from the {@link EndgameSolver}
+ * instead. Nodes and
+ * search time are counted in the `search.nodes` and `search.micros`
+ * metrics; their ratio is the nodes-per-second rate.
+ */
+public class AlphaBetaBot implements Bot {
+
+    public enum Strategy { PARANOID, MAX_N }
+
+    static final int WIN = 1_000_000;
+    private static final int INFINITY = Integer.MAX_VALUE;
+    private static final int MAX_PLY = 64;
+    private static final int MAX_DEPTH = 48;
+    private static final int CLOCK_CHECK_MASK = 1023;
+    private static final int DEFAULT_TABLE_ENTRIES = 1 << 20;
+
+    private static final LongAdder NODES = Metrics.counter("search.nodes");
+    private static final LongAdder MICROS = Metrics.counter("search.micros");
+    private static final LongAdder DECISIONS = Metrics.counter("search.decisions");
+
+    private final int seat;
+    private final long thinkMillis;
+    private final int threads;
+    private final Strategy strategy;
+    private final Evaluator evaluator;
+    private final Random rng;
+    private final TranspositionTable table;
+    private final MoveGenerator generator = new MoveGenerator();
+    private final List<Searcher> searchers = new ArrayList<>();
+    private final EndgameSolver endgame = new EndgameSolver();
+
+    private ExecutorService helpers;
+    private Game root;
+    private volatile boolean stop;
+    private long deadline;
+    private int lastDepth;
+    private long lastNodes;
+    private int nobleIndex = -1;
+
+    public AlphaBetaBot(int seat, long thinkMillis) {
+        this(seat, thinkMillis, Runtime.getRuntime().availableProcessors(), Strategy.PARANOID,
+                new HeuristicEvaluator(), new Random());
+    }
+
+    public AlphaBetaBot(int seat, long thinkMillis, int threads, Strategy strategy, Evaluator evaluator, Random rng) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one search thread required");
+        }
+        this.seat = seat;
+        this.thinkMillis = thinkMillis;
+        this.threads = threads;
+        this.strategy = strategy;
+        this.evaluator = evaluator;
+        this.rng = rng;
+        this.table = new TranspositionTable(DEFAULT_TABLE_ENTRIES);
+    }
+
+    /**
+     * Self-play speed check:
+     * `java splendor.ai.AlphaBetaBot [players] [thinkMillis] [threads] [paranoid|maxn]`
+     */
+    public static void main(String[] args) {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        long think = args.length > 1 ? Long.parseLong(args[1]) : 200;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        Strategy strategy = args.length > 3 && args[3].equalsIgnoreCase("maxn") ? Strategy.MAX_N : Strategy.PARANOID;
+        List<String> names = new ArrayList<>();
+        List<AlphaBetaBot> bots = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            names.add("P" + i);
+            bots.add(new AlphaBetaBot(i, think, threads, strategy, new HeuristicEvaluator(), new Random()));
+        }
+        Game game = StandardGameFactory.createGame(names, CardCatalog.standard());
+        Metrics.reset();
+        int turns = 0;
+        int passes = 0;
+        while (!game.isGameOver() && passes < players) {
+            AlphaBetaBot bot = bots.get(game.getCurrentPlayerIndex());
+            int move = bot.chooseMove(game);
+            passes = move == MoveCodec.NONE ? passes + 1 : 0;
+            TurnResolver.playTurn(game, move, bot.getNobleIndex());
+            turns++;
+            if (turns % 10 == 0) {
+                System.out.printf("turn %d: depth %d, %d nodes%n", turns, bot.getLastDepth(), bot.getLastNodes());
+            }
+        }
+        for (AlphaBetaBot bot : bots) {
+            bot.shutdown();
+        }
+        long nodes = Metrics.counter("search.nodes").sum();
+        long micros = Math.max(1, Metrics.counter("search.micros").sum());
+        System.out.printf("%d turns, winner %s: %d nodes, %.0f nodes/s%n", turns,
+                game.determineWinner().getName(), nodes, nodes * 1e6 / micros);
+    }
+
+    public int getSeat() {
+        return seat;
+    }
+
+    /**
+     * Depth of the deepest iteration completed for the last decision.
+     */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * Nodes searched by all threads for the last decision.
+     */
+    public long getLastNodes() {
+        return lastNodes;
+    }
+
+    @Override
+    public GameAction chooseAction(Game game) {
+        return chooseAction(game, thinkMillis);
+    }
+
+    @Override
+    public GameAction chooseAction(Game game, long budgetMillis) {
+        int move = chooseMove(game, budgetMillis);
+        return move != MoveCodec.NONE ? MoveCodec.decode(move) : null;
+    }
+
+    /**
+     * The endgame solver's noble for the last move chosen, else -1.
+     */
+    @Override
+    public int getNobleIndex() {
+        return nobleIndex;
+    }
+
+    /**
+     * Encoded form of {@link #chooseAction(Game)}; returns
+     * {@link MoveCodec#NONE} when the player must pass.
+     */
+    public int chooseMove(Game game) {
+        return chooseMove(game, thinkMillis);
+    }
+
+    /**
+     * {@link #chooseMove(Game)} searching for {@code budgetMillis} instead
+     * of the bot's own think time.
+     */
+    public int chooseMove(Game game, long budgetMillis) {
+        long start = System.nanoTime();
+        nobleIndex = -1;
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        int count = generator.generate(game, legal);
+        if (count <= 1) {
+            return count == 0 ? MoveCodec.NONE : legal[0];
+        }
+        if (EndgameSolver.applies(game)) {
+            EndgameSolver.Result result = endgame.chooseMove(game, rng);
+            nobleIndex = result.getNobleIndex();
+            return result.getMove();
+        }
+        deadline = start + budgetMillis * 1_000_000L;
+        stop = false;
+        if (root == null) {
+            root = game.copy();
+        } else {
+            root.copyFrom(game);
+        }
+        root.getState().determinize(seat, rng);
+        table.clear();
+
+        while (searchers.size() < threads) {
+            searchers.add(new Searcher(searchers.size()));
+        }
+        List<Future<?>> running = new ArrayList<>();
+        List<AtomicBoolean> claims = new ArrayList<>();
+        if (threads > 1) {
+            ExecutorService pool = helperPool();
+            for (int i = 1; i < threads; i++) {
+                Searcher s = searchers.get(i);
+                // Whoever claims first runs the helper: the helper itself, or the main thread to skip it.
+                AtomicBoolean claim = new AtomicBoolean();
+                claims.add(claim);
+                running.add(pool.submit(() -> {
+                    if (claim.compareAndSet(false, true)) {
+                        s.run();
+                    }
+                }));
+            }
+        }
+        searchers.get(0).run();
+        stop = true;
+        for (int i = 0; i < running.size(); i++) {
+            if (claims.get(i).compareAndSet(false, true)) {
+                searchers.get(i + 1).skip();
+                continue;
+            }
+            Future<?> f = running.get(i);
+            try {
+                f.get(Math.max(1, budgetMillis), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | TimeoutException e) {
+                // A helper's result is optional; the main thread always has one.
+            }
+        }
+
+        Searcher best = searchers.get(0);
+        long nodes = 0;
+        for (int i = 0; i < threads; i++) {
+            Searcher s = searchers.get(i);
+            nodes += s.nodes;
+            if (s.completedDepth > best.completedDepth && s.bestMove != MoveCodec.NONE) {
+                best = s;
+            }
+        }
+        lastDepth = best.completedDepth;
+        lastNodes = nodes;
+        NODES.add(nodes);
+        MICROS.add((System.nanoTime() - start) / 1000);
+        DECISIONS.increment();
+
+        int move = best.bestMove;
+        for (int i = 0; i < count; i++) {
+            if (legal[i] == move) {
+                return move;
+            }
+        }
+        return legal[0];
+    }
+
+    /**
+     * The pool the helpers run on: the caller's own when it is a
+     * {@link ForkJoinPool} worker (the {@link BotScheduler}), so the helpers
+     * compete for its cores instead of adding threads, otherwise a private
+     * pool of `threads - 1` daemon threads.
+     */
+    private ExecutorService helperPool() {
+        ForkJoinPool shared = ForkJoinTask.getPool();
+        if (shared != null) {
+            return shared;
+        }
+        if (helpers == null) {
+            helpers = Executors.newFixedThreadPool(threads - 1, r -> {
+                Thread t = new Thread(r, "alpha-beta");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return helpers;
+    }
+
+    /**
+     * Stop the private helper threads; the bot can still search on the caller's thread.
+     */
+    public void shutdown() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+            helpers = null;
+        }
+    }
+
+    /**
+     * One search thread: its own copy of the root and per-ply scratch space.
+     */
+    private final class Searcher implements Runnable {
+        final int id;
+        final Random jitter;
+        final int[][] moves = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+        final int[][] order = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+        final long[] scratchScores = new long[MoveGenerator.MAX_MOVES];
+        final int[][] values; // max-n value vectors, one per ply
+        final int[] evals;
+        final Evaluator eval = evaluator.forThread();
+        final TurnUndo[] undos = new TurnUndo[MAX_PLY];
+        Game game;
+        int players;
+        long nodes;
+        boolean aborted;
+        int bestMove;
+        int completedDepth;
+
+        Searcher(int id) {
+            this.id = id;
+            this.jitter = new Random(rng.nextLong());
+            for (int i = 0; i < MAX_PLY; i++) {
+                undos[i] = new TurnUndo();
+            }
+            int seats = root.getState().getPlayers().size();
+            this.values = new int[MAX_PLY + 1][seats];
+            this.evals = new int[seats];
+        }
+
+        /** Record that this helper never started, so the last decision's result is not reused. */
+        void skip() {
+            nodes = 0;
+            bestMove = MoveCodec.NONE;
+            completedDepth = 0;
+        }
+
+        @Override
+        public void run() {
+            if (game == null) {
+                game = root.copy();
+            } else {
+                game.copyFrom(root);
+            }
+            players = game.getState().getPlayers().size();
+            nodes = 0;
+            aborted = false;
+            bestMove = MoveCodec.NONE;
+            completedDepth = 0;
+            long start = System.nanoTime();
+            // Helpers start one ply deeper so threads spread over depths.
+            for (int depth = 1 + (id & 1); depth <= MAX_DEPTH && !stop; depth++) {
+                int move = searchRoot(depth);
+                if (aborted) {
+                    break;
+                }
+                bestMove = move;
+                completedDepth = depth;
+                // The next iteration costs several times this one; do not start what cannot finish.
+                long now = System.nanoTime();
+                if (now + 2 * (now - start) > deadline) {
+                    break;
+                }
+            }
+        }
+
+        private int searchRoot(int depth) {
+            int n = generator.generate(game, moves[0]);
+            long entry = table.probe(PositionKey.of(game));
+            int hashMove = entry != 0 ? TranspositionTable.move(entry) : bestMove;
+            orderMoves(0, n, hashMove);
+            int best = MoveCodec.NONE;
+            int bestValue = -INFINITY;
+            int alpha = -INFINITY;
+            for (int k = 0; k < n; k++) {
+                int move = moves[0][order[0][k]];
+                TurnResolver.playTurn(game, move, undos[0]);
+                int value;
+                if (strategy == Strategy.MAX_N && players > 2) {
+                    maxN(depth - 1, 1, 0);
+                    value = values[1][seat];
+                } else {
+                    value = paranoid(depth - 1, alpha, INFINITY, 1, 0);
+                }
+                game.undoTurn(undos[0]);
+                if (aborted) {
+                    return best;
+                }
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = move;
+                }
+                alpha = Math.max(alpha, value);
+            }
+            table.store(PositionKey.of(game), depth, TranspositionTable.EXACT, bestValue, best);
+            return best;
+        }
+
+        /**
+         * Minimax value for this bot's seat, with every other seat minimizing it.
+         */
+        private int paranoid(int depth, int alpha, int beta, int ply, int passes) {
+            if (timeUp()) {
+                return 0;
+            }
+            if (game.isGameOver()) {
+                return terminalValue(seat, ply);
+            }
+            if (depth <= 0 || ply >= MAX_PLY - 1) {
+                return paranoidEval();
+            }
+            long key = PositionKey.of(game);
+            long entry = table.probe(key);
+            int hashMove = MoveCodec.NONE;
+            if (entry != 0) {
+                hashMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int v = fromTable(TranspositionTable.value(entry), ply);
+                    switch (TranspositionTable.flag(entry)) {
+                        case TranspositionTable.EXACT -> {
+                            return v;
+                        }
+                        case TranspositionTable.LOWER -> alpha = Math.max(alpha, v);
+                        case TranspositionTable.UPPER -> beta = Math.min(beta, v);
+                        default -> {
+                        }
+                    }
+                    if (alpha >= beta) {
+                        return v;
+                    }
+                }
+            }
+
+            int n = generator.generate(game, moves[ply]);
+            if (n == 0) {
+                if (passes + 1 >= players) {
+                    return paranoidEval(); // nobody can move: the position is dead
+                }
+                TurnResolver.playTurn(game, MoveCodec.NONE, undos[ply]);
+                int v = paranoid(depth - 1, alpha, beta, ply + 1, passes + 1);
+                game.undoTurn(undos[ply]);
+                return v;
+            }
+            orderMoves(ply, n, hashMove);
+            boolean maximizing = game.getCurrentPlayerIndex() == seat;
+            int alphaIn = alpha;
+            int betaIn = beta;
+            int best = maximizing ? -INFINITY : INFINITY;
+            int bestMoveHere = MoveCodec.NONE;
+            for (int k = 0; k < n; k++) {
+                int move = moves[ply][order[ply][k]];
+                TurnResolver.playTurn(game, move, undos[ply]);
+                int v = paranoid(depth - 1, alpha, beta, ply + 1, 0);
+                game.undoTurn(undos[ply]);
+                if (aborted) {
+                    return 0;
+                }
+                if (maximizing ? v > best : v < best) {
+                    best = v;
+                    bestMoveHere = move;
+                }
+                if (maximizing) {
+                    alpha = Math.max(alpha, v);
+                } else {
+                    beta = Math.min(beta, v);
+                }
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+            int flag = best <= alphaIn ? TranspositionTable.UPPER
+                    : best >= betaIn ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            table.store(key, depth, flag, toTable(best, ply), bestMoveHere);
+            return best;
+        }
+
+        /**
+         * Max-n: fills {@code values[ply]} with the value of the position for
+         * every seat, each seat choosing the move best for itself.
+         */
+        private void maxN(int depth, int ply, int passes) {
+            int[] out = values[ply];
+            if (timeUp()) {
+                return;
+            }
+            if (game.isGameOver()) {
+                for (int s = 0; s < players; s++) {
+                    out[s] = terminalValue(s, ply);
+                }
+                return;
+            }
+            if (depth <= 0 || ply >= MAX_PLY - 1) {
+                relativeEvals(out);
+                return;
+            }
+            long key = PositionKey.of(game);
+            long entry = table.probe(key);
+            int hashMove = entry != 0 ? TranspositionTable.move(entry) : MoveCodec.NONE;
+
+            int n = generator.generate(game, moves[ply]);
+            if (n == 0) {
+                if (passes + 1 >= players) {
+                    relativeEvals(out);
+                    return;
+                }
+                TurnResolver.playTurn(game, MoveCodec.NONE, undos[ply]);
+                maxN(depth - 1, ply + 1, passes + 1);
+                game.undoTurn(undos[ply]);
+                System.arraycopy(values[ply + 1], 0, out, 0, players);
+                return;
+            }
+            orderMoves(ply, n, hashMove);
+            int mover = game.getCurrentPlayerIndex();
+            int best = -INFINITY;
+            int bestMoveHere = MoveCodec.NONE;
+            for (int k = 0; k < n; k++) {
+                int move = moves[ply][order[ply][k]];
+                TurnResolver.playTurn(game, move, undos[ply]);
+                maxN(depth - 1, ply + 1, 0);
+                game.undoTurn(undos[ply]);
+                if (aborted) {
+                    return;
+                }
+                int[] child = values[ply + 1];
+                if (child[mover] > best) {
+                    best = child[mover];
+                    bestMoveHere = move;
+                    System.arraycopy(child, 0, out, 0, players);
+                }
+            }
+            // Max-n values are not bounds for alpha-beta; keep only the move for ordering.
+            table.store(key, depth, 0, 0, bestMoveHere);
+        }
+
+        private boolean timeUp() {
+            if (aborted) {
+                return true;
+            }
+            if ((++nodes & CLOCK_CHECK_MASK) == 0 && (stop || System.nanoTime() >= deadline)) {
+                aborted = true;
+                stop = true;
+            }
+            return aborted;
+        }
+
+        private int terminalValue(int s, int ply) {
+            Player winner = game.determineWinner();
+            boolean won = game.getState().getPlayers().get(s) == winner;
+            return won ? WIN - ply : -WIN + ply;
+        }
+
+        /**
+         * This seat's value minus that of its strongest opponent.
+         */
+        private int paranoidEval() {
+            eval.evaluateSeats(game, evals);
+            int strongest = -INFINITY;
+            for (int s = 0; s < players; s++) {
+                if (s != seat) {
+                    strongest = Math.max(strongest, evals[s]);
+                }
+            }
+            return evals[seat] - strongest;
+        }
+
+        /**
+         * Every seat's value relative to its strongest opponent.
+         */
+        private void relativeEvals(int[] out) {
+            eval.evaluateSeats(game, evals);
+            for (int s = 0; s < players; s++) {
+                int strongest = -INFINITY;
+                for (int o = 0; o < players; o++) {
+                    if (o != s) {
+                        strongest = Math.max(strongest, evals[o]);
+                    }
+                }
+                out[s] = evals[s] - strongest;
+            }
+        }
+
+        /**
+         * Sort {@code order[ply]} so the hash move comes first, then buys by
+         * points, takes, reserves. Helper threads break ties at random.
+         */
+        private void orderMoves(int ply, int n, int hashMove) {
+            int[] m = moves[ply];
+            int[] idx = order[ply];
+            long[] scored = scratchScores;
+            for (int i = 0; i < n; i++) {
+                int score = m[i] == hashMove ? 1 << 20 : staticScore(m[i]);
+                if (id > 0) {
+                    score += jitter.nextInt(64);
+                }
+                scored[i] = ((long) score << 32) | i;
+            }
+            // Insertion sort, highest score first; n is at most MAX_MOVES.
+            for (int i = 1; i < n; i++) {
+                long v = scored[i];
+                int j = i - 1;
+                while (j >= 0 && scored[j] < v) {
+                    scored[j + 1] = scored[j];
+                    j--;
+                }
+                scored[j + 1] = v;
+            }
+            for (int i = 0; i < n; i++) {
+                idx[i] = (int) scored[i];
+            }
+        }
+
+        private int staticScore(int move) {
+            return switch (MoveCodec.type(move)) {
+                case BUY_CARD -> 10_000 + 1000 * buyPoints(move);
+                case TAKE_TOKENS -> isTakeTwo(move) ? 400 : 500;
+                case RESERVE_CARD -> MoveCodec.flag(move) ? 50 : 200;
+                default -> 0;
+            };
+        }
+
+        private boolean isTakeTwo(int move) {
+            for (int c = 0; c < MoveGenerator.COLORS.length; c++) {
+                if (MoveCodec.count(move, MoveGenerator.COLORS[c]) == 2) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int buyPoints(int move) {
+            int index = MoveCodec.index(move);
+            if (MoveCodec.flag(move)) {
+                return game.getCurrentPlayer().getReservedCards().get(index).getPrestigePoints();
+            }
+            return game.getState().getBoard().getFaceUpCard(MoveCodec.level(move), index).getPrestigePoints();
+        }
+    }
+
+    /**
+     * Scores near a win are stored relative to the node so they stay
+     * correct when the position is reached at another ply.
+     */
+    private static int toTable(int value, int ply) {
+        if (value > WIN - MAX_PLY) {
+            return value + ply;
+        }
+        if (value < -WIN + MAX_PLY) {
+            return value - ply;
+        }
+        return value;
+    }
+
+    private static int fromTable(int value, int ply) {
+        if (value > WIN - MAX_PLY) {
+            return value - ply;
+        }
+        if (value < -WIN + MAX_PLY) {
+            return value + ply;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,49 @@
+package splendor.ai;
+
+import splendor.game.actions.GameAction;
+import splendor.game.engine.Game;
+
+/**
+ * A computer player that chooses main actions for its seat.
+ *
+ * Discards and noble choices are resolved by {@link TurnResolver}; a bot
+ * that also chose a noble reports it through {@link #getNobleIndex()}.
+ */
+public interface Bot {
+
+    /**
+     * Choose the main action for the current player of the given game.
+     *
+     * @return a legal action, or null if the player has no legal move and must pass
+     */
+    GameAction chooseAction(Game game);
+
+    /**
+     * {@link #chooseAction(Game)} within a think-time budget set by the
+     * caller, e.g. a {@link BotScheduler} under load. Bots without a clock
+     * ignore the budget.
+     */
+    default GameAction chooseAction(Game game, long budgetMillis) {
+        return chooseAction(game);
+    }
+
+    /**
+     * The noble to claim after the action last returned by
+     * {@link #chooseAction(Game)}, as an index into
+     * {@link Game#getClaimableNoblesForCurrentPlayer()}, or -1 to take the
+     * first that qualifies. Pass it to
+     * {@link TurnResolver#playTurn(Game, GameAction, int)}.
+     */
+    default int getNobleIndex() {
+        return -1;
+    }
+
+    /**
+     * Notification that a full turn has been played at the table.
+     *
+     * @param move  the main action that was played, or null for a pass
+     * @param after the game after the turn has ended
+     */
+    default void observe(GameAction move, Game after) {
+    }
+}
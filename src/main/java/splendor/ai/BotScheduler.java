@@ -0,0 +1,192 @@
+package splendor.ai;
+
+import splendor.game.actions.GameAction;
+import splendor.game.engine.Game;
+import splendor.util.LatencyHistogram;
+import splendor.util.Metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the move decisions of every bot on a server on one fixed pool of
+ * worker threads, instead of each table searching on threads of its own.
+ *
+ * A table calls {@link #decide}, or {@link #submit} from an event loop;
+ * the request is queued first in, first out on a work-stealing
+ * {@link ForkJoinPool} sized to the cores, so searches never oversubscribe
+ * the CPU. A table has at most one
+ * request queued at a time, so under FIFO order no table can starve the
+ * others.
+ *
+ * Each request gets a think-time budget. A worker is never preempted by
+ * another search, so the budget is in practice CPU time; the CPU time
+ * actually used is recorded. Budgets shrink with load so that queueing
+ * plus thinking stays within the latency objective (SLO):
+ * <ul>
+ *   <li>time already spent in the queue comes off the request's budget;</li>
+ *   <li>with more requests in flight than workers, every budget is scaled
+ *       down in proportion, so the queue drains within the SLO.</li>
+ * </ul>
+ * Budgets never fall below {@link #MIN_BUDGET_MILLIS}, so bots always
+ * search a little.
+ */
+public class BotScheduler {
+
+    public static final long MIN_BUDGET_MILLIS = 20;
+
+    private static final LongAdder DECISIONS = Metrics.counter("bots.decisions");
+    private static final LongAdder SLO_MISSES = Metrics.counter("bots.slo.misses");
+    private static final LongAdder CPU_MICROS = Metrics.counter("bots.cpu.micros");
+    private static final LongAdder BUDGET_CUTS = Metrics.counter("bots.budget.cuts");
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final ForkJoinPool pool;
+    private final int workers;
+    private final long sloMillis;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+
+    /**
+     * @param workers   search threads shared by all tables
+     * @param sloMillis target time from a request to its answer
+     */
+    public BotScheduler(int workers, long sloMillis) {
+        if (workers < 1 || sloMillis < MIN_BUDGET_MILLIS) {
+            throw new IllegalArgumentException("Invalid scheduler settings");
+        }
+        this.workers = workers;
+        this.sloMillis = sloMillis;
+        this.pool = new ForkJoinPool(workers, pool -> {
+            var t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            t.setName("bot-" + t.getPoolIndex());
+            t.setDaemon(true);
+            return t;
+        }, null, true); // async mode: FIFO order
+    }
+
+    /**
+     * A scheduler with `-Dsplendor.bot.pool` workers (default: one per
+     * core) and an SLO of `-Dsplendor.bot.slo` milliseconds (default one
+     * and a half times the bots' think time).
+     */
+    public static BotScheduler fromSystemProperties(long thinkMillis) {
+        int workers = Integer.getInteger("splendor.bot.pool", Runtime.getRuntime().availableProcessors());
+        long slo = Long.getLong("splendor.bot.slo", thinkMillis * 3 / 2);
+        return new BotScheduler(workers, Math.max(MIN_BUDGET_MILLIS, slo));
+    }
+
+    /**
+     * Queue a decision and wait for it. The game must not change until the
+     * call returns.
+     *
+     * @param budgetMillis the most the bot may think; less under load
+     * @return the bot's action, or null for a pass
+     */
+    public GameAction decide(Bot bot, Game game, long budgetMillis) {
+        try {
+            return submit(bot, game, budgetMillis).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a bot", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Queue a decision without waiting, for callers that must not block
+     * such as event loops. The game must not change until the future
+     * completes; it completes on a worker thread.
+     */
+    public CompletableFuture<GameAction> submit(Bot bot, Game game, long budgetMillis) {
+        long submitted = System.nanoTime();
+        CompletableFuture<GameAction> result = new CompletableFuture<>();
+        inFlight.incrementAndGet();
+        try {
+            pool.execute(() -> {
+                try {
+                    result.complete(run(bot, game, budgetMillis, submitted));
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private GameAction run(Bot bot, Game game, long budgetMillis, long submitted) {
+        long started = System.nanoTime();
+        queueWait.recordNanos(started - submitted);
+        long budget = budgetFor(budgetMillis, (started - submitted) / 1_000_000);
+        if (budget < budgetMillis) {
+            BUDGET_CUTS.increment();
+        }
+        long cpu = cpuNanos();
+        try {
+            return bot.chooseAction(game, budget);
+        } finally {
+            if (cpu >= 0) {
+                CPU_MICROS.add((cpuNanos() - cpu) / 1000);
+            }
+            long total = System.nanoTime() - submitted;
+            latency.recordNanos(total);
+            if (total > sloMillis * 1_000_000L) {
+                SLO_MISSES.increment();
+            }
+            DECISIONS.increment();
+        }
+    }
+
+    /**
+     * The budget for a request that waited {@code waitedMillis} in the
+     * queue, given the requests currently in flight.
+     */
+    long budgetFor(long requestedMillis, long waitedMillis) {
+        long target = sloMillis - sloMillis / 10; // headroom for searches that overrun their deadline
+        long budget = Math.min(requestedMillis, target - waitedMillis);
+        int load = inFlight.get();
+        if (load > workers) {
+            budget = Math.min(budget, target * workers / load);
+        }
+        return Math.max(MIN_BUDGET_MILLIS, budget);
+    }
+
+    private static long cpuNanos() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    public long getSloMillis() {
+        return sloMillis;
+    }
+
+    /**
+     * Request-to-answer latency of every decision so far.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
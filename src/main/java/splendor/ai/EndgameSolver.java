@@ -0,0 +1,344 @@
+package splendor.ai;
+
+import splendor.game.actions.ActionType;
+import splendor.game.actions.MoveCodec;
+import splendor.game.engine.Game;
+import splendor.game.engine.TurnUndo;
+import splendor.model.CardCatalog;
+import splendor.model.Noble;
+import splendor.model.Player;
+import splendor.util.Metrics;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exact solver for the final round.
+ *
+ * Once the final round is triggered every remaining seat has at most one
+ * turn left, so the whole rest of the game can be enumerated. Only prestige
+ * points and purchased-card counts decide the winner, so the solver keeps
+ * the moves that can change them: every buy (with every choice of noble it
+ * qualifies for), every reserve from the market (it can take a card from a
+ * later player), every reserve from a deck while a later seat still moves
+ * (it changes which card refills the market after a later buy), and one
+ * representative of the remaining moves, which cannot affect the result.
+ * Each seat is assumed to play against the seat
+ * to move, so a reported win is guaranteed. Positions are memoized by
+ * {@link PositionKey}.
+ *
+ * {@link #solve(Game)} is exact for the game as given, including its deck
+ * order and hidden reserves. Bots use {@link #chooseMove(Game, Random)},
+ * which solves once when no later seat can act on hidden information and
+ * otherwise sums the values over several determinizations.
+ */
+public class EndgameSolver {
+
+    static final int WIN = 1_000_000;
+    private static final int SAMPLES = 8;
+    private static final int MAX_TURNS = CardCatalog.MAX_PLAYERS;
+
+    private static final LongAdder SOLVES = Metrics.counter("endgame.solves");
+    private static final LongAdder NODES = Metrics.counter("endgame.nodes");
+
+    private final MoveGenerator generator = new MoveGenerator();
+    private final HashMap<Long, Integer> memo = new HashMap<>();
+    private final int[][] moves = new int[MAX_TURNS][MoveGenerator.MAX_MOVES];
+    private final TurnUndo[] undos = new TurnUndo[MAX_TURNS];
+    private final int[] rootMoves = new int[MoveGenerator.MAX_MOVES * (CardCatalog.MAX_PLAYERS + 1)];
+    private final int[] rootNobles = new int[MoveGenerator.MAX_MOVES * (CardCatalog.MAX_PLAYERS + 1)];
+    private final long[] rootTotals = new long[MoveGenerator.MAX_MOVES * (CardCatalog.MAX_PLAYERS + 1)];
+    private final TurnUndo probe = new TurnUndo();
+    private Game scratch;
+    private Game sample;
+    private int seat;
+
+    public EndgameSolver() {
+        for (int i = 0; i < MAX_TURNS; i++) {
+            undos[i] = new TurnUndo();
+        }
+    }
+
+    /**
+     * True if the game is in its final round and the solver can decide the move.
+     */
+    public static boolean applies(Game game) {
+        return game.isFinalRoundTriggered() && !game.isGameOver();
+    }
+
+    /**
+     * The result of solving a position for the player to move.
+     */
+    public static final class Result {
+        private final int move;
+        private final int nobleIndex;
+        private final int value;
+
+        Result(int move, int nobleIndex, int value) {
+            this.move = move;
+            this.nobleIndex = nobleIndex;
+            this.value = value;
+        }
+
+        /**
+         * The best main action, or {@link MoveCodec#NONE} if the player must pass.
+         */
+        public int getMove() {
+            return move;
+        }
+
+        /**
+         * Index into {@link Game#getClaimableNoblesForCurrentPlayer()} of the
+         * noble to take after the move, or -1 if none can be claimed.
+         */
+        public int getNobleIndex() {
+            return nobleIndex;
+        }
+
+        /**
+         * True if the move wins whatever the other seats do.
+         */
+        public boolean isForcedWin() {
+            return value >= WIN / 2;
+        }
+
+        /**
+         * Points ahead of the strongest opponent at the end of the game,
+         * under best play against the player to move.
+         */
+        public int getMargin() {
+            return isForcedWin() ? value - WIN : value;
+        }
+    }
+
+    /**
+     * Solve the position exactly as given.
+     *
+     * @throws IllegalArgumentException if the final round has not started
+     */
+    public Result solve(Game game) {
+        if (!applies(game)) {
+            throw new IllegalArgumentException("The final round has not started");
+        }
+        prepare(game);
+        int count = collectRootMoves();
+        solveRoot(count);
+        int best = bestRoot(count);
+        return new Result(rootMoves[best], rootNobles[best], (int) rootTotals[best]);
+    }
+
+    /**
+     * The best move and noble for the player to move, using only what that
+     * player can see. The value is summed over the determinizations, so
+     * only the move and noble are meaningful.
+     */
+    public Result chooseMove(Game game, Random rng) {
+        if (!applies(game)) {
+            throw new IllegalArgumentException("The final round has not started");
+        }
+        if (!sameShape(sample, game)) {
+            sample = game.copy();
+        }
+        int mover = game.getCurrentPlayerIndex();
+        // The last seat of the round is followed by nobody, so hidden cards cannot matter.
+        boolean lastToMove = (mover + 1) % game.getState().getPlayers().size() == 0;
+        int samples = lastToMove ? 1 : SAMPLES;
+        int count = 0;
+        for (int s = 0; s < samples; s++) {
+            sample.copyFrom(game);
+            sample.getState().determinize(mover, rng);
+            prepare(sample);
+            if (s == 0) {
+                count = collectRootMoves();
+            }
+            solveRoot(count);
+        }
+        int best = bestRoot(count);
+        return new Result(rootMoves[best], rootNobles[best], (int) (rootTotals[best] / samples));
+    }
+
+    private void prepare(Game game) {
+        if (!sameShape(scratch, game)) {
+            scratch = game.copy();
+        } else {
+            scratch.copyFrom(game);
+        }
+        seat = scratch.getCurrentPlayerIndex();
+    }
+
+    /**
+     * True if {@code target} can be overwritten with {@code game}; the
+     * solver is reused across tables of different sizes.
+     */
+    private static boolean sameShape(Game target, Game game) {
+        return target != null && target.getState().getPlayers().size() == game.getState().getPlayers().size();
+    }
+
+    /**
+     * Fill {@link #rootMoves} and {@link #rootNobles} with every (move,
+     * noble choice) pair at the root and zero their totals. A player with
+     * no move gets a single pass.
+     */
+    private int collectRootMoves() {
+        int n = relevantMoves(0);
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int move = moves[0][i];
+            int nobles = nobleChoices(move);
+            for (int k = 0; k < Math.max(1, nobles); k++) {
+                rootMoves[count] = move;
+                rootNobles[count] = nobles == 0 ? -1 : k;
+                rootTotals[count] = 0;
+                count++;
+            }
+        }
+        if (count == 0) {
+            rootMoves[0] = MoveCodec.NONE;
+            rootNobles[0] = -1;
+            rootTotals[0] = 0;
+            count = 1;
+        }
+        return count;
+    }
+
+    private void solveRoot(int count) {
+        memo.clear();
+        SOLVES.increment();
+        for (int i = 0; i < count; i++) {
+            if (rootMoves[i] != MoveCodec.NONE && !scratch.validateAction(rootMoves[i]).isValid()) {
+                // Not legal in this determinization (e.g. a hidden reserve differs); never choose it.
+                rootTotals[i] -= WIN;
+                continue;
+            }
+            play(rootMoves[i], rootNobles[i], 0);
+            rootTotals[i] += value(1);
+            scratch.undoTurn(undos[0]);
+        }
+    }
+
+    private int bestRoot(int count) {
+        int best = 0;
+        for (int i = 1; i < count; i++) {
+            if (rootTotals[i] > rootTotals[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Value for {@link #seat} of the scratch position, every other seat
+     * minimizing it.
+     */
+    private int value(int ply) {
+        NODES.increment();
+        if (scratch.isGameOver()) {
+            return outcome();
+        }
+        long key = PositionKey.of(scratch);
+        Integer cached = memo.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        boolean maximizing = scratch.getCurrentPlayerIndex() == seat;
+        int best = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int n = relevantMoves(ply);
+        if (n == 0) {
+            play(MoveCodec.NONE, -1, ply);
+            best = value(ply + 1);
+            scratch.undoTurn(undos[ply]);
+        }
+        for (int i = 0; i < n; i++) {
+            int move = moves[ply][i];
+            int nobles = nobleChoices(move);
+            for (int k = 0; k < Math.max(1, nobles); k++) {
+                play(move, nobles == 0 ? -1 : k, ply);
+                int v = value(ply + 1);
+                scratch.undoTurn(undos[ply]);
+                best = maximizing ? Math.max(best, v) : Math.min(best, v);
+            }
+        }
+        memo.put(key, best);
+        return best;
+    }
+
+    /**
+     * Legal moves that can change the result: buys, market reserves, deck
+     * reserves unless nobody moves after this seat, and one other move, if
+     * any, standing for all moves that cannot.
+     */
+    private int relevantMoves(int ply) {
+        int[] m = moves[ply];
+        int n = generator.generate(scratch, m);
+        boolean laterSeats = (scratch.getCurrentPlayerIndex() + 1) % scratch.getState().getPlayers().size() != 0;
+        int kept = 0;
+        int quiet = MoveCodec.NONE;
+        for (int i = 0; i < n; i++) {
+            int move = m[i];
+            boolean relevant = MoveCodec.type(move) == ActionType.BUY_CARD
+                    || (MoveCodec.type(move) == ActionType.RESERVE_CARD && (!MoveCodec.flag(move) || laterSeats));
+            if (relevant) {
+                m[kept++] = move;
+            } else if (quiet == MoveCodec.NONE) {
+                quiet = move;
+            }
+        }
+        if (quiet != MoveCodec.NONE) {
+            m[kept++] = quiet;
+        }
+        return kept;
+    }
+
+    /**
+     * Number of nobles the mover could choose between after the move.
+     */
+    private int nobleChoices(int move) {
+        if (MoveCodec.type(move) != ActionType.BUY_CARD) {
+            return 0;
+        }
+        probe.clear();
+        scratch.applyAction(move, probe);
+        int count = scratch.getClaimableNoblesForCurrentPlayer().size();
+        scratch.undoTurn(probe);
+        return count;
+    }
+
+    /**
+     * Play a whole turn, claiming the given noble (index into the claimable
+     * list) after a buy.
+     */
+    private void play(int move, int nobleIndex, int ply) {
+        TurnUndo undo = undos[ply];
+        undo.clear();
+        if (move != MoveCodec.NONE) {
+            scratch.applyAction(move, undo);
+            if (scratch.isTokenLimitExceededForCurrentPlayer()) {
+                scratch.applyAction(TurnResolver.chooseDiscardMove(scratch.getCurrentPlayer()), undo);
+            }
+            if (nobleIndex >= 0) {
+                List<Noble> claimable = scratch.getClaimableNoblesForCurrentPlayer();
+                scratch.claimNoble(claimable.get(nobleIndex), undo);
+            }
+        }
+        scratch.endTurn(undo);
+    }
+
+    /**
+     * {@link #WIN} if {@link #seat} won, plus its lead (or minus its
+     * deficit) in points over the best other seat.
+     */
+    private int outcome() {
+        List<Player> players = scratch.getState().getPlayers();
+        Player me = players.get(seat);
+        int bestOther = Integer.MIN_VALUE;
+        for (int s = 0; s < players.size(); s++) {
+            if (s != seat) {
+                bestOther = Math.max(bestOther, players.get(s).getPrestigePoints());
+            }
+        }
+        int margin = me.getPrestigePoints() - bestOther;
+        return scratch.determineWinner() == me ? WIN + margin : margin;
+    }
+}
@@ -0,0 +1,38 @@
+package splendor.ai;
+
+import splendor.game.engine.Game;
+
+/**
+ * Static evaluation of a position for tree search.
+ *
+ * Values are in hundredths of a prestige point, so 100 means "as good as
+ * one more point". Searches compare values of different seats, so an
+ * implementation must use the same scale for every seat.
+ */
+public interface Evaluator {
+
+    /**
+     * How good the position is for the given seat, ignoring the other
+     * seats. Must not modify the game.
+     */
+    int evaluate(Game game, int seat);
+
+    /**
+     * {@link #evaluate} for every seat, into {@code out[0 .. players)}.
+     * Learned evaluators override this to score the seats as one batch.
+     */
+    default void evaluateSeats(Game game, int[] out) {
+        int players = game.getState().getPlayers().size();
+        for (int s = 0; s < players; s++) {
+            out[s] = evaluate(game, s);
+        }
+    }
+
+    /**
+     * An evaluator that may be used on one more thread alongside this one.
+     * Stateless evaluators return themselves.
+     */
+    default Evaluator forThread() {
+        return this;
+    }
+}
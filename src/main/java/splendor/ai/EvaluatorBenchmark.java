@@ -0,0 +1,64 @@
+package splendor.ai;
+
+import splendor.game.engine.Game;
+import splendor.game.engine.StandardGameFactory;
+import splendor.model.CardCatalog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Leaf-evaluation throughput of the heuristic, the default linear model
+ * and a random MLP on positions from random play, all seats of a leaf
+ * scored per call as in search.
+ *
+ * Usage: `java splendor.ai.EvaluatorBenchmark [seconds] [hidden]`
+ */
+public class EvaluatorBenchmark {
+
+    public static void main(String[] args) {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int hidden = args.length > 1 ? Integer.parseInt(args[1]) : MlpModel.DEFAULT_HIDDEN;
+        Random rng = new Random(1);
+        List<Game> positions = samplePositions(256, rng);
+        Evaluator[] evaluators = {
+                new HeuristicEvaluator(),
+                new ModelEvaluator(LinearModel.defaults()),
+                new ModelEvaluator(MlpModel.random(hidden, rng))
+        };
+        String[] names = {"heuristic", "linear", "mlp-" + hidden};
+        int[] out = new int[CardCatalog.MAX_PLAYERS];
+        for (int e = 0; e < evaluators.length; e++) {
+            long sink = 0;
+            long leaves = 0;
+            long start = System.nanoTime();
+            long end = start + seconds * 1_000_000_000L;
+            while (System.nanoTime() < end) {
+                for (Game g : positions) {
+                    evaluators[e].evaluateSeats(g, out);
+                    sink += out[0];
+                    leaves++;
+                }
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-10s %,.0f leaves/s (all seats per leaf) [%d]%n", names[e], leaves / elapsed, sink & 1);
+        }
+    }
+
+    private static List<Game> samplePositions(int count, Random rng) {
+        MoveGenerator generator = new MoveGenerator();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        List<Game> positions = new ArrayList<>();
+        while (positions.size() < count) {
+            Game game = StandardGameFactory.createGame(List.of("A", "B", "C"), CardCatalog.standard());
+            int turns = rng.nextInt(60);
+            for (int t = 0; t < turns && !game.isGameOver(); t++) {
+                int n = generator.generate(game, moves);
+                TurnResolver.playTurn(game, n == 0 ? 0 : moves[rng.nextInt(n)]);
+            }
+            positions.add(game);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,195 @@
+package splendor.ai;
+
+import splendor.game.engine.Game;
+import splendor.model.Board;
+import splendor.model.Card;
+import splendor.model.GemType;
+import splendor.model.Noble;
+import splendor.model.Player;
+import splendor.model.TokenPool;
+
+import java.util.List;
+
+/**
+ * Turns a position into a fixed-length float vector for learned
+ * evaluators, seen from one seat: that seat first, the others in turn
+ * order after it, empty seats zero. Values are scaled to roughly 0..1.
+ *
+ * Layout ({@link #FEATURES} floats):
+ * <pre>
+ * supply tokens (6), final round
+ * per seat (4 x 17): present, points, tokens (6), bonuses (5), reserved,
+ *                    purchased, nearest noble distance, affordable market cards
+ * per noble slot (5 x 2): bonuses missing for this seat, for the closest opponent
+ * per market slot (12 x 3): points, this seat's shortfall, closest opponent's shortfall
+ * </pre>
+ * The per-player numbers (noble distances, shortfalls) are computed once
+ * per position and shared by every seat's row. Writes into caller-owned
+ * arrays and does not allocate; an instance is not thread-safe.
+ */
+public final class FeatureExtractor {
+
+    private static final int SEATS = 4;
+    private static final int MAX_NOBLES = SEATS + 1;
+    private static final int MARKET_SLOTS = 3 * Board.FACE_UP_PER_LEVEL;
+    private static final int SEAT_FEATURES = 17;
+    private static final int FAR = 10;
+    private static final GemType[] GEMS = GemType.values();
+
+    public static final int FEATURES = GEMS.length + 1 + SEATS * SEAT_FEATURES + MAX_NOBLES * 2 + MARKET_SLOTS * 3;
+
+    private final int[][] nobleDistance = new int[SEATS][MAX_NOBLES];
+    private final int[][] shortfall = new int[SEATS][MARKET_SLOTS];
+    private final int[] nearestNoble = new int[SEATS];
+    private final int[] affordable = new int[SEATS];
+    private final float[] cardPoints = new float[MARKET_SLOTS];
+    private final boolean[] slotFilled = new boolean[MARKET_SLOTS];
+    private int nobleCount;
+
+    /**
+     * Write the features of {@code game} for {@code seat} at
+     * {@code out[offset .. offset + FEATURES)}.
+     */
+    public void extract(Game game, int seat, float[] out, int offset) {
+        prepare(game);
+        write(game, seat, out, offset);
+    }
+
+    /**
+     * Write one row per seat, seat {@code s} at {@code out[s * FEATURES]}.
+     */
+    public void extractSeats(Game game, float[] out) {
+        prepare(game);
+        int players = game.getState().getPlayers().size();
+        for (int s = 0; s < players; s++) {
+            write(game, s, out, s * FEATURES);
+        }
+    }
+
+    private void prepare(Game game) {
+        Board board = game.getState().getBoard();
+        List<Player> players = game.getState().getPlayers();
+        List<Noble> nobles = board.getNobles();
+        nobleCount = Math.min(MAX_NOBLES, nobles.size());
+        for (int k = 0; k < MARKET_SLOTS; k++) {
+            Card card = board.getFaceUpCard(1 + k / Board.FACE_UP_PER_LEVEL, k % Board.FACE_UP_PER_LEVEL);
+            slotFilled[k] = card != null;
+            cardPoints[k] = card != null ? card.getPrestigePoints() / 5f : 0f;
+        }
+        for (int p = 0; p < players.size(); p++) {
+            Player player = players.get(p);
+            int nearest = FAR;
+            for (int k = 0; k < nobleCount; k++) {
+                int d = distance(player, nobles.get(k));
+                nobleDistance[p][k] = d;
+                nearest = Math.min(nearest, d);
+            }
+            nearestNoble[p] = nearest;
+            int count = 0;
+            for (int k = 0; k < MARKET_SLOTS; k++) {
+                if (slotFilled[k]) {
+                    int s = shortfall(player,
+                            board.getFaceUpCard(1 + k / Board.FACE_UP_PER_LEVEL, k % Board.FACE_UP_PER_LEVEL));
+                    shortfall[p][k] = Math.min(FAR, s);
+                    if (s == 0) {
+                        count++;
+                    }
+                }
+            }
+            affordable[p] = count;
+        }
+    }
+
+    private void write(Game game, int seat, float[] out, int offset) {
+        int o = offset;
+        List<Player> players = game.getState().getPlayers();
+        int n = players.size();
+
+        TokenPool supply = game.getState().getBoard().getSupplyTokens();
+        for (GemType g : GEMS) {
+            out[o++] = supply.get(g) / 7f;
+        }
+        out[o++] = game.isFinalRoundTriggered() ? 1f : 0f;
+
+        for (int k = 0; k < SEATS; k++) {
+            if (k >= n) {
+                for (int i = 0; i < SEAT_FEATURES; i++) {
+                    out[o++] = 0f;
+                }
+                continue;
+            }
+            int s = (seat + k) % n;
+            Player p = players.get(s);
+            TokenPool tokens = p.getTokens();
+            out[o++] = 1f;
+            out[o++] = p.getPrestigePoints() / 15f;
+            for (GemType g : GEMS) {
+                out[o++] = tokens.get(g) / 7f;
+            }
+            for (GemType c : MoveGenerator.COLORS) {
+                out[o++] = p.getBonus(c) / 7f;
+            }
+            out[o++] = p.getReservedCards().size() / 3f;
+            out[o++] = p.getPurchasedCards().size() / 20f;
+            out[o++] = nearestNoble[s] / (float) FAR;
+            out[o++] = affordable[s] / (float) MARKET_SLOTS;
+        }
+
+        for (int k = 0; k < MAX_NOBLES; k++) {
+            if (k >= nobleCount) {
+                out[o++] = 0f;
+                out[o++] = 0f;
+                continue;
+            }
+            int closest = FAR;
+            for (int s = 0; s < n; s++) {
+                if (s != seat) {
+                    closest = Math.min(closest, nobleDistance[s][k]);
+                }
+            }
+            out[o++] = nobleDistance[seat][k] / (float) FAR;
+            out[o++] = closest / (float) FAR;
+        }
+
+        for (int k = 0; k < MARKET_SLOTS; k++) {
+            if (!slotFilled[k]) {
+                out[o++] = 0f;
+                out[o++] = 1f;
+                out[o++] = 1f;
+                continue;
+            }
+            int closest = FAR;
+            for (int s = 0; s < n; s++) {
+                if (s != seat) {
+                    closest = Math.min(closest, shortfall[s][k]);
+                }
+            }
+            out[o++] = cardPoints[k];
+            out[o++] = shortfall[seat][k] / (float) FAR;
+            out[o++] = closest / (float) FAR;
+        }
+    }
+
+    /**
+     * Bonuses the player still needs for the noble.
+     */
+    static int distance(Player p, Noble noble) {
+        int missing = 0;
+        for (GemType c : MoveGenerator.COLORS) {
+            missing += Math.max(0, noble.getRequirement(c) - p.getBonus(c));
+        }
+        return missing;
+    }
+
+    /**
+     * Tokens the player is short of buying the card, after bonuses and gold.
+     */
+    static int shortfall(Player p, Card card) {
+        TokenPool tokens = p.getTokens();
+        int missing = 0;
+        for (GemType c : MoveGenerator.COLORS) {
+            missing += Math.max(0, card.getCost(c) - p.getBonus(c) - tokens.get(c));
+        }
+        return Math.max(0, missing - tokens.get(GemType.GOLD));
+    }
+}
@@ -0,0 +1,61 @@
+package splendor.ai;
+
+import splendor.game.engine.Game;
+import splendor.model.Card;
+import splendor.model.GemType;
+import splendor.model.Noble;
+import splendor.model.Player;
+import splendor.model.TokenPool;
+
+import java.util.List;
+
+/**
+ * Hand-tuned {@link Evaluator}: points, plus the value of bonuses, tokens,
+ * progress towards the nobles still on the board and how close the
+ * player is to affording each reserved card.
+ */
+public class HeuristicEvaluator implements Evaluator {
+
+    private static final int POINT = 100;
+    private static final int BONUS = 30;
+    private static final int TOKEN = 10;
+    private static final int GOLD = 15;
+    private static final int NOBLE_STEP = 20;      // per bonus short of a noble, up to NOBLE_RANGE
+    private static final int NOBLE_RANGE = 4;
+    private static final int AFFORDABLE_RESERVE = 20;
+
+    @Override
+    public int evaluate(Game game, int seat) {
+        Player player = game.getState().getPlayers().get(seat);
+        TokenPool tokens = player.getTokens();
+        int score = player.getPrestigePoints() * POINT;
+        for (GemType color : MoveGenerator.COLORS) {
+            score += player.getBonus(color) * BONUS + tokens.get(color) * TOKEN;
+        }
+        score += tokens.get(GemType.GOLD) * GOLD;
+
+        List<Noble> nobles = game.getState().getBoard().getNobles();
+        for (int i = 0; i < nobles.size(); i++) {
+            Noble noble = nobles.get(i);
+            int missing = 0;
+            for (GemType color : MoveGenerator.COLORS) {
+                missing += Math.max(0, noble.getRequirement(color) - player.getBonus(color));
+            }
+            if (missing < NOBLE_RANGE) {
+                score += (NOBLE_RANGE - missing) * NOBLE_STEP;
+            }
+        }
+
+        List<Card> reserved = player.getReservedCards();
+        for (int i = 0; i < reserved.size(); i++) {
+            Card card = reserved.get(i);
+            int shortfall = -tokens.get(GemType.GOLD);
+            for (GemType color : MoveGenerator.COLORS) {
+                shortfall += Math.max(0, card.getCost(color) - player.getBonus(color) - tokens.get(color));
+            }
+            int worth = card.getPrestigePoints() * POINT / 2 + AFFORDABLE_RESERVE;
+            score += shortfall <= 0 ? worth : worth / (1 + shortfall);
+        }
+        return score;
+    }
+}
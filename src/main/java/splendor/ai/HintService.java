@@ -0,0 +1,118 @@
+package splendor.ai;
+
+import splendor.game.engine.Game;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * On-demand move hints for human players.
+ *
+ * Each distinct position is analyzed once by a time-boxed background search
+ * and the result is cached by {@link PositionKey}, so asking again for the
+ * same position (or a different top-k) is free. Callers may
+ * {@link #prefetch(Game)} as soon as a turn starts so the first request is
+ * already answered.
+ */
+public class HintService {
+
+    public static final int MAX_HINTS = 5;
+
+    private static final long DEFAULT_SEARCH_MILLIS = 1500;
+    private static final int CACHE_SIZE = 256;
+
+    private final long searchMillis;
+    private final ExecutorService executor;
+    private final Map<Long, CompletableFuture<List<MoveEvaluation>>> cache =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, CompletableFuture<List<MoveEvaluation>>> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+
+    public HintService() {
+        this(DEFAULT_SEARCH_MILLIS, 1);
+    }
+
+    public HintService(long searchMillis, int threads) {
+        this.searchMillis = searchMillis;
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "hint-search");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Start analyzing the position in the background if it is not cached yet.
+     */
+    public CompletableFuture<List<MoveEvaluation>> prefetch(Game game) {
+        long key = PositionKey.of(game);
+        synchronized (cache) {
+            CompletableFuture<List<MoveEvaluation>> cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            Game snapshot = game.copy();
+            MctsBot analyst = new MctsBot(snapshot.getCurrentPlayerIndex(), searchMillis, 1_000_000, new Random());
+            CompletableFuture<List<MoveEvaluation>> future =
+                    CompletableFuture.supplyAsync(() -> analyst.analyze(snapshot, MAX_HINTS), executor);
+            cache.put(key, future);
+            return future;
+        }
+    }
+
+    /**
+     * Return up to topK hints for the player to move, waiting for the
+     * background search if it is still running.
+     */
+    public List<MoveEvaluation> getHints(Game game, int topK) {
+        CompletableFuture<List<MoveEvaluation>> future = prefetch(game);
+        try {
+            List<MoveEvaluation> hints = future.get(searchMillis * 4, TimeUnit.MILLISECONDS);
+            return hints.subList(0, Math.min(topK, hints.size()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        } catch (ExecutionException e) {
+            // Do not cache failures; the next request retries.
+            synchronized (cache) {
+                cache.remove(PositionKey.of(game), future);
+            }
+            return List.of();
+        } catch (TimeoutException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Non-blocking form of {@link #getHints}: completes with the hints, or
+     * with an empty list if the search fails or takes too long.
+     */
+    public CompletableFuture<List<MoveEvaluation>> requestHints(Game game, int topK) {
+        CompletableFuture<List<MoveEvaluation>> future = prefetch(game);
+        long key = PositionKey.of(game);
+        return future
+                .thenApply(hints -> hints.subList(0, Math.min(topK, hints.size())))
+                .exceptionally(e -> {
+                    synchronized (cache) {
+                        cache.remove(key, future);
+                    }
+                    return List.of();
+                })
+                .completeOnTimeout(List.of(), searchMillis * 4, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,78 @@
+package splendor.ai;
+
+/**
+ * Linear {@link ValueModel}: a weight per feature plus a bias (the last
+ * parameter).
+ *
+ * Each row is a single-accumulator float dot product. HotSpot does not
+ * reorder floating-point additions, so this loop stays scalar; unlike
+ * {@link MlpModel}'s hidden layer it is not auto-vectorized.
+ */
+public class LinearModel implements ValueModel {
+
+    private final float[] params;
+
+    /**
+     * A model with every weight zero.
+     */
+    public LinearModel() {
+        this(new float[FeatureExtractor.FEATURES + 1]);
+    }
+
+    public LinearModel(float[] params) {
+        if (params.length != FeatureExtractor.FEATURES + 1) {
+            throw new IllegalArgumentException("Expected " + (FeatureExtractor.FEATURES + 1)
+                    + " parameters, got " + params.length);
+        }
+        this.params = params;
+    }
+
+    /**
+     * Starting weights close to {@link HeuristicEvaluator}: points, bonuses
+     * and tokens for this seat, the same negated for the next seat, and a
+     * little for nobles and affordable cards.
+     */
+    public static LinearModel defaults() {
+        float[] w = new float[FeatureExtractor.FEATURES + 1];
+        int seat = 7; // after supply and final-round flag
+        for (int k = 0; k < 2; k++) {
+            float sign = k == 0 ? 1f : -1f;
+            int o = seat + k * 17;
+            w[o + 1] = sign * 15f;        // points (scaled by 1/15)
+            for (int t = 0; t < 5; t++) {
+                w[o + 2 + t] = sign * 0.7f;  // colored tokens (scaled by 1/7)
+            }
+            w[o + 7] = sign * 1.05f;      // gold
+            for (int b = 0; b < 5; b++) {
+                w[o + 8 + b] = sign * 2.1f;  // bonuses
+            }
+            w[o + 15] = sign * -0.8f;     // nearest noble distance
+            w[o + 16] = sign * 1.2f;      // affordable market cards
+        }
+        return new LinearModel(w);
+    }
+
+    @Override
+    public void predict(float[] features, int count, float[] out) {
+        int f = FeatureExtractor.FEATURES;
+        float bias = params[f];
+        for (int r = 0; r < count; r++) {
+            int base = r * f;
+            float sum = 0f;
+            for (int i = 0; i < f; i++) {
+                sum += features[base + i] * params[i];
+            }
+            out[r] = sum + bias;
+        }
+    }
+
+    @Override
+    public float[] parameters() {
+        return params;
+    }
+
+    @Override
+    public LinearModel copy() {
+        return new LinearModel(params.clone());
+    }
+}
@@ -0,0 +1,451 @@
+package splendor.ai;
+
+import splendor.game.actions.ActionType;
+import splendor.game.actions.GameAction;
+import splendor.game.actions.MoveCodec;
+import splendor.game.engine.Game;
+import splendor.model.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Information-set Monte Carlo tree search bot.
+ *
+ * Every iteration copies the real position into a preallocated scratch game,
+ * determinizes the information hidden from this bot's seat, and then descends
+ * the shared tree using only moves legal in that determinization.
+ *
+ * The tree is kept between turns: {@link #observe} moves the root to the
+ * subtree of the move actually played, so work done while pondering on the
+ * opponents' turns carries over to this bot's own decision.
+ *
+ * Moves in the final round come from the exact {@link EndgameSolver}.
+ */
+public class MctsBot implements Bot {
+
+    private static final double EXPLORATION = 0.7;
+    private static final int MAX_PLAYOUT_TURNS = 80;
+    private static final int PONDER_SLICE_ITERATIONS = 128;
+    private static final int DEFAULT_MAX_NODES = 500_000;
+    private static final int PV_LENGTH = 4;
+
+    private final int seat;
+    private final long thinkMillis;
+    private final int maxNodes;
+    private final Random rng;
+    private final MoveGenerator generator = new MoveGenerator();
+    private final EndgameSolver endgame = new EndgameSolver();
+    private final Object lock = new Object();
+
+    private Game rootGame;
+    private Game scratch;
+    private final int[] moveBuffer = new int[MoveGenerator.MAX_MOVES];
+    private Node root = new Node(MoveCodec.NONE, -1);
+    private int nodeCount = 1;
+    private int nobleIndex = -1;
+
+    private volatile boolean pondering;
+    private Executor ponderPool;
+
+    public MctsBot(int seat, long thinkMillis) {
+        this(seat, thinkMillis, DEFAULT_MAX_NODES, new Random());
+    }
+
+    public MctsBot(int seat, long thinkMillis, int maxNodes, Random rng) {
+        this.seat = seat;
+        this.thinkMillis = thinkMillis;
+        this.maxNodes = maxNodes;
+        this.rng = rng;
+    }
+
+    public int getSeat() {
+        return seat;
+    }
+
+    @Override
+    public GameAction chooseAction(Game game) {
+        return chooseAction(game, thinkMillis);
+    }
+
+    @Override
+    public GameAction chooseAction(Game game, long budgetMillis) {
+        int move = chooseMove(game, budgetMillis);
+        return move != MoveCodec.NONE ? MoveCodec.decode(move) : null;
+    }
+
+    /**
+     * The endgame solver's noble for the last move chosen, else -1.
+     */
+    @Override
+    public int getNobleIndex() {
+        return nobleIndex;
+    }
+
+    /**
+     * Encoded form of {@link #chooseAction(Game)}; returns
+     * {@link MoveCodec#NONE} when the player must pass.
+     */
+    public int chooseMove(Game game) {
+        return chooseMove(game, thinkMillis);
+    }
+
+    /**
+     * {@link #chooseMove(Game)} searching for {@code budgetMillis} instead
+     * of the bot's own think time.
+     */
+    public int chooseMove(Game game, long budgetMillis) {
+        nobleIndex = -1;
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        int count = generator.generate(game, legal);
+        if (count == 0) {
+            return MoveCodec.NONE;
+        }
+        if (count == 1) {
+            return legal[0];
+        }
+        if (EndgameSolver.applies(game)) {
+            EndgameSolver.Result result = endgame.chooseMove(game, rng);
+            nobleIndex = result.getNobleIndex();
+            return result.getMove();
+        }
+        search(game, budgetMillis);
+        synchronized (lock) {
+            int best = legal[0];
+            int bestVisits = -1;
+            for (int i = 0; i < count; i++) {
+                Node child = root.child(legal[i]);
+                int visits = child != null ? child.visits : 0;
+                if (visits > bestVisits) {
+                    bestVisits = visits;
+                    best = legal[i];
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Search the given position for this bot's think time and report the
+     * best moves for the player to move, most visited first.
+     *
+     * @param topK maximum number of moves to report
+     */
+    public List<MoveEvaluation> analyze(Game game, int topK) {
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        int count = generator.generate(game, legal);
+        if (count == 0) {
+            return List.of();
+        }
+        search(game, thinkMillis);
+        synchronized (lock) {
+            List<Node> ranked = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Node child = root.child(legal[i]);
+                if (child != null) {
+                    ranked.add(child);
+                }
+            }
+            ranked.sort((a, b) -> Integer.compare(b.visits, a.visits));
+            List<MoveEvaluation> result = new ArrayList<>();
+            for (int i = 0; i < ranked.size() && i < topK; i++) {
+                Node child = ranked.get(i);
+                List<GameAction> pv = new ArrayList<>();
+                for (Node n = child; n != null && pv.size() < PV_LENGTH; n = n.mostVisitedChild()) {
+                    pv.add(MoveCodec.decode(n.move));
+                }
+                result.add(new MoveEvaluation(MoveCodec.decode(child.move), child.wins / child.visits, child.visits, pv));
+            }
+            return result;
+        }
+    }
+
+    private void search(Game game, long budgetMillis) {
+        long deadline = System.currentTimeMillis() + budgetMillis;
+        synchronized (lock) {
+            syncRoot(game);
+        }
+        while (System.currentTimeMillis() < deadline) {
+            // Search in short slices so a concurrent ponder task can interleave.
+            synchronized (lock) {
+                for (int i = 0; i < PONDER_SLICE_ITERATIONS && nodeCount < maxNodes; i++) {
+                    iterate();
+                }
+                if (nodeCount >= maxNodes) {
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void observe(GameAction move, Game after) {
+        observe(move != null ? MoveCodec.encode(move) : MoveCodec.NONE, after);
+    }
+
+    /**
+     * Encoded form of {@link #observe(GameAction, Game)}.
+     */
+    public void observe(int move, Game after) {
+        synchronized (lock) {
+            Node child = move != MoveCodec.NONE ? root.child(move) : null;
+            if (child != null) {
+                child.parent = null;
+                root = child;
+                nodeCount = root.subtreeSize();
+            } else {
+                root = new Node(MoveCodec.NONE, -1);
+                nodeCount = 1;
+            }
+            copyRoot(after);
+        }
+    }
+
+    /**
+     * Start searching the current root on the given executor until
+     * {@link #stopPondering()} is called or the node budget is exhausted.
+     *
+     * The work is split into short slices that re-submit themselves, so
+     * several bots sharing one bounded pool take turns fairly.
+     */
+    public void startPondering(Executor pool) {
+        synchronized (lock) {
+            if (pondering || rootGame == null || rootGame.isGameOver()) {
+                return;
+            }
+            ponderPool = pool;
+            pondering = true;
+        }
+        pool.execute(this::ponderSlice);
+    }
+
+    public void stopPondering() {
+        pondering = false;
+    }
+
+    public boolean isPondering() {
+        return pondering;
+    }
+
+    /**
+     * Total visits stored under the current root, i.e. search work that
+     * will be reused for the next decision.
+     */
+    public int getRootVisits() {
+        synchronized (lock) {
+            return root.visits;
+        }
+    }
+
+    private void ponderSlice() {
+        if (!pondering) {
+            return;
+        }
+        synchronized (lock) {
+            for (int i = 0; i < PONDER_SLICE_ITERATIONS && nodeCount < maxNodes; i++) {
+                iterate();
+            }
+            if (nodeCount >= maxNodes) {
+                pondering = false;
+                return;
+            }
+        }
+        if (pondering) {
+            try {
+                ponderPool.execute(this::ponderSlice);
+            } catch (RejectedExecutionException e) {
+                // The table is shutting down.
+                pondering = false;
+            }
+        }
+    }
+
+    private void syncRoot(Game game) {
+        if (rootGame == null) {
+            root = new Node(MoveCodec.NONE, -1);
+            nodeCount = 1;
+        }
+        copyRoot(game);
+    }
+
+    private void copyRoot(Game game) {
+        if (rootGame == null) {
+            rootGame = game.copy();
+            scratch = game.copy();
+        } else {
+            rootGame.copyFrom(game);
+        }
+    }
+
+    private void iterate() {
+        scratch.copyFrom(rootGame);
+        scratch.getState().determinize(seat, rng);
+
+        Node node = root;
+        boolean expanded = false;
+        int passes = 0;
+        while (!scratch.isGameOver() && !expanded) {
+            int[] moves = moveBuffer;
+            int count = generator.generate(scratch, moves);
+            if (count == 0) {
+                // Forced pass: stay on the same node. If nobody can move the
+                // position is dead, so leave it to the bounded playout.
+                if (++passes > scratch.getState().getPlayers().size()) {
+                    break;
+                }
+                TurnResolver.playTurn(scratch, MoveCodec.NONE);
+                continue;
+            }
+            passes = 0;
+            int mover = scratch.getCurrentPlayerIndex();
+            int untried = MoveCodec.NONE;
+            int untriedSeen = 0;
+            Node best = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                Node child = node.child(move);
+                if (child == null) {
+                    untriedSeen++;
+                    if (rng.nextInt(untriedSeen) == 0) {
+                        untried = move;
+                    }
+                    continue;
+                }
+                child.availability++;
+                double score = child.wins / child.visits
+                        + EXPLORATION * Math.sqrt(Math.log(child.availability) / child.visits);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = child;
+                }
+            }
+            if (untried != MoveCodec.NONE && (nodeCount < maxNodes || best == null)) {
+                if (nodeCount < maxNodes) {
+                    best = node.addChild(untried, mover);
+                    nodeCount++;
+                } else {
+                    // Out of node budget: play the move but do not grow the tree.
+                    TurnResolver.playTurn(scratch, untried);
+                    break;
+                }
+                expanded = true;
+            }
+            TurnResolver.playTurn(scratch, best.move);
+            node = best;
+        }
+
+        int winner = playout();
+        for (Node n = node; n != null; n = n.parent) {
+            n.visits++;
+            if (n.mover == winner) {
+                n.wins++;
+            }
+        }
+    }
+
+    /**
+     * Finish the scratch game with a cheap greedy-random policy and return
+     * the winning seat. Unfinished games are scored as if they ended now.
+     */
+    private int playout() {
+        for (int turn = 0; turn < MAX_PLAYOUT_TURNS && !scratch.isGameOver(); turn++) {
+            int count = generator.generate(scratch, moveBuffer);
+            TurnResolver.playTurn(scratch, count == 0 ? MoveCodec.NONE : pickPlayoutMove(moveBuffer, count));
+        }
+        Player winner = scratch.determineWinner();
+        return scratch.getState().getPlayers().indexOf(winner);
+    }
+
+    private int pickPlayoutMove(int[] moves, int count) {
+        if (rng.nextInt(4) != 0) {
+            int bestBuy = MoveCodec.NONE;
+            int bestPoints = -1;
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                if (MoveCodec.type(move) == ActionType.BUY_CARD) {
+                    int points = buyPoints(move);
+                    if (points > bestPoints || (points == bestPoints && rng.nextBoolean())) {
+                        bestPoints = points;
+                        bestBuy = move;
+                    }
+                }
+            }
+            if (bestBuy != MoveCodec.NONE) {
+                return bestBuy;
+            }
+        }
+        return moves[rng.nextInt(count)];
+    }
+
+    private int buyPoints(int move) {
+        Player player = scratch.getCurrentPlayer();
+        int index = MoveCodec.index(move);
+        if (MoveCodec.flag(move)) {
+            return player.getReservedCards().get(index).getPrestigePoints();
+        }
+        return scratch.getState().getBoard().getFaceUpCard(MoveCodec.level(move), index).getPrestigePoints();
+    }
+
+    private static final class Node {
+        final int move;
+        final int mover;
+        Node parent;
+        List<Node> children;
+        int visits;
+        int availability;
+        double wins;
+
+        Node(int move, int mover) {
+            this.move = move;
+            this.mover = mover;
+        }
+
+        Node child(int m) {
+            if (children != null) {
+                for (int i = 0; i < children.size(); i++) {
+                    Node c = children.get(i);
+                    if (c.move == m) {
+                        return c;
+                    }
+                }
+            }
+            return null;
+        }
+
+        Node addChild(int m, int moverIndex) {
+            if (children == null) {
+                children = new ArrayList<>();
+            }
+            Node child = new Node(m, moverIndex);
+            child.parent = this;
+            children.add(child);
+            return child;
+        }
+
+        Node mostVisitedChild() {
+            Node best = null;
+            if (children != null) {
+                for (Node c : children) {
+                    if (best == null || c.visits > best.visits) {
+                        best = c;
+                    }
+                }
+            }
+            return best;
+        }
+
+        int subtreeSize() {
+            int size = 1;
+            if (children != null) {
+                for (Node c : children) {
+                    size += c.subtreeSize();
+                }
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package splendor.ai;
+
+import java.util.Random;
+
+/**
+ * One-hidden-layer perceptron {@link ValueModel} with ReLU units.
+ *
+ * Parameters, in order: input weights stored feature-major
+ * ({@code FEATURES x hidden}), hidden biases, output weights, output bias.
+ * Feature-major input weights let the batch loop add one scaled weight row
+ * per input feature into the hidden layer, a reduction-free loop that
+ * HotSpot vectorizes. It is the only loop of the evaluators that is.
+ */
+public class MlpModel implements ValueModel {
+
+    public static final int DEFAULT_HIDDEN = 32;
+
+    private final int hidden;
+    private final float[] params;
+    private final int hiddenBiasAt;
+    private final int outputAt;
+    private float[] activations = new float[0];
+
+    public MlpModel(int hidden, float[] params) {
+        int expected = parameterCount(hidden);
+        if (hidden < 1 || params.length != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " parameters, got " + params.length);
+        }
+        this.hidden = hidden;
+        this.params = params;
+        this.hiddenBiasAt = FeatureExtractor.FEATURES * hidden;
+        this.outputAt = hiddenBiasAt + hidden;
+    }
+
+    /**
+     * Small random weights (He initialization), ready for training.
+     */
+    public static MlpModel random(int hidden, Random rng) {
+        float[] p = new float[parameterCount(hidden)];
+        float scale = (float) Math.sqrt(2.0 / FeatureExtractor.FEATURES);
+        for (int i = 0; i < FeatureExtractor.FEATURES * hidden; i++) {
+            p[i] = (float) rng.nextGaussian() * scale;
+        }
+        float outScale = (float) Math.sqrt(2.0 / hidden);
+        for (int i = 0; i < hidden; i++) {
+            p[FeatureExtractor.FEATURES * hidden + hidden + i] = (float) rng.nextGaussian() * outScale;
+        }
+        return new MlpModel(hidden, p);
+    }
+
+    public static int parameterCount(int hidden) {
+        return FeatureExtractor.FEATURES * hidden + hidden + hidden + 1;
+    }
+
+    public int getHidden() {
+        return hidden;
+    }
+
+    @Override
+    public void predict(float[] features, int count, float[] out) {
+        int f = FeatureExtractor.FEATURES;
+        int h = hidden;
+        if (activations.length < count * h) {
+            activations = new float[count * h];
+        }
+        float[] act = activations;
+        for (int r = 0; r < count; r++) {
+            int a = r * h;
+            System.arraycopy(params, hiddenBiasAt, act, a, h);
+            int base = r * f;
+            for (int i = 0; i < f; i++) {
+                float x = features[base + i];
+                if (x == 0f) {
+                    continue; // many features are zero (empty seats, slots)
+                }
+                int w = i * h;
+                for (int j = 0; j < h; j++) {
+                    act[a + j] += x * params[w + j];
+                }
+            }
+            for (int j = 0; j < h; j++) {
+                act[a + j] = Math.max(0f, act[a + j]);
+            }
+        }
+        float bias = params[outputAt + h];
+        for (int r = 0; r < count; r++) {
+            int a = r * h;
+            float sum = 0f;
+            for (int j = 0; j < h; j++) {
+                sum += act[a + j] * params[outputAt + j];
+            }
+            out[r] = sum + bias;
+        }
+    }
+
+    @Override
+    public float[] parameters() {
+        return params;
+    }
+
+    @Override
+    public MlpModel copy() {
+        return new MlpModel(hidden, params.clone());
+    }
+
+    @Override
+    public MlpModel view() {
+        return new MlpModel(hidden, params);
+    }
+}
@@ -0,0 +1,131 @@
+package splendor.ai;
+
+import splendor.game.engine.Game;
+import splendor.model.CardCatalog;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link Evaluator} backed by a {@link ValueModel}: features are extracted
+ * into a reusable buffer and all seats of a position are scored as one
+ * batch. Not thread-safe; search threads each take {@link #forThread()}.
+ *
+ * Models are stored as text: a header line (`linear`, or `mlp <hidden>`)
+ * followed by one parameter per line.
+ */
+public class ModelEvaluator implements Evaluator {
+
+    private static final int MAX_SEATS = CardCatalog.MAX_PLAYERS;
+
+    private final ValueModel model;
+    private final FeatureExtractor extractor = new FeatureExtractor();
+    private final float[] features = new float[MAX_SEATS * FeatureExtractor.FEATURES];
+    private final float[] values = new float[MAX_SEATS];
+
+    public ModelEvaluator(ValueModel model) {
+        this.model = model;
+    }
+
+    public ValueModel getModel() {
+        return model;
+    }
+
+    @Override
+    public int evaluate(Game game, int seat) {
+        extractor.extract(game, seat, features, 0);
+        model.predict(features, 1, values);
+        return Math.round(values[0] * 100f);
+    }
+
+    @Override
+    public void evaluateSeats(Game game, int[] out) {
+        int players = game.getState().getPlayers().size();
+        extractor.extractSeats(game, features);
+        model.predict(features, players, values);
+        for (int s = 0; s < players; s++) {
+            out[s] = Math.round(values[s] * 100f);
+        }
+    }
+
+    @Override
+    public ModelEvaluator forThread() {
+        return new ModelEvaluator(model.view());
+    }
+
+    /**
+     * Read a model written by {@link #save}.
+     */
+    public static ValueModel load(Path path) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String header = in.readLine();
+            if (header == null) {
+                throw new IOException(path + ": empty model file");
+            }
+            String[] h = header.trim().split("\\s+");
+            List<Float> values = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isBlank()) {
+                    values.add(Float.parseFloat(line.trim()));
+                }
+            }
+            float[] params = new float[values.size()];
+            for (int i = 0; i < params.length; i++) {
+                params[i] = values.get(i);
+            }
+            try {
+                return switch (h[0]) {
+                    case "linear" -> new LinearModel(params);
+                    case "mlp" -> new MlpModel(Integer.parseInt(h[1]), params);
+                    default -> throw new IOException(path + ": unknown model type " + h[0]);
+                };
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException(path + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    public static void save(ValueModel model, Path path) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            if (model instanceof MlpModel mlp) {
+                out.write("mlp " + mlp.getHidden());
+            } else if (model instanceof LinearModel) {
+                out.write("linear");
+            } else {
+                throw new IllegalArgumentException("Cannot save " + model.getClass().getSimpleName());
+            }
+            out.newLine();
+            for (float p : model.parameters()) {
+                out.write(Float.toString(p));
+                out.newLine();
+            }
+        }
+    }
+
+    /**
+     * The evaluator selected by `-Dsplendor.evaluator`: `heuristic` (the
+     * default), `linear`, or a path to a saved model.
+     */
+    public static Evaluator fromSystemProperties() {
+        String spec = System.getProperty("splendor.evaluator", "heuristic");
+        if (spec.equals("heuristic")) {
+            return new HeuristicEvaluator();
+        }
+        if (spec.equals("linear")) {
+            return new ModelEvaluator(LinearModel.defaults());
+        }
+        try {
+            return new ModelEvaluator(load(Path.of(spec)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package splendor.ai;
+
+import splendor.game.actions.GameAction;
+
+import java.util.List;
+
+/**
+ * Search result for one candidate move: estimated win rate for the player
+ * making it, the number of visits backing that estimate, and the expected
+ * continuation (principal variation) starting with the move itself.
+ */
+public final class MoveEvaluation {
+
+    private final GameAction move;
+    private final double score;
+    private final int visits;
+    private final List<GameAction> principalVariation;
+
+    public MoveEvaluation(GameAction move, double score, int visits, List<GameAction> principalVariation) {
+        this.move = move;
+        this.score = score;
+        this.visits = visits;
+        this.principalVariation = List.copyOf(principalVariation);
+    }
+
+    public GameAction getMove() {
+        return move;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public int getVisits() {
+        return visits;
+    }
+
+    public List<GameAction> getPrincipalVariation() {
+        return principalVariation;
+    }
+
+    @Override
+    public String toString() {
+        return move + " score=" + String.format(java.util.Locale.ROOT, "%.2f", score) + " visits=" + visits;
+    }
+}
@@ -0,0 +1,141 @@
+package splendor.ai;
+
+import splendor.game.actions.GameAction;
+import splendor.game.actions.MoveCodec;
+import splendor.game.engine.ActionValidator;
+import splendor.game.engine.Game;
+import splendor.game.engine.GameState;
+import splendor.game.engine.ValidationError;
+import splendor.model.Board;
+import splendor.model.GemType;
+import splendor.model.Player;
+import splendor.model.TokenPool;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Enumerates the legal main actions (take, buy, reserve) for a player.
+ *
+ * Candidates are filtered through {@link ActionValidator} so bots follow
+ * exactly the same rules as human players. The primitive form writes
+ * {@link MoveCodec} moves into a caller-owned array and does not allocate.
+ */
+public class MoveGenerator {
+
+    /**
+     * Upper bound on the number of main actions in any position.
+     */
+    public static final int MAX_MOVES = 10 + 5 + 12 + 3 + 12 + 3;
+
+    static final GemType[] COLORS = {
+            GemType.WHITE, GemType.BLUE, GemType.GREEN, GemType.RED, GemType.BLACK
+    };
+
+    private static final int[] TAKE_THREE = new int[10];
+    private static final int[] TAKE_TWO = new int[5];
+
+    static {
+        int n = 0;
+        for (int a = 0; a < COLORS.length; a++) {
+            for (int b = a + 1; b < COLORS.length; b++) {
+                for (int c = b + 1; c < COLORS.length; c++) {
+                    int[] counts = new int[GemType.values().length];
+                    counts[COLORS[a].ordinal()] = 1;
+                    counts[COLORS[b].ordinal()] = 1;
+                    counts[COLORS[c].ordinal()] = 1;
+                    TAKE_THREE[n++] = MoveCodec.takeTokens(counts);
+                }
+            }
+        }
+        for (int i = 0; i < COLORS.length; i++) {
+            int[] counts = new int[GemType.values().length];
+            counts[COLORS[i].ordinal()] = 2;
+            TAKE_TWO[i] = MoveCodec.takeTokens(counts);
+        }
+    }
+
+    private final ActionValidator validator = new ActionValidator();
+
+    public List<GameAction> generate(Game game) {
+        return generate(game.getState(), game.getCurrentPlayerIndex());
+    }
+
+    public List<GameAction> generate(GameState state, int playerIndex) {
+        int[] moves = new int[MAX_MOVES];
+        int n = generate(state, playerIndex, moves);
+        List<GameAction> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            result.add(MoveCodec.decode(moves[i]));
+        }
+        return result;
+    }
+
+    public int generate(Game game, int[] out) {
+        return generate(game.getState(), game.getCurrentPlayerIndex(), out);
+    }
+
+    /**
+     * Write the legal moves into {@code out} (at least {@link #MAX_MOVES} long).
+     *
+     * @return the number of moves written
+     */
+    public int generate(GameState state, int playerIndex, int[] out) {
+        int n = 0;
+        Board board = state.getBoard();
+        Player player = state.getPlayers().get(playerIndex);
+        TokenPool supply = board.getSupplyTokens();
+
+        for (int move : TAKE_THREE) {
+            if (hasEachColor(supply, move)) {
+                out[n++] = move;
+            }
+        }
+        for (int i = 0; i < COLORS.length; i++) {
+            if (supply.get(COLORS[i]) >= 4) {
+                out[n++] = TAKE_TWO[i];
+            }
+        }
+
+        for (int level = 1; level <= 3; level++) {
+            for (int i = 0; i < Board.FACE_UP_PER_LEVEL; i++) {
+                if (board.getFaceUpCard(level, i) != null) {
+                    n = addIfValid(out, n, state, playerIndex, MoveCodec.buyFromMarket(level, i));
+                }
+            }
+        }
+        for (int i = 0; i < player.getReservedCards().size(); i++) {
+            n = addIfValid(out, n, state, playerIndex, MoveCodec.buyFromReserved(i));
+        }
+
+        if (player.canReserveMore()) {
+            for (int level = 1; level <= 3; level++) {
+                for (int i = 0; i < Board.FACE_UP_PER_LEVEL; i++) {
+                    if (board.getFaceUpCard(level, i) != null) {
+                        out[n++] = MoveCodec.reserveFromMarket(level, i);
+                    }
+                }
+                if (board.hasCardsInDeck(level)) {
+                    out[n++] = MoveCodec.reserveFromTopOfDeck(level);
+                }
+            }
+        }
+        return n;
+    }
+
+    private static boolean hasEachColor(TokenPool supply, int takeMove) {
+        for (GemType color : COLORS) {
+            if (MoveCodec.count(takeMove, color) > 0 && supply.get(color) < 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int addIfValid(int[] out, int n, GameState state, int playerIndex, int move) {
+        if (validator.check(state, playerIndex, move) == ValidationError.NONE) {
+            out[n++] = move;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,81 @@
+package splendor.ai;
+
+import splendor.game.engine.Game;
+import splendor.model.Board;
+import splendor.model.Card;
+import splendor.model.GemType;
+import splendor.model.Noble;
+import splendor.model.Player;
+
+import java.util.List;
+
+/**
+ * 64-bit hash of everything that determines a position: side to move,
+ * supply, market, nobles, deck sizes and every player's holdings.
+ *
+ * Used as a cache and transposition key. Collisions are possible but
+ * vanishingly rare for the number of positions a server sees.
+ */
+public final class PositionKey {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final GemType[] TYPES = GemType.values();
+
+    private PositionKey() {
+    }
+
+    public static long of(Game game) {
+        long h = FNV_OFFSET;
+        h = mix(h, game.getCurrentPlayerIndex());
+        h = mix(h, game.isFinalRoundTriggered() ? 1 : 0);
+
+        Board board = game.getState().getBoard();
+        for (GemType type : TYPES) {
+            h = mix(h, board.getSupplyTokens().get(type));
+        }
+        h = mixCards(h, board.getLevel1FaceUp());
+        h = mixCards(h, board.getLevel2FaceUp());
+        h = mixCards(h, board.getLevel3FaceUp());
+        for (int level = 1; level <= 3; level++) {
+            h = mix(h, board.getDeck(level).size());
+        }
+        List<Noble> nobles = board.getNobles();
+        h = mix(h, nobles.size());
+        for (int i = 0; i < nobles.size(); i++) {
+            h = mix(h, nobles.get(i).getName().hashCode());
+        }
+
+        List<Player> players = game.getState().getPlayers();
+        for (int i = 0; i < players.size(); i++) {
+            Player p = players.get(i);
+            for (GemType type : TYPES) {
+                h = mix(h, p.getTokens().get(type));
+            }
+            for (int c = 0; c < MoveGenerator.COLORS.length; c++) {
+                h = mix(h, p.getBonus(MoveGenerator.COLORS[c]));
+            }
+            h = mix(h, p.getPrestigePoints());
+            h = mix(h, p.getPurchasedCards().size());
+            h = mixCards(h, p.getReservedCards());
+        }
+        return h;
+    }
+
+    private static long mixCards(long h, List<Card> cards) {
+        h = mix(h, cards.size());
+        for (int i = 0; i < cards.size(); i++) {
+            Card c = cards.get(i);
+            h = mix(h, c != null ? c.getId() : -1);
+        }
+        return h;
+    }
+
+    private static long mix(long h, int value) {
+        for (int i = 0; i < 4; i++) {
+            h ^= (value >>> (i * 8)) & 0xff;
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+}
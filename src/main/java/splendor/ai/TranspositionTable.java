@@ -0,0 +1,76 @@
+package splendor.ai;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size, lock-free hash table of search results keyed by
+ * {@link PositionKey}, shared by all threads of a search.
+ *
+ * Each slot is two longs: the data, and the key XOR the data. A slot torn
+ * by a concurrent write fails the key check and reads as a miss, so no
+ * locking is needed. Entries are replaced unless the slot holds the same
+ * position searched deeper.
+ */
+final class TranspositionTable {
+
+    static final int EXACT = 1;
+    static final int LOWER = 2; // value is at least this
+    static final int UPPER = 3; // value is at most this
+
+    private final long[] slots;
+    private final int mask;
+
+    /**
+     * @param entries capacity, rounded up to a power of two
+     */
+    TranspositionTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(2, entries - 1)) << 1;
+        this.slots = new long[2 * size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * The packed entry for the key, or 0 if there is none.
+     */
+    long probe(long key) {
+        int i = index(key);
+        long data = slots[i + 1];
+        return (slots[i] ^ data) == key ? data : 0;
+    }
+
+    void store(long key, int depth, int flag, int value, int move) {
+        int i = index(key);
+        long old = slots[i + 1];
+        if ((slots[i] ^ old) == key && depth(old) > depth) {
+            return;
+        }
+        long data = (value & 0xffffffffL) | ((long) (depth & 0xff) << 32) | ((long) flag << 40)
+                | ((long) (move & 0xffff) << 42);
+        slots[i] = key ^ data;
+        slots[i + 1] = data;
+    }
+
+    void clear() {
+        Arrays.fill(slots, 0);
+    }
+
+    static int value(long data) {
+        return (int) data;
+    }
+
+    static int depth(long data) {
+        return (int) (data >>> 32) & 0xff;
+    }
+
+    static int flag(long data) {
+        return (int) (data >>> 40) & 0x3;
+    }
+
+    static int move(long data) {
+        return (int) (data >>> 42) & 0xffff;
+    }
+
+    private int index(long key) {
+        return ((int) (key ^ (key >>> 32)) & mask) << 1;
+    }
+}
@@ -0,0 +1,139 @@
+package splendor.ai;
+
+import splendor.game.actions.ActionType;
+import splendor.game.actions.DiscardTokensAction;
+import splendor.game.actions.GameAction;
+import splendor.game.actions.MoveCodec;
+import splendor.game.engine.Game;
+import splendor.game.engine.TurnUndo;
+import splendor.model.GemType;
+import splendor.model.Noble;
+import splendor.model.Player;
+import splendor.model.TokenPool;
+
+import java.util.List;
+
+/**
+ * Plays a complete turn for a computer player: the main action, followed by
+ * an automatic discard (most plentiful colors first, gold last) and a noble
+ * claim (the bot's choice, or else the first qualifying noble).
+ */
+public final class TurnResolver {
+
+    private TurnResolver() {
+    }
+
+    /**
+     * Apply the action (or pass if null) and end the turn.
+     * The action is assumed to have been validated already.
+     */
+    public static void playTurn(Game game, GameAction action) {
+        playTurn(game, action, -1);
+    }
+
+    /**
+     * {@link #playTurn(Game, GameAction)}, claiming the noble at
+     * {@code nobleIndex} in {@link Game#getClaimableNoblesForCurrentPlayer()}
+     * after a buy, or the first qualifying noble if it is -1.
+     */
+    public static void playTurn(Game game, GameAction action, int nobleIndex) {
+        playTurn(game, action != null ? MoveCodec.encode(action) : MoveCodec.NONE, nobleIndex);
+    }
+
+    /**
+     * Apply an encoded action (or pass if {@link MoveCodec#NONE}) and end the
+     * turn. Does not allocate.
+     */
+    public static void playTurn(Game game, int move) {
+        playTurn(game, move, -1);
+    }
+
+    /**
+     * {@link #playTurn(Game, int)} with the noble chosen as in
+     * {@link #playTurn(Game, GameAction, int)}. Allocates only when a noble
+     * is chosen by index.
+     *
+     * @throws IllegalArgumentException if {@code nobleIndex} names no claimable noble
+     */
+    public static void playTurn(Game game, int move, int nobleIndex) {
+        if (move != MoveCodec.NONE) {
+            game.applyAction(move);
+            if (game.isTokenLimitExceededForCurrentPlayer()) {
+                game.applyAction(chooseDiscardMove(game.getCurrentPlayer()));
+            }
+            if (MoveCodec.type(move) == ActionType.BUY_CARD) {
+                Noble noble = chooseNoble(game, nobleIndex);
+                if (noble != null) {
+                    game.claimNoble(noble);
+                }
+            }
+        }
+        game.endTurn();
+    }
+
+    /**
+     * {@link #playTurn(Game, int)}, recording the turn in {@code undo} so
+     * search can take it back with {@link Game#undoTurn(TurnUndo)}.
+     */
+    public static void playTurn(Game game, int move, TurnUndo undo) {
+        undo.clear();
+        if (move != MoveCodec.NONE) {
+            game.applyAction(move, undo);
+            if (game.isTokenLimitExceededForCurrentPlayer()) {
+                game.applyAction(chooseDiscardMove(game.getCurrentPlayer()), undo);
+            }
+            if (MoveCodec.type(move) == ActionType.BUY_CARD) {
+                Noble noble = game.getFirstClaimableNobleForCurrentPlayer();
+                if (noble != null) {
+                    game.claimNoble(noble, undo);
+                }
+            }
+        }
+        game.endTurn(undo);
+    }
+
+    private static Noble chooseNoble(Game game, int nobleIndex) {
+        if (nobleIndex < 0) {
+            return game.getFirstClaimableNobleForCurrentPlayer();
+        }
+        List<Noble> claimable = game.getClaimableNoblesForCurrentPlayer();
+        if (nobleIndex >= claimable.size()) {
+            throw new IllegalArgumentException("No claimable noble at index " + nobleIndex);
+        }
+        return claimable.get(nobleIndex);
+    }
+
+    /**
+     * Build a discard that brings the player back down to the token limit.
+     */
+    public static DiscardTokensAction chooseDiscard(Player player) {
+        return (DiscardTokensAction) MoveCodec.decode(chooseDiscardMove(player));
+    }
+
+    /**
+     * Encoded form of {@link #chooseDiscard(Player)}.
+     */
+    public static int chooseDiscardMove(Player player) {
+        TokenPool tokens = player.getTokens();
+        int excess = player.getTotalTokens() - Player.MAX_TOKENS;
+        int move = MoveCodec.EMPTY_DISCARD;
+        while (excess > 0) {
+            GemType best = null;
+            int bestLeft = 0;
+            for (GemType color : MoveGenerator.COLORS) {
+                int left = tokens.get(color) - MoveCodec.count(move, color);
+                if (left > bestLeft) {
+                    bestLeft = left;
+                    best = color;
+                }
+            }
+            if (best == null) {
+                move = MoveCodec.withCount(move, GemType.GOLD, MoveCodec.count(move, GemType.GOLD) + excess);
+                break;
+            }
+            move = MoveCodec.withCount(move, best, MoveCodec.count(move, best) + 1);
+            excess--;
+        }
+        return move;
+    }
+}
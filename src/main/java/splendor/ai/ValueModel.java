@@ -0,0 +1,37 @@
+package splendor.ai;
+
+/**
+ * A trainable function from {@link FeatureExtractor} vectors to a value in
+ * prestige points for the seat the features were extracted for.
+ *
+ * Inference works on batches: {@code count} feature rows laid out back to
+ * back. In search a batch is the seats of one position, so at most four
+ * rows; the saving is in sharing the call and the feature tables, not in
+ * wide SIMD over many rows.
+ */
+public interface ValueModel {
+
+    /**
+     * Write the value of each of {@code count} feature rows to {@code out}.
+     */
+    void predict(float[] features, int count, float[] out);
+
+    /**
+     * The model's parameters as one live array, for training and for
+     * saving; writes to it change the model.
+     */
+    float[] parameters();
+
+    /**
+     * An independent model with the same shape and a copy of the parameters.
+     */
+    ValueModel copy();
+
+    /**
+     * A model for another thread: the same live parameters, its own
+     * scratch space. Models without scratch space return themselves.
+     */
+    default ValueModel view() {
+        return this;
+    }
+}
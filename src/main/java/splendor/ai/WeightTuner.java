@@ -0,0 +1,432 @@
+package splendor.ai;
+
+import splendor.game.actions.MoveCodec;
+import splendor.game.engine.Game;
+import splendor.game.engine.StandardGameFactory;
+import splendor.game.engine.TurnUndo;
+import splendor.model.CardCatalog;
+import splendor.model.Player;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Tunes {@link LinearModel} weights by self-play with a separable CMA-ES
+ * (covariance matrix adaptation restricted to the diagonal, which scales
+ * to the model's 122 parameters).
+ *
+ * Every generation samples a population of weight vectors around the
+ * current mean. Each candidate plays the same set of freshly dealt
+ * openings, from every seat, against the previous mean. Fitness is the
+ * share of games won, plus a small term for the points margin. Players are
+ * greedy one-ply searchers, so a game takes milliseconds; the games of a
+ * generation run on a work-stealing {@link ForkJoinPool}, and every worker
+ * thread reuses its own game and player objects.
+ *
+ * After each generation the optimizer state goes to a checkpoint file
+ * (written to a temporary file and renamed) and the mean is saved as a
+ * model for `-Dsplendor.evaluator=<file>`. Restarting with the same
+ * checkpoint continues the run.
+ *
+ * Usage: `java splendor.ai.WeightTuner <checkpoint> <model-out> [generations] [openings] [players] [threads]`
+ */
+public class WeightTuner {
+
+    private static final int MAX_TURNS = 200;
+    private static final double MARGIN_WEIGHT = 0.002;
+    private static final double INITIAL_SIGMA = 0.3;
+
+    private final int n;
+    private final int lambda;
+    private final int mu;
+    private final double[] weights;
+    private final double muEff;
+    private final double cSigma;
+    private final double dSigma;
+    private final double cc;
+    private final double c1;
+    private final double cMu;
+    private final double chiN;
+
+    private final int players;
+    private final int openings;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Arena> arenas;
+
+    // Optimizer state, saved in checkpoints.
+    private int generation;
+    private double sigma = INITIAL_SIGMA;
+    private double[] mean;
+    private double[] diagC;
+    private double[] pSigma;
+    private double[] pc;
+    private double bestFitness = Double.NEGATIVE_INFINITY;
+    private long seed;
+
+    public WeightTuner(float[] initial, int players, int openings, int threads) {
+        if (players < 2 || players > CardCatalog.MAX_PLAYERS || openings < 1 || threads < 1) {
+            throw new IllegalArgumentException("Invalid tuner settings");
+        }
+        this.n = initial.length;
+        this.lambda = 4 + (int) (3 * Math.log(n));
+        this.mu = lambda / 2;
+        this.weights = new double[mu];
+        double sum = 0;
+        for (int i = 0; i < mu; i++) {
+            weights[i] = Math.log(mu + 0.5) - Math.log(i + 1);
+            sum += weights[i];
+        }
+        double sumSq = 0;
+        for (int i = 0; i < mu; i++) {
+            weights[i] /= sum;
+            sumSq += weights[i] * weights[i];
+        }
+        this.muEff = 1 / sumSq;
+        this.cSigma = (muEff + 2) / (n + muEff + 5);
+        this.dSigma = 1 + 2 * Math.max(0, Math.sqrt((muEff - 1) / (n + 1)) - 1) + cSigma;
+        this.cc = 4.0 / (n + 4);
+        // Learning rates of the separable variant: the full-matrix rates times (n + 2) / 3.
+        this.c1 = Math.min(1, 2 / ((n + 1.3) * (n + 1.3) + muEff) * (n + 2) / 3);
+        this.cMu = Math.min(1 - c1, 2 * (muEff - 2 + 1 / muEff) / ((n + 2) * (n + 2) + muEff) * (n + 2) / 3);
+        this.chiN = Math.sqrt(n) * (1 - 1.0 / (4 * n) + 1.0 / (21.0 * n * n));
+
+        this.players = players;
+        this.openings = openings;
+        this.pool = new ForkJoinPool(threads);
+        this.arenas = ThreadLocal.withInitial(() -> new Arena(players));
+
+        this.mean = new double[n];
+        for (int i = 0; i < n; i++) {
+            mean[i] = initial[i];
+        }
+        this.diagC = new double[n];
+        Arrays.fill(diagC, 1.0);
+        this.pSigma = new double[n];
+        this.pc = new double[n];
+        this.seed = new Random().nextLong();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java splendor.ai.WeightTuner <checkpoint> <model-out> "
+                    + "[generations] [openings] [players] [threads]");
+            return;
+        }
+        Path checkpoint = Path.of(args[0]);
+        Path output = Path.of(args[1]);
+        int generations = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int openings = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        int players = args.length > 4 ? Integer.parseInt(args[4]) : 2;
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+
+        WeightTuner tuner = new WeightTuner(LinearModel.defaults().parameters(), players, openings, threads);
+        if (Files.exists(checkpoint)) {
+            tuner.restore(checkpoint);
+            System.out.println("Resumed at generation " + tuner.generation + " from " + checkpoint);
+        }
+        try {
+            while (tuner.generation < generations) {
+                long start = System.nanoTime();
+                double fitness = tuner.step();
+                tuner.checkpoint(checkpoint);
+                ModelEvaluator.save(new LinearModel(tuner.meanAsFloats()), output);
+                System.out.printf("generation %d: best %.3f, sigma %.4f, %d games in %.1fs%n", tuner.generation,
+                        fitness, tuner.sigma, tuner.gamesPerGeneration(), (System.nanoTime() - start) / 1e9);
+            }
+        } finally {
+            tuner.shutdown();
+        }
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public int gamesPerGeneration() {
+        return lambda * openings * players;
+    }
+
+    public float[] meanAsFloats() {
+        float[] f = new float[n];
+        for (int i = 0; i < n; i++) {
+            f[i] = (float) mean[i];
+        }
+        return f;
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Run one generation and update the search distribution.
+     *
+     * @return the best fitness in the generation
+     */
+    public double step() {
+        Random rng = new Random(seed ^ (generation * 0x9E3779B97F4A7C15L));
+        double[] sd = new double[n];
+        for (int i = 0; i < n; i++) {
+            sd[i] = Math.sqrt(diagC[i]);
+        }
+        double[][] y = new double[lambda][n];
+        float[][] candidates = new float[lambda][n];
+        for (int k = 0; k < lambda; k++) {
+            for (int i = 0; i < n; i++) {
+                y[k][i] = sd[i] * rng.nextGaussian();
+                candidates[k][i] = (float) (mean[i] + sigma * y[k][i]);
+            }
+        }
+        double[] fitness = evaluate(candidates, meanAsFloats(), dealOpenings(rng));
+
+        Integer[] rank = new Integer[lambda];
+        for (int k = 0; k < lambda; k++) {
+            rank[k] = k;
+        }
+        Arrays.sort(rank, (a, b) -> Double.compare(fitness[b], fitness[a]));
+
+        double[] yw = new double[n];
+        for (int j = 0; j < mu; j++) {
+            double[] yk = y[rank[j]];
+            for (int i = 0; i < n; i++) {
+                yw[i] += weights[j] * yk[i];
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            mean[i] += sigma * yw[i];
+        }
+
+        double norm = 0;
+        double csn = Math.sqrt(cSigma * (2 - cSigma) * muEff);
+        for (int i = 0; i < n; i++) {
+            pSigma[i] = (1 - cSigma) * pSigma[i] + csn * yw[i] / sd[i];
+            norm += pSigma[i] * pSigma[i];
+        }
+        norm = Math.sqrt(norm);
+        boolean hSigma = norm / Math.sqrt(1 - Math.pow(1 - cSigma, 2 * (generation + 1))) < (1.4 + 2 / (n + 1.0)) * chiN;
+        double ccn = Math.sqrt(cc * (2 - cc) * muEff);
+        for (int i = 0; i < n; i++) {
+            pc[i] = (1 - cc) * pc[i] + (hSigma ? ccn * yw[i] : 0);
+            double rankMu = 0;
+            for (int j = 0; j < mu; j++) {
+                double v = y[rank[j]][i];
+                rankMu += weights[j] * v * v;
+            }
+            diagC[i] = (1 - c1 - cMu) * diagC[i] + c1 * pc[i] * pc[i] + cMu * rankMu;
+        }
+        sigma *= Math.exp((cSigma / dSigma) * (norm / chiN - 1));
+
+        generation++;
+        bestFitness = Math.max(bestFitness, fitness[rank[0]]);
+        return fitness[rank[0]];
+    }
+
+    private List<Game> dealOpenings(Random rng) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            names.add("P" + i);
+        }
+        List<Game> deals = new ArrayList<>();
+        for (int i = 0; i < openings; i++) {
+            Game game = StandardGameFactory.createGame(names, CardCatalog.standard());
+            game.getState().determinize(-1, rng); // reshuffle the decks from the tuner's seed
+            deals.add(game);
+        }
+        return deals;
+    }
+
+    /**
+     * Fitness of every candidate against the reference weights: one task
+     * per candidate, opening and seat.
+     */
+    private double[] evaluate(float[][] candidates, float[] reference, List<Game> deals) {
+        List<Callable<Double>> tasks = new ArrayList<>();
+        for (int k = 0; k < candidates.length; k++) {
+            float[] candidate = candidates[k];
+            for (Game deal : deals) {
+                for (int seat = 0; seat < players; seat++) {
+                    int s = seat;
+                    tasks.add(() -> arenas.get().play(deal, candidate, reference, s));
+                }
+            }
+        }
+        double[] fitness = new double[candidates.length];
+        List<Future<Double>> results = pool.invokeAll(tasks);
+        int perCandidate = deals.size() * players;
+        try {
+            for (int t = 0; t < results.size(); t++) {
+                fitness[t / perCandidate] += results.get(t).get() / perCandidate;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while tuning", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return fitness;
+    }
+
+    /**
+     * A worker thread's reusable game and players.
+     */
+    private static final class Arena {
+        final Game game;
+        final GreedyPlayer candidate = new GreedyPlayer();
+        final GreedyPlayer reference = new GreedyPlayer();
+
+        Arena(int players) {
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < players; i++) {
+                names.add("P" + i);
+            }
+            game = StandardGameFactory.createGame(names, CardCatalog.standard());
+        }
+
+        /**
+         * Play the opening with the candidate in {@code seat} and the
+         * reference everywhere else; returns the candidate's score.
+         */
+        double play(Game deal, float[] candidateWeights, float[] referenceWeights, int seat) {
+            game.copyFrom(deal);
+            candidate.use(candidateWeights);
+            reference.use(referenceWeights);
+            int passes = 0;
+            int players = game.getState().getPlayers().size();
+            for (int turn = 0; turn < MAX_TURNS && !game.isGameOver() && passes < players; turn++) {
+                GreedyPlayer p = game.getCurrentPlayerIndex() == seat ? candidate : reference;
+                int move = p.choose(game);
+                passes = move == MoveCodec.NONE ? passes + 1 : 0;
+                TurnResolver.playTurn(game, move);
+            }
+            List<Player> ps = game.getState().getPlayers();
+            Player me = ps.get(seat);
+            int bestOther = 0;
+            for (int s = 0; s < ps.size(); s++) {
+                if (s != seat) {
+                    bestOther = Math.max(bestOther, ps.get(s).getPrestigePoints());
+                }
+            }
+            double won = game.determineWinner() == me ? 1 : 0;
+            return won + MARGIN_WEIGHT * (me.getPrestigePoints() - bestOther);
+        }
+    }
+
+    /**
+     * Plays the move whose resulting position its linear model rates best
+     * against the strongest opponent.
+     */
+    private static final class GreedyPlayer {
+        final LinearModel model = new LinearModel();
+        final ModelEvaluator evaluator = new ModelEvaluator(model);
+        final MoveGenerator generator = new MoveGenerator();
+        final int[] moves = new int[MoveGenerator.MAX_MOVES];
+        final int[] values = new int[CardCatalog.MAX_PLAYERS];
+        final TurnUndo undo = new TurnUndo();
+
+        void use(float[] weights) {
+            System.arraycopy(weights, 0, model.parameters(), 0, weights.length);
+        }
+
+        int choose(Game game) {
+            int count = generator.generate(game, moves);
+            if (count == 0) {
+                return MoveCodec.NONE;
+            }
+            int me = game.getCurrentPlayerIndex();
+            int players = game.getState().getPlayers().size();
+            int best = moves[0];
+            int bestValue = Integer.MIN_VALUE;
+            for (int i = 0; i < count; i++) {
+                TurnResolver.playTurn(game, moves[i], undo);
+                evaluator.evaluateSeats(game, values);
+                game.undoTurn(undo);
+                int strongest = Integer.MIN_VALUE;
+                for (int s = 0; s < players; s++) {
+                    if (s != me) {
+                        strongest = Math.max(strongest, values[s]);
+                    }
+                }
+                int value = values[me] - strongest;
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = moves[i];
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Write the optimizer state atomically: to a temporary file, then renamed.
+     */
+    public void checkpoint(Path path) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            out.write("generation " + generation + "\n");
+            out.write("seed " + seed + "\n");
+            out.write("sigma " + sigma + "\n");
+            out.write("best " + bestFitness + "\n");
+            writeVector(out, "mean", mean);
+            writeVector(out, "diagC", diagC);
+            writeVector(out, "pSigma", pSigma);
+            writeVector(out, "pc", pc);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void restore(Path path) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.trim().split("\\s+");
+                switch (parts[0]) {
+                    case "generation" -> generation = Integer.parseInt(parts[1]);
+                    case "seed" -> seed = Long.parseLong(parts[1]);
+                    case "sigma" -> sigma = Double.parseDouble(parts[1]);
+                    case "best" -> bestFitness = Double.parseDouble(parts[1]);
+                    case "mean" -> mean = readVector(parts, path);
+                    case "diagC" -> diagC = readVector(parts, path);
+                    case "pSigma" -> pSigma = readVector(parts, path);
+                    case "pc" -> pc = readVector(parts, path);
+                    default -> {
+                    }
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException(path + ": corrupt checkpoint", e);
+        }
+    }
+
+    private static void writeVector(BufferedWriter out, String name, double[] v) throws IOException {
+        out.write(name);
+        for (double d : v) {
+            out.write(' ');
+            out.write(Double.toString(d));
+        }
+        out.write('\n');
+    }
+
+    private double[] readVector(String[] parts, Path path) throws IOException {
+        if (parts.length - 1 != n) {
+            throw new IOException(path + ": " + parts[0] + " has " + (parts.length - 1) + " values, expected " + n);
+        }
+        double[] v = new double[n];
+        for (int i = 0; i < n; i++) {
+            v[i] = Double.parseDouble(parts[i + 1]);
+        }
+        return v;
+    }
+}
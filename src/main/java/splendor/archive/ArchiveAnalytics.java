@@ -0,0 +1,328 @@
+package splendor.archive;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import splendor.game.actions.ActionType;
+import splendor.game.actions.MoveCodec;
+import splendor.model.Card;
+import splendor.model.CardCatalog;
+import splendor.model.Noble;
+import splendor.util.CountMinSketch;
+import splendor.util.Hashing;
+import splendor.util.HyperLogLog;
+
+/**
+ * Card and noble statistics for balancing, computed in one streaming pass
+ * over a {@link GameArchive}.
+ *
+ * The archive is cut into chunks of whole records and scanned by a few
+ * threads, each adding into its own {@link Stats} of primitive counters
+ * indexed by card and noble id; the per-thread stats are merged at the
+ * end. Records are read in place and never replayed: what each turn
+ * bought and claimed comes from the record's event journal, so records
+ * without one count only toward game totals. Openings, of which there are
+ * too many to count exactly, go into sketches: a {@link HyperLogLog} for
+ * how many distinct ones occur and a {@link CountMinSketch} to find the
+ * most played.
+ *
+ * Usage: `java splendor.archive.ArchiveAnalytics <dir> [threads]`
+ */
+public final class ArchiveAnalytics {
+
+    static final int MAX_CARDS = 1 << 10;
+    static final int MAX_NOBLES = 1 << 8;
+    static final int OPENING_TURNS = 4;
+
+    private static final int CHUNK_BYTES = 8 << 20;
+    private static final int TOP_OPENINGS = 10;
+    private static final int OPENING_CANDIDATES = 4 * TOP_OPENINGS;
+    private static final int MIN_BUYS_FOR_RANKING = 100;
+
+    private ArchiveAnalytics() {
+    }
+
+    /**
+     * Counters from part or all of an archive. Not thread-safe; each
+     * scanning thread fills its own and they are {@link #merge}d.
+     */
+    public static final class Stats {
+        long games;
+        long finished;
+        long journaled;
+        long turns;
+        final long[] winsBySeat = new long[GameRecord.MAX_PLAYERS];
+        final long[] bought = new long[MAX_CARDS];
+        final long[] boughtByWinner = new long[MAX_CARDS];
+        final long[] boughtInFinished = new long[MAX_CARDS];
+        final long[] goldPaid = new long[MAX_CARDS];
+        final long[] reserved = new long[MAX_CARDS];
+        final long[] nobleClaims = new long[MAX_NOBLES];
+        final long[] nobleRounds = new long[MAX_NOBLES];
+        final HyperLogLog deals = new HyperLogLog();
+        final HyperLogLog openings = new HyperLogLog();
+        final CountMinSketch openingCounts = new CountMinSketch(1 << 16, 4, 0x5EED);
+        final Map<Long, int[]> topOpenings = new HashMap<>(); // candidates for the most played
+        private long minCandidate;
+
+        void add(GameRecord r) {
+            int players = r.players();
+            int turns = r.turns();
+            games++;
+            this.turns += turns;
+            deals.add(r.seed());
+            boolean done = r.finished();
+            if (done) {
+                finished++;
+                for (int seat = 0; seat < players; seat++) {
+                    if (r.place(seat) == 0) {
+                        winsBySeat[seat]++;
+                    }
+                }
+            }
+            if (turns >= OPENING_TURNS) {
+                addOpening(r);
+            }
+            if (!r.hasEvents()) {
+                return;
+            }
+            journaled++;
+            for (int t = 0; t < turns; t++) {
+                int event = r.event(t);
+                if (event == 0) {
+                    continue;
+                }
+                int card = GameRecord.card(event);
+                if (card != 0) {
+                    if (MoveCodec.type(r.move(t)) == ActionType.BUY_CARD) {
+                        bought[card]++;
+                        goldPaid[card] += GameRecord.gold(event);
+                        if (done) {
+                            boughtInFinished[card]++;
+                            if (r.place(t % players) == 0) {
+                                boughtByWinner[card]++;
+                            }
+                        }
+                    } else {
+                        reserved[card]++;
+                    }
+                }
+                int noble = GameRecord.noble(event);
+                if (noble != 0) {
+                    nobleClaims[noble]++;
+                    nobleRounds[noble] += t / players + 1;
+                }
+            }
+        }
+
+        private void addOpening(GameRecord r) {
+            long key = r.players();
+            for (int t = 0; t < OPENING_TURNS; t++) {
+                key = Hashing.mix64(key * 31 + r.move(t));
+            }
+            openings.add(key);
+            openingCounts.add(key, 1);
+            if (topOpenings.containsKey(key)) {
+                return;
+            }
+            if (topOpenings.size() < OPENING_CANDIDATES) {
+                topOpenings.put(key, opening(r));
+            } else if (openingCounts.estimate(key) > minCandidate) {
+                evictLeastPlayed();
+                topOpenings.put(key, opening(r));
+            } else {
+                return;
+            }
+            if (topOpenings.size() == OPENING_CANDIDATES) {
+                minCandidate = leastPlayed().getValue();
+            }
+        }
+
+        private static int[] opening(GameRecord r) {
+            int[] moves = new int[OPENING_TURNS + 1];
+            moves[0] = r.players();
+            for (int t = 0; t < OPENING_TURNS; t++) {
+                moves[t + 1] = r.move(t);
+            }
+            return moves;
+        }
+
+        private Map.Entry<Long, Long> leastPlayed() {
+            long bestKey = 0;
+            long best = Long.MAX_VALUE;
+            for (Long k : topOpenings.keySet()) {
+                long e = openingCounts.estimate(k);
+                if (e < best) {
+                    best = e;
+                    bestKey = k;
+                }
+            }
+            return Map.entry(bestKey, best);
+        }
+
+        private void evictLeastPlayed() {
+            topOpenings.remove(leastPlayed().getKey());
+        }
+
+        /**
+         * Add another thread's counters into these.
+         */
+        public void merge(Stats o) {
+            games += o.games;
+            finished += o.finished;
+            journaled += o.journaled;
+            turns += o.turns;
+            addAll(winsBySeat, o.winsBySeat);
+            addAll(bought, o.bought);
+            addAll(boughtByWinner, o.boughtByWinner);
+            addAll(boughtInFinished, o.boughtInFinished);
+            addAll(goldPaid, o.goldPaid);
+            addAll(reserved, o.reserved);
+            addAll(nobleClaims, o.nobleClaims);
+            addAll(nobleRounds, o.nobleRounds);
+            deals.merge(o.deals);
+            openings.merge(o.openings);
+            openingCounts.merge(o.openingCounts);
+            o.topOpenings.forEach(topOpenings::putIfAbsent);
+            while (topOpenings.size() > OPENING_CANDIDATES) {
+                evictLeastPlayed();
+            }
+        }
+
+        private static void addAll(long[] into, long[] from) {
+            for (int i = 0; i < into.length; i++) {
+                into[i] += from[i];
+            }
+        }
+
+        public long getGames() {
+            return games;
+        }
+    }
+
+    /**
+     * Scan the whole archive on {@code threads} threads.
+     */
+    public static Stats analyze(GameArchive archive, int threads) throws Exception {
+        List<GameArchive.Chunk> chunks = archive.chunks(CHUNK_BYTES);
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Stats>> parts = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                parts.add(pool.submit(() -> {
+                    Stats s = new Stats();
+                    int i;
+                    while ((i = next.getAndIncrement()) < chunks.size()) {
+                        chunks.get(i).scan(s::add);
+                    }
+                    return s;
+                }));
+            }
+            Stats total = new Stats();
+            for (Future<Stats> part : parts) {
+                total.merge(part.get());
+            }
+            return total;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Print the balancing report: games, seat advantage, cards by the
+     * buyer's win rate, gold per level, nobles and the most played openings.
+     */
+    public static void report(Stats s, CardCatalog catalog, PrintStream out) {
+        out.printf("Games: %,d (%,d finished, %,d with events), %.1f turns per game, ~%,d distinct deals%n",
+                s.games, s.finished, s.journaled, s.turns / (double) Math.max(1, s.games), s.deals.estimate());
+        out.print("Wins by seat:");
+        for (int seat = 0; seat < GameRecord.MAX_PLAYERS; seat++) {
+            if (s.winsBySeat[seat] > 0) {
+                out.printf(" %d: %.1f%%", seat + 1, 100.0 * s.winsBySeat[seat] / Math.max(1, s.finished));
+            }
+        }
+        out.println();
+
+        List<Card> ranked = new ArrayList<>();
+        for (Card c : catalog.getCards()) {
+            if (c.getId() < MAX_CARDS && s.boughtInFinished[c.getId()] >= MIN_BUYS_FOR_RANKING) {
+                ranked.add(c);
+            }
+        }
+        ranked.sort(Comparator.comparingDouble((Card c) -> winRate(s, c.getId())).reversed());
+        out.printf("Cards by buyer's win rate (at least %d purchases in finished games):%n", MIN_BUYS_FOR_RANKING);
+        int shown = Math.min(10, ranked.size());
+        for (int i = 0; i < ranked.size(); i++) {
+            if (i == shown && ranked.size() > 2 * shown) {
+                out.println("  ...");
+                i = ranked.size() - shown;
+            }
+            Card c = ranked.get(i);
+            int id = c.getId();
+            out.printf("  #%-3d %-50s win %5.1f%%  bought %,9d  reserved %,9d  gold/buy %.2f%n", id,
+                    c, 100 * winRate(s, id), s.bought[id], s.reserved[id],
+                    s.goldPaid[id] / (double) Math.max(1, s.bought[id]));
+        }
+
+        out.println("Gold by level:");
+        for (int level = 1; level <= 3; level++) {
+            long buys = 0;
+            long gold = 0;
+            for (Card c : catalog.getCards(level)) {
+                if (c.getId() < MAX_CARDS) {
+                    buys += s.bought[c.getId()];
+                    gold += s.goldPaid[c.getId()];
+                }
+            }
+            out.printf("  L%d: %,d purchases, %.3f gold per purchase%n", level, buys, gold / (double) Math.max(1, buys));
+        }
+
+        out.println("Nobles:");
+        for (Noble n : catalog.getNobles()) {
+            int id = n.getId();
+            if (id < MAX_NOBLES && s.nobleClaims[id] > 0) {
+                out.printf("  %-30s claimed %,9d times, on average in round %.1f%n", n.getName(),
+                        s.nobleClaims[id], s.nobleRounds[id] / (double) s.nobleClaims[id]);
+            }
+        }
+
+        out.printf("Openings (first %d turns): ~%,d distinct; most played:%n", OPENING_TURNS, s.openings.estimate());
+        List<Map.Entry<Long, int[]>> top = new ArrayList<>(s.topOpenings.entrySet());
+        top.sort(Comparator.comparingLong((Map.Entry<Long, int[]> e) -> s.openingCounts.estimate(e.getKey())).reversed());
+        for (Map.Entry<Long, int[]> e : top.subList(0, Math.min(TOP_OPENINGS, top.size()))) {
+            int[] moves = e.getValue();
+            StringBuilder sb = new StringBuilder();
+            for (int t = 1; t < moves.length; t++) {
+                sb.append(t > 1 ? " | " : "").append(MoveCodec.toString(moves[t]));
+            }
+            out.printf("  ~%,9d  %dp: %s%n", s.openingCounts.estimate(e.getKey()), moves[0], sb);
+        }
+    }
+
+    private static double winRate(Stats s, int card) {
+        return s.boughtByWinner[card] / (double) Math.max(1, s.boughtInFinished[card]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Path.of(args[0]);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        try (GameArchive archive = GameArchive.open(dir)) {
+            long start = System.nanoTime();
+            Stats stats = analyze(archive, threads);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            report(stats, CardCatalog.standard(), System.out);
+            System.out.printf("Analyzed %,d games in %.2fs (%,.0f games/s) on %d threads%n",
+                    stats.games, seconds, stats.games / seconds, threads);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package splendor.archive;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import splendor.ai.MoveGenerator;
+import splendor.game.actions.ActionType;
+import splendor.game.actions.MoveCodec;
+import splendor.game.engine.Game;
+import splendor.game.engine.StandardGameFactory;
+import splendor.model.CardCatalog;
+
+/**
+ * Simulates games into a {@link GameArchive} on several threads, then
+ * scans the archive, reporting throughput, garbage-collection time and
+ * heap use, and checks that a sample of records replays to the recorded
+ * scores.
+ *
+ * Usage: `java splendor.archive.ArchiveBenchmark <dir> [games] [players] [threads]`
+ */
+public class ArchiveBenchmark {
+
+    private static final int MAX_TURNS = 200;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Path.of(args[0]);
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int players = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        CardCatalog catalog = CardCatalog.standard();
+        GameRecorder.checkCatalog(catalog);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            names.add("P" + (i + 1));
+        }
+
+        try (GameArchive archive = GameArchive.open(dir)) {
+            long before = archive.count();
+            long start = System.nanoTime();
+            AtomicLong nextSeed = new AtomicLong(before);
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<Void>> done = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                done.add(pool.submit(() -> {
+                    GameRecorder recorder = new GameRecorder();
+                    MoveGenerator generator = new MoveGenerator();
+                    int[] moves = new int[MoveGenerator.MAX_MOVES];
+                    long seed;
+                    while ((seed = nextSeed.getAndIncrement()) < before + games) {
+                        simulate(seed, names, catalog, generator, moves, recorder);
+                        archive.append(recorder);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> f : done) {
+                f.get();
+            }
+            pool.shutdown();
+            archive.flush();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("wrote %,d games in %.1fs (%,.0f games/s), %d segments%n",
+                    games, seconds, games / seconds, archive.segmentCount());
+
+            long gcBefore = gcMillis();
+            long[] turns = new long[1];
+            long[] wins = new long[GameRecord.MAX_PLAYERS];
+            start = System.nanoTime();
+            long scanned = archive.forEach(r -> {
+                turns[0] += r.turns();
+                for (int seat = 0; seat < r.players(); seat++) {
+                    if (r.place(seat) == 0) {
+                        wins[seat]++;
+                    }
+                }
+            });
+            seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("scanned %,d games in %.2fs (%,.0f games/s), %.1f turns per game, GC %dms, heap %dMB%n",
+                    scanned, seconds, scanned / seconds, turns[0] / (double) scanned, gcMillis() - gcBefore,
+                    (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) >> 20);
+
+            int[] mismatches = new int[2];
+            archive.scanSegment(0, r -> {
+                if (mismatches[1]++ < 1000) {
+                    Game g = r.replay(catalog);
+                    for (int seat = 0; seat < r.players(); seat++) {
+                        if (g.getState().getPlayers().get(seat).getPrestigePoints() != r.score(seat)) {
+                            mismatches[0]++;
+                            break;
+                        }
+                    }
+                }
+            });
+            System.out.printf("replayed %d records: %d mismatches%n", Math.min(1000, mismatches[1]), mismatches[0]);
+        }
+    }
+
+    /**
+     * One game of random moves, preferring purchases so games end.
+     */
+    private static void simulate(long seed, List<String> names, CardCatalog catalog, MoveGenerator generator,
+                                 int[] moves, GameRecorder recorder) {
+        Random rng = new Random(seed);
+        Game game = StandardGameFactory.createGame(names, catalog, new Random(seed));
+        recorder.begin(seed, names.size());
+        int passes = 0;
+        for (int turn = 0; turn < MAX_TURNS && !game.isGameOver() && passes < names.size(); turn++) {
+            int count = generator.generate(game, moves);
+            int move = MoveCodec.NONE;
+            if (count > 0) {
+                int buys = 0;
+                for (int i = 0; i < count; i++) {
+                    if (MoveCodec.type(moves[i]) == ActionType.BUY_CARD) {
+                        moves[buys++] = moves[i];
+                    }
+                }
+                move = buys > 0 ? moves[rng.nextInt(buys)] : moves[rng.nextInt(count)];
+            }
+            passes = move == MoveCodec.NONE ? passes + 1 : 0;
+            recorder.play(game, move);
+        }
+        recorder.end(game);
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+}
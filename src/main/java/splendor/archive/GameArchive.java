@@ -0,0 +1,270 @@
+package splendor.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * An append-only store of finished games, kept off the Java heap in
+ * memory-mapped segment files (`games-000000.seg`, ...), so an archive of
+ * millions of games costs the garbage collector nothing: records are
+ * written into the mapping and read back through a {@link GameRecord}
+ * view, never as objects.
+ *
+ * Every segment starts with a 64-byte header (little-endian):
+ * <pre>
+ * 0   int  magic 0x53504741 ("SPGA")   4  int version (2; 1 had no record events)
+ * 8   long bytes used, header included
+ * 16  long records
+ * </pre>
+ * followed by records back to back. A record is written before the header
+ * counts it, so a crash loses at most the record being written. Segment
+ * files are sparse, so the unused tail of the last one takes no disk.
+ *
+ * Appends are serialized; scans may run on any number of threads at once,
+ * including while games are appended, and see the records that were
+ * complete when they started. {@link #chunks} splits the archive for
+ * parallel scans.
+ */
+public final class GameArchive implements Closeable {
+
+    public static final int MAGIC = 0x53504741;
+    public static final int VERSION = 2;
+    public static final int DEFAULT_SEGMENT_BYTES = 256 << 20;
+
+    private static final int SEGMENT_HEADER = 64;
+    private static final int USED = 8;
+    private static final int RECORDS = 16;
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final List<Segment> segments = new ArrayList<>(); // guarded by this
+    private long count;
+
+    private static final class Segment {
+        final MappedByteBuffer map;
+        int used;
+        long records;
+
+        Segment(MappedByteBuffer map) {
+            this.map = map;
+            map.order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    private GameArchive(Path dir, int segmentBytes) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+    }
+
+    public static GameArchive open(Path dir) throws IOException {
+        return open(dir, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Open the archive in {@code dir}, creating it if needed. New segments
+     * get {@code segmentBytes}; existing ones keep their size.
+     */
+    public static GameArchive open(Path dir, int segmentBytes) throws IOException {
+        if (segmentBytes < SEGMENT_HEADER + GameRecord.MAX_LENGTH) {
+            throw new IllegalArgumentException("Segments must hold the longest game: " + segmentBytes);
+        }
+        Files.createDirectories(dir);
+        GameArchive archive = new GameArchive(dir, segmentBytes);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.filter(p -> p.getFileName().toString().matches("games-\\d{6}\\.seg")).sorted().toList();
+        }
+        for (int i = 0; i < files.size(); i++) {
+            if (!files.get(i).equals(archive.segmentFile(i))) {
+                throw new IOException("Archive segment missing before " + files.get(i));
+            }
+            Segment s = new Segment(map(files.get(i), Files.size(files.get(i))));
+            if (s.map.getInt(0) != MAGIC || s.map.getInt(4) < 1 || s.map.getInt(4) > VERSION) {
+                throw new IOException("Not a game archive, or a newer version: " + files.get(i));
+            }
+            s.used = (int) s.map.getLong(USED);
+            s.records = s.map.getLong(RECORDS);
+            archive.segments.add(s);
+            archive.count += s.records;
+        }
+        if (archive.segments.isEmpty()) {
+            archive.addSegment();
+        }
+        return archive;
+    }
+
+    /**
+     * Append a recorded game.
+     *
+     * @throws IllegalArgumentException if the record is larger than a segment
+     */
+    public synchronized void append(GameRecorder game) throws IOException {
+        int size = game.size();
+        if (SEGMENT_HEADER + size > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + size + " bytes does not fit a segment");
+        }
+        Segment tail = segments.get(segments.size() - 1);
+        if (tail.used + size > tail.map.capacity()) {
+            tail.map.force();
+            tail = addSegment();
+        }
+        GameRecord.write(tail.map, tail.used, game);
+        tail.used += size;
+        tail.records++;
+        tail.map.putLong(USED, tail.used);
+        tail.map.putLong(RECORDS, tail.records);
+        count++;
+    }
+
+    public synchronized long count() {
+        return count;
+    }
+
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Visit every record, oldest first.
+     *
+     * @return the number of records visited
+     */
+    public long forEach(Consumer<GameRecord> visitor) {
+        long n = 0;
+        for (int i = 0; i < segmentCount(); i++) {
+            n += scanSegment(i, visitor);
+        }
+        return n;
+    }
+
+    /**
+     * Visit the records of one segment, oldest first. The visitor gets the
+     * same {@link GameRecord} each time, moved to the next record.
+     *
+     * @return the number of records visited
+     */
+    public long scanSegment(int index, Consumer<GameRecord> visitor) {
+        ByteBuffer buf;
+        int used;
+        synchronized (this) {
+            Segment s = segments.get(index);
+            buf = s.map.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            used = s.used;
+        }
+        return scan(buf, SEGMENT_HEADER, used, visitor);
+    }
+
+    /**
+     * A run of whole records within one segment, for scanning in parallel.
+     */
+    public static final class Chunk {
+        private final ByteBuffer buf;
+        private final int from;
+        private final int to;
+
+        private Chunk(ByteBuffer buf, int from, int to) {
+            this.buf = buf;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Visit the chunk's records in order; see {@link #scanSegment}.
+         *
+         * @return the number of records visited
+         */
+        public long scan(Consumer<GameRecord> visitor) {
+            return GameArchive.scan(buf.duplicate().order(ByteOrder.LITTLE_ENDIAN), from, to, visitor);
+        }
+
+        public int bytes() {
+            return to - from;
+        }
+    }
+
+    /**
+     * Cut the records complete so far into chunks of about
+     * {@code targetBytes}, in archive order. Finding the cuts reads one
+     * int per record.
+     */
+    public List<Chunk> chunks(int targetBytes) {
+        List<Chunk> chunks = new ArrayList<>();
+        for (int i = 0; i < segmentCount(); i++) {
+            ByteBuffer buf;
+            int used;
+            synchronized (this) {
+                Segment s = segments.get(i);
+                buf = s.map.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+                used = s.used;
+            }
+            int from = SEGMENT_HEADER;
+            for (int at = from; at < used; ) {
+                at += buf.getInt(at);
+                if (at - from >= targetBytes || at >= used) {
+                    chunks.add(new Chunk(buf, from, at));
+                    from = at;
+                }
+            }
+        }
+        return chunks;
+    }
+
+    private static long scan(ByteBuffer buf, int from, int to, Consumer<GameRecord> visitor) {
+        GameRecord record = new GameRecord();
+        long n = 0;
+        for (int at = from; at < to; n++) {
+            record.moveTo(buf, at);
+            visitor.accept(record);
+            at += record.length();
+        }
+        return n;
+    }
+
+    /**
+     * Write appended records through to the files.
+     */
+    public synchronized void flush() {
+        segments.get(segments.size() - 1).map.force();
+    }
+
+    /**
+     * Flush and let go of the mappings; they are unmapped once collected.
+     */
+    @Override
+    public synchronized void close() {
+        flush();
+        segments.clear();
+    }
+
+    private Segment addSegment() throws IOException {
+        Segment s = new Segment(map(segmentFile(segments.size()), segmentBytes));
+        s.map.putInt(4, VERSION);
+        s.used = SEGMENT_HEADER;
+        s.map.putLong(USED, s.used);
+        s.map.putInt(0, MAGIC); // last, so a segment cut short is never mistaken for a valid one
+        segments.add(s);
+        return s;
+    }
+
+    private Path segmentFile(int index) {
+        return dir.resolve(String.format("games-%06d.seg", index));
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package splendor.archive;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import splendor.ai.TurnResolver;
+import splendor.game.engine.Game;
+import splendor.game.engine.StandardGameFactory;
+import splendor.model.CardCatalog;
+
+/**
+ * A read-only view of one record in a {@link GameArchive}, read straight
+ * from the mapped file. A scan moves one view from record to record, so
+ * reading millions of games allocates nothing; copy out what you keep.
+ *
+ * Record layout, little-endian, 4-byte aligned:
+ * <pre>
+ * 0   int     record length in bytes
+ * 4   long    seed of the deal
+ * 12  byte    players
+ * 13  byte    flags: 1 = the game reached its natural end, 2 = has events
+ * 14  short   turns
+ * 16  byte[4] final prestige points per seat
+ * 20  byte[4] places per seat (0 = first, ties share a place)
+ * 24  short[turns] moves, {@code MoveCodec} ints (main actions fit 16 bits),
+ *              padded to 4 bytes
+ *     int[turns]   events, if flagged: bits 0-9 id of the card bought or
+ *              reserved, 10-13 gold paid, 14-21 id of the noble claimed
+ *              (ids are 0 when there is none)
+ * </pre>
+ * Events are the turn's journal: what the move did in the position it was
+ * made in, which the move alone does not say.
+ */
+public final class GameRecord {
+
+    public static final int MAX_PLAYERS = 4;
+    public static final int MAX_TURNS = Short.MAX_VALUE;
+
+    static final int HEADER = 24;
+    /** Bytes taken by the longest possible record, events included. */
+    static final int MAX_LENGTH = length(MAX_TURNS, true);
+    private static final int FINISHED = 1;
+    private static final int EVENTS = 2;
+    static final int MAX_CARD_ID = 0x3FF;
+    static final int MAX_NOBLE_ID = 0xFF;
+
+    private ByteBuffer buf;
+    private int at;
+
+    GameRecord() {
+    }
+
+    void moveTo(ByteBuffer buf, int at) {
+        this.buf = buf;
+        this.at = at;
+    }
+
+    /**
+     * Write {@code r} at {@code at}; the buffer must be little-endian.
+     */
+    static void write(ByteBuffer buf, int at, GameRecorder r) {
+        buf.putInt(at, r.size());
+        buf.putLong(at + 4, r.seed());
+        buf.put(at + 12, (byte) r.players());
+        buf.put(at + 13, (byte) ((r.finished() ? FINISHED : 0) | (r.hasEvents() ? EVENTS : 0)));
+        buf.putShort(at + 14, (short) r.turns());
+        for (int i = 0; i < MAX_PLAYERS; i++) {
+            buf.put(at + 16 + i, r.score(i));
+            buf.put(at + 20 + i, r.place(i));
+        }
+        int p = at + HEADER;
+        for (int t = 0; t < r.turns(); t++, p += 2) {
+            buf.putShort(p, r.moveAt(t));
+        }
+        if (r.hasEvents()) {
+            p = eventsAt(at, r.turns());
+            for (int t = 0; t < r.turns(); t++, p += 4) {
+                buf.putInt(p, r.eventAt(t));
+            }
+        }
+    }
+
+    static int event(int cardId, int goldPaid, int nobleId) {
+        if (cardId > MAX_CARD_ID || nobleId > MAX_NOBLE_ID || goldPaid > 15) {
+            throw new IllegalStateException("Event out of range: card " + cardId + ", noble " + nobleId);
+        }
+        return cardId | goldPaid << 10 | nobleId << 14;
+    }
+
+    /**
+     * Id of the card bought or reserved in {@code event}, or 0.
+     */
+    public static int card(int event) {
+        return event & MAX_CARD_ID;
+    }
+
+    /**
+     * Gold tokens paid for the card bought in {@code event}.
+     */
+    public static int gold(int event) {
+        return (event >>> 10) & 0xF;
+    }
+
+    /**
+     * Id of the noble claimed in {@code event}, or 0.
+     */
+    public static int noble(int event) {
+        return (event >>> 14) & MAX_NOBLE_ID;
+    }
+
+    /**
+     * Bytes taken by a record of {@code turns} turns.
+     */
+    static int length(int turns, boolean events) {
+        return HEADER + ((turns * 2 + 3) & ~3) + (events ? turns * 4 : 0);
+    }
+
+    private static int eventsAt(int at, int turns) {
+        return at + HEADER + ((turns * 2 + 3) & ~3);
+    }
+
+    int length() {
+        return buf.getInt(at);
+    }
+
+    public long seed() {
+        return buf.getLong(at + 4);
+    }
+
+    public int players() {
+        return buf.get(at + 12);
+    }
+
+    /**
+     * Whether the game reached its natural end rather than a turn limit.
+     */
+    public boolean finished() {
+        return (buf.get(at + 13) & FINISHED) != 0;
+    }
+
+    public int turns() {
+        return buf.getShort(at + 14);
+    }
+
+    public int move(int turn) {
+        return buf.getShort(at + HEADER + 2 * turn) & 0xFFFF;
+    }
+
+    /**
+     * Whether the record has a journal of events, see {@link #event}.
+     */
+    public boolean hasEvents() {
+        return (buf.get(at + 13) & EVENTS) != 0;
+    }
+
+    /**
+     * What turn {@code turn} did, decoded with {@link #card}, {@link #gold}
+     * and {@link #noble}; 0 if the record has no events.
+     */
+    public int event(int turn) {
+        return hasEvents() ? buf.getInt(eventsAt(at, turns()) + 4 * turn) : 0;
+    }
+
+    public int score(int seat) {
+        return buf.get(at + 16 + seat);
+    }
+
+    public int place(int seat) {
+        return buf.get(at + 20 + seat);
+    }
+
+    /**
+     * Play the record again from its seed, for analysis that needs the full
+     * position. Slow next to reading the record; scans should avoid it.
+     */
+    public Game replay(CardCatalog catalog) {
+        List<String> names = new ArrayList<>(players());
+        for (int i = 0; i < players(); i++) {
+            names.add("P" + (i + 1));
+        }
+        Game game = StandardGameFactory.createGame(names, catalog, new Random(seed()));
+        for (int t = 0; t < turns(); t++) {
+            TurnResolver.playTurn(game, move(t));
+        }
+        return game;
+    }
+}
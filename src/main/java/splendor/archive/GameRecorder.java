@@ -0,0 +1,160 @@
+package splendor.archive;
+
+import java.util.Arrays;
+import java.util.List;
+
+import splendor.ai.TurnResolver;
+import splendor.game.engine.Game;
+import splendor.game.engine.TurnUndo;
+import splendor.model.CardCatalog;
+import splendor.model.GemType;
+import splendor.model.Player;
+
+/**
+ * Collects one game's record while it is played, for
+ * {@link GameArchive#append}. Reusable: {@link #begin} starts over without
+ * allocating, so a simulation thread needs only one.
+ *
+ * Moves are the main actions passed to
+ * {@code TurnResolver.playTurn(Game, int)}, {@code MoveCodec.NONE} for a
+ * pass; discards and nobles follow from them, as TurnResolver chooses them.
+ * Turns made through {@link #play} also record what they did (card,
+ * gold paid, noble), so analytics need not replay the game. Events hold
+ * card ids up to 1023 and noble ids up to 255; check a catalog with
+ * {@link #checkCatalog} before recording its games.
+ */
+public final class GameRecorder {
+
+    private long seed;
+    private int players;
+    private short[] moves = new short[256];
+    private int[] events = new int[256];
+    private boolean hasEvents;
+    private final TurnUndo undo = new TurnUndo();
+    private int turns;
+    private final byte[] scores = new byte[GameRecord.MAX_PLAYERS];
+    private final byte[] places = new byte[GameRecord.MAX_PLAYERS];
+    private boolean finished;
+
+    /**
+     * Check that every card and noble of {@code catalog} fits in an event,
+     * so {@link #play} cannot fail in the middle of a game.
+     *
+     * @throws IllegalArgumentException if the catalog is too large to record
+     */
+    public static void checkCatalog(CardCatalog catalog) {
+        if (catalog.getCards().size() > GameRecord.MAX_CARD_ID || catalog.getNobles().size() > GameRecord.MAX_NOBLE_ID) {
+            throw new IllegalArgumentException("Game records hold up to " + GameRecord.MAX_CARD_ID + " cards and "
+                    + GameRecord.MAX_NOBLE_ID + " nobles; the catalog has " + catalog.getCards().size() + " and "
+                    + catalog.getNobles().size());
+        }
+    }
+
+    /**
+     * Start recording a game dealt by
+     * {@code StandardGameFactory.createGame(names, catalog, new Random(seed))}.
+     */
+    public void begin(long seed, int players) {
+        if (players < 2 || players > GameRecord.MAX_PLAYERS) {
+            throw new IllegalArgumentException("Splendor supports 2–4 players.");
+        }
+        this.seed = seed;
+        this.players = players;
+        this.turns = 0;
+        this.finished = false;
+        this.hasEvents = false;
+        Arrays.fill(scores, (byte) 0);
+        Arrays.fill(places, (byte) 0);
+    }
+
+    /**
+     * Record a turn played elsewhere.
+     */
+    public void move(int move) {
+        record(move, 0);
+    }
+
+    /**
+     * Play a turn with {@code TurnResolver.playTurn} and record it along
+     * with its effects.
+     */
+    public void play(Game game, int move) {
+        TurnResolver.playTurn(game, move, undo);
+        int card = undo.getCard() != null ? undo.getCard().getId() : 0;
+        int noble = undo.getNoble() != null ? undo.getNoble().getId() : 0;
+        record(move, GameRecord.event(card, undo.getPaid(GemType.GOLD), noble));
+        hasEvents = true;
+    }
+
+    private void record(int move, int event) {
+        if ((move & ~0xFFFF) != 0) {
+            throw new IllegalArgumentException("Not a main action: " + move);
+        }
+        if (turns == GameRecord.MAX_TURNS) {
+            throw new IllegalStateException("Game longer than " + GameRecord.MAX_TURNS + " turns");
+        }
+        if (turns == moves.length) {
+            moves = Arrays.copyOf(moves, turns * 2);
+            events = Arrays.copyOf(events, turns * 2);
+        }
+        events[turns] = event;
+        moves[turns++] = (short) move;
+    }
+
+    /**
+     * Take the final scores and places from the game, which may have been
+     * cut off before its natural end.
+     */
+    public void end(Game game) {
+        List<Player> seated = game.getState().getPlayers();
+        int[] order = game.finishingOrder();
+        for (int i = 0; i < players; i++) {
+            scores[i] = (byte) Math.min(Byte.MAX_VALUE, seated.get(i).getPrestigePoints());
+            places[i] = (byte) order[i];
+        }
+        finished = game.isGameOver();
+    }
+
+    /**
+     * Bytes this record takes in an archive.
+     */
+    int size() {
+        return GameRecord.length(turns, hasEvents);
+    }
+
+    long seed() {
+        return seed;
+    }
+
+    int players() {
+        return players;
+    }
+
+    int turns() {
+        return turns;
+    }
+
+    short moveAt(int turn) {
+        return moves[turn];
+    }
+
+    boolean hasEvents() {
+        return hasEvents;
+    }
+
+    int eventAt(int turn) {
+        return events[turn];
+    }
+
+    byte score(int seat) {
+        return scores[seat];
+    }
+
+    byte place(int seat) {
+        return places[seat];
+    }
+
+    boolean finished() {
+        return finished;
+    }
+}
@@ -0,0 +1,132 @@
+package splendor.engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import splendor.ai.MctsBot;
+import splendor.game.actions.MoveCodec;
+import splendor.game.engine.Game;
+import splendor.model.CardCatalog;
+import splendor.network.MessageHandler;
+import splendor.network.StateSnapshot;
+
+/**
+ * Reference engine: the built-in {@link MctsBot} behind {@link EngineProtocol}.
+ *
+ * Usage: `java splendor.engine.EngineMain`, normally started by an
+ * {@link EnginePool}. It also serves as a template for engines written in
+ * other languages.
+ */
+public class EngineMain {
+
+    private static final String NAME = "splendor-mcts";
+    private static final long SAFETY_MILLIS = 50;
+    private static final int EXPECTED_MOVES_LEFT = 15;
+
+    private final CardCatalog catalog = CardCatalog.standard();
+    private final PrintStream out;
+    private StateSnapshot position;
+
+    public EngineMain(PrintStream out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        new EngineMain(out).run(in);
+    }
+
+    public void run(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (!handle(line)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return false on `quit`
+     */
+    private boolean handle(String line) {
+        String[] words = line.split("\\s+", 2);
+        switch (words[0]) {
+            case EngineProtocol.HELLO -> {
+                out.println(EngineProtocol.ID_NAME + NAME);
+                out.println(EngineProtocol.HELLO_OK);
+            }
+            case EngineProtocol.IS_READY -> out.println(EngineProtocol.READY_OK);
+            case EngineProtocol.NEW_GAME -> position = null;
+            case EngineProtocol.POSITION -> {
+                try {
+                    position = MessageHandler.parseSnapshot(words.length > 1 ? words[1] : "", catalog);
+                } catch (IllegalArgumentException e) {
+                    position = null;
+                    out.println(EngineProtocol.INFO + " bad position: " + e.getMessage());
+                }
+            }
+            case EngineProtocol.GO -> out.println(EngineProtocol.BEST_MOVE + " " + search(words.length > 1 ? words[1] : ""));
+            case EngineProtocol.QUIT -> {
+                return false;
+            }
+            case "" -> {
+            }
+            default -> out.println(EngineProtocol.INFO + " unknown command: " + words[0]);
+        }
+        return true;
+    }
+
+    private String search(String limits) {
+        if (position == null) {
+            return EngineProtocol.PASS;
+        }
+        Game game;
+        try {
+            game = Game.resume(position.getState(), position.getCurrentPlayerIndex());
+        } catch (IllegalArgumentException e) {
+            return EngineProtocol.PASS;
+        }
+        MctsBot bot = new MctsBot(position.getViewerIndex(), thinkMillis(limits));
+        int move = bot.chooseMove(game);
+        return move != MoveCodec.NONE ? MoveCodec.toString(move) : EngineProtocol.PASS;
+    }
+
+    /**
+     * Time to spend on this move: the given move time, or a share of the
+     * remaining clock, always leaving a margin for the reply to arrive.
+     */
+    static long thinkMillis(String limits) {
+        String[] t = limits.trim().split("\\s+");
+        long moveTime = -1;
+        long clock = -1;
+        long inc = 0;
+        for (int i = 0; i + 1 < t.length; i += 2) {
+            try {
+                long v = Long.parseLong(t[i + 1]);
+                switch (t[i]) {
+                    case EngineProtocol.MOVETIME -> moveTime = v;
+                    case EngineProtocol.TIME -> clock = v;
+                    case EngineProtocol.INC -> inc = v;
+                    default -> {
+                    }
+                }
+            } catch (NumberFormatException e) {
+                // ignore malformed limits
+            }
+        }
+        long budget;
+        if (moveTime >= 0) {
+            budget = moveTime;
+        } else if (clock >= 0) {
+            budget = Math.min(clock / 2, clock / EXPECTED_MOVES_LEFT + inc);
+        } else {
+            budget = 1000;
+        }
+        return Math.max(1, budget - SAFETY_MILLIS);
+    }
+}
@@ -0,0 +1,150 @@
+package splendor.engine;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import splendor.util.Metrics;
+
+/**
+ * Long-lived engine subprocesses shared by all tables of a server.
+ *
+ * A table borrows an engine for each bot seat and hands it back when the
+ * game ends; the next table reuses it after an `isready` check, so process
+ * startup is paid once per engine, not per game or per move. At most
+ * {@code maxEngines} processes run at once; further borrowers wait.
+ * Engines that crash or stop answering are discarded and replaced.
+ *
+ * Configured from the command line with
+ * `-Dsplendor.engine="<command> <args...>"` (split on whitespace) and
+ * optionally `-Dsplendor.engines=<max processes>`.
+ */
+public class EnginePool {
+
+    private static final long START_TIMEOUT_MILLIS = 10_000;
+    private static final long READY_TIMEOUT_MILLIS = 2_000;
+
+    private static final LongAdder STARTED = Metrics.counter("engine.started");
+    private static final LongAdder REUSED = Metrics.counter("engine.reused");
+    private static final LongAdder DISCARDED = Metrics.counter("engine.discarded");
+
+    private final List<String> command;
+    private final int maxEngines;
+    private final ArrayDeque<EngineProcess> idle = new ArrayDeque<>();
+    private int running; // idle plus borrowed, including ones still starting
+    private boolean closed;
+
+    public EnginePool(List<String> command, int maxEngines) {
+        if (command.isEmpty() || maxEngines < 1) {
+            throw new IllegalArgumentException("Engine pool needs a command and at least one engine");
+        }
+        this.command = List.copyOf(command);
+        this.maxEngines = maxEngines;
+    }
+
+    /**
+     * The pool described by the `splendor.engine` system properties, or
+     * null if no engine command is set.
+     */
+    public static EnginePool fromSystemProperties() {
+        String cmd = System.getProperty("splendor.engine");
+        if (cmd == null || cmd.isBlank()) {
+            return null;
+        }
+        int max = Integer.getInteger("splendor.engines", Runtime.getRuntime().availableProcessors());
+        return new EnginePool(Arrays.asList(cmd.trim().split("\\s+")), max);
+    }
+
+    /**
+     * Borrow a ready engine, starting one if the pool is below its limit.
+     */
+    public EngineProcess acquire() throws IOException, InterruptedException {
+        while (true) {
+            EngineProcess candidate;
+            synchronized (this) {
+                while (!closed && idle.isEmpty() && running >= maxEngines) {
+                    wait();
+                }
+                if (closed) {
+                    throw new IllegalStateException("Engine pool is shut down");
+                }
+                candidate = idle.poll();
+                if (candidate == null) {
+                    running++;
+                }
+            }
+            if (candidate == null) {
+                try {
+                    EngineProcess engine = EngineProcess.start(command, START_TIMEOUT_MILLIS);
+                    STARTED.increment();
+                    return engine;
+                } catch (IOException e) {
+                    forget();
+                    throw e;
+                }
+            }
+            if (candidate.isAlive() && candidate.awaitReady(READY_TIMEOUT_MILLIS)) {
+                REUSED.increment();
+                return candidate;
+            }
+            discard(candidate);
+        }
+    }
+
+    /**
+     * Hand an engine back for the next table.
+     *
+     * @param healthy false if the engine misbehaved and should not be reused
+     */
+    public void release(EngineProcess engine, boolean healthy) {
+        boolean shuttingDown;
+        synchronized (this) {
+            if (healthy && !closed && engine.isAlive()) {
+                idle.add(engine);
+                notifyAll();
+                return;
+            }
+            shuttingDown = closed;
+        }
+        if (healthy && shuttingDown) {
+            engine.quit();
+            forget();
+        } else {
+            discard(engine);
+        }
+    }
+
+    /**
+     * Quit idle engines; borrowed ones are stopped when they are released.
+     */
+    public void shutdown() {
+        List<EngineProcess> toQuit;
+        synchronized (this) {
+            closed = true;
+            toQuit = List.copyOf(idle);
+            idle.clear();
+            running -= toQuit.size();
+            notifyAll();
+        }
+        for (EngineProcess e : toQuit) {
+            e.quit();
+        }
+    }
+
+    public synchronized int getRunningCount() {
+        return running;
+    }
+
+    private void discard(EngineProcess engine) {
+        DISCARDED.increment();
+        engine.destroy();
+        forget();
+    }
+
+    private synchronized void forget() {
+        running--;
+        notifyAll();
+    }
+}
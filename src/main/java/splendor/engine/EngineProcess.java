@@ -0,0 +1,155 @@
+package splendor.engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One running engine subprocess speaking {@link EngineProtocol}.
+ *
+ * A reader thread queues the engine's output lines so replies can be
+ * awaited with a timeout. The engine's stderr goes to the server's stderr.
+ */
+public class EngineProcess {
+
+    private static final String EOF = new String("<eof>"); // compared by identity
+
+    private final Process process;
+    private final PrintWriter in;
+    private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+    private String name;
+
+    private EngineProcess(Process process) {
+        this.process = process;
+        this.in = new PrintWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8), true);
+        Thread reader = new Thread(this::readOutput, "engine-reader-" + process.pid());
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Start the command and wait up to {@code timeoutMillis} for the
+     * protocol handshake.
+     */
+    public static EngineProcess start(List<String> command, long timeoutMillis) throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+        EngineProcess engine = new EngineProcess(pb.start());
+        try {
+            engine.send(EngineProtocol.HELLO);
+            String name = null;
+            while (true) {
+                String line = engine.awaitLine(timeoutMillis);
+                if (line == null) {
+                    throw new IOException("Engine did not answer " + EngineProtocol.HELLO + ": " + command);
+                }
+                if (line.startsWith(EngineProtocol.ID_NAME)) {
+                    name = line.substring(EngineProtocol.ID_NAME.length()).trim();
+                } else if (line.equals(EngineProtocol.HELLO_OK)) {
+                    break;
+                }
+            }
+            engine.name = name != null ? name : command.get(0);
+        } catch (IOException e) {
+            engine.destroy();
+            throw e;
+        }
+        return engine;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isAlive() {
+        return process.isAlive() && !in.checkError();
+    }
+
+    public void send(String command) {
+        in.println(command);
+    }
+
+    /**
+     * Next output line that is not an `info` line, or null if none arrived
+     * in time or the engine has exited.
+     */
+    public String awaitLine(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            while (true) {
+                long left = deadline - System.nanoTime();
+                String line = left > 0 ? lines.poll(left, TimeUnit.NANOSECONDS) : lines.poll();
+                if (line == null) {
+                    return null;
+                }
+                if (line == EOF) {
+                    lines.add(EOF); // keep reporting end of output
+                    return null;
+                }
+                if (!line.startsWith(EngineProtocol.INFO)) {
+                    return line;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Ask `isready` and wait for `readyok`, dropping any stale output such
+     * as a late `bestmove` from an earlier search.
+     */
+    public boolean awaitReady(long timeoutMillis) {
+        lines.removeIf(l -> l != EOF);
+        send(EngineProtocol.IS_READY);
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            String line = awaitLine(Math.max(0, deadline - System.currentTimeMillis()));
+            if (line == null) {
+                return false;
+            }
+            if (line.equals(EngineProtocol.READY_OK)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Ask the engine to quit, then kill it if it does not.
+     */
+    public void quit() {
+        send(EngineProtocol.QUIT);
+        try {
+            if (!process.waitFor(500, TimeUnit.MILLISECONDS)) {
+                destroy();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            destroy();
+        }
+    }
+
+    public void destroy() {
+        process.destroyForcibly();
+    }
+
+    private void readOutput() {
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                lines.add(line.trim());
+            }
+        } catch (IOException e) {
+            // process gone
+        }
+        lines.add(EOF);
+    }
+}
@@ -0,0 +1,49 @@
+package splendor.engine;
+
+/**
+ * Line protocol between the server and an out-of-process engine, modelled
+ * on chess UCI. The engine reads commands on stdin and answers on stdout.
+ *
+ * <pre>
+ * server -> engine                   engine -> server
+ * sei                                id name &lt;name&gt;   (optional)
+ *                                    seiok
+ * isready                            readyok
+ * newgame &lt;seat&gt; &lt;players&gt;
+ * position SNAP ...                  (no reply)
+ * go movetime &lt;ms&gt;                   bestmove &lt;action&gt; | bestmove PASS
+ * go time &lt;ms&gt; inc &lt;ms&gt;
+ * quit
+ * </pre>
+ *
+ * `position` carries the same `SNAP` line network clients receive, seen
+ * from the engine's seat. `go movetime` gives the time for this move;
+ * `go time` gives what is left on the engine's clock for the game and the
+ * increment added after each move. Actions use the client syntax, e.g.
+ * `TAKE WHITE:1,BLUE:1,RED:1` or `BUY MARKET 2 3`. Discards and noble
+ * choices are made by {@link splendor.ai.TurnResolver}, as for every bot.
+ *
+ * Engines may print `info ...` lines at any time; they are ignored. An
+ * engine is reused for many games: `newgame` starts the next one.
+ */
+public final class EngineProtocol {
+
+    public static final String HELLO = "sei";
+    public static final String HELLO_OK = "seiok";
+    public static final String ID_NAME = "id name ";
+    public static final String IS_READY = "isready";
+    public static final String READY_OK = "readyok";
+    public static final String NEW_GAME = "newgame";
+    public static final String POSITION = "position";
+    public static final String GO = "go";
+    public static final String MOVETIME = "movetime";
+    public static final String TIME = "time";
+    public static final String INC = "inc";
+    public static final String BEST_MOVE = "bestmove";
+    public static final String PASS = "PASS";
+    public static final String INFO = "info";
+    public static final String QUIT = "quit";
+
+    private EngineProtocol() {
+    }
+}
@@ -0,0 +1,175 @@
+package splendor.engine;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+import splendor.ai.Bot;
+import splendor.ai.MoveGenerator;
+import splendor.game.actions.GameAction;
+import splendor.game.actions.MoveCodec;
+import splendor.game.engine.Game;
+import splendor.network.MessageHandler;
+import splendor.util.Metrics;
+
+/**
+ * A bot seat played by an engine subprocess from an {@link EnginePool}.
+ *
+ * The engine is borrowed on the seat's first move and kept for the rest
+ * of the game; {@link #close()} hands it back. If the engine answers late,
+ * with an illegal move, or not at all, the seat plays the first legal move
+ * instead and the engine is replaced, so one bad engine never stalls a
+ * table.
+ */
+public class ExternalEngineBot implements Bot, AutoCloseable {
+
+    /** Extra time allowed for process scheduling and pipe latency. */
+    private static final long GRACE_MILLIS = 500;
+
+    private static final LongAdder MOVES = Metrics.counter("engine.moves");
+    private static final LongAdder TIMEOUTS = Metrics.counter("engine.timeouts");
+    private static final LongAdder ILLEGAL = Metrics.counter("engine.illegal");
+
+    private final EnginePool pool;
+    private final int seat;
+    private final int playerCount;
+    private final TimeControl timeControl;
+    private final int[] legal = new int[MoveGenerator.MAX_MOVES];
+    private final MoveGenerator generator = new MoveGenerator();
+
+    private EngineProcess engine;
+    private long clockMillis;
+
+    public ExternalEngineBot(EnginePool pool, int seat, int playerCount, TimeControl timeControl) {
+        this.pool = pool;
+        this.seat = seat;
+        this.playerCount = playerCount;
+        this.timeControl = timeControl;
+        this.clockMillis = timeControl.baseMillis;
+    }
+
+    @Override
+    public GameAction chooseAction(Game game) {
+        int count = generator.generate(game, legal);
+        if (count == 0) {
+            return null;
+        }
+        GameAction fallback = MoveCodec.decode(legal[0]);
+        EngineProcess e = borrow();
+        if (e == null) {
+            return fallback;
+        }
+
+        e.send(EngineProtocol.POSITION + " " + MessageHandler.formatSnapshot(game.getState(), game.getCurrentPlayerIndex(), seat));
+        long budget;
+        if (timeControl.isClock()) {
+            budget = Math.max(0, clockMillis);
+            e.send(EngineProtocol.GO + " " + EngineProtocol.TIME + " " + budget + " " + EngineProtocol.INC + " " + timeControl.incrementMillis);
+        } else {
+            budget = timeControl.moveMillis;
+            e.send(EngineProtocol.GO + " " + EngineProtocol.MOVETIME + " " + budget);
+        }
+        long start = System.currentTimeMillis();
+        String reply = e.awaitLine(budget + GRACE_MILLIS);
+        clockMillis += timeControl.incrementMillis - (System.currentTimeMillis() - start);
+        MOVES.increment();
+
+        if (reply == null) {
+            TIMEOUTS.increment();
+            giveBack(false);
+            return fallback;
+        }
+        GameAction action = parseBestMove(reply);
+        if (action == null || !game.validateAction(action).isValid()) {
+            ILLEGAL.increment();
+            giveBack(false);
+            return fallback;
+        }
+        return action;
+    }
+
+    /**
+     * Return the engine to the pool. Safe to call more than once.
+     */
+    @Override
+    public void close() {
+        giveBack(true);
+    }
+
+    private EngineProcess borrow() {
+        if (engine == null) {
+            try {
+                engine = pool.acquire();
+                engine.send(EngineProtocol.NEW_GAME + " " + seat + " " + playerCount);
+            } catch (IOException | IllegalStateException e) {
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        return engine;
+    }
+
+    private void giveBack(boolean healthy) {
+        if (engine != null) {
+            pool.release(engine, healthy);
+            engine = null;
+        }
+    }
+
+    private static GameAction parseBestMove(String reply) {
+        if (!reply.startsWith(EngineProtocol.BEST_MOVE + " ")) {
+            return null;
+        }
+        String move = reply.substring(EngineProtocol.BEST_MOVE.length() + 1).trim();
+        if (move.equals(EngineProtocol.PASS)) {
+            return null; // only legal when there is no move, which never reaches the engine
+        }
+        try {
+            return MessageHandler.parseAction(move);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Time given to engines: a fixed time per move, or a clock for the whole
+     * game with an increment after every move.
+     */
+    public static final class TimeControl {
+        final long moveMillis;
+        final long baseMillis;
+        final long incrementMillis;
+
+        private TimeControl(long moveMillis, long baseMillis, long incrementMillis) {
+            this.moveMillis = moveMillis;
+            this.baseMillis = baseMillis;
+            this.incrementMillis = incrementMillis;
+        }
+
+        public static TimeControl perMove(long millis) {
+            return new TimeControl(millis, 0, 0);
+        }
+
+        public static TimeControl clock(long baseMillis, long incrementMillis) {
+            return new TimeControl(0, baseMillis, incrementMillis);
+        }
+
+        /**
+         * `-Dsplendor.engine.clock=<baseMs>+<incMs>` if set, otherwise
+         * `-Dsplendor.engine.movetime=<ms>` (default {@code defaultMoveMillis}).
+         */
+        public static TimeControl fromSystemProperties(long defaultMoveMillis) {
+            String clock = System.getProperty("splendor.engine.clock");
+            if (clock != null) {
+                String[] parts = clock.split("\\+");
+                return clock(Long.parseLong(parts[0].trim()), parts.length > 1 ? Long.parseLong(parts[1].trim()) : 0);
+            }
+            return perMove(Long.getLong("splendor.engine.movetime", defaultMoveMillis));
+        }
+
+        boolean isClock() {
+            return baseMillis > 0;
+        }
+    }
+}
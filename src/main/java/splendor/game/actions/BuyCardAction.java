@@ -53,5 +53,23 @@ public class BuyCardAction implements GameAction {
     public int getCardIndex() {
         return cardIndex;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof BuyCardAction other
+                && fromReserved == other.fromReserved
+                && level == other.level
+                && cardIndex == other.cardIndex;
+    }
+
+    @Override
+    public int hashCode() {
+        return (fromReserved ? 31 : 0) + level * 8 + cardIndex;
+    }
+
+    @Override
+    public String toString() {
+        return fromReserved ? "BUY RESERVED " + cardIndex : "BUY MARKET " + level + " " + cardIndex;
+    }
 }
 
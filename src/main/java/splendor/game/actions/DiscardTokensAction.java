@@ -31,5 +31,20 @@ public class DiscardTokensAction implements GameAction {
     public Map<GemType, Integer> getDiscards() {
         return Collections.unmodifiableMap(discards);
     }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof DiscardTokensAction other && discards.equals(other.discards);
+    }
+
+    @Override
+    public int hashCode() {
+        return discards.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "DISCARD " + GemCounts.format(discards);
+    }
 }
 
@@ -0,0 +1,28 @@
+package splendor.game.actions;
+
+import splendor.model.GemType;
+
+import java.util.Map;
+
+/**
+ * Formatting helper for gem count maps in action descriptions.
+ */
+final class GemCounts {
+
+    private GemCounts() {
+    }
+
+    /**
+     * Format as `WHITE:1,BLUE:2`, the same form the network protocol parses.
+     */
+    static String format(Map<GemType, Integer> counts) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<GemType, Integer> e : counts.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(e.getKey()).append(':').append(e.getValue());
+        }
+        return sb.toString();
+    }
+}
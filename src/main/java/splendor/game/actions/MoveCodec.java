@@ -0,0 +1,227 @@
+package splendor.game.actions;
+
+import splendor.model.GemType;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Encodes every action as a single {@code int} so move lists, search trees
+ * and journals can be stored in primitive arrays.
+ *
+ * Layout (least significant bits first):
+ * <pre>
+ * bits 0-1   action type (ActionType ordinal)
+ * TAKE       bits 2-11   2 bits per standard color (WHITE..BLACK), count 0-3
+ * BUY        bit  2      from reserved
+ *            bits 3-4    level (0 when from reserved)
+ *            bits 5-7    face-up or reserved index
+ * RESERVE    bit  2      from top of deck
+ *            bits 3-4    level
+ *            bits 5-7    face-up index (0 when from top of deck)
+ * DISCARD    bits 2-25   4 bits per gem type (WHITE..GOLD), count 0-15
+ * </pre>
+ * Every legal action is representable. {@link #NONE} (an empty take) is
+ * never legal and is used to mean "no move" or a forced pass.
+ */
+public final class MoveCodec {
+
+    public static final int NONE = 0;
+
+    /**
+     * A discard of nothing; build real discards from it with {@link #withCount}.
+     */
+    public static final int EMPTY_DISCARD = 3; // ActionType.DISCARD_TOKENS ordinal
+
+    private static final int TYPE_MASK = 0x3;
+    private static final int FLAG_BIT = 1 << 2;
+    private static final int LEVEL_SHIFT = 3;
+    private static final int INDEX_SHIFT = 5;
+    private static final int TAKE_SHIFT = 2;
+    private static final int TAKE_BITS = 2;
+    private static final int DISCARD_SHIFT = 2;
+    private static final int DISCARD_BITS = 4;
+
+    private static final ActionType[] TYPES = ActionType.values();
+    private static final GemType[] GEMS = GemType.values();
+
+    private MoveCodec() {
+    }
+
+    // ---- Construction -------------------------------------------------------
+
+    /**
+     * Encode a take from per-color counts indexed by {@link GemType#ordinal()}
+     * (the gold entry, if present, must be 0).
+     */
+    public static int takeTokens(int[] counts) {
+        int move = ActionType.TAKE_TOKENS.ordinal();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            if (i == GemType.GOLD.ordinal() || counts[i] < 0 || counts[i] > 3) {
+                throw new IllegalArgumentException("Take count not encodable: " + GEMS[i] + "=" + counts[i]);
+            }
+            move |= counts[i] << (TAKE_SHIFT + i * TAKE_BITS);
+        }
+        return move;
+    }
+
+    /**
+     * Encode a discard from per-gem counts indexed by {@link GemType#ordinal()}.
+     */
+    public static int discardTokens(int[] counts) {
+        int move = ActionType.DISCARD_TOKENS.ordinal();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] < 0 || counts[i] > 15) {
+                throw new IllegalArgumentException("Discard count not encodable: " + GEMS[i] + "=" + counts[i]);
+            }
+            move |= counts[i] << (DISCARD_SHIFT + i * DISCARD_BITS);
+        }
+        return move;
+    }
+
+    /**
+     * Return a TAKE or DISCARD move with the count of one gem replaced.
+     */
+    public static int withCount(int move, GemType type, int count) {
+        int shift;
+        int bits;
+        int max;
+        if (type(move) == ActionType.TAKE_TOKENS && type != GemType.GOLD) {
+            shift = TAKE_SHIFT + type.ordinal() * TAKE_BITS;
+            bits = TAKE_BITS;
+            max = 3;
+        } else if (type(move) == ActionType.DISCARD_TOKENS) {
+            shift = DISCARD_SHIFT + type.ordinal() * DISCARD_BITS;
+            bits = DISCARD_BITS;
+            max = 15;
+        } else {
+            throw new IllegalArgumentException("Cannot set " + type + " count on " + type(move));
+        }
+        if (count < 0 || count > max) {
+            throw new IllegalArgumentException("Count not encodable: " + type + "=" + count);
+        }
+        int mask = ((1 << bits) - 1) << shift;
+        return (move & ~mask) | (count << shift);
+    }
+
+    public static int buyFromMarket(int level, int index) {
+        return ActionType.BUY_CARD.ordinal() | position(level, index);
+    }
+
+    public static int buyFromReserved(int index) {
+        return ActionType.BUY_CARD.ordinal() | FLAG_BIT | position(0, index);
+    }
+
+    public static int reserveFromMarket(int level, int index) {
+        return ActionType.RESERVE_CARD.ordinal() | position(level, index);
+    }
+
+    public static int reserveFromTopOfDeck(int level) {
+        return ActionType.RESERVE_CARD.ordinal() | FLAG_BIT | position(level, 0);
+    }
+
+    private static int position(int level, int index) {
+        if (level < 0 || level > 3 || index < 0 || index > 7) {
+            throw new IllegalArgumentException("Position not encodable: level " + level + ", index " + index);
+        }
+        return (level << LEVEL_SHIFT) | (index << INDEX_SHIFT);
+    }
+
+    // ---- Field access -------------------------------------------------------
+
+    public static ActionType type(int move) {
+        return TYPES[move & TYPE_MASK];
+    }
+
+    /**
+     * For BUY: card comes from the reserved hand. For RESERVE: blind from the deck.
+     */
+    public static boolean flag(int move) {
+        return (move & FLAG_BIT) != 0;
+    }
+
+    public static int level(int move) {
+        return (move >>> LEVEL_SHIFT) & 0x3;
+    }
+
+    public static int index(int move) {
+        return (move >>> INDEX_SHIFT) & 0x7;
+    }
+
+    /**
+     * Tokens of the given gem taken (TAKE) or returned (DISCARD) by the move.
+     */
+    public static int count(int move, GemType type) {
+        return count(move, type.ordinal());
+    }
+
+    public static int count(int move, int gemOrdinal) {
+        return switch (type(move)) {
+            case TAKE_TOKENS -> gemOrdinal == GemType.GOLD.ordinal()
+                    ? 0 : (move >>> (TAKE_SHIFT + gemOrdinal * TAKE_BITS)) & 0x3;
+            case DISCARD_TOKENS -> (move >>> (DISCARD_SHIFT + gemOrdinal * DISCARD_BITS)) & 0xf;
+            default -> 0;
+        };
+    }
+
+    // ---- Conversion ---------------------------------------------------------
+
+    public static int encode(GameAction action) {
+        return switch (action.getType()) {
+            case TAKE_TOKENS -> takeTokens(toCounts(((TakeTokensAction) action).getTaken()));
+            case DISCARD_TOKENS -> discardTokens(toCounts(((DiscardTokensAction) action).getDiscards()));
+            case BUY_CARD -> {
+                BuyCardAction buy = (BuyCardAction) action;
+                yield buy.isFromReserved()
+                        ? buyFromReserved(buy.getCardIndex())
+                        : buyFromMarket(buy.getLevel(), buy.getCardIndex());
+            }
+            case RESERVE_CARD -> {
+                ReserveCardAction reserve = (ReserveCardAction) action;
+                yield reserve.isFromTopOfDeck()
+                        ? reserveFromTopOfDeck(reserve.getLevel())
+                        : reserveFromMarket(reserve.getLevel(), reserve.getCardIndex());
+            }
+        };
+    }
+
+    public static GameAction decode(int move) {
+        return switch (type(move)) {
+            case TAKE_TOKENS -> new TakeTokensAction(toMap(move));
+            case DISCARD_TOKENS -> new DiscardTokensAction(toMap(move));
+            case BUY_CARD -> flag(move)
+                    ? BuyCardAction.fromReserved(index(move))
+                    : BuyCardAction.fromMarket(level(move), index(move));
+            case RESERVE_CARD -> flag(move)
+                    ? ReserveCardAction.fromTopOfDeck(level(move))
+                    : ReserveCardAction.fromMarket(level(move), index(move));
+        };
+    }
+
+    /**
+     * Same text as {@code decode(move).toString()}.
+     */
+    public static String toString(int move) {
+        return decode(move).toString();
+    }
+
+    private static int[] toCounts(Map<GemType, Integer> map) {
+        int[] counts = new int[GEMS.length];
+        map.forEach((type, amount) -> counts[type.ordinal()] = amount);
+        return counts;
+    }
+
+    private static Map<GemType, Integer> toMap(int move) {
+        EnumMap<GemType, Integer> map = new EnumMap<>(GemType.class);
+        for (GemType type : GEMS) {
+            int c = count(move, type);
+            if (c > 0) {
+                map.put(type, c);
+            }
+        }
+        return map;
+    }
+}
@@ -41,5 +41,23 @@ public class ReserveCardAction implements GameAction {
     public int getCardIndex() {
         return cardIndex;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ReserveCardAction other
+                && fromTopOfDeck == other.fromTopOfDeck
+                && level == other.level
+                && cardIndex == other.cardIndex;
+    }
+
+    @Override
+    public int hashCode() {
+        return (fromTopOfDeck ? 31 : 0) + level * 8 + cardIndex;
+    }
+
+    @Override
+    public String toString() {
+        return fromTopOfDeck ? "RESERVE TOP " + level : "RESERVE MARKET " + level + " " + cardIndex;
+    }
 }
 
@@ -33,5 +33,20 @@ public class TakeTokensAction implements GameAction {
     public Map<GemType, Integer> getTaken() {
         return Collections.unmodifiableMap(taken);
     }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof TakeTokensAction other && taken.equals(other.taken);
+    }
+
+    @Override
+    public int hashCode() {
+        return taken.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "TAKE " + GemCounts.format(taken);
+    }
 }
 
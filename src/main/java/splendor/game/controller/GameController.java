@@ -1,5 +1,6 @@
 package splendor.game.controller;
 
+import splendor.ai.HintService;
 import splendor.game.actions.BuyCardAction;
 import splendor.game.actions.GameAction;
 import splendor.game.actions.ReserveCardAction;
@@ -28,6 +29,7 @@ public class GameController {
     private final ConsoleView view;
     private final InputHandler input;
     private final MenuSystem menu;
+    private final HintService hints = new HintService();
 
     private Game game;
 
@@ -60,6 +62,7 @@ public class GameController {
         while (!game.isGameOver()) {
             playTurn();
         }
+        hints.shutdown();
         Player winner = game.determineWinner();
         view.showWinner(winner, game.getState().getPlayers());
     }
@@ -86,6 +89,10 @@ public class GameController {
                     ReserveCardAction a = menu.buildReserveCardAction(game.getState().getBoard(), current);
                     action = a;
                 }
+                case 4 -> {
+                    view.showHints(hints.getHints(game, 3));
+                    continue;
+                }
                 default -> view.showError("Unknown choice.");
             }
 
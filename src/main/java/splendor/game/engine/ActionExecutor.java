@@ -12,89 +12,194 @@ import java.util.Map;
  */
 public class ActionExecutor {
 
+    private static final GemType[] GEMS = GemType.values();
+    private static final GemType[] COLORS = {
+            GemType.WHITE, GemType.BLUE, GemType.GREEN, GemType.RED, GemType.BLACK
+    };
+
     public void execute(GameState state, int currentPlayerIndex, GameAction action) {
+        execute(state, currentPlayerIndex, MoveCodec.encode(action));
+    }
+
+    /**
+     * Apply an action in its {@link MoveCodec} encoding. Does not allocate.
+     */
+    public void execute(GameState state, int currentPlayerIndex, int move) {
+        execute(state, currentPlayerIndex, move, null);
+    }
+
+    /**
+     * Apply an encoded action and record in {@code undo} what
+     * {@link #unmake} needs to take it back. A main action and a discard
+     * may be recorded in the same turn. Does not allocate.
+     *
+     * @param undo the turn record, or null when the action is final
+     */
+    public void execute(GameState state, int currentPlayerIndex, int move, TurnUndo undo) {
         Player player = state.getPlayers().get(currentPlayerIndex);
         Board board = state.getBoard();
 
-        switch (action.getType()) {
-            case TAKE_TOKENS -> executeTakeTokens(board, player, (TakeTokensAction) action);
-            case BUY_CARD -> executeBuyCard(board, player, (BuyCardAction) action);
-            case RESERVE_CARD -> executeReserve(board, player, (ReserveCardAction) action);
-            case DISCARD_TOKENS -> executeDiscard(board, player, (DiscardTokensAction) action);
+        switch (MoveCodec.type(move)) {
+            case TAKE_TOKENS -> executeTakeTokens(board, player, move);
+            case BUY_CARD -> executeBuyCard(board, player, move, undo);
+            case RESERVE_CARD -> executeReserve(board, player, move, undo);
+            case DISCARD_TOKENS -> executeDiscard(board, player, move);
+        }
+        if (undo != null) {
+            if (MoveCodec.type(move) == ActionType.DISCARD_TOKENS) {
+                undo.discard = move;
+            } else {
+                undo.move = move;
+            }
         }
     }
 
-    private void executeTakeTokens(Board board, Player player, TakeTokensAction action) {
-        for (Map.Entry<GemType, Integer> e : action.getTaken().entrySet()) {
-            GemType type = e.getKey();
-            int amount = e.getValue();
-            board.getSupplyTokens().remove(type, amount);
-            player.getTokens().add(type, amount);
+    /**
+     * Take back the noble, discard and main action recorded in
+     * {@code undo}, in that order. The turn itself is restored by
+     * {@link Game#undoTurn(TurnUndo)}.
+     */
+    public void unmake(GameState state, int playerIndex, TurnUndo undo) {
+        Player player = state.getPlayers().get(playerIndex);
+        Board board = state.getBoard();
+        if (undo.noble != null) {
+            player.addPrestigePoints(-undo.noble.getPrestigePoints());
+            board.restoreNoble(undo.nobleIndex, undo.noble);
+        }
+        if (undo.discard != MoveCodec.NONE) {
+            for (GemType type : GEMS) {
+                int amount = MoveCodec.count(undo.discard, type);
+                if (amount > 0) {
+                    board.getSupplyTokens().remove(type, amount);
+                    player.getTokens().add(type, amount);
+                }
+            }
+        }
+        int move = undo.move;
+        if (move == MoveCodec.NONE) {
+            return;
+        }
+        switch (MoveCodec.type(move)) {
+            case TAKE_TOKENS -> {
+                for (GemType type : COLORS) {
+                    int amount = MoveCodec.count(move, type);
+                    if (amount > 0) {
+                        player.getTokens().remove(type, amount);
+                        board.getSupplyTokens().add(type, amount);
+                    }
+                }
+            }
+            case BUY_CARD -> {
+                player.unpurchaseCard(undo.card);
+                for (GemType type : GEMS) {
+                    int paid = undo.paid[type.ordinal()];
+                    if (paid > 0) {
+                        board.getSupplyTokens().remove(type, paid);
+                        player.getTokens().add(type, paid);
+                    }
+                }
+                if (MoveCodec.flag(move)) {
+                    player.insertReservedCard(undo.slot, undo.card, undo.faceDown);
+                } else {
+                    unrefill(board, MoveCodec.level(move), undo.refilledSlots);
+                    board.placeFaceUpCard(MoveCodec.level(move), undo.slot, undo.card);
+                }
+            }
+            case RESERVE_CARD -> {
+                if (undo.tookGold) {
+                    player.getTokens().remove(GemType.GOLD, 1);
+                    board.getSupplyTokens().add(GemType.GOLD, 1);
+                }
+                if (undo.card != null) {
+                    player.removeReservedCard(player.getReservedCards().size() - 1);
+                    int level = MoveCodec.level(move);
+                    if (MoveCodec.flag(move)) {
+                        board.getDeck(level).addCard(undo.card);
+                    } else {
+                        unrefill(board, level, undo.refilledSlots);
+                        board.placeFaceUpCard(level, undo.slot, undo.card);
+                    }
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void executeTakeTokens(Board board, Player player, int move) {
+        for (GemType type : COLORS) {
+            int amount = MoveCodec.count(move, type);
+            if (amount > 0) {
+                board.getSupplyTokens().remove(type, amount);
+                player.getTokens().add(type, amount);
+            }
         }
     }
 
-    private void executeBuyCard(Board board, Player player, BuyCardAction action) {
+    private void executeBuyCard(Board board, Player player, int move, TurnUndo undo) {
         Card card;
-        if (action.isFromReserved()) {
-            card = player.getReservedCards().remove(action.getCardIndex());
+        int index = MoveCodec.index(move);
+        if (MoveCodec.flag(move)) {
+            if (undo != null) {
+                undo.faceDown = player.isReservedFaceDown(index);
+            }
+            card = player.removeReservedCard(index);
         } else {
-            int level = action.getLevel();
-            card = board.takeFaceUpCard(level, action.getCardIndex());
-            board.refillLevel(level);
+            int level = MoveCodec.level(move);
+            card = board.takeFaceUpCard(level, index);
+            refill(board, level, undo);
+        }
+        if (undo != null) {
+            undo.card = card;
+            undo.slot = index;
         }
 
-        // Determine token payment using minimal gold usage.
-        TokenPool payment = new TokenPool();
-        int goldAvailable = player.getTokens().get(GemType.GOLD);
+        // Pay with colored tokens first; gold covers whatever is missing.
+        TokenPool tokens = player.getTokens();
+        TokenPool supply = board.getSupplyTokens();
         int goldUsed = 0;
-
-        for (Map.Entry<GemType, Integer> e : card.getCost().entrySet()) {
-            GemType color = e.getKey();
-            int cost = e.getValue();
-            int bonus = player.getBonus(color);
-            int effectiveCost = Math.max(0, cost - bonus);
-            int playerTokens = player.getTokens().get(color);
-            if (playerTokens >= effectiveCost) {
-                if (effectiveCost > 0) {
-                    payment.add(color, effectiveCost);
-                }
-            } else {
-                int missing = effectiveCost - playerTokens;
-                if (playerTokens > 0) {
-                    payment.add(color, playerTokens);
-                }
-                goldUsed += missing;
+        for (GemType color : COLORS) {
+            int effectiveCost = Math.max(0, card.getCost(color) - player.getBonus(color));
+            int paid = Math.min(tokens.get(color), effectiveCost);
+            goldUsed += effectiveCost - paid;
+            if (paid > 0) {
+                tokens.remove(color, paid);
+                supply.add(color, paid);
+            }
+            if (undo != null) {
+                undo.paid[color.ordinal()] = paid;
             }
         }
-
         if (goldUsed > 0) {
-            payment.add(GemType.GOLD, goldUsed);
+            tokens.remove(GemType.GOLD, goldUsed);
+            supply.add(GemType.GOLD, goldUsed);
         }
-
-        // Remove payment from player, return to supply.
-        for (Map.Entry<GemType, Integer> e : payment.asUnmodifiableMap().entrySet()) {
-            GemType type = e.getKey();
-            int amount = e.getValue();
-            if (amount <= 0) continue;
-            player.getTokens().remove(type, amount);
-            board.getSupplyTokens().add(type, amount);
+        if (undo != null) {
+            undo.paid[GemType.GOLD.ordinal()] = goldUsed;
         }
 
         // Finally, give the card to the player.
         player.purchaseCard(card);
     }
 
-    private void executeReserve(Board board, Player player, ReserveCardAction action) {
+    private void executeReserve(Board board, Player player, int move, TurnUndo undo) {
+        int level = MoveCodec.level(move);
+        boolean fromTop = MoveCodec.flag(move);
         Card reservedCard;
-        if (action.isFromTopOfDeck()) {
-            reservedCard = board.drawFromDeck(action.getLevel());
+        if (fromTop) {
+            reservedCard = board.drawFromDeck(level);
         } else {
-            reservedCard = board.takeFaceUpCard(action.getLevel(), action.getCardIndex());
-            board.refillLevel(action.getLevel());
+            reservedCard = board.takeFaceUpCard(level, MoveCodec.index(move));
+            refill(board, level, undo);
+        }
+        if (undo != null) {
+            undo.card = reservedCard;
+            undo.slot = MoveCodec.index(move);
+            undo.tookGold = board.getSupplyTokens().get(GemType.GOLD) > 0;
         }
 
         if (reservedCard != null) {
-            player.getReservedCards().add(reservedCard);
+            player.reserveCard(reservedCard, fromTop);
         }
 
         // Take one gold token if available.
@@ -104,12 +209,47 @@ public class ActionExecutor {
         }
     }
 
-    private void executeDiscard(Board board, Player player, DiscardTokensAction action) {
-        for (Map.Entry<GemType, Integer> e : action.getDiscards().entrySet()) {
-            GemType type = e.getKey();
-            int amount = e.getValue();
-            player.getTokens().remove(type, amount);
-            board.getSupplyTokens().add(type, amount);
+    /**
+     * Refill a market level, noting in {@code undo} which slots were dealt.
+     */
+    private static void refill(Board board, int level, TurnUndo undo) {
+        if (undo == null) {
+            board.refillLevel(level);
+            return;
+        }
+        int emptyBefore = emptySlots(board, level);
+        board.refillLevel(level);
+        undo.refilledSlots = emptyBefore & ~emptySlots(board, level);
+    }
+
+    private static int emptySlots(Board board, int level) {
+        int mask = 0;
+        for (int slot = 0; slot < Board.FACE_UP_PER_LEVEL; slot++) {
+            if (board.getFaceUpCard(level, slot) == null) {
+                mask |= 1 << slot;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Return dealt cards to the top of their deck, last dealt first.
+     */
+    private static void unrefill(Board board, int level, int refilledSlots) {
+        for (int slot = Board.FACE_UP_PER_LEVEL - 1; slot >= 0; slot--) {
+            if ((refilledSlots & (1 << slot)) != 0) {
+                board.getDeck(level).addCard(board.takeFaceUpCard(level, slot));
+            }
+        }
+    }
+
+    private void executeDiscard(Board board, Player player, int move) {
+        for (GemType type : GEMS) {
+            int amount = MoveCodec.count(move, type);
+            if (amount > 0) {
+                player.getTokens().remove(type, amount);
+                board.getSupplyTokens().add(type, amount);
+            }
         }
     }
 
@@ -133,9 +273,39 @@ public class ActionExecutor {
         return result;
     }
 
+    public Noble findFirstClaimableNoble(Board board, Player player) {
+        List<Noble> nobles = board.getNobles();
+        for (int i = 0; i < nobles.size(); i++) {
+            Noble noble = nobles.get(i);
+            if (qualifies(player, noble)) {
+                return noble;
+            }
+        }
+        return null;
+    }
+
+    private static boolean qualifies(Player player, Noble noble) {
+        for (GemType color : COLORS) {
+            if (player.getBonus(color) < noble.getRequirement(color)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public void claimNoble(Board board, Player player, Noble noble) {
         player.addPrestigePoints(noble.getPrestigePoints());
         board.removeNoble(noble);
     }
+
+    /**
+     * {@link #claimNoble(Board, Player, Noble)}, recording the noble and its
+     * position for {@link #unmake}.
+     */
+    public void claimNoble(Board board, Player player, Noble noble, TurnUndo undo) {
+        undo.noble = noble;
+        undo.nobleIndex = board.indexOfNoble(noble);
+        claimNoble(board, player, noble);
+    }
 }
 
@@ -2,6 +2,7 @@ package splendor.game.engine;
 
 import splendor.game.actions.*;
 import splendor.model.Board;
+import splendor.model.Card;
 import splendor.model.GemType;
 import splendor.model.Player;
 
@@ -9,170 +10,231 @@ import java.util.Map;
 
 /**
  * Validates whether actions are legal according to Splendor rules.
+ *
+ * All rules live in {@link #check(GameState, int, int)}, which works on the
+ * {@link MoveCodec} encoding and returns a {@link ValidationError} code
+ * without allocating. The {@code validate} methods wrap the code in a
+ * {@link ValidationResult} for UIs.
  */
 public class ActionValidator {
 
+    private static final GemType[] GEMS = GemType.values();
+    private static final GemType[] COLORS = {
+            GemType.WHITE, GemType.BLUE, GemType.GREEN, GemType.RED, GemType.BLACK
+    };
+
     public ValidationResult validate(GameState state, int currentPlayerIndex, GameAction action) {
         if (action == null) {
-            return ValidationResult.error("No action selected.");
+            return ValidationResult.of(ValidationError.NO_ACTION);
+        }
+        return validate(state, currentPlayerIndex, toMove(action));
+    }
+
+    /**
+     * Validate an action in its {@link MoveCodec} encoding, applying the same
+     * rules as {@link #validate(GameState, int, GameAction)}.
+     */
+    public ValidationResult validate(GameState state, int currentPlayerIndex, int move) {
+        ValidationError error = check(state, currentPlayerIndex, move);
+        if (!error.hasGemDetail()) {
+            return ValidationResult.of(error);
         }
+        return ValidationResult.of(error, offendingGem(state, currentPlayerIndex, move, error));
+    }
+
+    /**
+     * Check an encoded action and return {@link ValidationError#NONE} if it
+     * is legal. Does not allocate; meant for bots and move generation.
+     */
+    public ValidationError check(GameState state, int currentPlayerIndex, int move) {
         Player player = state.getPlayers().get(currentPlayerIndex);
         Board board = state.getBoard();
 
-        return switch (action.getType()) {
-            case TAKE_TOKENS -> validateTakeTokens(board, player, (TakeTokensAction) action);
-            case BUY_CARD -> validateBuyCard(board, player, (BuyCardAction) action);
-            case RESERVE_CARD -> validateReserve(board, player, (ReserveCardAction) action);
-            case DISCARD_TOKENS -> validateDiscard(player, (DiscardTokensAction) action);
+        return switch (MoveCodec.type(move)) {
+            case TAKE_TOKENS -> checkTakeTokens(board, move);
+            case BUY_CARD -> checkBuyCard(board, player, move);
+            case RESERVE_CARD -> checkReserve(board, player, move);
+            case DISCARD_TOKENS -> checkDiscard(player, move);
         };
     }
 
-    private ValidationResult validateTakeTokens(Board board, Player player, TakeTokensAction action) {
-        Map<GemType, Integer> taken = action.getTaken();
-        if (taken.isEmpty()) {
-            return ValidationResult.error("You must take some tokens.");
+    private ValidationError checkTakeTokens(Board board, int move) {
+        int colors = 0;
+        int total = 0;
+        for (GemType type : COLORS) {
+            int amount = MoveCodec.count(move, type);
+            if (amount > 0) {
+                colors++;
+                total += amount;
+            }
         }
-
-        long nonZero = taken.values().stream().filter(v -> v > 0).count();
-        if (nonZero == 3) {
-            // 3 different colors, each exactly 1
-            for (Map.Entry<GemType, Integer> e : taken.entrySet()) {
-                GemType type = e.getKey();
-                int amount = e.getValue();
-                if (!type.isStandard()) {
-                    return ValidationResult.error("You may not take gold tokens.");
+        if (colors == 0) {
+            return ValidationError.NO_TOKENS_TAKEN;
+        }
+        if (colors == 3) {
+            for (GemType type : COLORS) {
+                int amount = MoveCodec.count(move, type);
+                if (amount == 0) {
+                    continue;
                 }
                 if (amount != 1) {
-                    return ValidationResult.error("To take three colors, you must take 1 of each.");
+                    return ValidationError.THREE_COLORS_NOT_ONE_EACH;
                 }
                 if (board.getSupplyTokens().get(type) < 1) {
-                    return ValidationResult.error("Not enough tokens in supply for " + type + ".");
+                    return ValidationError.SUPPLY_EMPTY;
                 }
             }
-        } else if (nonZero == 1) {
-            // 2 of the same color
-            Map.Entry<GemType, Integer> entry = taken.entrySet().iterator().next();
-            GemType type = entry.getKey();
-            int amount = entry.getValue();
-            if (!type.isStandard()) {
-                return ValidationResult.error("You may not take gold tokens.");
-            }
-            if (amount != 2) {
-                return ValidationResult.error("To take two of a color, you must take exactly 2.");
+        } else if (colors == 1) {
+            if (total != 2) {
+                return ValidationError.TWO_OF_COLOR_NOT_TWO;
             }
-            if (board.getSupplyTokens().get(type) < 4) {
-                return ValidationResult.error("You may take two of a color only if at least 4 are in the supply.");
+            for (GemType type : COLORS) {
+                if (MoveCodec.count(move, type) > 0 && board.getSupplyTokens().get(type) < 4) {
+                    return ValidationError.TWO_OF_COLOR_SUPPLY_LOW;
+                }
             }
         } else {
-            return ValidationResult.error("You must either take 3 different colors or 2 of one color.");
+            return ValidationError.INVALID_TAKE;
         }
-
         // Token limit is enforced via discard action, not here.
-        return ValidationResult.ok();
+        return ValidationError.NONE;
     }
 
-    private ValidationResult validateBuyCard(Board board, Player player, BuyCardAction action) {
-        if (action.isFromReserved()) {
-            int idx = action.getCardIndex();
-            if (idx < 0 || idx >= player.getReservedCards().size()) {
-                return ValidationResult.error("Reserved card index is out of range.");
+    private ValidationError checkBuyCard(Board board, Player player, int move) {
+        int idx = MoveCodec.index(move);
+        if (MoveCodec.flag(move)) {
+            if (idx >= player.getReservedCards().size()) {
+                return ValidationError.RESERVED_INDEX_OUT_OF_RANGE;
             }
             if (!canAfford(player, player.getReservedCards().get(idx))) {
-                return ValidationResult.error("You cannot afford that reserved card.");
+                return ValidationError.CANNOT_AFFORD_RESERVED;
             }
-        } else {
-            int level = action.getLevel();
-            int idx = action.getCardIndex();
-            try {
-                switch (level) {
-                    case 1 -> board.getLevel1FaceUp().get(idx);
-                    case 2 -> board.getLevel2FaceUp().get(idx);
-                    case 3 -> board.getLevel3FaceUp().get(idx);
-                    default -> {
-                        return ValidationResult.error("Invalid card level.");
-                    }
-                }
-            } catch (IndexOutOfBoundsException ex) {
-                return ValidationResult.error("No card at that position.");
+            return ValidationError.NONE;
+        }
+        int level = MoveCodec.level(move);
+        if (level < 1) {
+            return ValidationError.INVALID_LEVEL;
+        }
+        Card card = board.getFaceUpCard(level, idx);
+        if (card == null) {
+            return ValidationError.NO_CARD_AT_POSITION;
+        }
+        if (!canAfford(player, card)) {
+            return ValidationError.CANNOT_AFFORD;
+        }
+        return ValidationError.NONE;
+    }
+
+    private ValidationError checkReserve(Board board, Player player, int move) {
+        if (!player.canReserveMore()) {
+            return ValidationError.RESERVE_LIMIT;
+        }
+        int level = MoveCodec.level(move);
+        if (level < 1) {
+            return ValidationError.INVALID_LEVEL;
+        }
+        if (MoveCodec.flag(move)) {
+            // Official rules: cannot reserve from an empty deck.
+            if (!board.hasCardsInDeck(level)) {
+                return ValidationError.DECK_EMPTY;
+            }
+        } else if (board.getFaceUpCard(level, MoveCodec.index(move)) == null) {
+            return ValidationError.NO_CARD_TO_RESERVE;
+        }
+        return ValidationError.NONE;
+    }
+
+    private ValidationError checkDiscard(Player player, int move) {
+        int totalDiscard = 0;
+        for (GemType type : GEMS) {
+            int amount = MoveCodec.count(move, type);
+            if (amount == 0) {
+                continue;
             }
-            if (!canAfford(player, switch (level) {
-                case 1 -> board.getLevel1FaceUp().get(idx);
-                case 2 -> board.getLevel2FaceUp().get(idx);
-                case 3 -> board.getLevel3FaceUp().get(idx);
-                default -> null;
-            })) {
-                return ValidationResult.error("You cannot afford that card.");
+            if (player.getTokens().get(type) < amount) {
+                return ValidationError.NOT_ENOUGH_TO_DISCARD;
             }
+            totalDiscard += amount;
+        }
+        if (totalDiscard == 0) {
+            return ValidationError.NO_DISCARD;
+        }
+        if (player.getTotalTokens() - totalDiscard > Player.MAX_TOKENS) {
+            return ValidationError.DISCARD_TOO_FEW;
         }
-        return ValidationResult.ok();
+        return ValidationError.NONE;
     }
 
-    private boolean canAfford(Player player, splendor.model.Card card) {
-        int gold = player.getTokens().get(GemType.GOLD);
+    private boolean canAfford(Player player, Card card) {
         int requiredGold = 0;
-        for (Map.Entry<GemType, Integer> e : card.getCost().entrySet()) {
-            GemType color = e.getKey();
-            int cost = e.getValue();
-            int bonus = player.getBonus(color);
-            int effectiveCost = Math.max(0, cost - bonus);
+        for (GemType color : COLORS) {
+            int effectiveCost = card.getCost(color) - player.getBonus(color);
             int playerTokens = player.getTokens().get(color);
             if (playerTokens < effectiveCost) {
-                requiredGold += (effectiveCost - playerTokens);
+                requiredGold += effectiveCost - playerTokens;
             }
         }
-        return requiredGold <= gold;
+        return requiredGold <= player.getTokens().get(GemType.GOLD);
     }
 
-    private ValidationResult validateReserve(Board board, Player player, ReserveCardAction action) {
-        if (!player.canReserveMore()) {
-            return ValidationResult.error("You already have the maximum of 3 reserved cards.");
-        }
-        int level = action.getLevel();
-        if (action.isFromTopOfDeck()) {
-            // Deck may be empty, but official rules: cannot reserve from empty deck.
-            if (!board.hasCardsInDeck(level)) {
-                return ValidationResult.error("That deck is empty; you cannot reserve from it.");
+    /**
+     * The gem type named by a rejected move's message. Only called on the
+     * (rare) error path, so it simply repeats the failing check.
+     */
+    private static GemType offendingGem(GameState state, int currentPlayerIndex, int move, ValidationError error) {
+        for (GemType type : GEMS) {
+            int amount = MoveCodec.count(move, type);
+            if (amount == 0) {
+                continue;
             }
-        } else {
-            int idx = action.getCardIndex();
-            try {
-                switch (level) {
-                    case 1 -> board.getLevel1FaceUp().get(idx);
-                    case 2 -> board.getLevel2FaceUp().get(idx);
-                    case 3 -> board.getLevel3FaceUp().get(idx);
-                    default -> {
-                        return ValidationResult.error("Invalid card level.");
-                    }
-                }
-            } catch (IndexOutOfBoundsException ex) {
-                return ValidationResult.error("No card at that position to reserve.");
+            boolean offending = switch (error) {
+                case SUPPLY_EMPTY -> state.getBoard().getSupplyTokens().get(type) < 1;
+                case NOT_ENOUGH_TO_DISCARD -> state.getPlayers().get(currentPlayerIndex).getTokens().get(type) < amount;
+                default -> false;
+            };
+            if (offending) {
+                return type;
             }
         }
-        return ValidationResult.ok();
+        return null;
     }
 
-    private ValidationResult validateDiscard(Player player, DiscardTokensAction action) {
-        Map<GemType, Integer> discards = action.getDiscards();
-        if (discards.isEmpty()) {
-            return ValidationResult.error("You must discard at least one token.");
-        }
-        int totalDiscard = 0;
-        for (Map.Entry<GemType, Integer> e : discards.entrySet()) {
-            GemType type = e.getKey();
-            int amount = e.getValue();
-            if (amount <= 0) {
-                return ValidationResult.error("Discard amounts must be positive.");
+    /**
+     * Encode a UI-built action. Out-of-range fields (which {@link MoveCodec}
+     * cannot represent) are clamped to values that fail the same rule.
+     */
+    private static int toMove(GameAction action) {
+        return switch (action.getType()) {
+            case TAKE_TOKENS -> MoveCodec.takeTokens(clampedCounts(((TakeTokensAction) action).getTaken(), 3));
+            case DISCARD_TOKENS -> MoveCodec.discardTokens(clampedCounts(((DiscardTokensAction) action).getDiscards(), 15));
+            case BUY_CARD -> {
+                BuyCardAction buy = (BuyCardAction) action;
+                yield buy.isFromReserved()
+                        ? MoveCodec.buyFromReserved(clampIndex(buy.getCardIndex()))
+                        : MoveCodec.buyFromMarket(clampLevel(buy.getLevel()), clampIndex(buy.getCardIndex()));
             }
-            if (player.getTokens().get(type) < amount) {
-                return ValidationResult.error("You do not have enough tokens of type " + type + " to discard.");
+            case RESERVE_CARD -> {
+                ReserveCardAction reserve = (ReserveCardAction) action;
+                yield reserve.isFromTopOfDeck()
+                        ? MoveCodec.reserveFromTopOfDeck(clampLevel(reserve.getLevel()))
+                        : MoveCodec.reserveFromMarket(clampLevel(reserve.getLevel()), clampIndex(reserve.getCardIndex()));
             }
-            totalDiscard += amount;
-        }
-        int newTotal = player.getTotalTokens() - totalDiscard;
-        if (newTotal > Player.MAX_TOKENS) {
-            return ValidationResult.error("You must discard enough tokens to reach 10 or fewer.");
-        }
-        return ValidationResult.ok();
+        };
     }
-}
 
+    private static int[] clampedCounts(Map<GemType, Integer> map, int max) {
+        int[] counts = new int[GEMS.length];
+        map.forEach((type, amount) -> counts[type.ordinal()] = Math.min(amount, max));
+        return counts;
+    }
+
+    private static int clampLevel(int level) {
+        // Level 0 is rejected as an invalid level.
+        return level >= 1 && level <= 3 ? level : 0;
+    }
+
+    private static int clampIndex(int index) {
+        // 7 is past the end of every face-up row and reserved hand.
+        return index >= 0 && index <= 7 ? index : 7;
+    }
+}
@@ -10,6 +10,14 @@ import java.util.List;
  */
 public class EndGameManager {
 
+    /**
+     * Splendor ranking: more prestige points first, ties broken by fewer
+     * purchased development cards.
+     */
+    private static final Comparator<Player> RANKING = Comparator
+            .comparingInt(Player::getPrestigePoints)
+            .thenComparing(p -> p.getPurchasedCards().size(), Comparator.reverseOrder());
+
     private final int firstPlayerIndex;
     private boolean finalRoundTriggered = false;
     private boolean gameOver = false;
@@ -47,20 +55,44 @@ public class EndGameManager {
         return gameOver;
     }
 
+    public boolean isFinalRoundTriggered() {
+        return finalRoundTriggered;
+    }
+
+    void restore(boolean finalRoundTriggered, boolean gameOver) {
+        this.finalRoundTriggered = finalRoundTriggered;
+        this.gameOver = gameOver;
+    }
+
+    public void copyFrom(EndGameManager other) {
+        this.finalRoundTriggered = other.finalRoundTriggered;
+        this.gameOver = other.gameOver;
+    }
+
     /**
      * Determine winner following Splendor rules:
      * - Highest prestige points
      * - Ties broken by fewest purchased development cards
      */
     public Player determineWinner(List<Player> players) {
-        return players.stream().max((a, b) -> {
-            int cmp = Integer.compare(a.getPrestigePoints(), b.getPrestigePoints());
-            if (cmp != 0) {
-                return cmp;
+        return players.stream().max(RANKING).orElse(null);
+    }
+
+    /**
+     * The place of every seat (0 = first) under the same rules as
+     * {@link #determineWinner}. Players still tied after the tie-break share
+     * a place and the next place is skipped, so two players tied for first
+     * followed by a third give {@code 0, 0, 2}.
+     */
+    public int[] finishingOrder(List<Player> players) {
+        int[] places = new int[players.size()];
+        for (int i = 0; i < places.length; i++) {
+            for (Player other : players) {
+                if (RANKING.compare(other, players.get(i)) > 0) {
+                    places[i]++;
+                }
             }
-            // Fewer purchased cards wins tie
-            return Integer.compare(b.getPurchasedCards().size(), a.getPurchasedCards().size());
-        }).orElse(null);
+        }
+        return places;
     }
 }
-
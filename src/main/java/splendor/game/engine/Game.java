@@ -30,6 +30,26 @@ public class Game {
         this.endGameManager = new EndGameManager(turnManager.getFirstPlayerIndex());
     }
 
+    /**
+     * Continue from a position received from elsewhere, such as a network
+     * snapshot, with the given player to move. Seat 0 is taken as the first
+     * player, and the final round counts as triggered if anyone already has
+     * enough points.
+     */
+    public static Game resume(GameState state, int currentPlayerIndex) {
+        if (currentPlayerIndex < 0 || currentPlayerIndex >= state.getPlayers().size()) {
+            throw new IllegalArgumentException("No player at index " + currentPlayerIndex);
+        }
+        Game game = new Game(state);
+        while (game.getCurrentPlayerIndex() != currentPlayerIndex) {
+            game.turnManager.advanceToNextPlayer();
+        }
+        for (int i = 0; i < state.getPlayers().size(); i++) {
+            game.endGameManager.checkEndTriggered(state.getPlayers(), i);
+        }
+        return game;
+    }
+
     public GameState getState() {
         return state;
     }
@@ -54,6 +74,28 @@ public class Game {
         executor.execute(state, getCurrentPlayerIndex(), action);
     }
 
+    /**
+     * Validate an action in its {@link splendor.game.actions.MoveCodec} encoding.
+     */
+    public ValidationResult validateAction(int move) {
+        return validator.validate(state, getCurrentPlayerIndex(), move);
+    }
+
+    /**
+     * Apply an action in its {@link splendor.game.actions.MoveCodec} encoding.
+     */
+    public void applyAction(int move) {
+        executor.execute(state, getCurrentPlayerIndex(), move);
+    }
+
+    /**
+     * Apply an encoded action, recording it in {@code undo} so the whole
+     * turn can later be taken back with {@link #undoTurn(TurnUndo)}.
+     */
+    public void applyAction(int move, TurnUndo undo) {
+        executor.execute(state, getCurrentPlayerIndex(), move, undo);
+    }
+
     public boolean isTokenLimitExceededForCurrentPlayer() {
         return getCurrentPlayer().getTotalTokens() > Player.MAX_TOKENS;
     }
@@ -66,10 +108,22 @@ public class Game {
         return executor.findClaimableNobles(state.getBoard(), getCurrentPlayer());
     }
 
+    /**
+     * Returns the first noble the current player qualifies for, or null.
+     * Unlike {@link #getClaimableNoblesForCurrentPlayer()} this does not allocate.
+     */
+    public Noble getFirstClaimableNobleForCurrentPlayer() {
+        return executor.findFirstClaimableNoble(state.getBoard(), getCurrentPlayer());
+    }
+
     public void claimNoble(Noble noble) {
         executor.claimNoble(state.getBoard(), getCurrentPlayer(), noble);
     }
 
+    public void claimNoble(Noble noble, TurnUndo undo) {
+        executor.claimNoble(state.getBoard(), getCurrentPlayer(), noble, undo);
+    }
+
     /**
      * Should be called once after the current player has completed their
      * main action (and any required discards/noble decisions).
@@ -80,8 +134,63 @@ public class Game {
         endGameManager.onTurnAdvanced(newIndex);
     }
 
+    /**
+     * {@link #endTurn()}, recording the turn and end-game progress it changes.
+     */
+    public void endTurn(TurnUndo undo) {
+        undo.playerIndex = getCurrentPlayerIndex();
+        undo.finalRoundTriggered = endGameManager.isFinalRoundTriggered();
+        undo.gameOver = endGameManager.isGameOver();
+        undo.turnEnded = true;
+        endTurn();
+    }
+
+    /**
+     * Take back a turn recorded with the undo-aware methods, restoring the
+     * position exactly as it was before the turn. Turns must be undone in
+     * the reverse order they were made.
+     */
+    public void undoTurn(TurnUndo undo) {
+        if (undo.turnEnded) {
+            turnManager.setCurrentPlayerIndex(undo.playerIndex);
+            endGameManager.restore(undo.finalRoundTriggered, undo.gameOver);
+        }
+        executor.unmake(state, getCurrentPlayerIndex(), undo);
+    }
+
     public Player determineWinner() {
         return endGameManager.determineWinner(state.getPlayers());
     }
+
+    /**
+     * Every seat's place at the end of the game, see {@link EndGameManager#finishingOrder}.
+     */
+    public int[] finishingOrder() {
+        return endGameManager.finishingOrder(state.getPlayers());
+    }
+
+    public boolean isFinalRoundTriggered() {
+        return endGameManager.isFinalRoundTriggered();
+    }
+
+    /**
+     * Overwrite this game (state, turn and end-game progress) with another
+     * game of the same player count, without allocating.
+     */
+    public void copyFrom(Game other) {
+        state.copyFrom(other.state);
+        turnManager.copyFrom(other.turnManager);
+        endGameManager.copyFrom(other.endGameManager);
+    }
+
+    /**
+     * Create an independent deep copy, typically used once as the
+     * preallocated target for {@link #copyFrom(Game)}.
+     */
+    public Game copy() {
+        Game game = new Game(state.copy());
+        game.copyFrom(this);
+        return game;
+    }
 }
 
@@ -1,11 +1,14 @@
 package splendor.game.engine;
 
 import splendor.model.Board;
+import splendor.model.Card;
+import splendor.model.Deck;
 import splendor.model.Player;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Immutable-style holder for the current game state.
@@ -28,5 +31,72 @@ public class GameState {
     public List<Player> getPlayers() {
         return Collections.unmodifiableList(players);
     }
-}
 
+    /**
+     * Overwrite this state with another state of the same player count.
+     * Intended for search: allocate a target once with {@link #copy()} and
+     * refill it with this method for every iteration.
+     */
+    public void copyFrom(GameState other) {
+        if (other.players.size() != players.size()) {
+            throw new IllegalArgumentException("Player count mismatch: " + other.players.size() + " vs " + players.size());
+        }
+        board.copyFrom(other.board);
+        for (int i = 0; i < players.size(); i++) {
+            players.get(i).copyFrom(other.players.get(i));
+        }
+    }
+
+    /**
+     * Create an independent deep copy of this state.
+     */
+    public GameState copy() {
+        List<Player> copiedPlayers = new ArrayList<>(players.size());
+        for (Player p : players) {
+            copiedPlayers.add(p.copy());
+        }
+        return new GameState(board.copy(), copiedPlayers);
+    }
+
+    /**
+     * Resample the information hidden from the given observer: the order of
+     * every deck and the identity of opponents' face-down reserved cards.
+     *
+     * Opponents' face-down reserves are returned to the deck of their level,
+     * each deck is reshuffled, and the reserves are then redrawn from it, so
+     * the result stays consistent with everything the observer has seen
+     * (face-up cards, its own reserves, deck sizes and reserve levels).
+     * Does not allocate.
+     */
+    public void determinize(int observerIndex, Random rng) {
+        for (int p = 0; p < players.size(); p++) {
+            if (p == observerIndex) {
+                continue;
+            }
+            Player player = players.get(p);
+            List<Card> reserved = player.getReservedCards();
+            for (int i = 0; i < reserved.size(); i++) {
+                if (player.isReservedFaceDown(i)) {
+                    Card card = reserved.get(i);
+                    board.getDeck(card.getLevel()).addCard(card);
+                }
+            }
+        }
+        for (int level = 1; level <= 3; level++) {
+            board.getDeck(level).shuffle(rng);
+        }
+        for (int p = 0; p < players.size(); p++) {
+            if (p == observerIndex) {
+                continue;
+            }
+            Player player = players.get(p);
+            List<Card> reserved = player.getReservedCards();
+            for (int i = 0; i < reserved.size(); i++) {
+                if (player.isReservedFaceDown(i)) {
+                    Deck deck = board.getDeck(reserved.get(i).getLevel());
+                    player.replaceReservedCard(i, deck.draw());
+                }
+            }
+        }
+    }
+}
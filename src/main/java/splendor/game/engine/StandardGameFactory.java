@@ -3,114 +3,50 @@ package splendor.game.engine;
 import splendor.model.*;
 
 import java.util.ArrayList;
-import java.util.EnumMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Factory for creating a standard Splendor game
  * with official-like decks, nobles, and initial token setup.
  *
- * For brevity, this sample includes a representative subset of cards
- * rather than the full published set, but the rules and engine are
- * compatible with the official card lists.
+ * Cards and nobles come from a {@link CardCatalog}; by default the built-in
+ * catalog (a representative subset of the published cards) or the file named
+ * by the {@value CardCatalog#CATALOG_PROPERTY} system property. Catalog cards
+ * are shared by every game, so creating a game does not copy card data.
  */
 public class StandardGameFactory {
 
-    private static int nextCardId = 1;
-
-    private static Card card(int level, int points, GemType bonus, int w, int u, int g, int r, int b) {
-        EnumMap<GemType, Integer> cost = new EnumMap<>(GemType.class);
-        if (w > 0) cost.put(GemType.WHITE, w);
-        if (u > 0) cost.put(GemType.BLUE, u);
-        if (g > 0) cost.put(GemType.GREEN, g);
-        if (r > 0) cost.put(GemType.RED, r);
-        if (b > 0) cost.put(GemType.BLACK, b);
-        return new Card(nextCardId++, level, points, bonus, cost);
-    }
-
-    private static Noble noble(String name, int w, int u, int g, int r, int b) {
-        EnumMap<GemType, Integer> req = new EnumMap<>(GemType.class);
-        if (w > 0) req.put(GemType.WHITE, w);
-        if (u > 0) req.put(GemType.BLUE, u);
-        if (g > 0) req.put(GemType.GREEN, g);
-        if (r > 0) req.put(GemType.RED, r);
-        if (b > 0) req.put(GemType.BLACK, b);
-        return new Noble(name, req);
-    }
-
-    private static List<Card> level1Cards() {
-        List<Card> list = new ArrayList<>();
-        // A small but varied subset of level 1 cards
-        list.add(card(1, 0, GemType.WHITE, 0, 0, 1, 1, 1));
-        list.add(card(1, 0, GemType.BLUE, 0, 1, 1, 1, 0));
-        list.add(card(1, 0, GemType.GREEN, 1, 0, 0, 2, 0));
-        list.add(card(1, 0, GemType.RED, 0, 2, 0, 0, 1));
-        list.add(card(1, 0, GemType.BLACK, 1, 1, 1, 0, 0));
-        list.add(card(1, 1, GemType.WHITE, 0, 0, 2, 2, 0));
-        list.add(card(1, 1, GemType.BLUE, 2, 0, 0, 0, 2));
-        list.add(card(1, 1, GemType.GREEN, 0, 2, 2, 0, 0));
-        list.add(card(1, 1, GemType.RED, 0, 0, 0, 4, 0));
-        list.add(card(1, 1, GemType.BLACK, 3, 0, 0, 0, 0));
-        return list;
-    }
-
-    private static List<Card> level2Cards() {
-        List<Card> list = new ArrayList<>();
-        list.add(card(2, 2, GemType.WHITE, 0, 0, 3, 2, 2));
-        list.add(card(2, 2, GemType.BLUE, 2, 0, 0, 3, 2));
-        list.add(card(2, 2, GemType.GREEN, 2, 3, 0, 0, 2));
-        list.add(card(2, 2, GemType.RED, 2, 2, 3, 0, 0));
-        list.add(card(2, 3, GemType.BLACK, 0, 0, 6, 0, 0));
-        list.add(card(2, 1, GemType.WHITE, 0, 2, 2, 3, 0));
-        list.add(card(2, 1, GemType.BLUE, 3, 0, 2, 2, 0));
-        list.add(card(2, 1, GemType.GREEN, 0, 3, 0, 2, 2));
-        list.add(card(2, 1, GemType.RED, 2, 0, 3, 0, 2));
-        list.add(card(2, 2, GemType.BLACK, 0, 5, 0, 0, 0));
-        return list;
-    }
-
-    private static List<Card> level3Cards() {
-        List<Card> list = new ArrayList<>();
-        list.add(card(3, 4, GemType.WHITE, 0, 0, 7, 0, 0));
-        list.add(card(3, 4, GemType.BLUE, 0, 7, 0, 0, 0));
-        list.add(card(3, 4, GemType.GREEN, 0, 0, 0, 7, 0));
-        list.add(card(3, 4, GemType.RED, 0, 0, 0, 0, 7));
-        list.add(card(3, 5, GemType.BLACK, 3, 3, 3, 3, 0));
-        list.add(card(3, 3, GemType.WHITE, 3, 0, 0, 5, 3));
-        list.add(card(3, 3, GemType.BLUE, 3, 3, 0, 0, 5));
-        list.add(card(3, 3, GemType.GREEN, 5, 3, 3, 0, 0));
-        list.add(card(3, 3, GemType.RED, 0, 5, 3, 3, 0));
-        list.add(card(3, 3, GemType.BLACK, 0, 0, 5, 3, 3));
-        return list;
+    public static Game createGame(List<String> playerNames) {
+        return createGame(playerNames, CardCatalog.standard());
     }
 
-    private static List<Noble> nobles() {
-        List<Noble> list = new ArrayList<>();
-        list.add(noble("Henry VIII", 3, 3, 0, 0, 0));
-        list.add(noble("Isabella", 0, 3, 3, 0, 0));
-        list.add(noble("Lorenzo", 0, 0, 3, 3, 0));
-        list.add(noble("Catherine", 0, 0, 0, 3, 3));
-        list.add(noble("Charles", 3, 0, 0, 0, 3));
-        return list;
+    public static Game createGame(List<String> playerNames, CardCatalog catalog) {
+        return createGame(playerNames, catalog, ThreadLocalRandom.current());
     }
 
-    public static Game createGame(List<String> playerNames) {
+    /**
+     * A game dealt from {@code rng}, so the same seed deals the same game;
+     * game records store only the seed and the moves.
+     */
+    public static Game createGame(List<String> playerNames, CardCatalog catalog, Random rng) {
         if (playerNames.size() < 2 || playerNames.size() > 4) {
             throw new IllegalArgumentException("Splendor supports 2–4 players.");
         }
 
         // Create decks and board
-        Deck d1 = new Deck(1, level1Cards());
-        Deck d2 = new Deck(2, level2Cards());
-        Deck d3 = new Deck(3, level3Cards());
-        d1.shuffle();
-        d2.shuffle();
-        d3.shuffle();
+        Deck d1 = new Deck(1, catalog, catalog.getCards(1));
+        Deck d2 = new Deck(2, catalog, catalog.getCards(2));
+        Deck d3 = new Deck(3, catalog, catalog.getCards(3));
+        d1.shuffle(rng);
+        d2.shuffle(rng);
+        d3.shuffle(rng);
 
         // Choose nobles: players + 1
-        List<Noble> noblePool = nobles();
-        java.util.Collections.shuffle(noblePool);
+        List<Noble> noblePool = new ArrayList<>(catalog.getNobles());
+        Collections.shuffle(noblePool, rng);
         List<Noble> chosenNobles = noblePool.subList(0, playerNames.size() + 1);
 
         Board board = new Board(d1, d2, d3, chosenNobles);
@@ -143,4 +79,3 @@ public class StandardGameFactory {
         return new Game(state);
     }
 }
-
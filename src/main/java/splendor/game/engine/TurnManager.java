@@ -38,5 +38,15 @@ public class TurnManager {
         currentPlayerIndex = (currentPlayerIndex + 1) % playerCount;
         return currentPlayerIndex;
     }
-}
 
+    void setCurrentPlayerIndex(int index) {
+        currentPlayerIndex = index;
+    }
+
+    public void copyFrom(TurnManager other) {
+        if (other.playerCount != playerCount || other.firstPlayerIndex != firstPlayerIndex) {
+            throw new IllegalArgumentException("Incompatible turn manager");
+        }
+        this.currentPlayerIndex = other.currentPlayerIndex;
+    }
+}
@@ -0,0 +1,77 @@
+package splendor.game.engine;
+
+import splendor.game.actions.MoveCodec;
+import splendor.model.Card;
+import splendor.model.GemType;
+import splendor.model.Noble;
+
+/**
+ * What one turn changed that its moves alone do not say: the card taken
+ * and the slot it came from, cards dealt into emptied slots, tokens paid,
+ * a claimed noble and the turn and end-game progress before the turn.
+ *
+ * Filled by the undo-aware methods of {@link Game} and {@link ActionExecutor}
+ * and consumed by {@link Game#undoTurn(TurnUndo)}. Search keeps one per ply,
+ * so making and unmaking a turn does not allocate.
+ */
+public final class TurnUndo {
+
+    int move = MoveCodec.NONE;
+    int discard = MoveCodec.NONE;
+    Card card;
+    int slot;
+    boolean faceDown;
+    int refilledSlots; // bit per market slot dealt from the deck after the card was taken
+    final int[] paid = new int[GemType.values().length];
+    boolean tookGold;
+    Noble noble;
+    int nobleIndex;
+    boolean turnEnded;
+    int playerIndex;
+    boolean finalRoundTriggered;
+    boolean gameOver;
+
+    /**
+     * Forget the previous turn; called before a turn is made into this record.
+     */
+    public void clear() {
+        move = MoveCodec.NONE;
+        discard = MoveCodec.NONE;
+        card = null;
+        refilledSlots = 0;
+        for (int i = 0; i < paid.length; i++) {
+            paid[i] = 0;
+        }
+        tookGold = false;
+        noble = null;
+        turnEnded = false;
+    }
+
+    /**
+     * The main action recorded, or {@link MoveCodec#NONE} for a pass.
+     */
+    public int getMove() {
+        return move;
+    }
+
+    /**
+     * The card bought or reserved, or null.
+     */
+    public Card getCard() {
+        return card;
+    }
+
+    /**
+     * Tokens of one type paid for the card bought, gold included.
+     */
+    public int getPaid(GemType type) {
+        return paid[type.ordinal()];
+    }
+
+    /**
+     * The noble claimed, or null.
+     */
+    public Noble getNoble() {
+        return noble;
+    }
+}
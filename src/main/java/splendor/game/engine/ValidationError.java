@@ -0,0 +1,53 @@
+package splendor.game.engine;
+
+import splendor.model.GemType;
+
+/**
+ * Why an action was rejected, as a cheap primitive code.
+ *
+ * Bots and the move generator compare codes; only UIs turn them into
+ * text via {@link #message(GemType)}.
+ */
+public enum ValidationError {
+    NONE("OK"),
+    NO_ACTION("No action selected."),
+    NO_TOKENS_TAKEN("You must take some tokens."),
+    THREE_COLORS_NOT_ONE_EACH("To take three colors, you must take 1 of each."),
+    SUPPLY_EMPTY("Not enough tokens in supply for %s."),
+    TWO_OF_COLOR_NOT_TWO("To take two of a color, you must take exactly 2."),
+    TWO_OF_COLOR_SUPPLY_LOW("You may take two of a color only if at least 4 are in the supply."),
+    INVALID_TAKE("You must either take 3 different colors or 2 of one color."),
+    RESERVED_INDEX_OUT_OF_RANGE("Reserved card index is out of range."),
+    CANNOT_AFFORD_RESERVED("You cannot afford that reserved card."),
+    INVALID_LEVEL("Invalid card level."),
+    NO_CARD_AT_POSITION("No card at that position."),
+    CANNOT_AFFORD("You cannot afford that card."),
+    RESERVE_LIMIT("You already have the maximum of 3 reserved cards."),
+    DECK_EMPTY("That deck is empty; you cannot reserve from it."),
+    NO_CARD_TO_RESERVE("No card at that position to reserve."),
+    NO_DISCARD("You must discard at least one token."),
+    NOT_ENOUGH_TO_DISCARD("You do not have enough tokens of type %s to discard."),
+    DISCARD_TOO_FEW("You must discard enough tokens to reach 10 or fewer.");
+
+    private final String template;
+
+    ValidationError(String template) {
+        this.template = template;
+    }
+
+    /**
+     * True for codes whose message names the offending gem type.
+     */
+    public boolean hasGemDetail() {
+        return template.contains("%s");
+    }
+
+    /**
+     * Render the user-facing message.
+     *
+     * @param detail the offending gem type for codes with {@link #hasGemDetail()}, otherwise ignored
+     */
+    public String message(GemType detail) {
+        return hasGemDetail() ? template.replace("%s", String.valueOf(detail)) : template;
+    }
+}
@@ -1,34 +1,69 @@
 package splendor.game.engine;
 
+import splendor.model.GemType;
+
+import java.util.EnumMap;
+
 /**
  * Result of validating a game action.
+ *
+ * Wraps a {@link ValidationError} code; the message text is only built
+ * when {@link #getMessage()} is called.
  */
 public class ValidationResult {
 
-    private final boolean valid;
-    private final String message;
+    private static final EnumMap<ValidationError, ValidationResult> BY_CODE = new EnumMap<>(ValidationError.class);
+
+    static {
+        for (ValidationError error : ValidationError.values()) {
+            BY_CODE.put(error, new ValidationResult(error, null, null));
+        }
+    }
 
-    private static final ValidationResult OK = new ValidationResult(true, "OK");
+    private final ValidationError error;
+    private final GemType detail;
+    private String message;
 
-    private ValidationResult(boolean valid, String message) {
-        this.valid = valid;
+    private ValidationResult(ValidationError error, GemType detail, String message) {
+        this.error = error;
+        this.detail = detail;
         this.message = message;
     }
 
     public static ValidationResult ok() {
-        return OK;
+        return BY_CODE.get(ValidationError.NONE);
+    }
+
+    /**
+     * Shared result for a code; allocates nothing.
+     */
+    public static ValidationResult of(ValidationError error) {
+        return BY_CODE.get(error);
+    }
+
+    public static ValidationResult of(ValidationError error, GemType detail) {
+        return detail == null ? of(error) : new ValidationResult(error, detail, null);
     }
 
     public static ValidationResult error(String message) {
-        return new ValidationResult(false, message);
+        return new ValidationResult(null, null, message);
     }
 
     public boolean isValid() {
-        return valid;
+        return error == ValidationError.NONE;
+    }
+
+    /**
+     * The error code, or null for a free-form error created with {@link #error(String)}.
+     */
+    public ValidationError getError() {
+        return error;
     }
 
     public String getMessage() {
+        if (message == null) {
+            message = error.message(detail);
+        }
         return message;
     }
 }
-
@@ -13,16 +13,21 @@ public class Main {
 
     public static void main(String[] args) {
         // Support network modes:
-        // - server-bg [port] [playerCount] : start server in background (blocks until stopped)
-        // - client <host> <port> <name> : start network client
+        // - server-bg [port] [playerCount] [botCount] : start server in background (blocks until stopped)
+        // - serve <port> <playersPerTable> [botsPerTable] [unixSocketPath] : host tables back to back until stopped
+        // - client <host> <port> <name> | client unix:<path> <name> : start network client
+        // - loadgen [key=value ...] : drive a server with simulated players (see LoadGenerator)
         if (args.length > 0) {
             String mode = args[0];
             if (mode.equalsIgnoreCase("server-bg")) {
                 int port = 4000;
                 int players = -1;
+                int bots = 0;
                 if (args.length > 1) port = Integer.parseInt(args[1]);
                 if (args.length > 2) players = Integer.parseInt(args[2]);
-                splendor.network.Server server = new splendor.network.Server(port, players);
+                if (args.length > 3) bots = Integer.parseInt(args[3]);
+                splendor.network.Server server = new splendor.network.Server(port, players, bots);
+                server.useEnginesFromSystemProperties();
                 Thread t = new Thread(() -> {
                     try {
                         server.start();
@@ -38,16 +43,37 @@ public class Main {
                     System.in.read();
                 } catch (Exception ignored) {}
                 System.exit(0);
+            } else if (mode.equalsIgnoreCase("serve")) {
+                if (args.length < 3) {
+                    System.out.println("Usage: serve <port> <playersPerTable> [botsPerTable] [unixSocketPath]");
+                    return;
+                }
+                int bots = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+                java.util.List<splendor.network.Transport> transports = new java.util.ArrayList<>();
+                transports.add(splendor.network.Transport.tcp(Integer.parseInt(args[1])));
+                if (args.length > 4) transports.add(splendor.network.Transport.unix(args[4]));
+                try {
+                    splendor.network.Server server = new splendor.network.Server(transports, Integer.parseInt(args[2]), bots);
+                    server.useEnginesFromSystemProperties();
+                    server.serve();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                return;
+            } else if (mode.equalsIgnoreCase("loadgen")) {
+                try {
+                    splendor.network.LoadGenerator.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                return;
             } else if (mode.equalsIgnoreCase("client")) {
-                if (args.length < 4) {
-                    System.out.println("Usage: client <host> <port> <name>");
+                if (args.length < 3) {
+                    System.out.println("Usage: client <host> <port> <name> | client unix:<path> <name>");
                     return;
                 }
-                String host = args[1];
-                String port = args[2];
-                String name = args[3];
                 try {
-                    splendor.network.Client.main(new String[]{host, port, name});
+                    splendor.network.Client.main(java.util.Arrays.copyOfRange(args, 1, args.length));
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -1,11 +1,16 @@
 package splendor.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 /**
  * Represents the central board: token pool, development cards, and nobles.
+ *
+ * The face-up market is a fixed grid of {@link #FACE_UP_PER_LEVEL} slots per
+ * level. Taking a card empties its slot and the replacement is dealt into
+ * the same slot, so a card keeps its index for as long as it is showing.
  */
 public class Board {
 
@@ -16,11 +21,13 @@ public class Board {
     private final Deck level2Deck;
     private final Deck level3Deck;
 
-    private final List<Card> level1FaceUp = new ArrayList<>();
-    private final List<Card> level2FaceUp = new ArrayList<>();
-    private final List<Card> level3FaceUp = new ArrayList<>();
+    private final Card[][] market = new Card[3][FACE_UP_PER_LEVEL];
+    private final List<Card> level1FaceUp = Collections.unmodifiableList(Arrays.asList(market[0]));
+    private final List<Card> level2FaceUp = Collections.unmodifiableList(Arrays.asList(market[1]));
+    private final List<Card> level3FaceUp = Collections.unmodifiableList(Arrays.asList(market[2]));
 
     private final List<Noble> nobles = new ArrayList<>();
+    private final List<MarketListener> listeners = new ArrayList<>();
 
     public Board(Deck level1Deck, Deck level2Deck, Deck level3Deck, List<Noble> nobles) {
         this.level1Deck = level1Deck;
@@ -33,16 +40,53 @@ public class Board {
         return supplyTokens;
     }
 
+    /**
+     * Live view of the level 1 slots; always {@link #FACE_UP_PER_LEVEL}
+     * long, with null for an empty slot.
+     */
     public List<Card> getLevel1FaceUp() {
-        return Collections.unmodifiableList(level1FaceUp);
+        return level1FaceUp;
     }
 
     public List<Card> getLevel2FaceUp() {
-        return Collections.unmodifiableList(level2FaceUp);
+        return level2FaceUp;
     }
 
     public List<Card> getLevel3FaceUp() {
-        return Collections.unmodifiableList(level3FaceUp);
+        return level3FaceUp;
+    }
+
+    /**
+     * Returns the card in a market slot, or null if the slot is empty or
+     * out of range.
+     */
+    public Card getFaceUpCard(int level, int slot) {
+        if (level < 1 || level > 3 || slot < 0 || slot >= FACE_UP_PER_LEVEL) {
+            return null;
+        }
+        return market[level - 1][slot];
+    }
+
+    /**
+     * Number of occupied slots at the given level.
+     */
+    public int countFaceUp(int level) {
+        Card[] row = row(level);
+        int count = 0;
+        for (Card card : row) {
+            if (card != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void addMarketListener(MarketListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeMarketListener(MarketListener listener) {
+        listeners.remove(listener);
     }
 
     public List<Noble> getNobles() {
@@ -53,47 +97,86 @@ public class Board {
         nobles.remove(noble);
     }
 
-    public void initialDeal() {
-        refillLevel(level1Deck, level1FaceUp);
-        refillLevel(level2Deck, level2FaceUp);
-        refillLevel(level3Deck, level3FaceUp);
+    /**
+     * Put a claimed noble back at its former position. Used by search to
+     * undo a move.
+     */
+    public void restoreNoble(int index, Noble noble) {
+        nobles.add(index, noble);
     }
 
-    public void refillAll() {
-        refillLevel(level1Deck, level1FaceUp);
-        refillLevel(level2Deck, level2FaceUp);
-        refillLevel(level3Deck, level3FaceUp);
+    /**
+     * Position of a noble in {@link #getNobles()}, or -1.
+     */
+    public int indexOfNoble(Noble noble) {
+        return nobles.indexOf(noble);
     }
 
-    public void refillLevel(int level) {
-        switch (level) {
-            case 1 -> refillLevel(level1Deck, level1FaceUp);
-            case 2 -> refillLevel(level2Deck, level2FaceUp);
-            case 3 -> refillLevel(level3Deck, level3FaceUp);
-            default -> throw new IllegalArgumentException("Invalid level: " + level);
+    public void initialDeal() {
+        refillAll();
+    }
+
+    public void refillAll() {
+        for (int level = 1; level <= 3; level++) {
+            refillLevel(level);
         }
     }
 
-    private void refillLevel(Deck deck, List<Card> faceUp) {
-        while (faceUp.size() < FACE_UP_PER_LEVEL && !deck.isEmpty()) {
-            Card drawn = deck.draw();
-            if (drawn != null) {
-                faceUp.add(drawn);
+    /**
+     * Deal cards from the level's deck into its empty slots, lowest slot first.
+     */
+    public void refillLevel(int level) {
+        Card[] row = row(level);
+        Deck deck = getDeck(level);
+        for (int slot = 0; slot < row.length && !deck.isEmpty(); slot++) {
+            if (row[slot] == null) {
+                setSlot(level, slot, deck.draw());
             }
         }
     }
 
+    /**
+     * Remove a card from the market, leaving its slot empty until the next refill.
+     */
     public Card takeFaceUpCard(int level, int index) {
-        List<Card> list = switch (level) {
-            case 1 -> level1FaceUp;
-            case 2 -> level2FaceUp;
-            case 3 -> level3FaceUp;
-            default -> throw new IllegalArgumentException("Invalid level: " + level);
-        };
-        if (index < 0 || index >= list.size()) {
+        Card[] row = row(level);
+        if (index < 0 || index >= row.length || row[index] == null) {
             throw new IndexOutOfBoundsException("No card at index " + index + " for level " + level);
         }
-        return list.remove(index);
+        Card card = row[index];
+        setSlot(level, index, null);
+        return card;
+    }
+
+    /**
+     * Put a card into a market slot directly, e.g. when rebuilding a board
+     * from a snapshot. Game rules never call this; they take and refill.
+     *
+     * @param card the card, or null to empty the slot
+     */
+    public void placeFaceUpCard(int level, int slot, Card card) {
+        Card[] row = row(level);
+        if (slot < 0 || slot >= row.length) {
+            throw new IndexOutOfBoundsException("No slot " + slot + " for level " + level);
+        }
+        if (row[slot] != card) {
+            setSlot(level, slot, card);
+        }
+    }
+
+    private Card[] row(int level) {
+        if (level < 1 || level > 3) {
+            throw new IllegalArgumentException("Invalid level: " + level);
+        }
+        return market[level - 1];
+    }
+
+    private void setSlot(int level, int slot, Card card) {
+        Card old = market[level - 1][slot];
+        market[level - 1][slot] = card;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).slotChanged(level, slot, old, card);
+        }
     }
 
     /**
@@ -111,6 +194,18 @@ public class Board {
         };
     }
 
+    /**
+     * Returns the deck for the given level (1–3).
+     */
+    public Deck getDeck(int level) {
+        return switch (level) {
+            case 1 -> level1Deck;
+            case 2 -> level2Deck;
+            case 3 -> level3Deck;
+            default -> throw new IllegalArgumentException("Invalid level: " + level);
+        };
+    }
+
     /**
      * Returns true if the given level deck still has cards.
      */
@@ -122,5 +217,44 @@ public class Board {
             default -> false;
         };
     }
-}
 
+    /**
+     * Overwrite this board with the contents of another board.
+     * Cards and nobles are immutable and shared by reference, so this
+     * does not allocate once the backing lists have reached their size.
+     * Listeners are not copied; this board's listeners hear about every
+     * slot that changes.
+     */
+    public void copyFrom(Board other) {
+        supplyTokens.copyFrom(other.supplyTokens);
+        level1Deck.copyFrom(other.level1Deck);
+        level2Deck.copyFrom(other.level2Deck);
+        level3Deck.copyFrom(other.level3Deck);
+        for (int level = 1; level <= 3; level++) {
+            Card[] from = other.market[level - 1];
+            for (int slot = 0; slot < FACE_UP_PER_LEVEL; slot++) {
+                if (market[level - 1][slot] != from[slot]) {
+                    setSlot(level, slot, from[slot]);
+                }
+            }
+        }
+        copyList(other.nobles, nobles);
+    }
+
+    /**
+     * Create an independent deep copy of this board.
+     */
+    public Board copy() {
+        Board board = new Board(new Deck(1, level1Deck.getCatalog()), new Deck(2, level2Deck.getCatalog()),
+                new Deck(3, level3Deck.getCatalog()), List.of());
+        board.copyFrom(this);
+        return board;
+    }
+
+    private static <T> void copyList(List<T> from, List<T> to) {
+        to.clear();
+        for (int i = 0; i < from.size(); i++) {
+            to.add(from.get(i));
+        }
+    }
+}
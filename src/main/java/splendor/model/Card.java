@@ -15,11 +15,12 @@ import java.util.Map;
  */
 public class Card {
 
-    private final int id; // Unique identifier per game for UI reference
+    private final int id; // Unique identifier within the card catalog
     private final int level;
     private final int prestigePoints;
     private final GemType bonus;
     private final EnumMap<GemType, Integer> cost;
+    private final int[] costByOrdinal = new int[GemType.values().length];
 
     public Card(int id,
                 int level,
@@ -41,6 +42,7 @@ public class Card {
             int value = cost != null ? cost.getOrDefault(type, 0) : 0;
             if (value > 0) {
                 this.cost.put(type, value);
+                this.costByOrdinal[type.ordinal()] = value;
             }
         }
     }
@@ -65,6 +67,13 @@ public class Card {
         return Collections.unmodifiableMap(cost);
     }
 
+    /**
+     * Cost in tokens of a single gem type (0 if none), without boxing.
+     */
+    public int getCost(GemType type) {
+        return costByOrdinal[type.ordinal()];
+    }
+
     @Override
     public String toString() {
         return "L" + level + " [" + prestigePoints + "P] " + bonus +
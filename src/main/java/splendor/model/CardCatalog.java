@@ -0,0 +1,284 @@
+package splendor.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable set of development cards and nobles a game is dealt from.
+ *
+ * A catalog is parsed and validated once; its {@link Card} and {@link Noble}
+ * instances are immutable and shared read-only by every game created from it.
+ *
+ * File format (one entry per line, `#` starts a comment):
+ * <pre>
+ * # card  level points bonus  white blue green red black
+ * card    1     0      WHITE  0     0    1     1   1
+ * # noble white blue green red black  name (rest of line)
+ * noble   3     3    0     0   0      Henry VIII
+ * </pre>
+ *
+ * Card and noble ids are small integers assigned in file order starting at
+ * 1, so per-game state can refer to cards by id and resolve them here.
+ */
+public final class CardCatalog {
+
+    /**
+     * System property naming a catalog file to use instead of the built-in set.
+     */
+    public static final String CATALOG_PROPERTY = "splendor.catalog";
+
+    public static final int MAX_PLAYERS = 4;
+
+    private static final GemType[] COLORS = {
+            GemType.WHITE, GemType.BLUE, GemType.GREEN, GemType.RED, GemType.BLACK
+    };
+
+    private final String source;
+    private final List<Card> cards;
+    private final List<List<Card>> cardsByLevel;
+    private final List<Noble> nobles;
+    private final Card[] cardsById;
+
+    private CardCatalog(String source, List<Card> cards, List<Noble> nobles) {
+        this.source = source;
+        this.cards = List.copyOf(cards);
+        this.cardsById = cards.toArray(new Card[0]);
+        List<List<Card>> byLevel = new ArrayList<>();
+        for (int level = 1; level <= 3; level++) {
+            List<Card> levelCards = new ArrayList<>();
+            for (Card c : cards) {
+                if (c.getLevel() == level) {
+                    levelCards.add(c);
+                }
+            }
+            byLevel.add(List.copyOf(levelCards));
+        }
+        this.cardsByLevel = List.copyOf(byLevel);
+        this.nobles = List.copyOf(nobles);
+    }
+
+    /**
+     * The catalog used by default: the file named by the
+     * {@value #CATALOG_PROPERTY} system property if set, otherwise the
+     * built-in set. Parsed once per JVM on first use.
+     */
+    public static CardCatalog standard() {
+        return StandardHolder.INSTANCE;
+    }
+
+    public static CardCatalog load(Path path) {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parse(reader, path.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read catalog " + path, e);
+        }
+    }
+
+    /**
+     * Parse and validate a catalog.
+     *
+     * @param sourceName used in error messages
+     * @throws IllegalArgumentException if the catalog is malformed or too small to play
+     */
+    public static CardCatalog parse(Reader reader, String sourceName) {
+        List<Card> cards = new ArrayList<>();
+        List<Noble> nobles = new ArrayList<>();
+        BufferedReader in = new BufferedReader(reader);
+        int lineNo = 0;
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                int hash = line.indexOf('#');
+                if (hash >= 0) {
+                    line = line.substring(0, hash);
+                }
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] f = line.split("\\s+");
+                String where = sourceName + ":" + lineNo + ": ";
+                switch (f[0].toLowerCase(Locale.ROOT)) {
+                    case "card" -> cards.add(parseCard(f, cards.size() + 1, where));
+                    case "noble" -> nobles.add(parseNoble(f, nobles.size() + 1, where));
+                    default -> throw new IllegalArgumentException(where + "Unknown entry type: " + f[0]);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read catalog " + sourceName, e);
+        }
+
+        CardCatalog catalog = new CardCatalog(sourceName, cards, nobles);
+        for (int level = 1; level <= 3; level++) {
+            if (catalog.getCards(level).size() < Board.FACE_UP_PER_LEVEL) {
+                throw new IllegalArgumentException(sourceName + ": Level " + level + " needs at least "
+                        + Board.FACE_UP_PER_LEVEL + " cards.");
+            }
+        }
+        if (nobles.size() < MAX_PLAYERS + 1) {
+            throw new IllegalArgumentException(sourceName + ": At least " + (MAX_PLAYERS + 1) + " nobles are required.");
+        }
+        if (cards.size() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException(sourceName + ": Too many cards.");
+        }
+        return catalog;
+    }
+
+    private static Card parseCard(String[] f, int id, String where) {
+        if (f.length != 9) {
+            throw new IllegalArgumentException(where + "Expected: card <level> <points> <bonus> <w> <u> <g> <r> <b>");
+        }
+        int level = parseInt(f[1], 1, 3, "level", where);
+        int points = parseInt(f[2], 0, 15, "points", where);
+        GemType bonus;
+        try {
+            bonus = GemType.valueOf(f[3].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(where + "Unknown gem: " + f[3]);
+        }
+        if (!bonus.isStandard()) {
+            throw new IllegalArgumentException(where + "Card bonus must be a standard gem type");
+        }
+        EnumMap<GemType, Integer> cost = parseGems(f, 4, where);
+        if (cost.isEmpty()) {
+            throw new IllegalArgumentException(where + "Card must cost something");
+        }
+        return new Card(id, level, points, bonus, cost);
+    }
+
+    private static Noble parseNoble(String[] f, int id, String where) {
+        if (f.length < 7) {
+            throw new IllegalArgumentException(where + "Expected: noble <w> <u> <g> <r> <b> <name>");
+        }
+        EnumMap<GemType, Integer> req = parseGems(f, 1, where);
+        if (req.isEmpty()) {
+            throw new IllegalArgumentException(where + "Noble must have requirements");
+        }
+        String name = String.join(" ", List.of(f).subList(6, f.length));
+        return new Noble(id, name, req);
+    }
+
+    private static EnumMap<GemType, Integer> parseGems(String[] f, int from, String where) {
+        EnumMap<GemType, Integer> gems = new EnumMap<>(GemType.class);
+        for (int i = 0; i < COLORS.length; i++) {
+            int v = parseInt(f[from + i], 0, 9, COLORS[i].name().toLowerCase(Locale.ROOT), where);
+            if (v > 0) {
+                gems.put(COLORS[i], v);
+            }
+        }
+        return gems;
+    }
+
+    private static int parseInt(String s, int min, int max, String what, String where) {
+        int v;
+        try {
+            v = Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(where + "Invalid " + what + ": " + s);
+        }
+        if (v < min || v > max) {
+            throw new IllegalArgumentException(where + what + " must be between " + min + " and " + max + ": " + v);
+        }
+        return v;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public List<Card> getCards() {
+        return cards;
+    }
+
+    public List<Card> getCards(int level) {
+        if (level < 1 || level > 3) {
+            throw new IllegalArgumentException("Invalid level: " + level);
+        }
+        return cardsByLevel.get(level - 1);
+    }
+
+    public List<Noble> getNobles() {
+        return nobles;
+    }
+
+    /**
+     * Look up a card by its catalog id (1-based).
+     */
+    public Card getCard(int id) {
+        return cardsById[id - 1];
+    }
+
+    public Noble getNoble(int id) {
+        return nobles.get(id - 1);
+    }
+
+    private static final class StandardHolder {
+        static final CardCatalog INSTANCE = loadStandard();
+
+        private static CardCatalog loadStandard() {
+            String path = System.getProperty(CATALOG_PROPERTY);
+            if (path != null && !path.isBlank()) {
+                return load(Path.of(path));
+            }
+            return parse(new StringReader(BUILT_IN), "built-in");
+        }
+    }
+
+    /**
+     * A small but varied subset of the published cards, used when no
+     * catalog file is configured.
+     */
+    private static final String BUILT_IN = """
+            # card  level points bonus  white blue green red black
+            card    1     0      WHITE  0     0    1     1   1
+            card    1     0      BLUE   0     1    1     1   0
+            card    1     0      GREEN  1     0    0     2   0
+            card    1     0      RED    0     2    0     0   1
+            card    1     0      BLACK  1     1    1     0   0
+            card    1     1      WHITE  0     0    2     2   0
+            card    1     1      BLUE   2     0    0     0   2
+            card    1     1      GREEN  0     2    2     0   0
+            card    1     1      RED    0     0    0     4   0
+            card    1     1      BLACK  3     0    0     0   0
+
+            card    2     2      WHITE  0     0    3     2   2
+            card    2     2      BLUE   2     0    0     3   2
+            card    2     2      GREEN  2     3    0     0   2
+            card    2     2      RED    2     2    3     0   0
+            card    2     3      BLACK  0     0    6     0   0
+            card    2     1      WHITE  0     2    2     3   0
+            card    2     1      BLUE   3     0    2     2   0
+            card    2     1      GREEN  0     3    0     2   2
+            card    2     1      RED    2     0    3     0   2
+            card    2     2      BLACK  0     5    0     0   0
+
+            card    3     4      WHITE  0     0    7     0   0
+            card    3     4      BLUE   0     7    0     0   0
+            card    3     4      GREEN  0     0    0     7   0
+            card    3     4      RED    0     0    0     0   7
+            card    3     5      BLACK  3     3    3     3   0
+            card    3     3      WHITE  3     0    0     5   3
+            card    3     3      BLUE   3     3    0     0   5
+            card    3     3      GREEN  5     3    3     0   0
+            card    3     3      RED    0     5    3     3   0
+            card    3     3      BLACK  0     0    5     3   3
+
+            # noble white blue green red black  name
+            noble   3     3    0     0   0      Henry VIII
+            noble   0     3    3     0   0      Isabella
+            noble   0     0    3     3   0      Lorenzo
+            noble   0     0    0     3   3      Catherine
+            noble   3     0    0     0   3      Charles
+            """;
+}
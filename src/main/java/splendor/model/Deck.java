@@ -1,43 +1,105 @@
 package splendor.model;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Represents a deck of development cards for a given level.
+ *
+ * The deck stores only catalog card ids (the top of the deck is the end of
+ * the array); {@link Card} instances are resolved through the shared
+ * {@link CardCatalog}, so a deck costs a few dozen bytes per game.
  */
 public class Deck {
 
     private final int level;
-    private final List<Card> cards;
+    private final CardCatalog catalog;
+    private final short[] cardIds;
+    private int size;
 
-    public Deck(int level, List<Card> cards) {
+    /**
+     * Create an empty deck able to hold every card of the level.
+     */
+    public Deck(int level, CardCatalog catalog) {
         this.level = level;
-        this.cards = new ArrayList<>(cards);
+        this.catalog = catalog;
+        this.cardIds = new short[catalog.getCards(level).size()];
+    }
+
+    /**
+     * Create a deck holding the given catalog cards, last card on top.
+     */
+    public Deck(int level, CardCatalog catalog, List<Card> cards) {
+        this(level, catalog);
+        for (Card card : cards) {
+            addCard(card);
+        }
     }
 
     public int getLevel() {
         return level;
     }
 
+    public CardCatalog getCatalog() {
+        return catalog;
+    }
+
     public void shuffle() {
-        Collections.shuffle(cards);
+        shuffle(ThreadLocalRandom.current());
+    }
+
+    public void shuffle(Random rng) {
+        for (int i = size - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            short tmp = cardIds[i];
+            cardIds[i] = cardIds[j];
+            cardIds[j] = tmp;
+        }
     }
 
     public boolean isEmpty() {
-        return cards.isEmpty();
+        return size == 0;
     }
 
     public Card draw() {
-        if (cards.isEmpty()) {
+        if (size == 0) {
             return null;
         }
-        return cards.remove(cards.size() - 1);
+        return catalog.getCard(cardIds[--size]);
+    }
+
+    /**
+     * Returns the id of the top card without drawing it, or 0 if the deck is empty.
+     */
+    public int peekId() {
+        return size == 0 ? 0 : cardIds[size - 1];
+    }
+
+    /**
+     * Put a card back into the deck (on top). Used when hidden cards are
+     * returned to the unseen pool before reshuffling.
+     */
+    public void addCard(Card card) {
+        if (card.getLevel() != level || catalog.getCard(card.getId()) != card) {
+            throw new IllegalArgumentException("Card " + card.getId() + " does not belong to this level " + level + " deck");
+        }
+        cardIds[size++] = (short) card.getId();
     }
 
     public int size() {
-        return cards.size();
+        return size;
     }
-}
 
+    /**
+     * Overwrite this deck with the cards (and order) of another deck built
+     * from the same catalog. Does not allocate.
+     */
+    public void copyFrom(Deck other) {
+        if (other.catalog != catalog || other.level != level) {
+            throw new IllegalArgumentException("Decks are not compatible");
+        }
+        System.arraycopy(other.cardIds, 0, cardIds, 0, other.size);
+        size = other.size;
+    }
+}
@@ -0,0 +1,19 @@
+package splendor.model;
+
+/**
+ * Notified whenever a single face-up market slot changes.
+ *
+ * Slots are stable: when a card leaves the market its slot becomes empty
+ * and the replacement card is dealt into that same slot, so listeners can
+ * update one slot instead of re-reading the whole row.
+ */
+public interface MarketListener {
+
+    /**
+     * @param level   card level (1–3)
+     * @param slot    slot index within the level (0 to {@link Board#FACE_UP_PER_LEVEL} - 1)
+     * @param oldCard card previously in the slot, or null if it was empty
+     * @param newCard card now in the slot, or null if it is now empty
+     */
+    void slotChanged(int level, int slot, Card oldCard, Card newCard);
+}
@@ -11,23 +11,35 @@ import java.util.Map;
  */
 public class Noble {
 
+    private final int id; // catalog id, 0 if not from a catalog
     private final String name;
     private final EnumMap<GemType, Integer> requirements;
     private final int prestigePoints;
+    private final int[] requirementByOrdinal = new int[GemType.values().length];
 
     public Noble(String name, Map<GemType, Integer> requirements) {
+        this(0, name, requirements);
+    }
+
+    public Noble(int id, String name, Map<GemType, Integer> requirements) {
+        this.id = id;
         this.name = name;
         this.requirements = new EnumMap<>(GemType.class);
         if (requirements != null) {
             requirements.forEach((k, v) -> {
                 if (k.isStandard() && v > 0) {
                     this.requirements.put(k, v);
+                    this.requirementByOrdinal[k.ordinal()] = v;
                 }
             });
         }
         this.prestigePoints = 3;
     }
 
+    public int getId() {
+        return id;
+    }
+
     public String getName() {
         return name;
     }
@@ -36,6 +48,13 @@ public class Noble {
         return Collections.unmodifiableMap(requirements);
     }
 
+    /**
+     * Required bonus count for a single gem type (0 if none), without boxing.
+     */
+    public int getRequirement(GemType type) {
+        return requirementByOrdinal[type.ordinal()];
+    }
+
     public int getPrestigePoints() {
         return prestigePoints;
     }
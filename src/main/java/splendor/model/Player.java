@@ -1,6 +1,7 @@
 package splendor.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
@@ -13,11 +14,17 @@ public class Player {
     public static final int MAX_RESERVED_CARDS = 3;
     public static final int MAX_TOKENS = 10;
 
+    private static final GemType[] STANDARD_TYPES = {
+            GemType.WHITE, GemType.BLUE, GemType.GREEN, GemType.RED, GemType.BLACK
+    };
+
     private final String name;
     private final TokenPool tokens = new TokenPool();
     private final EnumMap<GemType, Integer> bonuses = new EnumMap<>(GemType.class);
+    private final int[] bonusByOrdinal = new int[GemType.values().length]; // same counts, unboxed
     private final List<Card> purchasedCards = new ArrayList<>();
     private final List<Card> reservedCards = new ArrayList<>();
+    private final boolean[] reservedFaceDown = new boolean[MAX_RESERVED_CARDS]; // parallel to reservedCards
     private int prestigePoints;
 
     public Player(String name) {
@@ -38,7 +45,7 @@ public class Player {
     }
 
     public Map<GemType, Integer> getBonuses() {
-        return bonuses;
+        return Collections.unmodifiableMap(bonuses);
     }
 
     public List<Card> getPurchasedCards() {
@@ -58,14 +65,15 @@ public class Player {
     }
 
     public int getBonus(GemType type) {
-        return bonuses.getOrDefault(type, 0);
+        return bonusByOrdinal[type.ordinal()];
     }
 
     public void addBonus(GemType type, int delta) {
         if (!type.isStandard()) {
             throw new IllegalArgumentException("Bonuses must be standard gem types");
         }
-        bonuses.put(type, getBonus(type) + delta);
+        bonusByOrdinal[type.ordinal()] += delta;
+        bonuses.put(type, bonusByOrdinal[type.ordinal()]);
     }
 
     public int getTotalTokens() {
@@ -81,5 +89,98 @@ public class Player {
         addPrestigePoints(card.getPrestigePoints());
         addBonus(card.getBonus(), 1);
     }
-}
 
+    /**
+     * Take back the most recent purchase, which must be {@code card}.
+     * Used by search to undo a move.
+     */
+    public void unpurchaseCard(Card card) {
+        int last = purchasedCards.size() - 1;
+        if (last < 0 || purchasedCards.get(last) != card) {
+            throw new IllegalArgumentException("Card " + card.getId() + " is not the last purchase");
+        }
+        purchasedCards.remove(last);
+        addPrestigePoints(-card.getPrestigePoints());
+        addBonus(card.getBonus(), -1);
+    }
+
+    /**
+     * Add a card to the reserved hand.
+     *
+     * @param faceDown true if the card was taken blind from the top of a deck,
+     *                 in which case opponents do not know its identity
+     */
+    public void reserveCard(Card card, boolean faceDown) {
+        reservedFaceDown[reservedCards.size()] = faceDown;
+        reservedCards.add(card);
+    }
+
+    public Card removeReservedCard(int index) {
+        Card card = reservedCards.remove(index);
+        System.arraycopy(reservedFaceDown, index + 1, reservedFaceDown, index, MAX_RESERVED_CARDS - index - 1);
+        reservedFaceDown[MAX_RESERVED_CARDS - 1] = false;
+        return card;
+    }
+
+    /**
+     * Put a card back at a position in the reserved hand, the reverse of
+     * {@link #removeReservedCard(int)}.
+     */
+    public void insertReservedCard(int index, Card card, boolean faceDown) {
+        if (!canReserveMore()) {
+            throw new IllegalStateException("Reserved hand is full");
+        }
+        reservedCards.add(index, card);
+        System.arraycopy(reservedFaceDown, index, reservedFaceDown, index + 1, MAX_RESERVED_CARDS - index - 1);
+        reservedFaceDown[index] = faceDown;
+    }
+
+    /**
+     * Returns true if the reserved card at the given index is hidden from opponents.
+     */
+    public boolean isReservedFaceDown(int index) {
+        return reservedFaceDown[index];
+    }
+
+    /**
+     * Replace a reserved card in place, keeping its face-down flag.
+     * Used when determinizing hidden information for search.
+     */
+    public void replaceReservedCard(int index, Card card) {
+        reservedCards.set(index, card);
+    }
+
+    /**
+     * Overwrite this player's mutable state with another player's state.
+     * The name is kept; this does not allocate once the lists have grown.
+     */
+    public void copyFrom(Player other) {
+        tokens.copyFrom(other.tokens);
+        for (int i = 0; i < STANDARD_TYPES.length; i++) {
+            GemType type = STANDARD_TYPES[i];
+            if (bonusByOrdinal[type.ordinal()] != other.bonusByOrdinal[type.ordinal()]) {
+                bonuses.put(type, other.getBonus(type));
+            }
+        }
+        System.arraycopy(other.bonusByOrdinal, 0, bonusByOrdinal, 0, bonusByOrdinal.length);
+        purchasedCards.clear();
+        for (int i = 0; i < other.purchasedCards.size(); i++) {
+            purchasedCards.add(other.purchasedCards.get(i));
+        }
+        reservedCards.clear();
+        for (int i = 0; i < other.reservedCards.size(); i++) {
+            reservedCards.add(other.reservedCards.get(i));
+        }
+        System.arraycopy(other.reservedFaceDown, 0, reservedFaceDown, 0, MAX_RESERVED_CARDS);
+        prestigePoints = other.prestigePoints;
+    }
+
+    /**
+     * Create an independent deep copy of this player.
+     */
+    public Player copy() {
+        Player player = new Player(name);
+        player.copyFrom(this);
+        return player;
+    }
+}
@@ -6,15 +6,17 @@ import java.util.Map;
 
 /**
  * Represents a pool of tokens (either on the board or owned by a player).
+ *
+ * Counts are kept in an array indexed by gem ordinal, so reading and
+ * updating them does not box.
  */
 public class TokenPool {
 
-    private final EnumMap<GemType, Integer> tokens = new EnumMap<>(GemType.class);
+    private static final GemType[] TYPES = GemType.values();
+
+    private final int[] counts = new int[TYPES.length];
 
     public TokenPool() {
-        for (GemType type : GemType.values()) {
-            tokens.put(type, 0);
-        }
     }
 
     public TokenPool(Map<GemType, Integer> initial) {
@@ -25,11 +27,11 @@ public class TokenPool {
     }
 
     public int get(GemType type) {
-        return tokens.getOrDefault(type, 0);
+        return counts[type.ordinal()];
     }
 
     public void set(GemType type, int amount) {
-        tokens.put(type, Math.max(0, amount));
+        counts[type.ordinal()] = Math.max(0, amount);
     }
 
     public void add(GemType type, int delta) {
@@ -48,15 +50,35 @@ public class TokenPool {
     }
 
     public int totalTokens() {
-        return tokens.values().stream().mapToInt(Integer::intValue).sum();
+        int total = 0;
+        for (int c : counts) {
+            total += c;
+        }
+        return total;
     }
 
+    /**
+     * The counts as a map, for display. This is a snapshot, not a live view.
+     */
     public Map<GemType, Integer> asUnmodifiableMap() {
-        return Collections.unmodifiableMap(tokens);
+        EnumMap<GemType, Integer> map = new EnumMap<>(GemType.class);
+        for (GemType type : TYPES) {
+            map.put(type, counts[type.ordinal()]);
+        }
+        return Collections.unmodifiableMap(map);
     }
 
     public TokenPool copy() {
-        return new TokenPool(tokens);
+        TokenPool pool = new TokenPool();
+        pool.copyFrom(this);
+        return pool;
+    }
+
+    /**
+     * Overwrite this pool with the counts of another pool without allocating.
+     */
+    public void copyFrom(TokenPool other) {
+        System.arraycopy(other.counts, 0, counts, 0, counts.length);
     }
 
     @Override
@@ -0,0 +1,44 @@
+package splendor.network;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Shared pool of fixed-size byte buffers for outbound messages.
+ *
+ * A connection only holds a buffer while it has unflushed output, so a
+ * server needs roughly one buffer per connection that is mid-turn rather
+ * than one per connection.
+ */
+public class BufferPool {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final int bufferSize;
+    private final ConcurrentLinkedQueue<byte[]> free = new ConcurrentLinkedQueue<>();
+
+    public BufferPool() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public BufferPool(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public byte[] acquire() {
+        byte[] buf = free.poll();
+        return buf != null ? buf : new byte[bufferSize];
+    }
+
+    public void release(byte[] buf) {
+        if (buf.length == bufferSize) {
+            free.offer(buf);
+        }
+    }
+}
@@ -1,149 +1,320 @@
 package splendor.network;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
-import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.util.Scanner;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import splendor.game.actions.GameAction;
+import splendor.game.engine.ActionValidator;
+import splendor.game.engine.ValidationResult;
+import splendor.model.CardCatalog;
 
 /**
  * Minimal console client for the Splendor LAN server.
  *
- * Usage: `java splendor.network.Client <host> <port> <playerName>`
+ * Usage: `java splendor.network.Client <host> <port> <playerName>`, or
+ * `java splendor.network.Client unix:<socketPath> <playerName>` for a
+ * server on the same host listening on a Unix domain socket.
+ *
+ * A reader thread turns server lines into events on a blocking queue and
+ * the main thread handles them one by one, so the client sleeps until the
+ * server says something. Each `SNAP` line refreshes a local mirror of the
+ * game, which is used to reject illegal moves before they are sent.
+ *
+ * Turns are sent as a single `TURN` message that already answers the
+ * discard and noble questions; the server only prompts when it must.
  */
 public class Client {
 
+    /** What the last message we sent is waiting on, so an error can re-ask. */
+    private enum Pending { NONE, TURN, DISCARD, NOBLE, HINTS }
+
+    private final String name;
+    private final BufferedReader in;
+    private final PrintWriter out;
+    private final Scanner console = new Scanner(System.in);
+    private final BlockingQueue<ServerEvent> events = new LinkedBlockingQueue<>();
+    private final ActionValidator validator = new ActionValidator();
+    private final CardCatalog catalog = CardCatalog.standard();
+
+    private StateSnapshot mirror; // null until the first usable SNAP
+    private boolean mirrorWarned;
+    private String lastStateText = "";
+    private Pending pending = Pending.NONE;
+
+    public Client(String name, BufferedReader in, PrintWriter out) {
+        this.name = name;
+        this.in = in;
+        this.out = out;
+    }
+
     public static void main(String[] args) throws Exception {
-        if (args.length < 3) {
+        boolean unix = args.length >= 2 && args[0].startsWith("unix:");
+        if (args.length < 3 && !unix) {
             System.out.println("Usage: java splendor.network.Client <host> <port> <playerName>");
+            System.out.println("   or: java splendor.network.Client unix:<socketPath> <playerName>");
             return;
         }
-        String host = args[0];
-        int port = Integer.parseInt(args[1]);
-        String name = args[2];
-
-        try (Socket sock = new Socket(host, port)) {
-            BufferedReader in = new BufferedReader(new InputStreamReader(sock.getInputStream()));
-            PrintWriter out = new PrintWriter(sock.getOutputStream(), true);
-            Scanner console = new Scanner(System.in);
-
-            // Send join
-            out.println("JOIN:" + name);
-
-            // Reader thread to print server messages and set turn flags
-            final java.util.concurrent.atomic.AtomicBoolean yourTurn = new java.util.concurrent.atomic.AtomicBoolean(false);
-            final java.util.concurrent.atomic.AtomicBoolean discardNeeded = new java.util.concurrent.atomic.AtomicBoolean(false);
-            final java.util.concurrent.atomic.AtomicBoolean nobleChoice = new java.util.concurrent.atomic.AtomicBoolean(false);
-            Thread reader = new Thread(() -> {
-                try {
-                    String line;
-                    while ((line = in.readLine()) != null) {
-                        if (line.equals("STATE")) {
-                            StringBuilder sb = new StringBuilder();
-                            while (true) {
-                                String s = in.readLine();
-                                if (s == null || s.equals("ENDSTATE")) break;
-                                sb.append(s).append('\n');
-                            }
-                            System.out.println(sb.toString());
-                        } else if (line.startsWith("WELCOME:")) {
-                            System.out.println("Connected to server as " + name + " (slot " + line.substring(8) + ")");
-                        } else if (line.equals("YOUR_TURN")) {
-                            yourTurn.set(true);
-                        } else if (line.startsWith("RESULT ")) {
-                            System.out.println(line.substring(7));
-                        } else if (line.startsWith("DISCARD_NEEDED ")) {
-                            System.out.println("You must discard " + line.substring(15) + " tokens.");
-                            discardNeeded.set(true);
-                        } else if (line.startsWith("NOBLE_CHOICE ")) {
-                            System.out.println("You may claim a noble. Choose index or -1 to skip.");
-                            nobleChoice.set(true);
-                        } else if (line.equals("GAME_OVER")) {
-                            System.out.println("--- GAME OVER ---");
-                        } else {
-                            System.out.println(line);
-                        }
+        Transport transport = unix ? Transport.parse(args[0]) : Transport.tcp(args[0], Integer.parseInt(args[1]));
+        String name = unix ? args[1] : args[2];
+
+        try (Transport.Connection conn = transport.connect()) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(conn.getOutputStream(), StandardCharsets.UTF_8), true);
+            new Client(name, in, out).run();
+        }
+    }
+
+    public void run() throws InterruptedException {
+        out.println("JOIN:" + name);
+
+        Thread reader = new Thread(this::readEvents, "server-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        while (true) {
+            ServerEvent event = events.take();
+            if (event.line == null) {
+                System.out.println("Connection closed.");
+                return;
+            }
+            if (!handle(event)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reader thread: group `STATE` blocks into one event, forward every
+     * other line as is, and finish with an end-of-stream event.
+     */
+    private void readEvents() {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.equals("STATE")) {
+                    StringBuilder sb = new StringBuilder();
+                    while (true) {
+                        String s = in.readLine();
+                        if (s == null || s.equals("ENDSTATE")) break;
+                        sb.append(s).append('\n');
                     }
-                } catch (Exception e) {
-                    System.out.println("Connection closed.");
+                    events.add(new ServerEvent(line, sb.toString()));
+                } else {
+                    events.add(new ServerEvent(line, null));
                 }
-            });
-            reader.setDaemon(true);
-            reader.start();
-
-            // Main input loop: wait for YOUR_TURN then present a clear interactive menu
-            while (true) {
-                // Wait for turn
-                while (!yourTurn.get()) {
-                    Thread.sleep(300);
+            }
+        } catch (IOException e) {
+            // fall through to end of stream
+        }
+        events.add(new ServerEvent(null, null));
+    }
+
+    /**
+     * @return false if the user chose to quit
+     */
+    private boolean handle(ServerEvent event) {
+        String line = event.line;
+        if (line.equals("STATE")) {
+            lastStateText = event.body;
+            System.out.println(event.body);
+        } else if (line.startsWith("SNAP ")) {
+            updateMirror(line);
+        } else if (line.startsWith("WELCOME:")) {
+            System.out.println("Connected to server as " + name + " (slot " + line.substring(8) + ")");
+        } else if (line.equals("YOUR_TURN")) {
+            return playTurn();
+        } else if (line.equals("RESULT OK")) {
+            System.out.println("OK");
+            pending = Pending.NONE;
+        } else if (line.startsWith("RESULT ERROR ")) {
+            System.out.println("ERROR " + line.substring(13));
+            Pending retry = pending;
+            pending = Pending.NONE;
+            switch (retry) {
+                case TURN -> {
+                    return playTurn();
                 }
-                System.out.println("\n=== YOUR TURN ===");
-                System.out.println("Choose action:\n1) Take tokens\n2) Buy card\n3) Reserve card\n4) Show state (wait for server update)\nq) Quit");
-                String choice = console.nextLine().trim();
-                if (choice.equalsIgnoreCase("q") || choice.equalsIgnoreCase("quit") || choice.equalsIgnoreCase("exit")) break;
-                switch (choice) {
-                    case "1" -> {
-                        System.out.print("Enter gems to take (e.g. WHITE,BLUE,RED or WHITE:2,BLUE:1): ");
-                        String payload = console.nextLine().trim();
-                        out.println("ACTION TAKE " + payload);
-                    }
-                    case "2" -> {
-                        System.out.print("Buy from MARKET or RESERVED? (M/R): ");
-                        String which = console.nextLine().trim();
-                        if (which.equalsIgnoreCase("M")) {
-                            System.out.print("Level (1-3): ");
-                            String lvl = console.nextLine().trim();
-                            System.out.print("Card index: ");
-                            String idx = console.nextLine().trim();
-                            out.println("ACTION BUY MARKET " + lvl + " " + idx);
-                        } else {
-                            System.out.print("Reserved index: ");
-                            String idx = console.nextLine().trim();
-                            out.println("ACTION BUY RESERVED " + idx);
-                        }
-                    }
-                    case "3" -> {
-                        System.out.print("Reserve from MARKET or TOP? (M/T): ");
-                        String which = console.nextLine().trim();
-                        if (which.equalsIgnoreCase("M")) {
-                            System.out.print("Level (1-3): ");
-                            String lvl = console.nextLine().trim();
-                            System.out.print("Card index: ");
-                            String idx = console.nextLine().trim();
-                            out.println("ACTION RESERVE MARKET " + lvl + " " + idx);
-                        } else {
-                            System.out.print("Level (1-3): ");
-                            String lvl = console.nextLine().trim();
-                            out.println("ACTION RESERVE TOP " + lvl);
-                        }
+                case DISCARD -> promptDiscard();
+                case NOBLE -> promptNoble();
+                default -> {
+                }
+            }
+        } else if (line.startsWith("DISCARD_NEEDED ")) {
+            System.out.println("You must discard " + line.substring(15) + " tokens.");
+            promptDiscard();
+        } else if (line.startsWith("NOBLE_CHOICE ")) {
+            System.out.println("You may claim a noble. Choose index or -1 to skip.");
+            promptNoble();
+        } else if (line.startsWith("MARKET ")) {
+            showMarketChange(line);
+        } else if (line.startsWith("HINT ")) {
+            System.out.println("Hint " + line.substring(5));
+        } else if (line.equals("ENDHINT")) {
+            System.out.println("(end of hints)");
+            if (pending == Pending.HINTS) {
+                pending = Pending.NONE;
+                return playTurn();
+            }
+        } else if (line.equals("GAME_OVER")) {
+            System.out.println("--- GAME OVER ---");
+        } else {
+            System.out.println(line);
+        }
+        return true;
+    }
+
+    private void showMarketChange(String line) {
+        String[] parts = line.split(" ");
+        String where = "level " + parts[1] + " slot " + parts[2];
+        if (parts[3].equals("-")) {
+            System.out.println("Market " + where + " is now empty");
+            return;
+        }
+        try {
+            System.out.println("Market " + where + ": " + catalog.getCard(Integer.parseInt(parts[3])));
+        } catch (RuntimeException e) {
+            // The server plays a catalog this client does not know
+            System.out.println("Market " + where + ": card " + parts[3]);
+        }
+    }
+
+    private void updateMirror(String line) {
+        try {
+            mirror = MessageHandler.parseSnapshot(line, catalog);
+        } catch (IllegalArgumentException e) {
+            mirror = null;
+            if (!mirrorWarned) {
+                System.out.println("(Moves will be checked by the server only: " + e.getMessage() + ")");
+                mirrorWarned = true;
+            }
+        }
+    }
+
+    /**
+     * Show the turn menu until the user sends a move the local mirror
+     * accepts, asks for hints, or quits.
+     *
+     * @return false if the user chose to quit
+     */
+    private boolean playTurn() {
+        while (true) {
+            System.out.println("\n=== YOUR TURN ===");
+            System.out.println("Choose action:\n1) Take tokens\n2) Buy card\n3) Reserve card\n4) Show state\n5) Ask for move hints\nq) Quit");
+            String choice = console.nextLine().trim();
+            if (choice.equalsIgnoreCase("q") || choice.equalsIgnoreCase("quit") || choice.equalsIgnoreCase("exit")) {
+                return false;
+            }
+            String command;
+            switch (choice) {
+                case "1" -> {
+                    System.out.print("Enter gems to take (e.g. WHITE,BLUE,RED or WHITE:2,BLUE:1): ");
+                    command = "TAKE " + console.nextLine().trim();
+                }
+                case "2" -> {
+                    System.out.print("Buy from MARKET or RESERVED? (M/R): ");
+                    String which = console.nextLine().trim();
+                    if (which.equalsIgnoreCase("M")) {
+                        System.out.print("Level (1-3): ");
+                        String lvl = console.nextLine().trim();
+                        System.out.print("Card index: ");
+                        String idx = console.nextLine().trim();
+                        command = "BUY MARKET " + lvl + " " + idx;
+                    } else {
+                        System.out.print("Reserved index: ");
+                        command = "BUY RESERVED " + console.nextLine().trim();
                     }
-                    case "4" -> {
-                        System.out.println("Waiting for server to send a state update...");
+                }
+                case "3" -> {
+                    System.out.print("Reserve from MARKET or TOP? (M/T): ");
+                    String which = console.nextLine().trim();
+                    System.out.print("Level (1-3): ");
+                    String lvl = console.nextLine().trim();
+                    if (which.equalsIgnoreCase("M")) {
+                        System.out.print("Card index: ");
+                        command = "RESERVE MARKET " + lvl + " " + console.nextLine().trim();
+                    } else {
+                        command = "RESERVE TOP " + lvl;
                     }
-                    default -> System.out.println("Unknown choice.");
                 }
-
-                // After sending action, wait for potential discard/noble prompts or result
-                yourTurn.set(false);
-                while (!discardNeeded.get() && !nobleChoice.get()) {
-                    Thread.sleep(200);
-                    // break if turn assigned back to someone else
-                    if (yourTurn.get()) break;
+                case "4" -> {
+                    System.out.println(lastStateText);
+                    continue;
+                }
+                case "5" -> {
+                    out.println("HINT 3");
+                    pending = Pending.HINTS;
+                    return true;
                 }
-                if (discardNeeded.get()) {
-                    System.out.print("Enter discards (e.g. WHITE:1,BLUE:1): ");
-                    String payload = console.nextLine().trim();
-                    out.println("DISCARD " + payload);
-                    discardNeeded.set(false);
+                default -> {
+                    System.out.println("Unknown choice.");
+                    continue;
                 }
-                if (nobleChoice.get()) {
-                    System.out.print("Choose noble index (or -1 to skip): ");
-                    String idx = console.nextLine().trim();
-                    out.println("NOBLE " + idx);
-                    nobleChoice.set(false);
+            }
+
+            GameAction action;
+            try {
+                action = MessageHandler.parseAction(command);
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                System.out.println("Could not understand that move: " + e.getMessage());
+                continue;
+            }
+            if (mirror != null && mirror.isViewersTurn()) {
+                ValidationResult result = validator.validate(mirror.getState(), mirror.getViewerIndex(), action);
+                if (!result.isValid()) {
+                    System.out.println("Not allowed: " + result.getMessage());
+                    continue;
                 }
             }
+            String extras = command.startsWith("BUY") ? askNoble() : askDiscardOrder();
+            out.println("TURN " + command + extras);
+            pending = Pending.TURN;
+            return true;
         }
     }
-}
 
+    private void promptDiscard() {
+        System.out.print("Enter discards (e.g. WHITE:1,BLUE:1): ");
+        out.println("DISCARD " + console.nextLine().trim());
+        pending = Pending.DISCARD;
+    }
+
+    private void promptNoble() {
+        System.out.print("Choose noble index (or -1 to skip): ");
+        out.println("NOBLE " + console.nextLine().trim());
+        pending = Pending.NOBLE;
+    }
+
+    /**
+     * Ask up front which colors to return if the action takes us over the
+     * token limit, so the server can finish the turn without prompting.
+     */
+    private String askDiscardOrder() {
+        System.out.print("If this puts you over 10 tokens, discard which colors first? (e.g. RED,GOLD; blank = ask me): ");
+        String order = console.nextLine().trim();
+        return order.isEmpty() ? "" : ";DISCARD_ORDER " + order;
+    }
+
+    private String askNoble() {
+        System.out.print("If several nobles visit, which one (board index; blank = ask me): ");
+        String idx = console.nextLine().trim();
+        return idx.isEmpty() ? "" : ";NOBLE " + idx;
+    }
+
+    /** One server message; {@code line} is null at end of stream. */
+    private static final class ServerEvent {
+        final String line;
+        final String body;
+
+        ServerEvent(String line, String body) {
+            this.line = line;
+            this.body = body;
+        }
+    }
+}
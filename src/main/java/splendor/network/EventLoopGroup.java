@@ -0,0 +1,247 @@
+package splendor.network;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A fixed set of event-loop threads. Each loop owns a {@link Selector} for
+ * the sockets registered with it, a queue of tasks posted from any thread
+ * and a heap of timers, and runs all of them on its one thread. Work bound
+ * to a loop therefore never needs locks; see {@link TableActor}.
+ */
+public final class EventLoopGroup implements Closeable {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final EventLoop[] loops;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public EventLoopGroup(int threads, String name) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("An event-loop group needs at least one thread");
+        }
+        loops = new EventLoop[threads];
+        try {
+            for (int i = 0; i < threads; i++) {
+                loops[i] = new EventLoop(name + "-" + i);
+            }
+        } catch (IOException e) {
+            close();
+            throw new IllegalStateException("Cannot open a selector", e);
+        }
+        for (EventLoop loop : loops) {
+            loop.thread.start();
+        }
+    }
+
+    /**
+     * The loop for the next piece of work, round robin.
+     */
+    public EventLoop next() {
+        return loops[Math.floorMod(next.getAndIncrement(), loops.length)];
+    }
+
+    public int size() {
+        return loops.length;
+    }
+
+    @Override
+    public void close() {
+        for (EventLoop loop : loops) {
+            if (loop != null) {
+                loop.close();
+            }
+        }
+    }
+
+    /**
+     * One event-loop thread. {@link #execute} and {@link #schedule} may be
+     * called from any thread; {@link #register} only from the loop itself.
+     */
+    public static final class EventLoop implements Executor {
+
+        private final Thread thread;
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean wakeupPending = new AtomicBoolean();
+        private final PriorityQueue<Timer> timers = new PriorityQueue<>(); // loop thread only
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        private volatile boolean closed;
+
+        private EventLoop(String name) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this::run, name);
+            this.thread.setDaemon(true);
+        }
+
+        public boolean inLoop() {
+            return Thread.currentThread() == thread;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+            if (!inLoop() && wakeupPending.compareAndSet(false, true)) {
+                selector.wakeup();
+            }
+        }
+
+        /**
+         * Run {@code task} on this loop after {@code delayMillis}, unless the
+         * returned timer is cancelled first.
+         */
+        public Timer schedule(long delayMillis, Runnable task) {
+            Timer t = new Timer(System.nanoTime() + delayMillis * 1_000_000L, task);
+            if (inLoop()) {
+                timers.add(t);
+            } else {
+                execute(() -> timers.add(t));
+            }
+            return t;
+        }
+
+        /**
+         * Register a non-blocking channel; {@code handler} runs on this loop
+         * whenever the channel is ready. Call from a task, not a handler: a
+         * channel whose key on this loop was cancelled is first flushed out
+         * of the selector.
+         */
+        public SelectionKey register(SelectableChannel channel, int ops, Consumer<SelectionKey> handler)
+                throws IOException {
+            if (!inLoop()) {
+                throw new IllegalStateException("register() must be called on the event loop");
+            }
+            SelectionKey old = channel.keyFor(selector);
+            if (old != null && !old.isValid()) {
+                // A cancelled key stays registered until the next select.
+                selector.selectNow();
+            }
+            return channel.register(selector, ops, handler);
+        }
+
+        /**
+         * Scratch buffer for socket reads, shared by every channel of this
+         * loop; handlers must consume it before returning.
+         */
+        public ByteBuffer readBuffer() {
+            return readBuffer;
+        }
+
+        private void close() {
+            closed = true;
+            selector.wakeup();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void run() {
+            try {
+                while (!closed) {
+                    long timeout = runDueTimers();
+                    if (tasks.isEmpty()) {
+                        if (timeout < 0) {
+                            selector.select();
+                        } else if (timeout == 0) {
+                            selector.selectNow();
+                        } else {
+                            selector.select(timeout);
+                        }
+                    } else {
+                        selector.selectNow();
+                    }
+                    wakeupPending.set(false);
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        if (key.isValid()) {
+                            Consumer<SelectionKey> handler = (Consumer<SelectionKey>) key.attachment();
+                            runSafely(() -> handler.accept(key));
+                        }
+                    }
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        runSafely(task);
+                    }
+                }
+            } catch (IOException e) {
+                // the selector broke; nothing on this loop can make progress
+            } finally {
+                try {
+                    selector.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+
+        /**
+         * Run a task, keeping the loop alive if it throws: the owner of the
+         * task is expected to handle its own failures.
+         */
+        private static void runSafely(Runnable task) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // the loop serves many owners; one failing must not stop the rest
+            }
+        }
+
+        /**
+         * Run the timers that are due.
+         *
+         * @return milliseconds until the next timer, 0 if one is due, or -1 if there is none
+         */
+        private long runDueTimers() {
+            long now = System.nanoTime();
+            Timer t;
+            while ((t = timers.peek()) != null && t.due - now <= 0) {
+                timers.poll();
+                if (!t.cancelled) {
+                    runSafely(t.task);
+                }
+                now = System.nanoTime();
+            }
+            while ((t = timers.peek()) != null && t.cancelled) {
+                timers.poll();
+            }
+            if (t == null) {
+                return -1;
+            }
+            return Math.max(0, (t.due - now + 999_999) / 1_000_000);
+        }
+    }
+
+    /**
+     * A pending {@link EventLoop#schedule} task.
+     */
+    public static final class Timer implements Comparable<Timer> {
+        private final long due;
+        private final Runnable task;
+        private volatile boolean cancelled;
+
+        private Timer(long due, Runnable task) {
+            this.due = due;
+            this.task = task;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public int compareTo(Timer o) {
+            return Long.compare(due - o.due, 0);
+        }
+    }
+}
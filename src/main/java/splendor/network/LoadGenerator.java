@@ -0,0 +1,631 @@
+package splendor.network;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import splendor.ai.MoveGenerator;
+import splendor.ai.TurnResolver;
+import splendor.game.actions.MoveCodec;
+import splendor.game.engine.ActionExecutor;
+import splendor.model.CardCatalog;
+import splendor.model.Player;
+import splendor.util.LatencyHistogram;
+
+/**
+ * Synthetic load for a {@link Server} hosting tables with {@link Server#serve()}.
+ *
+ * Simulated players connect over TCP and speak the real line protocol
+ * (`JOIN`, `ACTION` or `TURN`, `DISCARD`, `NOBLE`). Each keeps a mirror of
+ * the game from the `SNAP` lines and plays a random legal move after a
+ * random think time. When a game ends the player joins a new table, so the
+ * load stays steady for the whole run.
+ *
+ * Thousands of players share a few selector threads. Turn latency is the
+ * time from sending a move to the server's `RESULT` for it.
+ *
+ * Usage: `java splendor.network.LoadGenerator [key=value ...]`
+ * <pre>
+ * host=localhost port=4100   server address
+ * unix=/tmp/splendor.sock    connect over this Unix domain socket instead
+ * embedded=true              start a Server in this JVM first
+ * table=2                    players per table (must match the server)
+ * clients=200                simulated players
+ * think=100..500             think time range in milliseconds
+ * ramp=linear:10             burst | linear:SECONDS | step:COUNT:SECONDS
+ * duration=60 report=5       run length and report interval in seconds
+ * protocol=action            action (prompted discards/nobles) | turn (one message)
+ * loops=2                    selector threads
+ * ratings=0                  spread (standard deviation) of player ratings around 1500, 0 = none sent
+ * </pre>
+ */
+public class LoadGenerator {
+
+    private static final int MAX_ERRORS_IN_A_ROW = 3;
+    private static final long RECONNECT_DELAY_NANOS = 1_000_000_000L;
+
+    /** Run settings, parsed from `key=value` arguments. */
+    public static class Options {
+        public String host = "localhost";
+        public int port = 4100;
+        public String unixPath;
+        public boolean embedded = true;
+        public int tableSize = 2;
+        public int clients = 200;
+        public long thinkMinMillis = 100;
+        public long thinkMaxMillis = 500;
+        public String ramp = "linear:10";
+        public int durationSeconds = 60;
+        public int reportSeconds = 5;
+        public boolean turnProtocol;
+        public int loops = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        public int ratingSpread;
+
+        public static Options parse(String[] args) {
+            Options o = new Options();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("Expected key=value: " + arg);
+                }
+                String key = arg.substring(0, eq).toLowerCase(Locale.ROOT);
+                String value = arg.substring(eq + 1);
+                switch (key) {
+                    case "host" -> o.host = value;
+                    case "port" -> o.port = Integer.parseInt(value);
+                    case "unix" -> o.unixPath = value;
+                    case "embedded" -> o.embedded = Boolean.parseBoolean(value);
+                    case "table" -> o.tableSize = Integer.parseInt(value);
+                    case "clients" -> o.clients = Integer.parseInt(value);
+                    case "think" -> {
+                        String[] range = value.split("\\.\\.");
+                        o.thinkMinMillis = Long.parseLong(range[0]);
+                        o.thinkMaxMillis = range.length > 1 ? Long.parseLong(range[1]) : o.thinkMinMillis;
+                    }
+                    case "ramp" -> o.ramp = value;
+                    case "duration" -> o.durationSeconds = Integer.parseInt(value);
+                    case "report" -> o.reportSeconds = Integer.parseInt(value);
+                    case "protocol" -> o.turnProtocol = value.equalsIgnoreCase("turn");
+                    case "loops" -> o.loops = Integer.parseInt(value);
+                    case "ratings" -> o.ratingSpread = Integer.parseInt(value);
+                    default -> throw new IllegalArgumentException("Unknown option: " + key);
+                }
+            }
+            if (o.clients < 1 || o.loops < 1 || o.thinkMinMillis < 0 || o.thinkMaxMillis < o.thinkMinMillis) {
+                throw new IllegalArgumentException("Invalid options");
+            }
+            o.startOffsetNanos(0); // validate the ramp
+            return o;
+        }
+
+        /**
+         * When the i-th simulated player connects, relative to the start of the run.
+         */
+        long startOffsetNanos(int i) {
+            String[] r = ramp.split(":");
+            return switch (r[0].toLowerCase(Locale.ROOT)) {
+                case "burst" -> 0;
+                case "linear" -> (long) (Double.parseDouble(r[1]) * 1e9 * i / clients);
+                case "step" -> (long) (i / Integer.parseInt(r[1]) * Double.parseDouble(r[2]) * 1e9);
+                default -> throw new IllegalArgumentException("Unknown ramp profile: " + ramp);
+            };
+        }
+    }
+
+    private final Options options;
+    private final Transport transport;
+    private final CardCatalog catalog = CardCatalog.standard();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram intervalLatency = new LatencyHistogram();
+    private final LongAdder turns = new LongAdder();
+    private final LongAdder games = new LongAdder();
+    private final LongAdder resultErrors = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+    private final LongAdder stalls = new LongAdder();
+    private final LongAdder protocolErrors = new LongAdder();
+    private final AtomicInteger connected = new AtomicInteger();
+
+    private volatile boolean running = true;
+
+    public LoadGenerator(Options options) {
+        this.options = options;
+        this.transport = options.unixPath != null ? Transport.unix(options.unixPath) : Transport.tcp(options.host, options.port);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadGenerator(Options.parse(args)).run();
+    }
+
+    /**
+     * Run the configured load, printing progress, and return the totals.
+     */
+    public Summary run() throws Exception {
+        Server server = null;
+        if (options.embedded) {
+            List<Transport> listen = new ArrayList<>();
+            listen.add(Transport.tcp(options.port));
+            if (transport.isUnix()) {
+                listen.add(transport);
+            }
+            server = new Server(listen, options.tableSize, 0);
+            Server s = server;
+            Thread t = new Thread(() -> {
+                try {
+                    s.serve();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }, "embedded-server");
+            t.setDaemon(true);
+            t.start();
+            Thread.sleep(500);
+        }
+
+        List<EventLoop> loops = new ArrayList<>();
+        for (int i = 0; i < options.loops; i++) {
+            EventLoop loop = new EventLoop();
+            loops.add(loop);
+            Thread t = new Thread(loop, "load-loop-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+        long start = System.nanoTime();
+        long startCpu = processCpuNanos();
+        Random ratings = new Random(42);
+        for (int i = 0; i < options.clients; i++) {
+            EventLoop loop = loops.get(i % loops.size());
+            String join = "JOIN:sim" + i;
+            if (options.ratingSpread > 0) {
+                join += " rating=" + Math.max(0, (int) (1500 + options.ratingSpread * ratings.nextGaussian()));
+            }
+            SimClient client = new SimClient(loop, join);
+            long at = start + options.startOffsetNanos(i);
+            loop.submit(() -> loop.schedule(at, client::connect));
+        }
+
+        System.out.printf("Load: %d clients via %s, table=%d, think=%d..%dms, ramp=%s, protocol=%s, %d loops%n",
+                options.clients, transport, options.tableSize, options.thinkMinMillis, options.thinkMaxMillis,
+                options.ramp, options.turnProtocol ? "turn" : "action", options.loops);
+        long end = start + options.durationSeconds * 1_000_000_000L;
+        long lastTurns = 0;
+        long lastReport = start;
+        while (System.nanoTime() < end) {
+            Thread.sleep(Math.min(options.reportSeconds * 1000L, Math.max(1, (end - System.nanoTime()) / 1_000_000)));
+            long now = System.nanoTime();
+            long t = turns.sum();
+            System.out.printf("[%5.1fs] connected=%d turns/s=%.1f %s errors=%d%n",
+                    (now - start) / 1e9, connected.get(), (t - lastTurns) / ((now - lastReport) / 1e9),
+                    intervalLatency.summary(), errorCount());
+            intervalLatency.reset();
+            lastTurns = t;
+            lastReport = now;
+        }
+
+        running = false;
+        Summary summary = new Summary(turns.sum(), games.sum(), errorCount(),
+                (System.nanoTime() - start) / 1e9, processCpuNanos() - startCpu, latency);
+        for (EventLoop loop : loops) {
+            loop.submit(loop::shutdown);
+        }
+        System.out.println("---- Load summary ----");
+        System.out.printf("turns=%d (%.1f/s) games=%d cpu/turn=%s%n", summary.turns, summary.turnsPerSecond(),
+                summary.games, cpuPerTurn(summary));
+        System.out.println("turn latency " + latency.summary());
+        System.out.printf("errors: result=%d connect=%d disconnect=%d stalled=%d protocol=%d (%.3f%% of turns)%n",
+                resultErrors.sum(), connectFailures.sum(), disconnects.sum(), stalls.sum(), protocolErrors.sum(),
+                100.0 * errorCount() / Math.max(1, turns.sum()));
+        if (server != null) {
+            server.stop();
+        }
+        return summary;
+    }
+
+    private static String cpuPerTurn(Summary s) {
+        return s.cpuNanos < 0 ? "n/a" : LatencyHistogram.format(s.cpuNanos / 1000 / Math.max(1, s.turns));
+    }
+
+    /**
+     * CPU time used by this whole process (clients and any embedded server),
+     * or -1 if the JVM does not report it.
+     */
+    static long processCpuNanos() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    /** Totals of one run. CPU time covers the whole process, embedded server included. */
+    public static final class Summary {
+        public final long turns;
+        public final long games;
+        public final long errors;
+        public final double seconds;
+        public final long cpuNanos;
+        public final LatencyHistogram latency;
+
+        Summary(long turns, long games, long errors, double seconds, long cpuNanos, LatencyHistogram latency) {
+            this.turns = turns;
+            this.games = games;
+            this.errors = errors;
+            this.seconds = seconds;
+            this.cpuNanos = cpuNanos;
+            this.latency = latency;
+        }
+
+        public double turnsPerSecond() {
+            return turns / seconds;
+        }
+    }
+
+    private long errorCount() {
+        return resultErrors.sum() + connectFailures.sum() + disconnects.sum() + stalls.sum() + protocolErrors.sum();
+    }
+
+    /**
+     * One selector thread: socket events, cross-thread tasks and timers.
+     * All client state is only touched from its loop's thread.
+     */
+    private final class EventLoop implements Runnable {
+
+        private final Selector selector;
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final PriorityQueue<Timer> timers = new PriorityQueue<>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+        private final List<SimClient> clients = new ArrayList<>();
+        private long timerSeq;
+        private boolean stopped;
+
+        EventLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        void submit(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        /** Loop thread only. */
+        void schedule(long atNanos, Runnable task) {
+            timers.add(new Timer(atNanos, timerSeq++, task));
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stopped) {
+                    Timer next = timers.peek();
+                    if (next == null) {
+                        selector.select();
+                    } else {
+                        long waitMillis = (next.at - System.nanoTime()) / 1_000_000;
+                        if (waitMillis > 0) {
+                            selector.select(waitMillis);
+                        } else {
+                            selector.selectNow();
+                        }
+                    }
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        ((SimClient) key.attachment()).onReady(key);
+                    }
+                    selector.selectedKeys().clear();
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+                    long now = System.nanoTime();
+                    while (!timers.isEmpty() && timers.peek().at <= now) {
+                        timers.poll().task.run();
+                    }
+                }
+                selector.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        void shutdown() {
+            for (SimClient c : new ArrayList<>(clients)) {
+                c.close();
+            }
+            timers.clear();
+            stopped = true;
+        }
+    }
+
+    private static final class Timer implements Comparable<Timer> {
+        final long at;
+        final long seq;
+        final Runnable task;
+
+        Timer(long at, long seq, Runnable task) {
+            this.at = at;
+            this.seq = seq;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(Timer o) {
+            int c = Long.compare(at, o.at);
+            return c != 0 ? c : Long.compare(seq, o.seq);
+        }
+    }
+
+    /**
+     * One simulated player. Reconnects to a new table after each game.
+     */
+    private final class SimClient {
+
+        private final EventLoop loop;
+        private final String join;
+        private final MoveGenerator generator = new MoveGenerator();
+        private final ActionExecutor executor = new ActionExecutor();
+        private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+        private final ArrayDeque<ByteBuffer> pendingWrites = new ArrayDeque<>();
+
+        private SocketChannel channel;
+        private SelectionKey key;
+        private byte[] line = new byte[256];
+        private int lineLength;
+        private StateSnapshot mirror;
+        private boolean gameOver;
+        private boolean awaitingResult;
+        private long sentAt;
+        private int errorsInRow;
+
+        SimClient(EventLoop loop, String join) {
+            this.loop = loop;
+            this.join = join;
+        }
+
+        void connect() {
+            if (!running) return;
+            try {
+                if (transport.isUnix()) {
+                    channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+                } else {
+                    channel = SocketChannel.open();
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+                channel.configureBlocking(false);
+                boolean done = channel.connect(transport.getAddress());
+                key = channel.register(loop.selector, done ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+                loop.clients.add(this);
+                if (done) {
+                    // Unix domain sockets usually connect at once.
+                    onConnected();
+                }
+            } catch (IOException e) {
+                connectFailures.increment();
+                closeChannel();
+                retryLater();
+            }
+        }
+
+        void onReady(SelectionKey k) {
+            try {
+                if (!k.isValid()) return;
+                if (k.isConnectable()) {
+                    channel.finishConnect();
+                    k.interestOps(SelectionKey.OP_READ);
+                    onConnected();
+                    return;
+                }
+                if (k.isWritable()) {
+                    flushWrites();
+                }
+                if (k.isReadable()) {
+                    read();
+                }
+            } catch (IOException e) {
+                if (channel != null && !channel.isConnected()) {
+                    connectFailures.increment();
+                    closeChannel();
+                    retryLater();
+                } else {
+                    onClosed();
+                }
+            }
+        }
+
+        private void onConnected() {
+            connected.incrementAndGet();
+            gameOver = false;
+            mirror = null;
+            send(join);
+        }
+
+        private void read() throws IOException {
+            ByteBuffer buf = loop.readBuffer;
+            buf.clear();
+            int n = channel.read(buf);
+            if (n < 0) {
+                onClosed();
+                return;
+            }
+            buf.flip();
+            while (buf.hasRemaining()) {
+                byte b = buf.get();
+                if (b == '\n') {
+                    int len = lineLength > 0 && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+                    lineLength = 0;
+                    onLine(new String(line, 0, len, StandardCharsets.UTF_8));
+                    if (channel == null) return;
+                } else {
+                    if (lineLength == line.length) {
+                        line = Arrays.copyOf(line, line.length * 2);
+                    }
+                    line[lineLength++] = b;
+                }
+            }
+        }
+
+        private void onLine(String msg) {
+            if (msg.startsWith("SNAP ")) {
+                try {
+                    mirror = MessageHandler.parseSnapshot(msg, catalog);
+                } catch (IllegalArgumentException e) {
+                    protocolErrors.increment();
+                    mirror = null;
+                }
+            } else if (msg.equals("YOUR_TURN")) {
+                scheduleMove();
+            } else if (msg.equals("RESULT OK")) {
+                if (awaitingResult) {
+                    long elapsed = System.nanoTime() - sentAt;
+                    latency.recordNanos(elapsed);
+                    intervalLatency.recordNanos(elapsed);
+                    turns.increment();
+                    awaitingResult = false;
+                    errorsInRow = 0;
+                }
+            } else if (msg.startsWith("RESULT ERROR")) {
+                resultErrors.increment();
+                if (awaitingResult) {
+                    awaitingResult = false;
+                    if (++errorsInRow >= MAX_ERRORS_IN_A_ROW) {
+                        stalls.increment();
+                        drop();
+                    } else {
+                        scheduleMove();
+                    }
+                }
+            } else if (msg.startsWith("DISCARD_NEEDED ")) {
+                Player me = mirror != null ? mirror.getState().getPlayers().get(mirror.getViewerIndex()) : null;
+                if (me == null || me.getTotalTokens() <= Player.MAX_TOKENS) {
+                    protocolErrors.increment();
+                    drop();
+                    return;
+                }
+                send(MoveCodec.toString(TurnResolver.chooseDiscardMove(me)));
+            } else if (msg.startsWith("NOBLE_CHOICE ")) {
+                send("NOBLE 0");
+            } else if (msg.equals("GAME_OVER")) {
+                gameOver = true;
+                games.increment();
+            }
+        }
+
+        private void scheduleMove() {
+            long think = ThreadLocalRandom.current().nextLong(options.thinkMinMillis, options.thinkMaxMillis + 1);
+            loop.schedule(System.nanoTime() + think * 1_000_000, this::playMove);
+        }
+
+        private void playMove() {
+            if (channel == null) return;
+            if (mirror == null || !mirror.isViewersTurn()) {
+                protocolErrors.increment();
+                drop();
+                return;
+            }
+            int viewer = mirror.getViewerIndex();
+            int count = generator.generate(mirror.getState(), viewer, moves);
+            if (count == 0) {
+                // The server passes seats without a legal move, so the mirror is off.
+                stalls.increment();
+                drop();
+                return;
+            }
+            int move = moves[ThreadLocalRandom.current().nextInt(count)];
+            // Play it on the mirror too, so a discard can be worked out from the new hand.
+            executor.execute(mirror.getState(), viewer, move);
+            Player me = mirror.getState().getPlayers().get(viewer);
+            String msg;
+            if (options.turnProtocol) {
+                msg = "TURN " + MoveCodec.toString(move);
+                if (me.getTotalTokens() > Player.MAX_TOKENS) {
+                    msg += ";" + MoveCodec.toString(TurnResolver.chooseDiscardMove(me));
+                }
+            } else {
+                msg = "ACTION " + MoveCodec.toString(move);
+            }
+            sentAt = System.nanoTime();
+            awaitingResult = true;
+            send(msg);
+        }
+
+        private void send(String msg) {
+            if (channel == null) return;
+            pendingWrites.add(ByteBuffer.wrap((msg + "\n").getBytes(StandardCharsets.UTF_8)));
+            try {
+                flushWrites();
+            } catch (IOException e) {
+                onClosed();
+            }
+        }
+
+        private void flushWrites() throws IOException {
+            while (!pendingWrites.isEmpty()) {
+                ByteBuffer b = pendingWrites.peek();
+                channel.write(b);
+                if (b.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                pendingWrites.poll();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        private void onClosed() {
+            if (!gameOver && running) {
+                disconnects.increment();
+            }
+            drop();
+        }
+
+        /** Hang up and join again shortly (at once after a finished game). */
+        private void drop() {
+            close();
+            retryLater();
+        }
+
+        void close() {
+            if (channel != null) {
+                connected.decrementAndGet();
+            }
+            closeChannel();
+        }
+
+        private void closeChannel() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+            channel = null;
+            key = null;
+            pendingWrites.clear();
+            lineLength = 0;
+            awaitingResult = false;
+            errorsInRow = 0;
+            loop.clients.remove(this);
+        }
+
+        private void retryLater() {
+            if (running) {
+                loop.schedule(System.nanoTime() + (gameOver ? 0 : RECONNECT_DELAY_NANOS), this::connect);
+            }
+        }
+    }
+}
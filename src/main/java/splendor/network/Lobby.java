@@ -0,0 +1,202 @@
+package splendor.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+import splendor.util.Metrics;
+
+/**
+ * Players of {@link Server#serve()} between their connection being accepted
+ * and their table starting.
+ *
+ * Each connection is read on an event loop, so the accept thread never
+ * waits for a client. A client that sends no `JOIN` line within the join
+ * timeout is dropped. After its line the guest waits in the
+ * {@link Matchmaker} while the loop keeps reading: a player who disconnects
+ * while queued has its ticket cancelled instead of being seated, and
+ * anything sent meanwhile is kept for the table.
+ */
+final class Lobby {
+
+    private static final int MAX_UNREAD_BYTES = 64 * 1024;
+    private static final LongAdder JOIN_TIMEOUTS = Metrics.counter("lobby.join.timeouts");
+    private static final LongAdder LEFT = Metrics.counter("lobby.left");
+
+    private final EventLoopGroup loops;
+    private final Matchmaker<Guest> matchmaker;
+    private final long joinTimeoutMillis;
+    private final BiFunction<Guest, String, Matchmaker.Ticket<Guest>> onJoin;
+    private final Set<Guest> guests = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param onJoin called on the guest's loop with its `JOIN` line; queues
+     *               the guest and returns its ticket
+     */
+    Lobby(EventLoopGroup loops, Matchmaker<Guest> matchmaker, long joinTimeoutMillis,
+            BiFunction<Guest, String, Matchmaker.Ticket<Guest>> onJoin) {
+        this.loops = loops;
+        this.matchmaker = matchmaker;
+        this.joinTimeoutMillis = joinTimeoutMillis;
+        this.onJoin = onJoin;
+    }
+
+    /**
+     * Start reading a freshly accepted connection on one of the loops.
+     */
+    void admit(Transport.Connection conn, String defaultName) throws IOException {
+        conn.channel().configureBlocking(false);
+        Guest guest = new Guest(conn, defaultName, loops.next());
+        guests.add(guest);
+        guest.loop.execute(guest::watch);
+    }
+
+    /**
+     * Close every connection still waiting for a table.
+     */
+    void close() {
+        for (Guest g : guests) {
+            g.close();
+        }
+    }
+
+    /**
+     * One connection in the lobby. Its fields belong to its loop.
+     */
+    final class Guest {
+        final Transport.Connection conn;
+        final String defaultName;
+        String name; // from the JOIN line, set by the server
+        private final EventLoopGroup.EventLoop loop;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream unread = new ByteArrayOutputStream();
+        private SelectionKey key;
+        private EventLoopGroup.Timer deadline;
+        private Matchmaker.Ticket<Guest> ticket;
+        private boolean released;
+
+        private Guest(Transport.Connection conn, String defaultName, EventLoopGroup.EventLoop loop) {
+            this.conn = conn;
+            this.defaultName = defaultName;
+            this.loop = loop;
+        }
+
+        /**
+         * Stop watching the connection so a table can take it over.
+         *
+         * @return completes on the guest's loop with the bytes that arrived
+         *         after the `JOIN` line
+         */
+        CompletableFuture<byte[]> release() {
+            CompletableFuture<byte[]> result = new CompletableFuture<>();
+            loop.execute(() -> {
+                released = true;
+                guests.remove(this);
+                forget();
+                result.complete(unread.toByteArray());
+            });
+            return result;
+        }
+
+        private void watch() {
+            try {
+                key = loop.register(conn.channel(), SelectionKey.OP_READ, this::onReadable);
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            deadline = loop.schedule(joinTimeoutMillis, () -> {
+                JOIN_TIMEOUTS.increment();
+                close();
+            });
+        }
+
+        private void onReadable(SelectionKey k) {
+            if (released) {
+                return;
+            }
+            ByteBuffer buf = loop.readBuffer();
+            buf.clear();
+            int n;
+            try {
+                n = conn.channel().read(buf);
+            } catch (IOException e) {
+                n = -1;
+            }
+            if (n < 0) {
+                left();
+                return;
+            }
+            buf.flip();
+            if (ticket == null) {
+                readJoin(buf);
+            }
+            if (ticket != null && buf.hasRemaining()) {
+                byte[] bytes = new byte[buf.remaining()];
+                buf.get(bytes);
+                unread.write(bytes, 0, bytes.length);
+                if (unread.size() >= MAX_UNREAD_BYTES) {
+                    // Stop reading; the table takes the rest straight from the socket.
+                    forget();
+                }
+            }
+        }
+
+        private void readJoin(ByteBuffer buf) {
+            while (buf.hasRemaining()) {
+                byte b = buf.get();
+                if (b == '\n') {
+                    deadline.cancel();
+                    ticket = onJoin.apply(this, line.toString(StandardCharsets.UTF_8).replace("\r", ""));
+                    return;
+                }
+                if (line.size() == Server.MAX_JOIN_BYTES) {
+                    close();
+                    return;
+                }
+                line.write(b);
+            }
+        }
+
+        /**
+         * The client hung up. A queued guest gives up its ticket; one the
+         * matcher already took is left for its table to notice.
+         */
+        private void left() {
+            LEFT.increment();
+            if (ticket == null || matchmaker.cancel(ticket)) {
+                close();
+            } else {
+                forget();
+            }
+        }
+
+        /**
+         * Drop the connection from the lobby's selector, leaving it open for
+         * its table to register.
+         */
+        private void forget() {
+            if (key != null) {
+                key.cancel();
+            }
+        }
+
+        private void close() {
+            guests.remove(this);
+            if (deadline != null) {
+                deadline.cancel();
+            }
+            try {
+                conn.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package splendor.network;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import splendor.util.LatencyHistogram;
+import splendor.util.Metrics;
+
+/**
+ * Groups waiting players into tables of similar rating.
+ *
+ * Tickets go into lock-free FIFO queues, one per group size and rating
+ * bucket ({@link #bucketWidth} points wide), so enqueueing from many
+ * threads never contends on a shared lock. A single matcher thread forms
+ * groups. It walks every bucket, takes the oldest ticket and fills its
+ * group from the same bucket first, then from neighbouring buckets. The
+ * number of neighbours grows by one bucket every {@link #widenMillis} the
+ * ticket has waited; after {@link #maxWaitMillis} any rating is accepted,
+ * so no one waits long for a close match that never comes.
+ *
+ * Cancelled and matched tickets stay in their queue until they reach the
+ * head, and the matcher skips them.
+ *
+ * Time from enqueue to table is kept in a histogram, see
+ * {@link #medianWaitMillis()}; the server publishes it as the
+ * `matchmaking.wait.p50.millis` gauge.
+ */
+public class Matchmaker<T> implements Closeable {
+
+    public static final int MAX_GROUP = 4;
+    public static final int MAX_RATING = 4000;
+
+    private static final LongAdder ENQUEUED = Metrics.counter("matchmaking.enqueued");
+    private static final LongAdder MATCHED = Metrics.counter("matchmaking.matched");
+    private static final LongAdder GROUPS = Metrics.counter("matchmaking.groups");
+    private static final LongAdder CANCELLED = Metrics.counter("matchmaking.cancelled");
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final int bucketWidth;
+    private final long widenMillis;
+    private final long maxWaitMillis;
+    private final Consumer<List<Ticket<T>>> onGroup;
+    private final ConcurrentLinkedQueue<Ticket<T>>[][] queues; // [group size - 1][bucket]
+    private final LatencyHistogram waits = new LatencyHistogram();
+    private final AtomicBoolean signalled = new AtomicBoolean();
+    private final List<Ticket<T>> scratch = new ArrayList<>(MAX_GROUP); // matcher only
+    private volatile Thread matcher;
+    private volatile boolean closed;
+
+    /**
+     * @param bucketWidth   rating points per bucket
+     * @param widenMillis   wait after which a ticket accepts one more bucket either side
+     * @param maxWaitMillis wait after which a ticket accepts any rating
+     * @param onGroup       called on the matcher thread with each group formed
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Matchmaker(int bucketWidth, long widenMillis, long maxWaitMillis, Consumer<List<Ticket<T>>> onGroup) {
+        if (bucketWidth < 1 || widenMillis < 1 || maxWaitMillis < 0) {
+            throw new IllegalArgumentException("Invalid matchmaking settings");
+        }
+        this.bucketWidth = bucketWidth;
+        this.widenMillis = widenMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.onGroup = onGroup;
+        int buckets = (MAX_RATING + bucketWidth - 1) / bucketWidth + 1;
+        this.queues = new ConcurrentLinkedQueue[MAX_GROUP][buckets];
+        for (ConcurrentLinkedQueue<Ticket<T>>[] row : queues) {
+            for (int b = 0; b < buckets; b++) {
+                row[b] = new ConcurrentLinkedQueue<>();
+            }
+        }
+    }
+
+    /**
+     * Median time from enqueue to table so far.
+     */
+    public long medianWaitMillis() {
+        return waits.percentileMicros(50) / 1000;
+    }
+
+    /**
+     * A waiting player. Exactly one of matching and {@link #cancel} wins.
+     */
+    public static final class Ticket<T> {
+        private final T player;
+        private final int rating;
+        private final int groupSize;
+        private final long enqueuedNanos;
+        private final AtomicBoolean taken = new AtomicBoolean();
+
+        Ticket(T player, int rating, int groupSize, long enqueuedNanos) {
+            this.player = player;
+            this.rating = rating;
+            this.groupSize = groupSize;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        public T getPlayer() {
+            return player;
+        }
+
+        public int getRating() {
+            return rating;
+        }
+
+        public int getGroupSize() {
+            return groupSize;
+        }
+    }
+
+    /**
+     * Run the matcher on its own thread until {@link #close()}.
+     */
+    public void start() {
+        Thread t = new Thread(() -> {
+            while (!closed) {
+                matchNow();
+                signalled.set(false);
+                LockSupport.parkNanos(this, TICK_NANOS);
+            }
+        }, "matchmaker");
+        t.setDaemon(true);
+        matcher = t;
+        t.start();
+    }
+
+    /**
+     * Queue a player for a group of {@code groupSize} (1 to {@link #MAX_GROUP}).
+     * Ratings outside 0..{@link #MAX_RATING} are clamped.
+     */
+    public Ticket<T> enqueue(T player, int rating, int groupSize) {
+        if (groupSize < 1 || groupSize > MAX_GROUP) {
+            throw new IllegalArgumentException("Group size must be 1-" + MAX_GROUP + ": " + groupSize);
+        }
+        int r = Math.max(0, Math.min(MAX_RATING, rating));
+        Ticket<T> ticket = new Ticket<>(player, r, groupSize, System.nanoTime());
+        queues[groupSize - 1][r / bucketWidth].add(ticket);
+        ENQUEUED.increment();
+        Thread m = matcher;
+        if (m != null && signalled.compareAndSet(false, true)) {
+            LockSupport.unpark(m);
+        }
+        return ticket;
+    }
+
+    /**
+     * Withdraw a ticket, e.g. when the player disconnects.
+     *
+     * @return false if the ticket was already matched
+     */
+    public boolean cancel(Ticket<T> ticket) {
+        boolean won = ticket.taken.compareAndSet(false, true);
+        if (won) {
+            CANCELLED.increment();
+        }
+        return won;
+    }
+
+    /**
+     * One matching pass over every queue. Called by the matcher thread, or
+     * directly when no thread was started; never concurrently.
+     *
+     * @return the number of groups formed
+     */
+    public int matchNow() {
+        long now = System.nanoTime();
+        int formed = 0;
+        for (int g = 0; g < MAX_GROUP; g++) {
+            ConcurrentLinkedQueue<Ticket<T>>[] row = queues[g];
+            for (int b = 0; b < row.length; b++) {
+                Ticket<T> head;
+                while ((head = liveHead(row[b])) != null && gather(row, b, head, now)) {
+                    if (claimScratch()) {
+                        for (Ticket<T> t : scratch) {
+                            waits.recordNanos(now - t.enqueuedNanos);
+                        }
+                        MATCHED.add(scratch.size());
+                        GROUPS.increment();
+                        formed++;
+                        onGroup.accept(List.copyOf(scratch));
+                    }
+                }
+            }
+        }
+        return formed;
+    }
+
+    /**
+     * Pick {@code head} and the oldest live tickets closest to its bucket
+     * into {@link #scratch}.
+     *
+     * @return false if the head cannot be matched yet
+     */
+    private boolean gather(ConcurrentLinkedQueue<Ticket<T>>[] row, int bucket, Ticket<T> head, long now) {
+        scratch.clear();
+        int need = head.groupSize;
+        int reach = tolerance(head, now, row.length);
+        collect(row[bucket], need);
+        for (int d = 1; d <= reach && scratch.size() < need; d++) {
+            if (bucket - d >= 0) {
+                collect(row[bucket - d], need);
+            }
+            if (bucket + d < row.length) {
+                collect(row[bucket + d], need);
+            }
+        }
+        return scratch.size() == need;
+    }
+
+    private void collect(ConcurrentLinkedQueue<Ticket<T>> queue, int need) {
+        for (Iterator<Ticket<T>> it = queue.iterator(); it.hasNext() && scratch.size() < need; ) {
+            Ticket<T> t = it.next();
+            if (!t.taken.get() && !scratch.contains(t)) {
+                scratch.add(t);
+            }
+        }
+    }
+
+    /**
+     * Claim every ticket in {@link #scratch}; if one was cancelled meanwhile,
+     * release the others and report failure so the pass tries again.
+     */
+    private boolean claimScratch() {
+        for (int i = 0; i < scratch.size(); i++) {
+            if (!scratch.get(i).taken.compareAndSet(false, true)) {
+                for (int j = 0; j < i; j++) {
+                    scratch.get(j).taken.set(false);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Buckets either side a ticket accepts after its wait so far.
+     */
+    private int tolerance(Ticket<T> t, long now, int buckets) {
+        long waited = (now - t.enqueuedNanos) / 1_000_000;
+        if (waited >= maxWaitMillis) {
+            return buckets;
+        }
+        return (int) Math.min(buckets, waited / widenMillis);
+    }
+
+    /**
+     * Drop matched and cancelled tickets from the head of the queue.
+     */
+    private static <T> Ticket<T> liveHead(ConcurrentLinkedQueue<Ticket<T>> queue) {
+        Ticket<T> t;
+        while ((t = queue.peek()) != null && t.taken.get()) {
+            queue.poll();
+        }
+        return t;
+    }
+
+    /**
+     * Time from enqueue to group for every matched ticket.
+     */
+    public LatencyHistogram getWaits() {
+        return waits;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Thread m = matcher;
+        if (m != null) {
+            LockSupport.unpark(m);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package splendor.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+import splendor.util.LatencyHistogram;
+
+/**
+ * Enqueue and match throughput of a {@link Matchmaker} with many producer
+ * threads queueing players of normally distributed rating for groups of
+ * two to four.
+ *
+ * Usage: `java splendor.network.MatchmakerBenchmark [producers] [seconds]`
+ */
+public class MatchmakerBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int producers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        LongAdder enqueued = new LongAdder();
+        LongAdder grouped = new LongAdder();
+        Matchmaker<Integer> mm = new Matchmaker<>(100, 500, 5000, g -> grouped.add(g.size()));
+        mm.start();
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int seed = p;
+            Thread t = new Thread(() -> {
+                Random rng = new Random(seed);
+                int i = 0;
+                while (System.nanoTime() < end) {
+                    int rating = (int) (1500 + 300 * rng.nextGaussian());
+                    mm.enqueue(i++, rating, 2 + rng.nextInt(3));
+                    if ((i & 1023) == 0) {
+                        Thread.yield(); // let the matcher keep up on small machines
+                    }
+                }
+                enqueued.add(i);
+            });
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        Thread.sleep(200);
+        mm.close();
+        LatencyHistogram waits = mm.getWaits();
+        System.out.printf("%d producers: %,.0f enqueues/s, %,.0f matched/s, median wait %s, p99 %s%n", producers,
+                enqueued.sum() / (double) seconds, grouped.sum() / (double) seconds,
+                LatencyHistogram.format(waits.percentileMicros(50)), LatencyHistogram.format(waits.percentileMicros(99)));
+    }
+}
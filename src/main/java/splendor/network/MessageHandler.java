@@ -1,11 +1,333 @@
 package splendor.network;
 
+import splendor.game.actions.BuyCardAction;
+import splendor.game.actions.GameAction;
+import splendor.game.actions.ReserveCardAction;
+import splendor.game.actions.TakeTokensAction;
+import splendor.game.engine.GameState;
+import splendor.model.Board;
+import splendor.model.Card;
+import splendor.model.CardCatalog;
+import splendor.model.Deck;
+import splendor.model.GemType;
+import splendor.model.Noble;
+import splendor.model.Player;
+import splendor.model.TokenPool;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
 /**
- * Placeholder for message serialization and dispatch logic used by
- * future client/server networking.
+ * Serialization of actions for the line-oriented client/server protocol.
+ *
+ * Actions are written with their {@code toString()} form (for example
+ * `BUY MARKET 1 2`) and parsed back with {@link #parseAction(String)}.
+ * Positions travel as `SNAP` lines, see {@link #formatSnapshot}.
  */
-public class MessageHandler {
+public final class MessageHandler {
 
-    // Future work: define message formats for actions and state updates.
-}
+    private static final GemType[] GEMS = GemType.values();
+
+    private MessageHandler() {
+    }
+
+    /**
+     * Parse a simple command string into a GameAction.
+     * Supported forms:
+     *  - TAKE WHITE,BLUE,RED
+     *  - TAKE WHITE:2,BLUE:1
+     *  - BUY MARKET <level> <index>
+     *  - BUY RESERVED <index>
+     *  - RESERVE MARKET <level> <index>
+     *  - RESERVE TOP <level>
+     */
+    public static GameAction parseAction(String cmd) {
+        String[] parts = cmd.split(" ", 2);
+        String verb = parts[0].toUpperCase(Locale.ROOT);
+        String rest = parts.length > 1 ? parts[1].trim() : "";
+        switch (verb) {
+            case "TAKE":
+                Map<GemType, Integer> taken = parseGemMap(rest);
+                return new TakeTokensAction(taken);
+            case "BUY":
+                String[] b = rest.split(" ");
+                if (b[0].equalsIgnoreCase("MARKET")) {
+                    int level = Integer.parseInt(b[1]);
+                    int idx = Integer.parseInt(b[2]);
+                    return BuyCardAction.fromMarket(level, idx);
+                } else if (b[0].equalsIgnoreCase("RESERVED")) {
+                    int idx = Integer.parseInt(b[1]);
+                    return BuyCardAction.fromReserved(idx);
+                }
+                break;
+            case "RESERVE":
+                String[] r = rest.split(" ");
+                if (r[0].equalsIgnoreCase("MARKET")) {
+                    int level = Integer.parseInt(r[1]);
+                    int idx = Integer.parseInt(r[2]);
+                    return ReserveCardAction.fromMarket(level, idx);
+                } else if (r[0].equalsIgnoreCase("TOP")) {
+                    int level = Integer.parseInt(r[1]);
+                    return ReserveCardAction.fromTopOfDeck(level);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown action verb: " + verb);
+        }
+        throw new IllegalArgumentException("Malformed action: " + cmd);
+    }
+
+    /**
+     * Parse the payload of a `TURN` message: an action followed by optional
+     * `;`-separated clauses.
+     *  - DISCARD WHITE:1,BLUE:1   exact tokens to return if over the limit
+     *  - DISCARD_ORDER GOLD,RED   colors to return first if over the limit
+     *  - NOBLE <index>            board noble to claim if several qualify
+     */
+    public static TurnRequest parseTurn(String payload) {
+        String[] clauses = payload.split(";");
+        GameAction action = parseAction(clauses[0].trim());
+        Map<GemType, Integer> discards = null;
+        List<GemType> order = new ArrayList<>();
+        int noble = -1;
+        for (int i = 1; i < clauses.length; i++) {
+            String clause = clauses[i].trim();
+            if (clause.isEmpty()) continue;
+            String[] parts = clause.split(" ", 2);
+            String arg = parts.length > 1 ? parts[1].trim() : "";
+            switch (parts[0].toUpperCase(Locale.ROOT)) {
+                case "DISCARD" -> discards = parseGemMap(arg);
+                case "DISCARD_ORDER" -> {
+                    for (String gem : arg.split(",")) {
+                        if (!gem.isBlank()) {
+                            order.add(GemType.valueOf(gem.trim().toUpperCase(Locale.ROOT)));
+                        }
+                    }
+                }
+                case "NOBLE" -> noble = Integer.parseInt(arg);
+                default -> throw new IllegalArgumentException("Unknown turn clause: " + parts[0]);
+            }
+        }
+        return new TurnRequest(action, discards, order, noble);
+    }
+
+    public static Map<GemType, Integer> parseGemMap(String s) {
+        Map<GemType, Integer> map = new EnumMap<>(GemType.class);
+        if (s.isBlank()) return map;
+        String[] items = s.split(",");
+        for (String it : items) {
+            it = it.trim();
+            if (it.isEmpty()) continue;
+            if (it.contains(":")) {
+                String[] kv = it.split(":");
+                GemType t = GemType.valueOf(kv[0].toUpperCase(Locale.ROOT));
+                int v = Integer.parseInt(kv[1]);
+                map.put(t, v);
+            } else {
+                GemType t = GemType.valueOf(it.toUpperCase(Locale.ROOT));
+                map.put(t, map.getOrDefault(t, 0) + 1);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Machine-readable position as seen by one seat, one line:
+     * <pre>
+     * SNAP &lt;catalog size&gt; &lt;viewer&gt; &lt;current&gt; &lt;supply&gt; &lt;level 1&gt; &lt;level 2&gt; &lt;level 3&gt;
+     *      &lt;deck sizes&gt; &lt;nobles&gt; &lt;player count&gt;
+     *      then per player: &lt;name&gt; &lt;tokens&gt; &lt;points&gt; &lt;purchased&gt; &lt;reserved&gt;
+     * </pre>
+     * Lists are comma-separated (`-` when empty). Token lists are counts in
+     * {@link GemType} order; cards and nobles are catalog ids, with 0 for an
+     * empty market slot and minus the level for a reserved card hidden from
+     * the viewer. Names are URL-encoded.
+     */
+    public static String formatSnapshot(GameState state, int currentPlayerIndex, int viewerIndex) {
+        Board board = state.getBoard();
+        StringBuilder sb = new StringBuilder("SNAP ");
+        sb.append(board.getDeck(1).getCatalog().getCards().size())
+                .append(' ').append(viewerIndex)
+                .append(' ').append(currentPlayerIndex).append(' ');
+        appendCounts(sb, board.getSupplyTokens());
+        for (int level = 1; level <= 3; level++) {
+            sb.append(' ');
+            for (int slot = 0; slot < Board.FACE_UP_PER_LEVEL; slot++) {
+                Card card = board.getFaceUpCard(level, slot);
+                sb.append(slot > 0 ? "," : "").append(card != null ? card.getId() : 0);
+            }
+        }
+        sb.append(' ').append(board.getDeck(1).size())
+                .append(',').append(board.getDeck(2).size())
+                .append(',').append(board.getDeck(3).size()).append(' ');
+        List<Noble> nobles = board.getNobles();
+        for (int i = 0; i < nobles.size(); i++) {
+            sb.append(i > 0 ? "," : "").append(nobles.get(i).getId());
+        }
+        if (nobles.isEmpty()) sb.append('-');
+
+        List<Player> players = state.getPlayers();
+        sb.append(' ').append(players.size());
+        for (int p = 0; p < players.size(); p++) {
+            Player player = players.get(p);
+            sb.append(' ').append(URLEncoder.encode(player.getName(), StandardCharsets.UTF_8)).append(' ');
+            appendCounts(sb, player.getTokens());
+            sb.append(' ').append(player.getPrestigePoints()).append(' ');
+            List<Card> purchased = player.getPurchasedCards();
+            for (int i = 0; i < purchased.size(); i++) {
+                sb.append(i > 0 ? "," : "").append(purchased.get(i).getId());
+            }
+            if (purchased.isEmpty()) sb.append('-');
+            sb.append(' ');
+            List<Card> reserved = player.getReservedCards();
+            for (int i = 0; i < reserved.size(); i++) {
+                Card card = reserved.get(i);
+                boolean hidden = p != viewerIndex && player.isReservedFaceDown(i);
+                sb.append(i > 0 ? "," : "").append(hidden ? -card.getLevel() : card.getId());
+            }
+            if (reserved.isEmpty()) sb.append('-');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Rebuild a position from a {@link #formatSnapshot} line.
+     *
+     * @throws IllegalArgumentException if the line is malformed or was
+     *                                  written with a different catalog
+     */
+    public static StateSnapshot parseSnapshot(String line, CardCatalog catalog) {
+        String[] f = line.trim().split(" ");
+        if (f.length < 11 || !f[0].equals("SNAP")) {
+            throw new IllegalArgumentException("Malformed snapshot");
+        }
+        if (Integer.parseInt(f[1]) != catalog.getCards().size()) {
+            throw new IllegalArgumentException("Snapshot uses a different card catalog");
+        }
+        int viewer = Integer.parseInt(f[2]);
+        int current = Integer.parseInt(f[3]);
+        int playerCount = Integer.parseInt(f[10]);
+        if (playerCount < 1 || f.length != 11 + 5 * playerCount) {
+            throw new IllegalArgumentException("Malformed snapshot");
+        }
 
+        // Everything the viewer can see is marked; the rest is the unseen pool.
+        boolean[] seen = new boolean[catalog.getCards().size() + 1];
+        int[][] market = {ints(f[5]), ints(f[6]), ints(f[7])};
+        for (int[] row : market) {
+            markSeen(seen, row);
+        }
+        for (int p = 0; p < playerCount; p++) {
+            markSeen(seen, ints(f[11 + 5 * p + 3]));
+            markSeen(seen, ints(f[11 + 5 * p + 4]));
+        }
+        List<ArrayDeque<Card>> unseen = new ArrayList<>();
+        for (int level = 1; level <= 3; level++) {
+            ArrayDeque<Card> pool = new ArrayDeque<>();
+            for (Card card : catalog.getCards(level)) {
+                if (!seen[card.getId()]) pool.add(card);
+            }
+            unseen.add(pool);
+        }
+
+        List<Player> players = new ArrayList<>();
+        for (int p = 0; p < playerCount; p++) {
+            int base = 11 + 5 * p;
+            Player player = new Player(URLDecoder.decode(f[base], StandardCharsets.UTF_8));
+            setCounts(player.getTokens(), ints(f[base + 1]));
+            for (int id : ints(f[base + 3])) {
+                player.purchaseCard(card(catalog, id));
+            }
+            // Noble points are whatever the cards do not account for.
+            player.addPrestigePoints(Integer.parseInt(f[base + 2]) - player.getPrestigePoints());
+            for (int id : ints(f[base + 4])) {
+                if (id > 0) {
+                    player.reserveCard(card(catalog, id), false);
+                } else {
+                    player.reserveCard(takeUnseen(unseen, -id), true);
+                }
+            }
+            players.add(player);
+        }
+
+        int[] deckSizes = ints(f[8]);
+        if (deckSizes.length != 3) {
+            throw new IllegalArgumentException("Malformed snapshot");
+        }
+        Deck[] decks = new Deck[3];
+        for (int level = 1; level <= 3; level++) {
+            decks[level - 1] = new Deck(level, catalog);
+            for (int i = 0; i < deckSizes[level - 1]; i++) {
+                decks[level - 1].addCard(takeUnseen(unseen, level));
+            }
+        }
+        List<Noble> nobles = new ArrayList<>();
+        for (int id : ints(f[9])) {
+            if (id < 1 || id > catalog.getNobles().size()) {
+                throw new IllegalArgumentException("Unknown noble id: " + id);
+            }
+            nobles.add(catalog.getNoble(id));
+        }
+        Board board = new Board(decks[0], decks[1], decks[2], nobles);
+        setCounts(board.getSupplyTokens(), ints(f[4]));
+        for (int level = 1; level <= 3; level++) {
+            int[] row = market[level - 1];
+            for (int slot = 0; slot < row.length && slot < Board.FACE_UP_PER_LEVEL; slot++) {
+                board.placeFaceUpCard(level, slot, row[slot] == 0 ? null : card(catalog, row[slot]));
+            }
+        }
+        return new StateSnapshot(new GameState(board, players), viewer, current);
+    }
+
+    private static void appendCounts(StringBuilder sb, TokenPool pool) {
+        for (int i = 0; i < GEMS.length; i++) {
+            sb.append(i > 0 ? "," : "").append(pool.get(GEMS[i]));
+        }
+    }
+
+    private static void setCounts(TokenPool pool, int[] counts) {
+        if (counts.length != GEMS.length) {
+            throw new IllegalArgumentException("Malformed token counts");
+        }
+        for (int i = 0; i < GEMS.length; i++) {
+            pool.set(GEMS[i], counts[i]);
+        }
+    }
+
+    private static int[] ints(String list) {
+        if (list.equals("-")) return new int[0];
+        String[] parts = list.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i]);
+        }
+        return values;
+    }
+
+    private static void markSeen(boolean[] seen, int[] ids) {
+        for (int id : ids) {
+            if (id > 0 && id < seen.length) seen[id] = true;
+        }
+    }
+
+    private static Card card(CardCatalog catalog, int id) {
+        if (id < 1 || id > catalog.getCards().size()) {
+            throw new IllegalArgumentException("Unknown card id: " + id);
+        }
+        return catalog.getCard(id);
+    }
+
+    private static Card takeUnseen(List<ArrayDeque<Card>> unseen, int level) {
+        if (level < 1 || level > 3 || unseen.get(level - 1).isEmpty()) {
+            throw new IllegalArgumentException("Snapshot does not match the card catalog");
+        }
+        return unseen.get(level - 1).poll();
+    }
+}
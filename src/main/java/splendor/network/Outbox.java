@@ -0,0 +1,102 @@
+package splendor.network;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+import splendor.util.Metrics;
+
+/**
+ * Outbound line buffer for one connection.
+ *
+ * {@link #send} only appends to a pooled buffer; nothing reaches the socket
+ * until {@link #flush()}, so all messages of a turn go out in one write.
+ * Callers must flush before blocking on a reply from the peer.
+ *
+ * Like {@link java.io.PrintWriter}, write errors are not thrown: the outbox
+ * drops further output and {@link #checkError()} reports the failure. A
+ * dead peer is noticed by the reading side anyway.
+ */
+public class Outbox {
+
+    private static final LongAdder BYTES = Metrics.counter("net.out.bytes");
+    private static final LongAdder FLUSHES = Metrics.counter("net.out.flushes");
+    private static final LongAdder MESSAGES = Metrics.counter("net.out.messages");
+
+    private final OutputStream out;
+    private final BufferPool pool;
+    private byte[] buf;
+    private int pos;
+    private boolean failed;
+
+    public Outbox(OutputStream out, BufferPool pool) {
+        this.out = out;
+        this.pool = pool;
+    }
+
+    /**
+     * Queue one line (a newline is appended).
+     */
+    public void send(String line) {
+        if (failed) {
+            return;
+        }
+        MESSAGES.increment();
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        if (buf == null) {
+            buf = pool.acquire();
+        }
+        if (pos + bytes.length > buf.length) {
+            // Buffer full: write out what we have and keep batching.
+            writeBuffered();
+            if (bytes.length > buf.length) {
+                write(bytes, 0, bytes.length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    /**
+     * Write everything queued since the last flush and return the buffer to the pool.
+     */
+    public void flush() {
+        if (buf == null) {
+            return;
+        }
+        writeBuffered();
+        if (!failed) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                failed = true;
+            }
+        }
+        pool.release(buf);
+        buf = null;
+    }
+
+    public boolean checkError() {
+        return failed;
+    }
+
+    private void writeBuffered() {
+        write(buf, 0, pos);
+        pos = 0;
+    }
+
+    private void write(byte[] bytes, int off, int len) {
+        if (failed || len == 0) {
+            return;
+        }
+        try {
+            out.write(bytes, off, len);
+            BYTES.add(len);
+            FLUSHES.increment();
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+}
@@ -1,284 +1,619 @@
 package splendor.network;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.AsynchronousCloseException;
 import java.util.ArrayList;
-import java.util.EnumMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.Random;
 import java.util.Scanner;
-
-import splendor.game.actions.BuyCardAction;
-import splendor.game.actions.DiscardTokensAction;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import splendor.ai.Bot;
+import splendor.ai.HintService;
+import splendor.ai.AlphaBetaBot;
+import splendor.ai.BotScheduler;
+import splendor.ai.Evaluator;
+import splendor.ai.ModelEvaluator;
+import splendor.ai.MctsBot;
+import splendor.engine.EnginePool;
+import splendor.engine.ExternalEngineBot;
 import splendor.game.actions.GameAction;
-import splendor.game.actions.ReserveCardAction;
-import splendor.game.actions.TakeTokensAction;
 import splendor.game.engine.Game;
 import splendor.game.engine.GameState;
-import splendor.game.engine.StandardGameFactory;
-import splendor.model.GemType;
+import splendor.rating.GameResult;
+import splendor.rating.RatingEngine;
+import splendor.util.LatencyHistogram;
+import splendor.util.Metrics;
 
 /**
- * Simple authoritative game server for LAN play.
+ * Authoritative game server for LAN play, speaking a line protocol over
+ * TCP and, optionally, a Unix domain socket (see {@link Transport}).
  *
- * - Accepts N client connections (players), each sending `JOIN:<name>` once connected.
- * - Hosts the `Game` instance locally and executes actions received from clients.
- * - Sends textual game state snapshots to all clients and prompts the current player.
+ * {@link #start()} waits for one table of players, plays the game and
+ * stops. {@link #serve()} hosts tables until {@link #stop()}: new
+ * connections wait in a {@link Lobby} for their `JOIN` line and are seated
+ * by a {@link Matchmaker} with players of similar rating. Either way the
+ * last seats of a table may be bots, built in or played by external
+ * engines from an {@link EnginePool} (see {@link #useEngines}).
  *
- * This implementation is intentionally minimal and line-oriented so it is
- * easy to run from laptops on the same local network. It keeps the core
- * game engine unchanged.
+ * Every table is a {@link TableActor} on one of a few event-loop threads,
+ * so idle tables hold no threads and the game needs no locks. Built-in bots
+ * decide on a shared {@link BotScheduler} and ponder on a shared pool while
+ * humans think. Output to each client is batched in an {@link Outbox}.
+ * With a rating log, finished games update a {@link RatingEngine}.
  */
 public class Server {
 
     private static final int DEFAULT_PORT = 4000;
-
-    private final int port;
+    private static final long BOT_THINK_MILLIS = 1000;
+    private static final int PONDER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    static final int MAX_JOIN_BYTES = 1024;
+    private static final int MATCH_BUCKET_WIDTH = 100;
+    private static final long MATCH_WIDEN_MILLIS = 2000;
+    private static final long MATCH_MAX_WAIT_MILLIS = 10_000;
+    private static final long JOIN_TIMEOUT_MILLIS = 10_000;
+    private static final long TURN_TIMEOUT_MILLIS = Long.getLong("splendor.turn.timeout", 0) * 1000; // seconds, 0 = none
+    private static final int ACCEPT_BACKLOG = 1024;
+    private static final LongAdder TABLES_STARTED = Metrics.counter("server.tables.started");
+    private static final LongAdder TABLES_FINISHED = Metrics.counter("server.tables.finished");
+    private static final LongAdder TABLES_ABORTED = Metrics.counter("server.tables.aborted");
+
+    private final List<Transport> transports;
     private final int autoPlayerCount; // if >0, use this instead of prompting
+    private final int botCount;
+    private final HintService hintService = new HintService();
+    private final BufferPool bufferPool = new BufferPool();
+    private final LatencyHistogram tableLatency = new LatencyHistogram();
+    private volatile Transport.Listener listening;
+    private EnginePool enginePool;
+    private ExternalEngineBot.TimeControl engineTime;
+    private BotScheduler botScheduler;
+    private Evaluator botEvaluator;
+    private EventLoopGroup loops;
+    private ExecutorService ponderPool;
+    private ExecutorService engineWaits;
+    private RatingEngine ratings;
 
     public Server(int port) {
         this(port, -1);
     }
 
     public Server(int port, int autoPlayerCount) {
-        this.port = port;
+        this(port, autoPlayerCount, 0);
+    }
+
+    public Server(int port, int autoPlayerCount, int botCount) {
+        this(List.of(Transport.tcp(port)), autoPlayerCount, botCount);
+    }
+
+    /**
+     * Listen on several transports at once, e.g. a TCP port for remote
+     * players and a Unix domain socket for bots on the same host.
+     */
+    public Server(List<Transport> transports, int autoPlayerCount, int botCount) {
+        this.transports = List.copyOf(transports);
         this.autoPlayerCount = autoPlayerCount;
+        this.botCount = Math.max(0, botCount);
     }
 
+    /**
+     * Play bot seats with engines from the given pool instead of the
+     * built-in bot. The server shuts the pool down when it stops.
+     */
+    public void useEngines(EnginePool pool, ExternalEngineBot.TimeControl timeControl) {
+        this.enginePool = pool;
+        this.engineTime = timeControl;
+    }
+
+    /**
+     * Call {@link #useEngines} if `-Dsplendor.engine` is set.
+     *
+     * @return whether external engines will be used
+     */
+    public boolean useEnginesFromSystemProperties() {
+        EnginePool pool = EnginePool.fromSystemProperties();
+        if (pool != null) {
+            useEngines(pool, ExternalEngineBot.TimeControl.fromSystemProperties(BOT_THINK_MILLIS));
+        }
+        return pool != null;
+    }
+
+    /**
+     * Wait for one table's players, play the game, then stop.
+     */
     public void start() throws Exception {
-        try (ServerSocket serverSocket = new ServerSocket(port)) {
-            System.out.println("Server listening on port " + port);
+        try (Transport.Listener listener = Transport.Listener.open(transports, ACCEPT_BACKLOG)) {
+            System.out.println("Server listening on " + listener);
 
             // Determine how many players to wait for (use autoPlayerCount if provided)
             Scanner console = new Scanner(System.in);
             int playerCount = this.autoPlayerCount > 0 ? this.autoPlayerCount : 0;
-            while (playerCount < 2 || playerCount > 4) {
+            while (playerCount < 2 || playerCount > 4 || playerCount < botCount) {
                 System.out.print("Enter number of players to wait for (2-4): ");
                 playerCount = Integer.parseInt(console.nextLine().trim());
             }
 
-            List<ClientConn> clients = new ArrayList<>();
+            ratings = RatingEngine.fromSystemProperties();
+            startTables(1);
+            try {
+                List<ClientConn> clients = acceptTable(listener, playerCount, true);
+                try {
+                    runTable(clients).join();
+                } catch (CompletionException e) {
+                    throw e.getCause() instanceof Exception ex ? ex : e;
+                }
+            } finally {
+                hintService.shutdown();
+                shutdownEngines();
+                stopTables();
+                closeRatings();
+            }
+            printOutboundStats();
+            System.out.println("Game finished. Connections closed.");
+        }
+    }
+
+    /**
+     * Host tables back to back until {@link #stop()} is called. Players
+     * join a {@link Matchmaker} with the rating and table size from their
+     * `JOIN` line, see {@link JoinRequest}; whenever it forms a group, the
+     * bots take the remaining seats and the game starts as an actor on the
+     * event loops (`-Dsplendor.server.loops`, default one per core). The
+     * player count given to the server is the table size for players who
+     * ask for none.
+     */
+    public void serve() throws Exception {
+        if (autoPlayerCount < 2 || autoPlayerCount > 4 || autoPlayerCount <= botCount) {
+            throw new IllegalArgumentException("serve() needs a player count of 2-4 with a seat left after the bots");
+        }
+        ratings = RatingEngine.fromSystemProperties();
+        startTables(Integer.getInteger("splendor.server.loops", Runtime.getRuntime().availableProcessors()));
+        Matchmaker<Lobby.Guest> matchmaker = new Matchmaker<>(MATCH_BUCKET_WIDTH, MATCH_WIDEN_MILLIS,
+                Long.getLong("splendor.match.maxwait", MATCH_MAX_WAIT_MILLIS), this::seatGroup);
+        Metrics.gauge("matchmaking.wait.p50.millis", matchmaker::medianWaitMillis);
+        Lobby lobby = new Lobby(loops, matchmaker, JOIN_TIMEOUT_MILLIS,
+                (guest, line) -> join(matchmaker, guest, line));
+        matchmaker.start();
+        try (Transport.Listener listener = Transport.Listener.open(transports, ACCEPT_BACKLOG)) {
+            listening = listener;
+            System.out.println("Server listening on " + listener + " (" + autoPlayerCount + " players per table)");
+            int joined = 0;
+            while (listener.isOpen()) {
+                Transport.Connection conn;
+                try {
+                    conn = listener.accept();
+                } catch (AsynchronousCloseException e) {
+                    break;
+                }
+                try {
+                    lobby.admit(conn, "Player" + (++joined));
+                } catch (IOException e) {
+                    try {
+                        conn.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+        } finally {
+            matchmaker.close();
+            lobby.close();
+            System.out.println("Matchmaking waits: " + matchmaker.getWaits().summary());
+            hintService.shutdown();
+            shutdownEngines();
+            stopTables();
+            closeRatings();
+        }
+    }
+
+    /**
+     * Queue a guest whose `JOIN` line arrived. With a rating log the
+     * player's logged rating is used and a `rating=` option is ignored, so
+     * nobody can pick their opponents by claiming a rating.
+     */
+    private Matchmaker.Ticket<Lobby.Guest> join(Matchmaker<Lobby.Guest> matchmaker, Lobby.Guest guest, String line) {
+        JoinRequest join = JoinRequest.parse(line, guest.defaultName, autoPlayerCount);
+        guest.name = join.name;
+        int size = join.size > botCount ? join.size : autoPlayerCount;
+        int rating;
+        if (ratings != null) {
+            rating = (int) ratings.rating(join.name);
+        } else {
+            rating = join.rating >= 0 ? join.rating : (int) RatingEngine.INITIAL_RATING;
+        }
+        return matchmaker.enqueue(guest, rating, size - botCount);
+    }
+
+    /**
+     * Seat a group formed by the matchmaker, with bots after the humans,
+     * and start its table once the lobby has let go of every connection.
+     * Called on the matcher thread; the table starts on a lobby loop.
+     */
+    private void seatGroup(List<Matchmaker.Ticket<Lobby.Guest>> group) {
+        List<CompletableFuture<byte[]>> released = new ArrayList<>(group.size());
+        for (Matchmaker.Ticket<Lobby.Guest> t : group) {
+            released.add(t.getPlayer().release());
+        }
+        CompletableFuture.allOf(released.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+            List<ClientConn> clients = new ArrayList<>(group.size() + botCount);
+            for (int i = 0; i < group.size(); i++) {
+                Lobby.Guest g = group.get(i).getPlayer();
+                clients.add(new ClientConn(g.name, g.conn, new Outbox(g.conn.getOutputStream(), bufferPool),
+                        released.get(i).join()));
+            }
+            try {
+                addBots(clients, clients.size() + botCount);
+                for (int i = 0; i < group.size(); i++) {
+                    clients.get(i).out.send("WELCOME:" + (i + 1)); // flushed with the opening state
+                }
+                runTable(clients);
+            } catch (RuntimeException e) {
+                closeAll(clients); // the server is stopping
+            }
+        });
+    }
+
+    /**
+     * Stop a running {@link #serve()} loop. Tables in progress are abandoned.
+     */
+    public void stop() throws IOException {
+        Transport.Listener s = listening;
+        if (s != null) {
+            s.close();
+        }
+    }
+
+    private void closeRatings() throws IOException {
+        if (ratings != null) {
+            System.out.println("Ratings: " + ratings.size() + " players, top " + ratings.top(3));
+            ratings.close();
+        }
+    }
+
+    private void shutdownEngines() {
+        if (enginePool != null) {
+            enginePool.shutdown();
+        }
+    }
+
+    /**
+     * Start the threads shared by all tables: the event loops, and for bots
+     * the pondering pool and either one {@link BotScheduler} for built-in
+     * bots or waiting threads for engine replies, as engines think in their
+     * own processes.
+     */
+    private void startTables(int loopThreads) {
+        loops = new EventLoopGroup(loopThreads, "table-loop");
+        if (botCount > 0) {
+            ponderPool = Executors.newFixedThreadPool(PONDER_THREADS, daemon("ponder"));
+            if (enginePool == null) {
+                botScheduler = BotScheduler.fromSystemProperties(BOT_THINK_MILLIS);
+            } else {
+                engineWaits = Executors.newCachedThreadPool(daemon("engine-wait"));
+            }
+        }
+    }
+
+    private void stopTables() {
+        loops.close();
+        if (ponderPool != null) {
+            ponderPool.shutdownNow();
+        }
+        if (engineWaits != null) {
+            engineWaits.shutdownNow();
+        }
+        if (botScheduler != null) {
+            botScheduler.shutdown();
+            System.out.println("Bot decisions: " + botScheduler.getLatency().summary()
+                    + " (SLO " + botScheduler.getSloMillis() + "ms)");
+        }
+        System.out.println("Table messages: " + tableLatency.summary());
+    }
 
-            // Accept connections until we have enough players
-            while (clients.size() < playerCount) {
-                System.out.println("Waiting for player " + (clients.size() + 1) + " of " + playerCount + " to connect...");
-                Socket sock = serverSocket.accept();
-                BufferedReader in = new BufferedReader(new InputStreamReader(sock.getInputStream()));
-                PrintWriter out = new PrintWriter(sock.getOutputStream(), true);
-                // Read join line
-                String join = in.readLine();
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Start an actor for the seated clients. The connections are closed
+     * when the game ends or the table is abandoned.
+     *
+     * @return completes when the table is closed
+     */
+    private CompletableFuture<Void> runTable(List<ClientConn> clients) {
+        TABLES_STARTED.increment();
+        TableActor table = new TableActor(this, loops.next(), clients, TURN_TIMEOUT_MILLIS);
+        CompletableFuture<Void> closed = table.done().whenComplete((v, e) -> {
+            if (e == null) {
+                TABLES_FINISHED.increment();
+            } else {
+                // A player left or the connection broke; only this table is lost.
+                TABLES_ABORTED.increment();
+            }
+            closeAll(clients);
+        });
+        table.start();
+        return closed;
+    }
+
+    /**
+     * A bot's next move, computed off the event loop.
+     */
+    CompletableFuture<GameAction> decide(Bot bot, Game game) {
+        if (bot instanceof ExternalEngineBot) {
+            return CompletableFuture.supplyAsync(() -> bot.chooseAction(game), engineWaits);
+        }
+        return botScheduler.submit(bot, game, BOT_THINK_MILLIS);
+    }
+
+    Executor ponderPool() {
+        return ponderPool;
+    }
+
+    HintService hints() {
+        return hintService;
+    }
+
+    void recordTableLatency(long nanos) {
+        tableLatency.recordNanos(nanos);
+    }
+
+    /**
+     * Rate a finished game if `-Dsplendor.ratings` names a rating log.
+     * Humans are rated by name; bots by kind and seat name, e.g.
+     * `bot:mcts:Bot1`, so every server's first MCTS bot shares a rating.
+     */
+    void recordResult(List<ClientConn> seats, int[] places) {
+        if (ratings == null) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(seats.size());
+        for (ClientConn c : seats) {
+            ids.add(c.bot == null ? c.name : "bot:" + botKind() + ":" + c.name);
+        }
+        try {
+            ratings.record(new GameResult(ids, places));
+            ratings.flush();
+        } catch (IllegalArgumentException e) {
+            // two humans joined under one name; their game cannot be rated
+        } catch (IOException e) {
+            System.err.println("Cannot log rated game: " + e.getMessage());
+        }
+    }
+
+    private String botKind() {
+        return enginePool != null ? "engine" : System.getProperty("splendor.bot", "mcts");
+    }
+
+    /**
+     * Processing latency of table messages, from arrival in a table's
+     * mailbox to the end of its handling.
+     */
+    public LatencyHistogram getTableLatency() {
+        return tableLatency;
+    }
+
+    /**
+     * Accept connections until the table's human seats are taken, then
+     * fill the remaining seats with bots.
+     */
+    private List<ClientConn> acceptTable(Transport.Listener listener, int playerCount, boolean verbose) throws IOException {
+        List<ClientConn> clients = new ArrayList<>();
+        try {
+            while (clients.size() < playerCount - botCount) {
+                if (verbose) {
+                    System.out.println("Waiting for player " + (clients.size() + 1) + " of " + playerCount + " to connect...");
+                }
+                Transport.Connection conn = listener.accept();
+                Outbox out = new Outbox(conn.getOutputStream(), bufferPool);
+                String join = readJoinLine(conn);
                 String name = "Player" + (clients.size() + 1);
                 if (join != null && join.startsWith("JOIN:")) {
                     name = join.substring(5).trim();
                     if (name.isEmpty()) name = "Player" + (clients.size() + 1);
                 }
-                ClientConn cc = new ClientConn(name, sock, in, out);
+                ClientConn cc = new ClientConn(name, conn, out);
                 clients.add(cc);
-                out.println("WELCOME:" + clients.size());
-                System.out.println("Connected: " + name);
+                out.send("WELCOME:" + clients.size());
+                out.flush();
+                if (verbose) {
+                    System.out.println("Connected: " + name);
+                }
             }
+        } catch (IOException e) {
+            closeAll(clients);
+            throw e;
+        }
 
-            // Gather player names and create game
-            List<String> names = new ArrayList<>();
-            for (ClientConn c : clients) names.add(c.name);
-
-            Game game = StandardGameFactory.createGame(names);
-
-            // Main game loop
-            while (!game.isGameOver()) {
-                // Broadcast state
-                String stateText = formatGameState(game.getState(), game.getCurrentPlayerIndex());
-                broadcast(clients, "STATE");
-                broadcast(clients, stateText);
-                broadcast(clients, "ENDSTATE");
-
-                int currentIndex = game.getCurrentPlayerIndex();
-                ClientConn currentClient = clients.get(currentIndex);
-                currentClient.out.println("YOUR_TURN");
-
-                boolean actionApplied = false;
-                while (!actionApplied) {
-                    String line = currentClient.in.readLine();
-                    if (line == null) throw new IllegalStateException("Client disconnected");
-                    if (!line.startsWith("ACTION ")) {
-                        currentClient.out.println("RESULT ERROR Expected ACTION message");
-                        continue;
-                    }
-                    String cmd = line.substring(7).trim();
-                    try {
-                        GameAction action = parseAction(cmd);
-                        // validate
-                        var result = game.validateAction(action);
-                        if (!result.isValid()) {
-                            currentClient.out.println("RESULT ERROR " + result.getMessage());
-                            continue;
-                        }
-                        game.applyAction(action);
-                        currentClient.out.println("RESULT OK");
-                        actionApplied = true;
-
-                        // handle discard if needed
-                        if (game.isTokenLimitExceededForCurrentPlayer()) {
-                            int excess = game.getCurrentPlayer().getTotalTokens() - splendor.model.Player.MAX_TOKENS;
-                            // Ask client to discard
-                            currentClient.out.println("DISCARD_NEEDED " + excess);
-                            boolean discarded = false;
-                            while (!discarded) {
-                                String dline = currentClient.in.readLine();
-                                if (dline == null) throw new IllegalStateException("Client disconnected");
-                                if (!dline.startsWith("DISCARD ")) {
-                                    currentClient.out.println("RESULT ERROR Expected DISCARD message");
-                                    continue;
-                                }
-                                String payload = dline.substring(8).trim();
-                                var discards = parseGemMap(payload);
-                                DiscardTokensAction discardAction = new DiscardTokensAction(discards);
-                                var dres = game.validateAction(discardAction);
-                                if (!dres.isValid()) {
-                                    currentClient.out.println("RESULT ERROR " + dres.getMessage());
-                                    continue;
-                                }
-                                game.applyDiscard(discardAction);
-                                currentClient.out.println("RESULT OK");
-                                discarded = true;
-                            }
-                        }
-
-                        // Noble selection if applicable
-                        if (action instanceof BuyCardAction) {
-                            var claimable = game.getClaimableNoblesForCurrentPlayer();
-                            if (!claimable.isEmpty()) {
-                                if (claimable.size() == 1) {
-                                    game.claimNoble(claimable.get(0));
-                                } else {
-                                    // ask client to choose or skip
-                                    currentClient.out.println("NOBLE_CHOICE " + claimable.size());
-                                    boolean chosen = false;
-                                    while (!chosen) {
-                                        String nline = currentClient.in.readLine();
-                                        if (nline == null) throw new IllegalStateException("Client disconnected");
-                                        if (!nline.startsWith("NOBLE ")) {
-                                            currentClient.out.println("RESULT ERROR Expected NOBLE message");
-                                            continue;
-                                        }
-                                        int idx = Integer.parseInt(nline.substring(6).trim());
-                                        if (idx >= 0 && idx < claimable.size()) {
-                                            game.claimNoble(claimable.get(idx));
-                                        }
-                                        currentClient.out.println("RESULT OK");
-                                        chosen = true;
-                                    }
-                                }
-                            }
-                        }
-
-                        game.endTurn();
-
-                    } catch (IllegalArgumentException ex) {
-                        currentClient.out.println("RESULT ERROR " + ex.getMessage());
-                    }
-                }
+        addBots(clients, playerCount);
+        return clients;
+    }
+
+    /**
+     * Fill the seats after the humans with bots.
+     */
+    private void addBots(List<ClientConn> clients, int playerCount) {
+        int bots = 0;
+        while (clients.size() < playerCount) {
+            bots++;
+            Bot bot = enginePool != null
+                    ? new ExternalEngineBot(enginePool, clients.size(), playerCount, engineTime)
+                    : newBuiltInBot(clients.size());
+            clients.add(new ClientConn("Bot" + bots, bot));
+        }
+    }
+
+    /**
+     * Read the `JOIN` line a byte at a time, so nothing the client sends
+     * after it is buffered here; the table reads the rest of the stream.
+     */
+    private static String readJoinLine(Transport.Connection conn) throws IOException {
+        InputStream in = conn.getInputStream();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n') {
+            if (line.size() == MAX_JOIN_BYTES) {
+                throw new IOException("JOIN line too long");
             }
+            line.write(b);
+        }
+        if (b < 0 && line.size() == 0) {
+            return null;
+        }
+        return line.toString(StandardCharsets.UTF_8).replace("\r", "");
+    }
+
+    /**
+     * The built-in bot chosen with `-Dsplendor.bot`: `mcts` (default),
+     * `alphabeta` (paranoid with 3-4 players) or `maxn`, the latter two
+     * scoring leaves with `-Dsplendor.evaluator`. Search threads per
+     * bot come from `-Dsplendor.bot.threads` (default 1); the helpers run
+     * on the {@link BotScheduler} pool, so more threads make a decision
+     * take more of its workers but never add threads. All bots share one evaluator, so a learned model
+     * is loaded once and its weights stay cached for every table.
+     */
+    private Bot newBuiltInBot(int seat) {
+        String kind = System.getProperty("splendor.bot", "mcts");
+        int threads = Integer.getInteger("splendor.bot.threads", 1);
+        return switch (kind) {
+            case "alphabeta" -> new AlphaBetaBot(seat, BOT_THINK_MILLIS, threads, AlphaBetaBot.Strategy.PARANOID,
+                    botEvaluator(), new Random());
+            case "maxn" -> new AlphaBetaBot(seat, BOT_THINK_MILLIS, threads, AlphaBetaBot.Strategy.MAX_N,
+                    botEvaluator(), new Random());
+            default -> new MctsBot(seat, BOT_THINK_MILLIS);
+        };
+    }
 
-            // Game over: broadcast final state and winner
-            broadcast(clients, "GAME_OVER");
-            broadcast(clients, formatGameState(game.getState(), -1));
-            System.out.println("Game finished. Closing connections.");
-            for (ClientConn c : clients) c.sock.close();
+    private synchronized Evaluator botEvaluator() {
+        if (botEvaluator == null) {
+            botEvaluator = ModelEvaluator.fromSystemProperties();
         }
+        return botEvaluator;
     }
 
-    private void broadcast(List<ClientConn> clients, String msg) {
+    private void closeAll(List<ClientConn> clients) {
         for (ClientConn c : clients) {
-            c.out.println(msg);
+            if (c.bot instanceof ExternalEngineBot engine) {
+                engine.close(); // back to the pool for the next table
+            } else if (c.bot instanceof AlphaBetaBot search) {
+                search.shutdown();
+            }
+            if (c.conn != null) {
+                try {
+                    c.conn.close();
+                } catch (IOException ignored) {
+                }
+            }
         }
     }
 
-    private static class ClientConn {
+    private void printOutboundStats() {
+        Map<String, Long> m = Metrics.snapshot();
+        long turns = Math.max(1, m.getOrDefault("server.turns", 0L));
+        long bytes = m.getOrDefault("net.out.bytes", 0L);
+        long writes = m.getOrDefault("net.out.flushes", 0L);
+        System.out.printf("Outbound: %d bytes, %d writes over %d turns (%.1f bytes, %.1f writes per turn)%n",
+                bytes, writes, turns, (double) bytes / turns, (double) writes / turns);
+        long nodes = m.getOrDefault("search.nodes", 0L);
+        if (nodes > 0) {
+            System.out.printf("Search: %d nodes, %.0f nodes/s%n",
+                    nodes, nodes * 1e6 / Math.max(1, m.getOrDefault("search.micros", 0L)));
+        }
+    }
+
+    static class ClientConn {
         final String name;
-        final Socket sock;
-        final BufferedReader in;
-        final PrintWriter out;
+        final Transport.Connection conn;
+        final Outbox out;
+        final Bot bot; // non-null for bot seats, which have no connection
+        final byte[] unread; // input already read off the connection, for the table
 
-        ClientConn(String name, Socket sock, BufferedReader in, PrintWriter out) {
+        ClientConn(String name, Transport.Connection conn, Outbox out) {
+            this(name, conn, out, new byte[0]);
+        }
+
+        ClientConn(String name, Transport.Connection conn, Outbox out, byte[] unread) {
             this.name = name;
-            this.sock = sock;
-            this.in = in;
+            this.conn = conn;
             this.out = out;
+            this.bot = null;
+            this.unread = unread;
+        }
+
+        ClientConn(String name, Bot bot) {
+            this.name = name;
+            this.conn = null;
+            this.out = null;
+            this.bot = bot;
+            this.unread = new byte[0];
         }
     }
 
     /**
-     * Parse a simple command string into a GameAction.
-     * Supported forms:
-     *  - TAKE WHITE,BLUE,RED
-     *  - TAKE WHITE:2,BLUE:1
-     *  - BUY MARKET <level> <index>
-     *  - BUY RESERVED <index>
-     *  - RESERVE MARKET <level> <index>
-     *  - RESERVE TOP <level>
+     * A parsed `JOIN:<name>[ rating=<r>][ size=<n>]` line. The options are
+     * trailing tokens, so names may still contain spaces; a missing or
+     * invalid option falls back to its default. The rating is -1 when none
+     * was given; a server keeping a rating log ignores it either way.
      */
-    private GameAction parseAction(String cmd) {
-        String[] parts = cmd.split(" ", 2);
-        String verb = parts[0].toUpperCase(Locale.ROOT);
-        String rest = parts.length > 1 ? parts[1].trim() : "";
-        switch (verb) {
-            case "TAKE":
-                Map<GemType, Integer> taken = parseGemMap(rest);
-                return new TakeTokensAction(taken);
-            case "BUY":
-                String[] b = rest.split(" ");
-                if (b[0].equalsIgnoreCase("MARKET")) {
-                    int level = Integer.parseInt(b[1]);
-                    int idx = Integer.parseInt(b[2]);
-                    return BuyCardAction.fromMarket(level, idx);
-                } else if (b[0].equalsIgnoreCase("RESERVED")) {
-                    int idx = Integer.parseInt(b[1]);
-                    return BuyCardAction.fromReserved(idx);
-                }
-                break;
-            case "RESERVE":
-                String[] r = rest.split(" ");
-                if (r[0].equalsIgnoreCase("MARKET")) {
-                    int level = Integer.parseInt(r[1]);
-                    int idx = Integer.parseInt(r[2]);
-                    return ReserveCardAction.fromMarket(level, idx);
-                } else if (r[0].equalsIgnoreCase("TOP")) {
-                    int level = Integer.parseInt(r[1]);
-                    return ReserveCardAction.fromTopOfDeck(level);
+    static final class JoinRequest {
+        final String name;
+        final int rating;
+        final int size;
+
+        private JoinRequest(String name, int rating, int size) {
+            this.name = name;
+            this.rating = rating;
+            this.size = size;
+        }
+
+        static JoinRequest parse(String line, String defaultName, int defaultSize) {
+            int rating = -1;
+            int size = defaultSize;
+            if (line == null || !line.startsWith("JOIN:")) {
+                return new JoinRequest(defaultName, rating, size);
+            }
+            String rest = line.substring(5).trim();
+            int end = rest.length();
+            while (end > 0) {
+                int space = rest.lastIndexOf(' ', end - 1);
+                String token = rest.substring(space + 1, end);
+                if (token.startsWith("rating=")) {
+                    rating = parseOption(token.substring(7), 0, Matchmaker.MAX_RATING, rating);
+                } else if (token.startsWith("size=")) {
+                    size = parseOption(token.substring(5), 2, 4, size);
+                } else if (!token.isEmpty()) {
+                    break;
                 }
-                break;
-            default:
-                throw new IllegalArgumentException("Unknown action verb: " + verb);
-        }
-        throw new IllegalArgumentException("Malformed action: " + cmd);
-    }
-
-    private static Map<GemType, Integer> parseGemMap(String s) {
-        Map<GemType, Integer> map = new EnumMap<>(GemType.class);
-        if (s.isBlank()) return map;
-        String[] items = s.split(",");
-        for (String it : items) {
-            it = it.trim();
-            if (it.isEmpty()) continue;
-            if (it.contains(":")) {
-                String[] kv = it.split(":");
-                GemType t = GemType.valueOf(kv[0].toUpperCase(Locale.ROOT));
-                int v = Integer.parseInt(kv[1]);
-                map.put(t, v);
-            } else {
-                GemType t = GemType.valueOf(it.toUpperCase(Locale.ROOT));
-                map.put(t, map.getOrDefault(t, 0) + 1);
+                end = Math.max(0, space);
+            }
+            String name = rest.substring(0, end).trim();
+            return new JoinRequest(name.isEmpty() ? defaultName : name, rating, size);
+        }
+
+        private static int parseOption(String value, int min, int max, int fallback) {
+            try {
+                int v = Integer.parseInt(value);
+                return v >= min && v <= max ? v : fallback;
+            } catch (NumberFormatException e) {
+                return fallback;
             }
         }
-        return map;
     }
 
-    private String formatGameState(GameState state, int currentPlayerIndex) {
+    static String formatGameState(GameState state, int currentPlayerIndex) {
         StringBuilder sb = new StringBuilder();
         sb.append("---- Board ----\n");
         sb.append("Supply tokens: ").append(state.getBoard().getSupplyTokens()).append("\n\n");
@@ -311,16 +646,16 @@ public class Server {
         return sb.toString();
     }
 
-    private void appendLevel(StringBuilder sb, int level, java.util.List spl) {
+    private static void appendLevel(StringBuilder sb, int level, java.util.List spl) {
         sb.append("Level ").append(level).append(" cards:\n");
         java.util.List cards = spl;
-        if (cards.isEmpty()) {
+        if (java.util.Collections.frequency(cards, null) == cards.size()) {
             sb.append("  (no cards showing)\n\n");
             return;
         }
         for (int i = 0; i < cards.size(); i++) {
             Object c = cards.get(i);
-            sb.append("  [").append(i).append("] ").append(c.toString()).append("\n");
+            sb.append("  [").append(i).append("] ").append(c != null ? c.toString() : "(empty)").append("\n");
         }
         sb.append("\n");
     }
@@ -328,9 +663,15 @@ public class Server {
     public static void main(String[] args) throws Exception {
         int port = DEFAULT_PORT;
         int players = -1;
+        int bots = 0;
         if (args.length > 0) port = Integer.parseInt(args[0]);
         if (args.length > 1) players = Integer.parseInt(args[1]);
-        Server s = new Server(port, players);
+        if (args.length > 2) bots = Integer.parseInt(args[2]);
+        List<Transport> transports = new ArrayList<>();
+        transports.add(Transport.tcp(port));
+        if (args.length > 3) transports.add(Transport.unix(args[3]));
+        Server s = new Server(transports, players, bots);
+        s.useEnginesFromSystemProperties();
         s.start();
     }
 }
@@ -0,0 +1,40 @@
+package splendor.network;
+
+import splendor.game.engine.GameState;
+
+/**
+ * A game position rebuilt from a `SNAP` message, as seen by one seat.
+ *
+ * Information hidden from the viewer is filled in plausibly: the decks hold
+ * the right number of unseen cards and opponents' face-down reserves are
+ * unseen cards of the right level. Good enough to validate the viewer's own
+ * moves, which never depend on hidden cards.
+ */
+public class StateSnapshot {
+
+    private final GameState state;
+    private final int viewerIndex;
+    private final int currentPlayerIndex;
+
+    public StateSnapshot(GameState state, int viewerIndex, int currentPlayerIndex) {
+        this.state = state;
+        this.viewerIndex = viewerIndex;
+        this.currentPlayerIndex = currentPlayerIndex;
+    }
+
+    public GameState getState() {
+        return state;
+    }
+
+    public int getViewerIndex() {
+        return viewerIndex;
+    }
+
+    public int getCurrentPlayerIndex() {
+        return currentPlayerIndex;
+    }
+
+    public boolean isViewersTurn() {
+        return viewerIndex == currentPlayerIndex;
+    }
+}
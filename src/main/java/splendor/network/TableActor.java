@@ -0,0 +1,726 @@
+package splendor.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import splendor.ai.Bot;
+import splendor.ai.HintService;
+import splendor.ai.MctsBot;
+import splendor.ai.MoveEvaluation;
+import splendor.ai.MoveGenerator;
+import splendor.ai.TurnResolver;
+import splendor.game.actions.BuyCardAction;
+import splendor.game.actions.DiscardTokensAction;
+import splendor.game.actions.GameAction;
+import splendor.game.engine.Game;
+import splendor.game.engine.StandardGameFactory;
+import splendor.model.Board;
+import splendor.model.Card;
+import splendor.model.MarketListener;
+import splendor.model.Noble;
+import splendor.model.Player;
+import splendor.util.Metrics;
+
+/**
+ * One table of a {@link Server}, run as an actor.
+ *
+ * Everything that happens at the table is a message in its mailbox: a line
+ * from a client, a disconnect, a bot's move, finished hints, a turn timer.
+ * The mailbox is drained on the one {@link EventLoopGroup.EventLoop} that
+ * owns the table, so the game needs no locks. A table waiting for a human
+ * holds no thread at all, only its sockets' selection keys. Bots think on
+ * the server's bot pool and post their move back as a message.
+ *
+ * The protocol is the one the blocking server spoke: lines from a client
+ * whose turn it is not wait in its own queue until its turn comes, and
+ * output is flushed after every batch of messages.
+ *
+ * Each message's latency, from arrival in the mailbox to the end of its
+ * handling, is recorded for the table and in the server's histogram.
+ *
+ * After every move the table sends `MARKET <level> <slot> <card id|->` for
+ * each market slot whose card changed, heard from the board's
+ * {@link MarketListener}, so clients can update or highlight single slots
+ * without diffing the whole state.
+ */
+final class TableActor {
+
+    private enum Phase { STARTING, MAIN, DISCARD, NOBLE, HINTS, BOT, OVER }
+
+    private static final int MAX_BATCH = 64;
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+    private static final int MAX_PENDING_LINES = 64;
+    private static final LongAdder TURNS = Metrics.counter("server.turns");
+    private static final LongAdder MESSAGES = Metrics.counter("table.messages");
+
+    private final Server server;
+    private final EventLoopGroup.EventLoop loop;
+    private final List<Server.ClientConn> seats;
+    private final Inbound[] inbound;
+    private final List<Bot> bots = new ArrayList<>();
+    private final Game game;
+    private final MoveGenerator generator = new MoveGenerator();
+    private final int[] legal = new int[MoveGenerator.MAX_MOVES];
+    private final long turnTimeoutMillis;
+    private final Queue<Message> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    // Loop thread only
+    private Phase phase = Phase.STARTING;
+    private int passesInRow;
+    private GameAction turnAction;       // main action of the human turn in progress
+    private TurnRequest declaredTurn;    // set when that turn came as one TURN message
+    private EventLoopGroup.Timer turnTimer;
+    private int turnSerial;
+    private final Card[][] announced = new Card[3][Board.FACE_UP_PER_LEVEL]; // market as clients last heard it
+    private int changedSlots;                                                 // bit per slot, level-major
+
+    // Written on the loop thread, read by anyone for reporting
+    private volatile long messages;
+    private volatile long latencyNanos;
+    private volatile long maxLatencyNanos;
+
+    TableActor(Server server, EventLoopGroup.EventLoop loop, List<Server.ClientConn> seats, long turnTimeoutMillis) {
+        this.server = server;
+        this.loop = loop;
+        this.seats = List.copyOf(seats);
+        this.turnTimeoutMillis = turnTimeoutMillis;
+        this.inbound = new Inbound[seats.size()];
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < seats.size(); i++) {
+            Server.ClientConn c = seats.get(i);
+            names.add(c.name);
+            if (c.bot != null) {
+                bots.add(c.bot);
+            } else {
+                inbound[i] = new Inbound(i, c.conn);
+            }
+        }
+        this.game = StandardGameFactory.createGame(names);
+        Board board = game.getState().getBoard();
+        for (int level = 1; level <= 3; level++) {
+            for (int slot = 0; slot < Board.FACE_UP_PER_LEVEL; slot++) {
+                announced[level - 1][slot] = board.getFaceUpCard(level, slot);
+            }
+        }
+        MarketListener onSlot = (level, slot, oldCard, newCard) ->
+                changedSlots |= 1 << ((level - 1) * Board.FACE_UP_PER_LEVEL + slot);
+        board.addMarketListener(onSlot);
+    }
+
+    /**
+     * Completes when the game is over and the final state was sent, or
+     * exceptionally when the table had to be abandoned.
+     */
+    CompletableFuture<Void> done() {
+        return done;
+    }
+
+    void start() {
+        tell(this::begin);
+    }
+
+    long getMessages() {
+        return messages;
+    }
+
+    double meanLatencyMicros() {
+        long n = messages;
+        return n == 0 ? 0 : latencyNanos / 1000.0 / n;
+    }
+
+    long maxLatencyMicros() {
+        return maxLatencyNanos / 1000;
+    }
+
+    // ---- mailbox ----
+
+    private void tell(Runnable body) {
+        mailbox.add(new Message(System.nanoTime(), body));
+        if (scheduled.compareAndSet(false, true)) {
+            loop.execute(this::drain);
+        }
+    }
+
+    /**
+     * Handle a batch of messages, then yield the loop to the other tables.
+     */
+    private void drain() {
+        for (int i = 0; i < MAX_BATCH; i++) {
+            Message m = mailbox.poll();
+            if (m == null) {
+                break;
+            }
+            if (done.isDone()) {
+                continue;
+            }
+            try {
+                m.body.run();
+            } catch (RuntimeException e) {
+                abort(e);
+            }
+            long latency = System.nanoTime() - m.enqueued;
+            messages++;
+            latencyNanos += latency;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+            server.recordTableLatency(latency);
+            MESSAGES.increment();
+        }
+        flushAll();
+        scheduled.set(false);
+        if (!mailbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+            loop.execute(this::drain);
+        }
+    }
+
+    // ---- table lifecycle ----
+
+    private void begin() {
+        for (Inbound in : inbound) {
+            if (in != null) {
+                try {
+                    in.register();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot watch " + seats.get(in.seat).name, e);
+                }
+            }
+        }
+        for (Bot bot : bots) {
+            bot.observe(null, game);
+        }
+        beginTurn();
+    }
+
+    /**
+     * Broadcast the position and hand the turn to a bot or a human; stops
+     * early if a whole round passes, as nobody can move again.
+     */
+    private void beginTurn() {
+        sendMarketChanges();
+        if (game.isGameOver() || passesInRow >= seats.size()) {
+            finish();
+            return;
+        }
+        TURNS.increment();
+        broadcast("STATE");
+        broadcast(Server.formatGameState(game.getState(), game.getCurrentPlayerIndex()));
+        broadcast("ENDSTATE");
+        sendSnapshots();
+
+        Server.ClientConn current = seats.get(game.getCurrentPlayerIndex());
+        if (current.bot != null) {
+            phase = Phase.BOT;
+            stopPondering();
+            server.decide(current.bot, game).whenComplete((action, error) -> tell(() -> onBotMove(action, error)));
+            return;
+        }
+        if (generator.generate(game, legal) == 0) {
+            // A human with no legal move passes without being asked
+            passesInRow++;
+            TurnResolver.playTurn(game, (GameAction) null);
+            broadcast("MOVE " + current.name + " PASS");
+            observeAll(null);
+            beginTurn();
+            return;
+        }
+
+        // Bots think about the likely replies while the human decides
+        for (Bot bot : bots) {
+            if (bot instanceof MctsBot mcts) {
+                mcts.startPondering(server.ponderPool());
+            }
+        }
+        current.out.send("YOUR_TURN");
+        phase = Phase.MAIN;
+        turnAction = null;
+        declaredTurn = null;
+        startTurnTimer();
+        if (!inbound[game.getCurrentPlayerIndex()].pending.isEmpty()) {
+            tell(this::processPending);
+        }
+    }
+
+    private void onBotMove(GameAction action, Throwable error) {
+        if (phase != Phase.BOT) {
+            return;
+        }
+        if (error != null) {
+            throw new IllegalStateException("Bot failed", error);
+        }
+        Server.ClientConn current = seats.get(game.getCurrentPlayerIndex());
+        passesInRow = action == null ? passesInRow + 1 : 0;
+        TurnResolver.playTurn(game, action, current.bot.getNobleIndex());
+        broadcast("MOVE " + current.name + " " + (action != null ? action : "PASS"));
+        observeAll(action);
+        beginTurn();
+    }
+
+    private void finish() {
+        phase = Phase.OVER;
+        cancelTurnTimer();
+        stopPondering();
+        broadcast("GAME_OVER");
+        broadcast(Server.formatGameState(game.getState(), -1));
+        flushAll();
+        server.recordResult(seats, game.finishingOrder());
+        done.complete(null);
+    }
+
+    private void abort(Throwable cause) {
+        if (phase == Phase.OVER) {
+            return;
+        }
+        phase = Phase.OVER;
+        cancelTurnTimer();
+        stopPondering();
+        done.completeExceptionally(cause);
+    }
+
+    // ---- human turns ----
+
+    private void onLine(int seat, String line) {
+        if (phase == Phase.OVER) {
+            return;
+        }
+        Inbound in = inbound[seat];
+        if (in.pending.size() >= MAX_PENDING_LINES) {
+            throw new IllegalStateException(seats.get(seat).name + " sent too many messages out of turn");
+        }
+        in.pending.add(line);
+        processPending();
+    }
+
+    /**
+     * Handle queued lines of the player to move for as long as the table
+     * is waiting for that player.
+     */
+    private void processPending() {
+        while (phase == Phase.MAIN || phase == Phase.DISCARD || phase == Phase.NOBLE) {
+            String line = inbound[game.getCurrentPlayerIndex()].pending.poll();
+            if (line == null) {
+                return;
+            }
+            switch (phase) {
+                case MAIN -> handleMain(line);
+                case DISCARD -> handleDiscard(line);
+                default -> handleNoble(line);
+            }
+        }
+    }
+
+    private void handleMain(String line) {
+        Server.ClientConn client = seats.get(game.getCurrentPlayerIndex());
+        if (line.equals("HINT") || line.startsWith("HINT ")) {
+            requestHints(client, line.substring(4).trim());
+            return;
+        }
+        try {
+            if (line.startsWith("TURN ")) {
+                playDeclaredTurn(client, MessageHandler.parseTurn(line.substring(5).trim()));
+            } else if (line.startsWith("ACTION ")) {
+                playInteractiveTurn(client, MessageHandler.parseAction(line.substring(7).trim()));
+            } else {
+                client.out.send("RESULT ERROR Expected TURN or ACTION message");
+            }
+        } catch (IllegalArgumentException ex) {
+            client.out.send("RESULT ERROR " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Play an `ACTION` turn: acknowledge the action, then ask for a discard
+     * and a noble choice in separate round trips if they are needed.
+     */
+    private void playInteractiveTurn(Server.ClientConn client, GameAction action) {
+        var result = game.validateAction(action);
+        if (!result.isValid()) {
+            client.out.send("RESULT ERROR " + result.getMessage());
+            return;
+        }
+        game.applyAction(action);
+        client.out.send("RESULT OK");
+        turnAction = action;
+        if (game.isTokenLimitExceededForCurrentPlayer()) {
+            promptDiscard(client);
+            return;
+        }
+        afterDiscard();
+    }
+
+    /**
+     * Play a `TURN` message in one pass using the discard and noble choices
+     * it declares, and answer once. Only if those choices are missing or
+     * unusable does the table fall back to the `ACTION` prompts.
+     */
+    private void playDeclaredTurn(Server.ClientConn client, TurnRequest turn) {
+        GameAction action = turn.getAction();
+        var result = game.validateAction(action);
+        if (!result.isValid()) {
+            client.out.send("RESULT ERROR " + result.getMessage());
+            return;
+        }
+        game.applyAction(action);
+        turnAction = action;
+        declaredTurn = turn;
+        if (game.isTokenLimitExceededForCurrentPlayer()) {
+            DiscardTokensAction discard = turn.discardFor(game.getCurrentPlayer());
+            if (discard != null && game.validateAction(discard).isValid()) {
+                game.applyDiscard(discard);
+            } else {
+                promptDiscard(client);
+                return;
+            }
+        }
+        afterDiscard();
+    }
+
+    private void promptDiscard(Server.ClientConn client) {
+        int excess = game.getCurrentPlayer().getTotalTokens() - Player.MAX_TOKENS;
+        client.out.send("DISCARD_NEEDED " + excess);
+        phase = Phase.DISCARD;
+    }
+
+    private void handleDiscard(String line) {
+        Server.ClientConn client = seats.get(game.getCurrentPlayerIndex());
+        if (!line.startsWith("DISCARD ")) {
+            client.out.send("RESULT ERROR Expected DISCARD message");
+            return;
+        }
+        try {
+            DiscardTokensAction discard = new DiscardTokensAction(MessageHandler.parseGemMap(line.substring(8).trim()));
+            var result = game.validateAction(discard);
+            if (!result.isValid()) {
+                client.out.send("RESULT ERROR " + result.getMessage());
+                return;
+            }
+            game.applyDiscard(discard);
+            ackPrompt(client);
+        } catch (IllegalArgumentException ex) {
+            client.out.send("RESULT ERROR " + ex.getMessage());
+            return;
+        }
+        phase = Phase.MAIN;
+        afterDiscard();
+    }
+
+    private void afterDiscard() {
+        if (turnAction instanceof BuyCardAction
+                && !claimNoble(seats.get(game.getCurrentPlayerIndex()), declaredTurn != null ? declaredTurn.getNobleIndex() : -1)) {
+            return; // waiting for the client's choice
+        }
+        endHumanTurn();
+    }
+
+    /**
+     * Claim a noble after a purchase. A single candidate is claimed
+     * automatically; among several, the declared board index wins, and
+     * otherwise the client is asked.
+     *
+     * @return false if the table now waits for a `NOBLE` message
+     */
+    private boolean claimNoble(Server.ClientConn client, int boardIndex) {
+        List<Noble> claimable = game.getClaimableNoblesForCurrentPlayer();
+        if (claimable.isEmpty()) {
+            return true;
+        }
+        if (claimable.size() == 1) {
+            game.claimNoble(claimable.get(0));
+            return true;
+        }
+        List<Noble> nobles = game.getState().getBoard().getNobles();
+        if (boardIndex >= 0 && boardIndex < nobles.size() && claimable.contains(nobles.get(boardIndex))) {
+            game.claimNoble(nobles.get(boardIndex));
+            return true;
+        }
+        client.out.send("NOBLE_CHOICE " + claimable.size());
+        phase = Phase.NOBLE;
+        return false;
+    }
+
+    private void handleNoble(String line) {
+        Server.ClientConn client = seats.get(game.getCurrentPlayerIndex());
+        if (!line.startsWith("NOBLE ")) {
+            client.out.send("RESULT ERROR Expected NOBLE message");
+            return;
+        }
+        try {
+            int idx = Integer.parseInt(line.substring(6).trim());
+            List<Noble> claimable = game.getClaimableNoblesForCurrentPlayer();
+            if (idx >= 0 && idx < claimable.size()) {
+                game.claimNoble(claimable.get(idx));
+            }
+            ackPrompt(client);
+        } catch (NumberFormatException ex) {
+            client.out.send("RESULT ERROR Malformed NOBLE message");
+            return;
+        }
+        endHumanTurn();
+    }
+
+    /**
+     * Accept a reply to a `DISCARD_NEEDED` or `NOBLE_CHOICE` prompt. A
+     * `TURN` message is answered once, when its turn ends, so replies to
+     * the prompts it fell back to are not acknowledged on their own.
+     */
+    private void ackPrompt(Server.ClientConn client) {
+        if (declaredTurn == null) {
+            client.out.send("RESULT OK");
+        }
+    }
+
+    private void endHumanTurn() {
+        Server.ClientConn client = seats.get(game.getCurrentPlayerIndex());
+        game.endTurn();
+        if (declaredTurn != null) {
+            client.out.send("RESULT OK");
+        }
+        cancelTurnTimer();
+        passesInRow = 0;
+        observeAll(turnAction);
+        beginTurn();
+    }
+
+    // ---- hints ----
+
+    /**
+     * Answer a `HINT [k]` request with one `HINT <rank> <move> score=.. visits=.. pv=..`
+     * line per suggestion, terminated by `ENDHINT`. The search runs on the
+     * hint service; the player's later lines wait until it answers.
+     */
+    private void requestHints(Server.ClientConn client, String arg) {
+        int k = 3;
+        if (!arg.isEmpty()) {
+            try {
+                k = Math.max(1, Math.min(HintService.MAX_HINTS, Integer.parseInt(arg)));
+            } catch (NumberFormatException ex) {
+                client.out.send("RESULT ERROR Malformed HINT request");
+                return;
+            }
+        }
+        phase = Phase.HINTS;
+        server.hints().requestHints(game, k).whenComplete((hints, error) -> tell(() -> onHints(client, hints)));
+    }
+
+    private void onHints(Server.ClientConn client, List<MoveEvaluation> hints) {
+        if (phase != Phase.HINTS) {
+            return;
+        }
+        List<MoveEvaluation> list = hints != null ? hints : List.of();
+        for (int i = 0; i < list.size(); i++) {
+            MoveEvaluation h = list.get(i);
+            StringBuilder pv = new StringBuilder();
+            for (GameAction m : h.getPrincipalVariation()) {
+                if (pv.length() > 0) pv.append(" ; ");
+                pv.append(m);
+            }
+            client.out.send("HINT " + (i + 1) + " " + h + " pv=" + pv);
+        }
+        client.out.send("ENDHINT");
+        phase = Phase.MAIN;
+        processPending();
+    }
+
+    // ---- timers ----
+
+    private void startTurnTimer() {
+        if (turnTimeoutMillis <= 0) {
+            return;
+        }
+        int serial = ++turnSerial;
+        turnTimer = loop.schedule(turnTimeoutMillis, () -> tell(() -> {
+            if (serial == turnSerial && phase != Phase.OVER) {
+                throw new IllegalStateException(seats.get(game.getCurrentPlayerIndex()).name + " ran out of time");
+            }
+        }));
+    }
+
+    private void cancelTurnTimer() {
+        turnSerial++;
+        if (turnTimer != null) {
+            turnTimer.cancel();
+            turnTimer = null;
+        }
+    }
+
+    // ---- output ----
+
+    private void observeAll(GameAction move) {
+        for (Bot bot : bots) {
+            bot.observe(move, game);
+        }
+    }
+
+    private void stopPondering() {
+        for (Bot bot : bots) {
+            if (bot instanceof MctsBot mcts) {
+                mcts.stopPondering();
+            }
+        }
+    }
+
+    private void broadcast(String msg) {
+        for (Server.ClientConn c : seats) {
+            if (c.out != null) {
+                c.out.send(msg);
+            }
+        }
+    }
+
+    /**
+     * Announce the market slots that now hold a different card than last
+     * announced. A slot emptied and refilled in one turn is one change.
+     */
+    private void sendMarketChanges() {
+        Board board = game.getState().getBoard();
+        while (changedSlots != 0) {
+            int bit = Integer.numberOfTrailingZeros(changedSlots);
+            changedSlots &= changedSlots - 1;
+            int level = bit / Board.FACE_UP_PER_LEVEL + 1;
+            int slot = bit % Board.FACE_UP_PER_LEVEL;
+            Card card = board.getFaceUpCard(level, slot);
+            if (card != announced[level - 1][slot]) {
+                announced[level - 1][slot] = card;
+                broadcast("MARKET " + level + " " + slot + " " + (card != null ? card.getId() : "-"));
+            }
+        }
+    }
+
+    /**
+     * Send each client the machine-readable position from its own seat, so
+     * it can keep a local mirror and check its moves before sending them.
+     */
+    private void sendSnapshots() {
+        for (int i = 0; i < seats.size(); i++) {
+            Server.ClientConn c = seats.get(i);
+            if (c.out != null) {
+                c.out.send(MessageHandler.formatSnapshot(game.getState(), game.getCurrentPlayerIndex(), i));
+            }
+        }
+    }
+
+    private void flushAll() {
+        for (Server.ClientConn c : seats) {
+            if (c.out != null) {
+                c.out.flush();
+                if (c.out.checkError() && phase != Phase.OVER) {
+                    abort(new IllegalStateException(c.name + " stopped reading"));
+                }
+            }
+        }
+    }
+
+    private static final class Message {
+        final long enqueued;
+        final Runnable body;
+
+        Message(long enqueued, Runnable body) {
+            this.enqueued = enqueued;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Reads one human seat's socket on the event loop and splits it into
+     * lines for the mailbox. Lines that arrive out of turn wait in
+     * {@link #pending}. The same key carries write interest while the
+     * connection has output queued.
+     */
+    private final class Inbound {
+        final int seat;
+        final Transport.Connection conn;
+        final ArrayDeque<String> pending = new ArrayDeque<>(); // loop thread only
+        byte[] partial = new byte[0];
+        int partialLength;
+
+        Inbound(int seat, Transport.Connection conn) {
+            this.seat = seat;
+            this.conn = conn;
+        }
+
+        void register() throws IOException {
+            SocketChannel ch = conn.channel();
+            ch.configureBlocking(false);
+            SelectionKey key = loop.register(ch, SelectionKey.OP_READ, this::onReady);
+            conn.attach(key);
+            byte[] unread = seats.get(seat).unread;
+            if (unread.length > 0) {
+                split(ByteBuffer.wrap(unread), key);
+            }
+        }
+
+        private void onReady(SelectionKey key) {
+            if (key.isWritable()) {
+                try {
+                    conn.onWritable();
+                } catch (IOException e) {
+                    disconnected(key);
+                    return;
+                }
+            }
+            if (key.isValid() && key.isReadable()) {
+                onReadable(key);
+            }
+        }
+
+        private void disconnected(SelectionKey key) {
+            key.cancel();
+            tell(() -> {
+                throw new IllegalStateException("Client disconnected");
+            });
+        }
+
+        private void onReadable(SelectionKey key) {
+            ByteBuffer buf = loop.readBuffer();
+            buf.clear();
+            int n;
+            try {
+                n = conn.channel().read(buf);
+            } catch (IOException e) {
+                n = -1;
+            }
+            if (n < 0) {
+                disconnected(key);
+                return;
+            }
+            buf.flip();
+            split(buf, key);
+        }
+
+        private void split(ByteBuffer buf, SelectionKey key) {
+            while (buf.hasRemaining()) {
+                byte b = buf.get();
+                if (b == '\n') {
+                    int len = partialLength > 0 && partial[partialLength - 1] == '\r' ? partialLength - 1 : partialLength;
+                    String line = new String(partial, 0, len, StandardCharsets.UTF_8);
+                    partialLength = 0;
+                    tell(() -> onLine(seat, line));
+                    continue;
+                }
+                if (partialLength == MAX_LINE_BYTES) {
+                    key.cancel();
+                    tell(() -> {
+                        throw new IllegalStateException("Line too long");
+                    });
+                    return;
+                }
+                if (partialLength == partial.length) {
+                    partial = Arrays.copyOf(partial, Math.max(64, partial.length * 2));
+                }
+                partial[partialLength++] = b;
+            }
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package splendor.network;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Where the line protocol runs: a TCP port or a Unix domain socket.
+ *
+ * Both kinds use {@link SocketChannel}, so the server and clients do not
+ * care which one they got. Unix domain sockets skip the TCP/IP stack and
+ * are cheaper for bots running on the same host as the server.
+ *
+ * Specs accepted by {@link #parse}: `unix:<path>`, `<host>:<port>` or
+ * `<port>` (all interfaces when listening, localhost when connecting).
+ */
+public final class Transport {
+
+    private final SocketAddress address;
+
+    private Transport(SocketAddress address) {
+        this.address = address;
+    }
+
+    public static Transport tcp(int port) {
+        return new Transport(new InetSocketAddress(port));
+    }
+
+    public static Transport tcp(String host, int port) {
+        return new Transport(new InetSocketAddress(host, port));
+    }
+
+    public static Transport unix(String path) {
+        return new Transport(UnixDomainSocketAddress.of(path));
+    }
+
+    public static Transport parse(String spec) {
+        if (spec.startsWith("unix:")) {
+            return unix(spec.substring(5));
+        }
+        int colon = spec.lastIndexOf(':');
+        try {
+            if (colon < 0) {
+                return tcp(Integer.parseInt(spec));
+            }
+            return tcp(spec.substring(0, colon), Integer.parseInt(spec.substring(colon + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected unix:<path>, <host>:<port> or <port>: " + spec);
+        }
+    }
+
+    public boolean isUnix() {
+        return address instanceof UnixDomainSocketAddress;
+    }
+
+    public SocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * Open a blocking connection to this address.
+     */
+    public Connection connect() throws IOException {
+        SocketChannel ch = SocketChannel.open(address);
+        return new Connection(ch, this);
+    }
+
+    @Override
+    public String toString() {
+        if (address instanceof UnixDomainSocketAddress unixAddress) {
+            return "unix:" + unixAddress.getPath();
+        }
+        InetSocketAddress inet = (InetSocketAddress) address;
+        return (inet.getAddress() != null && inet.getAddress().isAnyLocalAddress() ? "*" : inet.getHostString())
+                + ":" + inet.getPort();
+    }
+
+    private ServerSocketChannel bind(int backlog) throws IOException {
+        ServerSocketChannel server;
+        if (isUnix()) {
+            // A socket file left behind by a crashed server would make bind fail.
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            server = ServerSocketChannel.open();
+            server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        }
+        try {
+            server.bind(address, backlog);
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+        return server;
+    }
+
+    /**
+     * Accepts connections on one or more transports at once, in arrival order.
+     */
+    public static final class Listener implements Closeable {
+
+        private final Selector selector;
+        private final List<ServerSocketChannel> channels = new ArrayList<>();
+        private final List<Transport> transports;
+        private volatile boolean closed;
+
+        private Listener(List<Transport> transports) throws IOException {
+            this.transports = List.copyOf(transports);
+            this.selector = Selector.open();
+        }
+
+        public static Listener open(List<Transport> transports, int backlog) throws IOException {
+            if (transports.isEmpty()) {
+                throw new IllegalArgumentException("No transport to listen on");
+            }
+            Listener listener = new Listener(transports);
+            try {
+                for (Transport t : transports) {
+                    ServerSocketChannel ch = t.bind(backlog);
+                    listener.channels.add(ch);
+                    ch.configureBlocking(false);
+                    ch.register(listener.selector, SelectionKey.OP_ACCEPT, t);
+                }
+            } catch (IOException e) {
+                listener.close();
+                throw e;
+            }
+            return listener;
+        }
+
+        /**
+         * Wait for the next connection on any transport.
+         *
+         * @throws AsynchronousCloseException if {@link #close()} was called
+         */
+        public Connection accept() throws IOException {
+            try {
+                while (!closed) {
+                    selector.select();
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        SocketChannel ch = ((ServerSocketChannel) key.channel()).accept();
+                        if (ch != null) {
+                            selector.selectedKeys().remove(key);
+                            ch.configureBlocking(true);
+                            return new Connection(ch, (Transport) key.attachment());
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (ClosedSelectorException e) {
+                // closed while waiting
+            }
+            throw new AsynchronousCloseException();
+        }
+
+        public boolean isOpen() {
+            return !closed;
+        }
+
+        @Override
+        public String toString() {
+            return transports.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            selector.wakeup();
+            for (ServerSocketChannel ch : channels) {
+                ch.close();
+            }
+            selector.close();
+            for (Transport t : transports) {
+                if (t.isUnix()) {
+                    Files.deleteIfExists(((UnixDomainSocketAddress) t.address).getPath());
+                }
+            }
+        }
+    }
+
+    /**
+     * One blocking connection. Its streams may be used from different
+     * threads at the same time, one reader and one writer, which the
+     * {@link java.nio.channels.Channels} streams do not allow.
+     *
+     * The server may switch the channel to non-blocking mode to read it from
+     * an {@link EventLoopGroup}. Output the socket cannot take at once is
+     * then queued here and written by {@link #onWritable()} when the loop's
+     * selector reports the socket writable, so a slow reader never stalls
+     * the loop. A peer that lets more than {@link #MAX_BACKLOG} bytes pile
+     * up gets a write error instead.
+     */
+    public static final class Connection implements Closeable {
+
+        static final int MAX_BACKLOG = 1 << 20;
+
+        private final SocketChannel channel;
+        private final Transport transport;
+        private final InputStream in;
+        private final OutputStream out;
+
+        // Guarded by out
+        private final ArrayDeque<ByteBuffer> backlog = new ArrayDeque<>();
+        private int backlogBytes;
+        private SelectionKey key;
+
+        Connection(SocketChannel channel, Transport transport) throws IOException {
+            this.channel = channel;
+            this.transport = transport;
+            if (!transport.isUnix()) {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            }
+            this.in = new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    byte[] one = new byte[1];
+                    return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return len == 0 ? 0 : channel.read(ByteBuffer.wrap(b, off, len));
+                }
+            };
+            this.out = new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[] {(byte) b}, 0, 1);
+                }
+
+                @Override
+                public synchronized void write(byte[] b, int off, int len) throws IOException {
+                    ByteBuffer buf = ByteBuffer.wrap(b, off, len);
+                    if (backlog.isEmpty()) {
+                        channel.write(buf);
+                        if (!buf.hasRemaining()) {
+                            return;
+                        }
+                    }
+                    if (channel.isBlocking()) {
+                        while (buf.hasRemaining()) {
+                            channel.write(buf);
+                        }
+                        return;
+                    }
+                    enqueue(buf);
+                }
+            };
+        }
+
+        public InputStream getInputStream() {
+            return in;
+        }
+
+        public OutputStream getOutputStream() {
+            return out;
+        }
+
+        public Transport getTransport() {
+            return transport;
+        }
+
+        SocketChannel channel() {
+            return channel;
+        }
+
+        /**
+         * Use {@code key}, the channel's key on its event loop's selector,
+         * for write interest while output is queued. Call on the loop thread.
+         */
+        void attach(SelectionKey key) {
+            synchronized (out) {
+                this.key = key;
+                if (!backlog.isEmpty()) {
+                    key.interestOpsOr(SelectionKey.OP_WRITE);
+                }
+            }
+        }
+
+        /**
+         * Write as much queued output as the socket takes; drops write
+         * interest once the queue is empty. Call when the attached key is
+         * writable.
+         */
+        void onWritable() throws IOException {
+            synchronized (out) {
+                while (!backlog.isEmpty()) {
+                    ByteBuffer head = backlog.peek();
+                    backlogBytes -= channel.write(head);
+                    if (head.hasRemaining()) {
+                        return;
+                    }
+                    backlog.poll();
+                }
+                if (key != null && key.isValid()) {
+                    key.interestOpsAnd(~SelectionKey.OP_WRITE);
+                }
+            }
+        }
+
+        /**
+         * Bytes written but not yet taken by the socket.
+         */
+        public int backlogBytes() {
+            synchronized (out) {
+                return backlogBytes;
+            }
+        }
+
+        private void enqueue(ByteBuffer rest) throws IOException {
+            if (backlogBytes + rest.remaining() > MAX_BACKLOG) {
+                throw new IOException("Peer stopped reading");
+            }
+            // The caller may reuse its array as soon as write() returns.
+            ByteBuffer copy = ByteBuffer.allocate(rest.remaining());
+            copy.put(rest).flip();
+            backlog.add(copy);
+            backlogBytes += copy.remaining();
+            if (key != null && key.isValid()) {
+                key.interestOpsOr(SelectionKey.OP_WRITE);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package splendor.network;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+import splendor.game.engine.Game;
+import splendor.game.engine.StandardGameFactory;
+import splendor.util.LatencyHistogram;
+
+/**
+ * Compares TCP loopback with a Unix domain socket for co-located players.
+ *
+ * Two measurements per transport:
+ * <ul>
+ *   <li>echo: one connection sends an `ACTION` line and the peer answers
+ *   with a real `SNAP` line, using the server's own {@link Outbox} and
+ *   reader, one round trip at a time. This shows the cost of the transport
+ *   alone.</li>
+ *   <li>game: {@link LoadGenerator} with no think time against an embedded
+ *   {@link Server}, i.e. many bot-speed tables on the full stack.</li>
+ * </ul>
+ * CPU figures are for the whole process, both ends included.
+ *
+ * Usage: `java splendor.network.TransportBenchmark [key=value ...]`
+ * <pre>
+ * port=4200                  TCP port (game runs use port+1)
+ * unix=/tmp/splendor-bench.sock
+ * messages=100000            echo round trips per transport
+ * clients=64 table=2         simulated players for the game runs
+ * duration=10                seconds per game run
+ * </pre>
+ */
+public class TransportBenchmark {
+
+    private static final String ACTION_LINE = "ACTION BUY MARKET 2 3";
+
+    public static void main(String[] args) throws Exception {
+        int port = 4200;
+        String unixPath = "/tmp/splendor-bench.sock";
+        int messages = 100_000;
+        int clients = 64;
+        int table = 2;
+        int duration = 10;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value: " + arg);
+            }
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(0, eq).toLowerCase(Locale.ROOT)) {
+                case "port" -> port = Integer.parseInt(value);
+                case "unix" -> unixPath = value;
+                case "messages" -> messages = Integer.parseInt(value);
+                case "clients" -> clients = Integer.parseInt(value);
+                case "table" -> table = Integer.parseInt(value);
+                case "duration" -> duration = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        Game game = StandardGameFactory.createGame(List.of("Alice", "Bob", "Carol"));
+        String reply = MessageHandler.formatSnapshot(game.getState(), 0, 0);
+
+        Transport tcp = Transport.tcp("localhost", port);
+        Transport unix = Transport.unix(unixPath);
+        System.out.println("== echo: " + messages + " round trips, " + reply.length() + "-byte replies ==");
+        Result echoTcp = echo(tcp, Transport.tcp(port), reply, messages);
+        Result echoUnix = echo(unix, unix, reply, messages);
+        print("tcp", echoTcp);
+        print("unix", echoUnix);
+
+        System.out.println("== game: " + clients + " players, no think time, " + duration + "s per transport ==");
+        Result gameTcp = game(port + 1, null, clients, table, duration);
+        Result gameUnix = game(port + 1, unixPath, clients, table, duration);
+        System.out.println("== results ==");
+        print("echo tcp", echoTcp);
+        print("echo unix", echoUnix);
+        print("game tcp", gameTcp);
+        print("game unix", gameUnix);
+    }
+
+    private static Result echo(Transport connectTo, Transport listenOn, String reply, int messages) throws Exception {
+        BufferPool pool = new BufferPool();
+        try (Transport.Listener listener = Transport.Listener.open(List.of(listenOn), 1)) {
+            Thread peer = new Thread(() -> {
+                try (Transport.Connection conn = listener.accept()) {
+                    BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
+                    Outbox out = new Outbox(conn.getOutputStream(), pool);
+                    while (in.readLine() != null) {
+                        out.send(reply);
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    // the benchmark closed the connection
+                }
+            }, "echo-peer");
+            peer.setDaemon(true);
+            peer.start();
+
+            try (Transport.Connection conn = connectTo.connect()) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
+                Outbox out = new Outbox(conn.getOutputStream(), pool);
+                LatencyHistogram rtt = new LatencyHistogram();
+                int warmup = messages / 10;
+                long start = 0;
+                long startCpu = 0;
+                for (int i = -warmup; i < messages; i++) {
+                    if (i == 0) {
+                        start = System.nanoTime();
+                        startCpu = LoadGenerator.processCpuNanos();
+                    }
+                    long t0 = System.nanoTime();
+                    out.send(ACTION_LINE);
+                    out.flush();
+                    if (in.readLine() == null) {
+                        throw new IOException("Echo peer closed the connection");
+                    }
+                    if (i >= 0) {
+                        rtt.recordNanos(System.nanoTime() - t0);
+                    }
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                return new Result(messages, seconds, LoadGenerator.processCpuNanos() - startCpu, rtt, 0);
+            }
+        }
+    }
+
+    private static Result game(int port, String unixPath, int clients, int table, int duration) throws Exception {
+        LoadGenerator.Options o = new LoadGenerator.Options();
+        o.port = port;
+        o.unixPath = unixPath;
+        o.clients = clients;
+        o.tableSize = table;
+        o.thinkMinMillis = 0;
+        o.thinkMaxMillis = 0;
+        o.ramp = "burst";
+        o.durationSeconds = duration;
+        o.reportSeconds = duration;
+        LoadGenerator.Summary s = new LoadGenerator(o).run();
+        // Let the embedded server wind down before the next run reuses the port.
+        Thread.sleep(500);
+        return new Result(s.turns, s.seconds, s.cpuNanos, s.latency, s.errors);
+    }
+
+    private static void print(String label, Result r) {
+        System.out.printf("%-10s %9.0f ops/s  cpu/op=%-8s %s errors=%d%n", label, r.operations / r.seconds,
+                r.cpuNanos < 0 ? "n/a" : LatencyHistogram.format(r.cpuNanos / 1000 / Math.max(1, r.operations)),
+                r.latency.summary(), r.errors);
+    }
+
+    private static final class Result {
+        final long operations;
+        final double seconds;
+        final long cpuNanos;
+        final LatencyHistogram latency;
+        final long errors;
+
+        Result(long operations, double seconds, long cpuNanos, LatencyHistogram latency, long errors) {
+            this.operations = operations;
+            this.seconds = seconds;
+            this.cpuNanos = cpuNanos;
+            this.latency = latency;
+            this.errors = errors;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package splendor.network;
+
+import splendor.game.actions.DiscardTokensAction;
+import splendor.game.actions.GameAction;
+import splendor.model.GemType;
+import splendor.model.Player;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A whole turn submitted in one message: the action plus the answers to the
+ * follow-up questions the server would otherwise ask.
+ *
+ * Wire form (see {@link MessageHandler#parseTurn(String)}):
+ * <pre>
+ * TURN &lt;action&gt;[;DISCARD &lt;gems&gt;][;DISCARD_ORDER &lt;gem&gt;,...][;NOBLE &lt;board index&gt;]
+ * </pre>
+ */
+public class TurnRequest {
+
+    private final GameAction action;
+    private final Map<GemType, Integer> discards;
+    private final List<GemType> discardOrder;
+    private final int nobleIndex;
+
+    /**
+     * @param discards     exact tokens to return if over the limit, or null
+     * @param discardOrder colors to return first when over the limit (may be empty)
+     * @param nobleIndex   index into the board's nobles to claim if several qualify, or -1
+     */
+    public TurnRequest(GameAction action, Map<GemType, Integer> discards, List<GemType> discardOrder, int nobleIndex) {
+        if (action == null) {
+            throw new IllegalArgumentException("A turn needs an action");
+        }
+        this.action = action;
+        this.discards = discards;
+        this.discardOrder = List.copyOf(discardOrder);
+        this.nobleIndex = nobleIndex;
+    }
+
+    public GameAction getAction() {
+        return action;
+    }
+
+    public int getNobleIndex() {
+        return nobleIndex;
+    }
+
+    /**
+     * The discard this request declares for a player who is over the token
+     * limit, or null if it does not say how to get back to the limit.
+     */
+    public DiscardTokensAction discardFor(Player player) {
+        if (discards != null) {
+            return new DiscardTokensAction(discards);
+        }
+        int excess = player.getTotalTokens() - Player.MAX_TOKENS;
+        Map<GemType, Integer> chosen = new EnumMap<>(GemType.class);
+        for (GemType type : discardOrder) {
+            if (excess <= 0) {
+                break;
+            }
+            int available = player.getTokens().get(type) - chosen.getOrDefault(type, 0);
+            int n = Math.min(available, excess);
+            if (n > 0) {
+                chosen.merge(type, n, Integer::sum);
+                excess -= n;
+            }
+        }
+        return excess <= 0 && !chosen.isEmpty() ? new DiscardTokensAction(chosen) : null;
+    }
+}
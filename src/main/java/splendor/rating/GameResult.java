@@ -0,0 +1,61 @@
+package splendor.rating;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The outcome of one finished game: who played and where each finished.
+ * Places start at 0 for the winner; tied players share a place, as
+ * returned by {@code Game.finishingOrder()}.
+ */
+public final class GameResult {
+
+    private final String[] players;
+    private final int[] places;
+
+    public GameResult(List<String> players, int[] places) {
+        if (players.size() < 2 || players.size() != places.length) {
+            throw new IllegalArgumentException("A result needs a place for each of at least two players");
+        }
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < places.length; i++) {
+            String id = players.get(i);
+            if (id == null || id.isEmpty() || !seen.add(id)) {
+                throw new IllegalArgumentException("Player ids must be distinct and non-empty: " + players);
+            }
+            if (places[i] < 0 || places[i] >= places.length) {
+                throw new IllegalArgumentException("Place out of range: " + places[i]);
+            }
+        }
+        this.players = players.toArray(new String[0]);
+        this.places = places.clone();
+    }
+
+    public int size() {
+        return players.length;
+    }
+
+    public String getPlayer(int seat) {
+        return players[seat];
+    }
+
+    public int getPlace(int seat) {
+        return places[seat];
+    }
+
+    /**
+     * Score of {@code seat} against {@code other}: 1 if it finished ahead,
+     * 0.5 for a tie, 0 if behind.
+     */
+    double score(int seat, int other) {
+        int cmp = Integer.compare(places[other], places[seat]);
+        return cmp > 0 ? 1 : cmp == 0 ? 0.5 : 0;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(players) + " " + Arrays.toString(places);
+    }
+}
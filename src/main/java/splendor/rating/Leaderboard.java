@@ -0,0 +1,193 @@
+package splendor.rating;
+
+import java.util.List;
+
+/**
+ * Ratings in leaderboard order (highest rating first, then by id), kept in
+ * a treap whose nodes count their subtree, so inserting, removing, finding
+ * a player's rank and finding the player at a rank are all O(log n)
+ * expected. Not thread-safe; {@link RatingEngine} guards it.
+ */
+final class Leaderboard {
+
+    private static final class Node {
+        final PlayerRating entry;
+        final double rating; // the entry's rating when inserted, the key while in the tree
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(PlayerRating entry, int priority) {
+            this.entry = entry;
+            this.rating = entry.getRating();
+            this.priority = priority;
+        }
+    }
+
+    private Node root;
+    private int seed = 0x2545F491;
+
+    // results of split(), to avoid allocating a pair per call
+    private Node splitLeft;
+    private Node splitRight;
+
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * Add an entry under its current rating. It must not be in the tree.
+     */
+    void insert(PlayerRating entry) {
+        split(root, entry.getRating(), entry.getId());
+        Node left = splitLeft;
+        Node right = splitRight;
+        root = merge(merge(left, new Node(entry, nextPriority())), right);
+    }
+
+    /**
+     * Remove an entry; {@code rating} must be the rating it was inserted with.
+     *
+     * @return false if it was not found
+     */
+    boolean remove(double rating, String id) {
+        int before = size(root);
+        root = remove(root, rating, id);
+        return size(root) < before;
+    }
+
+    /**
+     * The 0-based position of an entry, or -1 if it is not in the tree.
+     */
+    int rank(double rating, String id) {
+        int rank = 0;
+        Node n = root;
+        while (n != null) {
+            int c = compare(rating, id, n);
+            if (c < 0) {
+                n = n.left;
+            } else if (c > 0) {
+                rank += size(n.left) + 1;
+                n = n.right;
+            } else {
+                return rank + size(n.left);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The entry at a 0-based position, or null past the end.
+     */
+    PlayerRating atRank(int rank) {
+        Node n = root;
+        while (n != null) {
+            int left = size(n.left);
+            if (rank < left) {
+                n = n.left;
+            } else if (rank == left) {
+                return n.entry;
+            } else {
+                rank -= left + 1;
+                n = n.right;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Append up to {@code count} entries starting at position {@code from}
+     * to {@code out}, in O(log n + count).
+     */
+    void range(int from, int count, List<PlayerRating> out) {
+        collect(root, from, from + count, 0, out);
+    }
+
+    private static void collect(Node n, int from, int to, int offset, List<PlayerRating> out) {
+        if (n == null || offset >= to || offset + n.size <= from) {
+            return;
+        }
+        int self = offset + size(n.left);
+        collect(n.left, from, to, offset, out);
+        if (self >= from && self < to) {
+            out.add(n.entry);
+        }
+        collect(n.right, from, to, self + 1, out);
+    }
+
+    /**
+     * Negative if the key (rating, id) comes before {@code n}.
+     */
+    private static int compare(double rating, String id, Node n) {
+        int c = Double.compare(n.rating, rating); // higher ratings first
+        return c != 0 ? c : id.compareTo(n.entry.getId());
+    }
+
+    /**
+     * Split {@code n} into the keys before (rating, id) and the rest.
+     */
+    private void split(Node n, double rating, String id) {
+        if (n == null) {
+            splitLeft = null;
+            splitRight = null;
+        } else if (compare(rating, id, n) <= 0) {
+            split(n.left, rating, id);
+            n.left = splitRight;
+            splitRight = update(n);
+        } else {
+            split(n.right, rating, id);
+            n.right = splitLeft;
+            splitLeft = update(n);
+        }
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            return update(a);
+        }
+        b.left = merge(a, b.left);
+        return update(b);
+    }
+
+    private static Node remove(Node n, double rating, String id) {
+        if (n == null) {
+            return null;
+        }
+        int c = compare(rating, id, n);
+        if (c == 0) {
+            return merge(n.left, n.right);
+        }
+        if (c < 0) {
+            n.left = remove(n.left, rating, id);
+        } else {
+            n.right = remove(n.right, rating, id);
+        }
+        return update(n);
+    }
+
+    private static Node update(Node n) {
+        n.size = 1 + size(n.left) + size(n.right);
+        return n;
+    }
+
+    private static int size(Node n) {
+        return n == null ? 0 : n.size;
+    }
+
+    private int nextPriority() {
+        int x = seed; // xorshift32
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        seed = x;
+        return x;
+    }
+}
@@ -0,0 +1,46 @@
+package splendor.rating;
+
+/**
+ * One player's (or bot's) current rating. Instances are owned by a
+ * {@link RatingEngine}, which changes them only under its lock; read them
+ * through the engine.
+ */
+public final class PlayerRating {
+
+    private final String id;
+    private double rating;
+    private int games;
+
+    PlayerRating(String id, double rating) {
+        this.id = id;
+        this.rating = rating;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public double getRating() {
+        return rating;
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    PlayerRating copy() {
+        PlayerRating c = new PlayerRating(id, rating);
+        c.games = games;
+        return c;
+    }
+
+    void update(double rating) {
+        this.rating = rating;
+        this.games++;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %.0f (%d games)", id, rating, games);
+    }
+}
@@ -0,0 +1,88 @@
+package splendor.rating;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Rates simulated games between players of known strength with a
+ * {@link RatingEngine}, then reports update, rank-lookup and page-query
+ * throughput and whether the top of the leaderboard is the truly
+ * strongest. With a log file it also times replaying the log.
+ *
+ * Usage: `java splendor.rating.RatingBenchmark [games] [players] [log file]`
+ */
+public class RatingBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int population = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        Path logFile = args.length > 2 ? Path.of(args[2]) : null;
+        Random rng = new Random(1);
+        double[] strength = new double[population];
+        for (int i = 0; i < population; i++) {
+            strength[i] = 1500 + 200 * rng.nextGaussian();
+        }
+
+        long start = System.nanoTime();
+        try (RatingEngine engine = logFile != null ? RatingEngine.open(logFile) : new RatingEngine()) {
+            double[] performance = new double[4];
+            for (int g = 0; g < games; g++) {
+                int n = 2 + rng.nextInt(3);
+                int[] seats = new int[n];
+                List<String> ids = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) {
+                    int p;
+                    do {
+                        p = rng.nextInt(population);
+                    } while (ids.contains("p" + p));
+                    seats[i] = p;
+                    ids.add("p" + p);
+                    performance[i] = strength[p] + 200 * rng.nextGaussian();
+                }
+                int[] places = new int[n];
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        if (performance[j] > performance[i]) {
+                            places[i]++;
+                        }
+                    }
+                }
+                engine.record(new GameResult(ids, places));
+            }
+            engine.flush();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%,d games among %,d players: %,.0f games/s%n", games, engine.size(), games / seconds);
+
+            int lookups = 1_000_000;
+            long sink = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                sink += engine.rank("p" + rng.nextInt(population));
+            }
+            seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("rank lookups: %,.0f/s (checksum %d)%n", lookups / seconds, sink);
+            start = System.nanoTime();
+            for (int i = 0; i < lookups / 10; i++) {
+                sink += engine.page(1 + rng.nextInt(Math.max(1, engine.size() - 10)), 10).size();
+            }
+            seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("pages of 10: %,.0f/s%n", lookups / 10 / seconds);
+            for (PlayerRating p : engine.top(5)) {
+                System.out.printf("  #%d %s, true strength %.0f%n", engine.rank(p.getId()), p,
+                        strength[Integer.parseInt(p.getId().substring(1))]);
+            }
+        }
+
+        if (logFile != null) {
+            start = System.nanoTime();
+            try (RatingEngine replayed = RatingEngine.open(logFile)) {
+                System.out.printf("replayed %,d bytes of log in %.1fs, %d players%n", Files.size(logFile),
+                        (System.nanoTime() - start) / 1e9, replayed.size());
+            }
+        }
+    }
+}
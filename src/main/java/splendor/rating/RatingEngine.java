@@ -0,0 +1,183 @@
+package splendor.rating;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import splendor.util.Metrics;
+
+/**
+ * Multi-player Elo ratings for players and bots, updated one finished game
+ * at a time.
+ *
+ * A game of n players counts as the n(n-1)/2 pairwise matches implied by
+ * the finishing order (a shared place is a draw). Each player's change is
+ * the usual Elo update summed over its opponents and divided by n - 1, so
+ * a game moves a rating about as much whatever the table size. New players
+ * use a larger K for their first {@link #PROVISIONAL_GAMES} games so they
+ * reach their level quickly.
+ *
+ * Ratings are held in a map for lookups by id and in a {@link Leaderboard}
+ * for rank queries, both O(log n) or better. With a log (see
+ * {@link #open}) every game is appended to a {@link RatingLog} and the
+ * ratings are rebuilt from it on restart. All methods are thread-safe;
+ * tables on different threads may record results concurrently.
+ */
+public class RatingEngine implements Closeable {
+
+    public static final double INITIAL_RATING = 1500;
+    public static final int PROVISIONAL_GAMES = 20;
+
+    private static final double K = 32;
+    private static final double PROVISIONAL_K = 64;
+    private static final LongAdder GAMES = Metrics.counter("ratings.games");
+
+    private final Map<String, PlayerRating> players = new HashMap<>();
+    private final Leaderboard board = new Leaderboard();
+    private RatingLog log;
+
+    /**
+     * An in-memory engine that forgets everything on exit.
+     */
+    public RatingEngine() {
+    }
+
+    /**
+     * An engine backed by an append-only log: the games already in it are
+     * replayed, and new ones are appended.
+     */
+    public static RatingEngine open(Path logFile) throws IOException {
+        RatingEngine engine = new RatingEngine();
+        RatingLog.replay(logFile, engine::apply);
+        engine.log = RatingLog.open(logFile);
+        return engine;
+    }
+
+    /**
+     * An engine on the log named by `-Dsplendor.ratings`, or null if the
+     * property is not set.
+     */
+    public static RatingEngine fromSystemProperties() throws IOException {
+        String file = System.getProperty("splendor.ratings");
+        return file == null ? null : open(Path.of(file));
+    }
+
+    /**
+     * Update the ratings of everyone in a finished game, and log it.
+     */
+    public synchronized void record(GameResult result) throws IOException {
+        if (log != null) {
+            log.append(result);
+        }
+        apply(result);
+    }
+
+    private synchronized void apply(GameResult result) {
+        int n = result.size();
+        PlayerRating[] entries = new PlayerRating[n];
+        double[] before = new double[n];
+        for (int i = 0; i < n; i++) {
+            entries[i] = players.computeIfAbsent(result.getPlayer(i), this::newPlayer);
+            before[i] = entries[i].getRating();
+        }
+        for (int i = 0; i < n; i++) {
+            double surprise = 0;
+            for (int j = 0; j < n; j++) {
+                if (j != i) {
+                    surprise += result.score(i, j) - expected(before[i], before[j]);
+                }
+            }
+            double k = entries[i].getGames() < PROVISIONAL_GAMES ? PROVISIONAL_K : K;
+            board.remove(before[i], entries[i].getId());
+            entries[i].update(before[i] + k * surprise / (n - 1));
+            board.insert(entries[i]);
+        }
+        GAMES.increment();
+    }
+
+    private PlayerRating newPlayer(String id) {
+        PlayerRating p = new PlayerRating(id, INITIAL_RATING);
+        board.insert(p);
+        return p;
+    }
+
+    /**
+     * Expected score of a player rated {@code a} against one rated {@code b}.
+     */
+    static double expected(double a, double b) {
+        return 1 / (1 + Math.pow(10, (b - a) / 400));
+    }
+
+    /**
+     * A player's rating, or {@link #INITIAL_RATING} if they have no rated games.
+     */
+    public synchronized double rating(String id) {
+        PlayerRating p = players.get(id);
+        return p == null ? INITIAL_RATING : p.getRating();
+    }
+
+    /**
+     * A copy of a player's rating, or null if they have no rated games.
+     */
+    public synchronized PlayerRating get(String id) {
+        PlayerRating p = players.get(id);
+        return p == null ? null : p.copy();
+    }
+
+    /**
+     * A player's leaderboard position, 1 for the top, or 0 if unrated.
+     */
+    public synchronized int rank(String id) {
+        PlayerRating p = players.get(id);
+        return p == null ? 0 : board.rank(p.getRating(), id) + 1;
+    }
+
+    /**
+     * The {@code count} best players, best first.
+     */
+    public List<PlayerRating> top(int count) {
+        return page(1, count);
+    }
+
+    /**
+     * {@code count} players from leaderboard position {@code fromRank} (1-based) down.
+     */
+    public synchronized List<PlayerRating> page(int fromRank, int count) {
+        if (fromRank < 1 || count < 0) {
+            throw new IllegalArgumentException("Invalid leaderboard page: " + fromRank + "+" + count);
+        }
+        List<PlayerRating> out = new ArrayList<>(Math.min(count, board.size()));
+        board.range(fromRank - 1, count, out);
+        out.replaceAll(PlayerRating::copy);
+        return out;
+    }
+
+    /**
+     * Number of rated players.
+     */
+    public synchronized int size() {
+        return players.size();
+    }
+
+    /**
+     * Push logged games to the file.
+     */
+    public synchronized void flush() throws IOException {
+        if (log != null) {
+            log.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package splendor.rating;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of rated games, one per line:
+ *
+ * <pre>
+ * alice=0 bob=2 Bot%3Dmcts=1
+ * </pre>
+ *
+ * Each token is a URL-encoded player id and that player's place. Ratings
+ * are not stored: replaying the games through a {@link RatingEngine}
+ * rebuilds them exactly, so the log is the only state to keep. A line cut
+ * short by a crash is dropped when the log is reopened.
+ */
+public final class RatingLog implements Closeable {
+
+    private final BufferedWriter out;
+
+    private RatingLog(BufferedWriter out) {
+        this.out = out;
+    }
+
+    /**
+     * Open a log for appending, creating it if needed, after dropping a
+     * torn last line.
+     */
+    public static RatingLog open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+        try {
+            channel.truncate(completeLength(channel));
+            channel.position(channel.size());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new RatingLog(new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel),
+                StandardCharsets.UTF_8), 1 << 16));
+    }
+
+    /**
+     * Feed every complete game in the log to {@code sink}, oldest first.
+     *
+     * @return the number of games read; 0 if the file does not exist
+     */
+    public static long replay(Path file, Consumer<GameResult> sink) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long games = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            String pending = null;
+            while ((line = in.readLine()) != null) {
+                if (pending != null) {
+                    sink.accept(parse(pending, games + 1));
+                    games++;
+                }
+                pending = line;
+            }
+            // The last line counts only if it ended with a newline, which
+            // readLine() cannot tell; check the file itself.
+            if (pending != null && endsWithNewline(file)) {
+                sink.accept(parse(pending, games + 1));
+                games++;
+            }
+        }
+        return games;
+    }
+
+    /**
+     * Append a game. It reaches the file on {@link #flush()} or when the
+     * buffer fills.
+     */
+    public void append(GameResult result) throws IOException {
+        StringBuilder sb = new StringBuilder(32 * result.size());
+        for (int i = 0; i < result.size(); i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(URLEncoder.encode(result.getPlayer(i), StandardCharsets.UTF_8)).append('=').append(result.getPlace(i));
+        }
+        sb.append('\n');
+        out.write(sb.toString());
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private static GameResult parse(String line, long lineNumber) throws IOException {
+        String[] tokens = line.trim().split(" ");
+        List<String> players = new ArrayList<>(tokens.length);
+        int[] places = new int[tokens.length];
+        try {
+            for (int i = 0; i < tokens.length; i++) {
+                int eq = tokens[i].lastIndexOf('=');
+                players.add(URLDecoder.decode(tokens[i].substring(0, eq), StandardCharsets.UTF_8));
+                places[i] = Integer.parseInt(tokens[i].substring(eq + 1));
+            }
+            return new GameResult(players, places);
+        } catch (RuntimeException e) {
+            throw new IOException("Bad rating log line " + lineNumber + ": " + line, e);
+        }
+    }
+
+    /**
+     * Length of the file up to and including its last newline.
+     */
+    private static long completeLength(FileChannel channel) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        long end = channel.size();
+        while (end > 0) {
+            int n = (int) Math.min(buf.capacity(), end);
+            buf.clear().limit(n);
+            channel.read(buf, end - n);
+            for (int i = n - 1; i >= 0; i--) {
+                if (buf.get(i) == '\n') {
+                    return end - n + i + 1;
+                }
+            }
+            end -= n;
+        }
+        return 0;
+    }
+
+    private static boolean endsWithNewline(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return completeLength(channel) == channel.size();
+        }
+    }
+}
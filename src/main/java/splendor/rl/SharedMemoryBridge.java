@@ -0,0 +1,235 @@
+package splendor.rl;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Serves a {@link VectorEnv} to a trainer process on the same machine
+ * through a memory-mapped file, with no serialization: the trainer maps
+ * the same file (e.g. with numpy.memmap) and reads and writes the arrays
+ * in place.
+ *
+ * Layout, native byte order, every region 64-byte aligned:
+ * <pre>
+ * 0   int  magic 0x53504C52 ("SPLR")   4  int version (2)
+ * 8   int  numEnvs    12 int obsSize   16 int numActions   20 int maxPlayers
+ * 24  int  players
+ * 32  long request    trainer: bump after writing command and actions
+ * 40  long response   bridge: set to request when the results are written
+ * 48  int  command    0 = step, 1 = reset, 2 = close
+ * 52  int  status     bridge: 0 = done, 1 = rejected (nothing was stepped)
+ * 56  int  errorEnv   bridge: first environment with an illegal action, else -1
+ * 64  int[8]   byte offsets of the regions below, in order (see {@link #regionOffsets})
+ * 128 int[numEnvs]                actions            (trainer writes)
+ *     float[numEnvs * obsSize]    observations       (bridge writes the rest)
+ *     byte[numEnvs * numActions]  masks
+ *     float[numEnvs]              rewards
+ *     byte[numEnvs]               dones
+ *     byte[numEnvs]               truncated
+ *     float[numEnvs * maxPlayers] outcomes
+ *     int[numEnvs]                toPlay
+ * </pre>
+ * A trainer should read the region offsets from bytes 64..95 rather than
+ * recompute the alignment. A rejected step leaves every game and
+ * result array as it was, so the trainer must check the status before
+ * reading the results. The magic number is written last, after
+ * the results of the initial reset, so a trainer can wait for it and then
+ * read the first observations.
+ *
+ * Usage: `java splendor.rl.SharedMemoryBridge <file> [envs] [players] [threads] [selfplay]`
+ */
+public class SharedMemoryBridge implements AutoCloseable {
+
+    public static final int MAGIC = 0x53504C52;
+    public static final int VERSION = 2;
+    public static final int COMMAND_STEP = 0;
+    public static final int COMMAND_RESET = 1;
+    public static final int COMMAND_CLOSE = 2;
+    public static final int STATUS_DONE = 0;
+    public static final int STATUS_REJECTED = 1;
+
+    private static final int REQUEST = 32;
+    private static final int RESPONSE = 40;
+    private static final int COMMAND = 48;
+    private static final int STATUS = 52;
+    private static final int ERROR_ENV = 56;
+    private static final int OFFSETS = 64;
+    private static final int REGIONS = 8;
+    private static final int HEADER = align(OFFSETS + 4 * REGIONS);
+    private static final int SPIN_BEFORE_PARK = 10_000;
+    private static final long PARK_NANOS = 20_000;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final VectorEnv env;
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int[] actions;
+    private final int actionsAt;
+    private final int observationsAt;
+    private final int masksAt;
+    private final int rewardsAt;
+    private final int donesAt;
+    private final int truncatedAt;
+    private final int outcomesAt;
+    private final int toPlayAt;
+    private final byte[] flags;
+
+    public SharedMemoryBridge(VectorEnv env, Path file) throws IOException {
+        this.env = env;
+        int n = env.getNumEnvs();
+        int at = HEADER;
+        actionsAt = at;
+        at = align(at + 4 * n);
+        observationsAt = at;
+        at = align(at + 4 * n * VectorEnv.OBS_SIZE);
+        masksAt = at;
+        at = align(at + n * VectorEnv.NUM_ACTIONS);
+        rewardsAt = at;
+        at = align(at + 4 * n);
+        donesAt = at;
+        at = align(at + n);
+        truncatedAt = at;
+        at = align(at + n);
+        outcomesAt = at;
+        at = align(at + 4 * n * VectorEnv.MAX_PLAYERS);
+        toPlayAt = at;
+        at = align(at + 4 * n);
+
+        this.actions = new int[n];
+        this.flags = new byte[n];
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, at);
+        map.order(ByteOrder.nativeOrder());
+
+        map.putInt(4, VERSION);
+        map.putInt(8, n);
+        map.putInt(12, VectorEnv.OBS_SIZE);
+        map.putInt(16, VectorEnv.NUM_ACTIONS);
+        map.putInt(20, VectorEnv.MAX_PLAYERS);
+        map.putInt(24, env.getPlayerCount());
+        int[] offsets = regionOffsets();
+        for (int i = 0; i < offsets.length; i++) {
+            map.putInt(OFFSETS + 4 * i, offsets[i]);
+        }
+        publish(0, STATUS_DONE, -1);
+        INTS.setVolatile(map, 0, MAGIC);
+    }
+
+    /**
+     * Byte offsets of actions, observations, masks, rewards, dones,
+     * truncated, outcomes and toPlay, in that order.
+     */
+    public int[] regionOffsets() {
+        return new int[] {actionsAt, observationsAt, masksAt, rewardsAt, donesAt, truncatedAt, outcomesAt, toPlayAt};
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java splendor.rl.SharedMemoryBridge <file> [envs] [players] [threads] [selfplay]");
+            return;
+        }
+        int envs = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int players = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        boolean selfPlay = args.length <= 4 || Boolean.parseBoolean(args[4]);
+        try (VectorEnv env = new VectorEnv(envs, players, selfPlay, threads);
+             SharedMemoryBridge bridge = new SharedMemoryBridge(env, Path.of(args[0]))) {
+            System.out.println("Serving " + envs + " environments on " + args[0]
+                    + " (obs " + VectorEnv.OBS_SIZE + ", actions " + VectorEnv.NUM_ACTIONS + ")");
+            bridge.serve();
+        }
+    }
+
+    /**
+     * Answer trainer requests until it sends the close command.
+     */
+    public void serve() {
+        long seen = 0;
+        while (true) {
+            long request = waitForRequest(seen);
+            seen = request;
+            int command = (int) INTS.getVolatile(map, COMMAND);
+            if (command == COMMAND_CLOSE) {
+                LONGS.setVolatile(map, RESPONSE, request);
+                return;
+            }
+            if (command == COMMAND_RESET) {
+                env.reset();
+                publish(request, STATUS_DONE, -1);
+                continue;
+            }
+            map.asIntBuffer().position(actionsAt / 4).get(actions);
+            int bad = env.firstIllegalAction(actions);
+            if (bad >= 0) {
+                System.err.println("Rejected request " + request + ": illegal action " + actions[bad]
+                        + " in environment " + bad);
+                publish(request, STATUS_REJECTED, bad);
+                continue;
+            }
+            env.step(actions);
+            publish(request, STATUS_DONE, -1);
+        }
+    }
+
+    private long waitForRequest(long seen) {
+        int spins = 0;
+        long request;
+        while ((request = (long) LONGS.getVolatile(map, REQUEST)) == seen) {
+            if (++spins < SPIN_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+        return request;
+    }
+
+    private void publish(long response, int status, int errorEnv) {
+        map.putInt(STATUS, status);
+        map.putInt(ERROR_ENV, errorEnv);
+        ByteBuffer b = map.duplicate().order(ByteOrder.nativeOrder());
+        b.position(observationsAt);
+        b.asFloatBuffer().put(env.observations);
+        b.position(masksAt);
+        b.put(env.masks);
+        b.position(rewardsAt);
+        b.asFloatBuffer().put(env.rewards);
+        b.position(donesAt);
+        b.put(toBytes(env.dones));
+        b.position(truncatedAt);
+        b.put(toBytes(env.truncated));
+        b.position(outcomesAt);
+        b.asFloatBuffer().put(env.outcomes);
+        b.position(toPlayAt);
+        b.asIntBuffer().put(env.toPlay);
+        // The volatile store orders all the writes above before it.
+        LONGS.setVolatile(map, RESPONSE, response);
+    }
+
+    private byte[] toBytes(boolean[] values) {
+        for (int i = 0; i < values.length; i++) {
+            flags[i] = values[i] ? (byte) 1 : 0;
+        }
+        return flags;
+    }
+
+    private static int align(int offset) {
+        return (offset + 63) & ~63;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
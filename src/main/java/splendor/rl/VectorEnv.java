@@ -0,0 +1,650 @@
+package splendor.rl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import splendor.ai.MoveGenerator;
+import splendor.archive.GameArchive;
+import splendor.archive.GameRecorder;
+import splendor.ai.TurnResolver;
+import splendor.game.actions.MoveCodec;
+import splendor.game.engine.Game;
+import splendor.game.engine.GameState;
+import splendor.game.engine.StandardGameFactory;
+import splendor.model.Board;
+import splendor.model.Card;
+import splendor.model.CardCatalog;
+import splendor.model.GemType;
+import splendor.model.Noble;
+import splendor.model.Player;
+
+/**
+ * N games stepped in lockstep for reinforcement learning, in the style of a
+ * vectorized Gym environment.
+ *
+ * Every step takes one action index per game and writes the results into
+ * preallocated public arrays, one row per game:
+ * <ul>
+ *   <li>{@link #observations}: {@link #OBS_SIZE} floats seen from the seat
+ *   to move (that seat first, the others in turn order after it);</li>
+ *   <li>{@link #masks}: {@link #NUM_ACTIONS} bytes, 1 where the action is legal;</li>
+ *   <li>{@link #rewards}: for the seat that just acted, +1 if the step won
+ *   the game, -1 if it ended the game without winning, else 0;</li>
+ *   <li>{@link #dones}, {@link #truncated}: the game ended, or was cut off
+ *   at {@link #MAX_TURNS} or because nobody could move;</li>
+ *   <li>{@link #outcomes}: on a finished step, +1/-1 per seat (absolute seat
+ *   numbers), so self-play trainers can credit every seat;</li>
+ *   <li>{@link #toPlay}: absolute seat to move next.</li>
+ * </ul>
+ * Finished games are reset at once, so the row after a done step already
+ * describes the first position of a new game.
+ *
+ * Actions are the {@link MoveGenerator} main actions in a fixed order (see
+ * {@link #actionMove}). Discards and noble choices are made by
+ * {@link TurnResolver}, and forced passes are played automatically. With
+ * {@code selfPlay} the agent plays every seat; otherwise it plays seat 0 and
+ * the other seats play uniformly random legal moves.
+ *
+ * With {@link #recordTo} every game, including those cut off, is appended
+ * to a {@link GameArchive} when it ends, so the games a policy was trained
+ * on can be analyzed or replayed later.
+ */
+public class VectorEnv implements AutoCloseable {
+
+    public static final int NUM_ACTIONS = MoveGenerator.MAX_MOVES;
+    public static final int MAX_PLAYERS = 4;
+    public static final int MAX_TURNS = 200;
+
+    static final int CARD_FEATURES = 12;   // present, points, bonus one-hot (5), cost (5)
+    static final int NOBLE_FEATURES = 6;   // present, requirements (5)
+    static final int PLAYER_FEATURES = 15; // present, tokens (6), bonuses (5), points, reserved, purchased
+    static final int MAX_NOBLES = MAX_PLAYERS + 1;
+    static final int GLOBAL_FEATURES = 6 + 3 + 2; // supply, deck sizes, final round, turn
+
+    public static final int OBS_SIZE = GLOBAL_FEATURES
+            + 3 * Board.FACE_UP_PER_LEVEL * CARD_FEATURES
+            + MAX_NOBLES * NOBLE_FEATURES
+            + MAX_PLAYERS * PLAYER_FEATURES
+            + Player.MAX_RESERVED_CARDS * CARD_FEATURES;
+
+    private static final GemType[] GEMS = GemType.values();
+    private static final int[] ACTION_MOVES = new int[NUM_ACTIONS];
+    private static final int TAKE_ACTIONS = 15;
+    private static final int BUY_MARKET = 15;
+    private static final int BUY_RESERVED = 27;
+    private static final int RESERVE_MARKET = 30;
+    private static final int RESERVE_TOP = 42;
+
+    static {
+        // Take moves in MoveGenerator's order: three different colors, then two of one.
+        int n = 0;
+        for (int a = 0; a < 5; a++) {
+            for (int b = a + 1; b < 5; b++) {
+                for (int c = b + 1; c < 5; c++) {
+                    int[] counts = new int[GEMS.length];
+                    counts[a] = 1;
+                    counts[b] = 1;
+                    counts[c] = 1;
+                    ACTION_MOVES[n++] = MoveCodec.takeTokens(counts);
+                }
+            }
+        }
+        for (int a = 0; a < 5; a++) {
+            int[] counts = new int[GEMS.length];
+            counts[a] = 2;
+            ACTION_MOVES[n++] = MoveCodec.takeTokens(counts);
+        }
+        for (int level = 1; level <= 3; level++) {
+            for (int slot = 0; slot < Board.FACE_UP_PER_LEVEL; slot++) {
+                int k = (level - 1) * Board.FACE_UP_PER_LEVEL + slot;
+                ACTION_MOVES[BUY_MARKET + k] = MoveCodec.buyFromMarket(level, slot);
+                ACTION_MOVES[RESERVE_MARKET + k] = MoveCodec.reserveFromMarket(level, slot);
+            }
+            ACTION_MOVES[RESERVE_TOP + level - 1] = MoveCodec.reserveFromTopOfDeck(level);
+        }
+        for (int i = 0; i < Player.MAX_RESERVED_CARDS; i++) {
+            ACTION_MOVES[BUY_RESERVED + i] = MoveCodec.buyFromReserved(i);
+        }
+    }
+
+    public final float[] observations;
+    public final byte[] masks;
+    public final float[] rewards;
+    public final boolean[] dones;
+    public final boolean[] truncated;
+    public final float[] outcomes;
+    public final int[] toPlay;
+
+    private final int numEnvs;
+    private final List<String> names;
+    private final boolean selfPlay;
+    private final CardCatalog catalog = CardCatalog.standard();
+    private final CardRows cardRows = new CardRows(catalog);
+    private final Game[] games;
+    private final int[] turns;
+    private final Worker[] workers;
+    private final List<Callable<Void>> tasks = new ArrayList<>();
+    private final ExecutorService pool;
+    private int[] pendingActions;
+    private GameArchive archive;
+    private GameRecorder[] recorders;
+
+    /**
+     * @param threads worker threads stepping disjoint slices of the games;
+     *                1 steps everything on the caller's thread
+     */
+    public VectorEnv(int numEnvs, int players, boolean selfPlay, int threads) {
+        if (numEnvs < 1 || players < 2 || players > MAX_PLAYERS || threads < 1) {
+            throw new IllegalArgumentException("Invalid environment size");
+        }
+        this.numEnvs = numEnvs;
+        this.selfPlay = selfPlay;
+        List<String> n = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            n.add("P" + i);
+        }
+        this.names = List.copyOf(n);
+        this.observations = new float[numEnvs * OBS_SIZE];
+        this.masks = new byte[numEnvs * NUM_ACTIONS];
+        this.rewards = new float[numEnvs];
+        this.dones = new boolean[numEnvs];
+        this.truncated = new boolean[numEnvs];
+        this.outcomes = new float[numEnvs * MAX_PLAYERS];
+        this.toPlay = new int[numEnvs];
+        this.games = new Game[numEnvs];
+        this.turns = new int[numEnvs];
+
+        int slices = Math.min(threads, numEnvs);
+        this.workers = new Worker[slices];
+        for (int t = 0; t < slices; t++) {
+            Worker w = new Worker(t * numEnvs / slices, (t + 1) * numEnvs / slices);
+            workers[t] = w;
+            tasks.add(w);
+        }
+        this.pool = slices > 1 ? Executors.newFixedThreadPool(slices, r -> {
+            Thread th = new Thread(r, "vector-env");
+            th.setDaemon(true);
+            return th;
+        }) : null;
+        reset();
+    }
+
+    /**
+     * Throughput check with a uniformly random policy, optionally recording
+     * the games:
+     * `java splendor.rl.VectorEnv [envs] [players] [threads] [seconds] [archive-dir]`
+     */
+    public static void main(String[] args) throws IOException {
+        int envs = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        GameArchive archive = args.length > 4 ? GameArchive.open(Path.of(args[4])) : null;
+        try (VectorEnv env = new VectorEnv(envs, players, true, threads)) {
+            if (archive != null) {
+                env.recordTo(archive);
+            }
+            int[] actions = new int[envs];
+            Random rng = new Random();
+            long steps = 0;
+            long games = 0;
+            long start = System.nanoTime();
+            long end = start + seconds * 1_000_000_000L;
+            while (System.nanoTime() < end) {
+                for (int i = 0; i < envs; i++) {
+                    actions[i] = randomLegalAction(env.masks, i, rng);
+                }
+                env.step(actions);
+                steps += envs;
+                for (int i = 0; i < envs; i++) {
+                    if (env.dones[i]) {
+                        games++;
+                    }
+                }
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d envs, %d threads: %.0f steps/s, %.0f games/s%n",
+                    envs, threads, steps / elapsed, games / elapsed);
+        } finally {
+            if (archive != null) {
+                System.out.println("Archive: " + archive.count() + " games");
+                archive.close();
+            }
+        }
+    }
+
+    /**
+     * A uniformly random action allowed by row {@code env} of {@code masks}.
+     */
+    public static int randomLegalAction(byte[] masks, int env, Random rng) {
+        int base = env * NUM_ACTIONS;
+        int count = 0;
+        int chosen = 0;
+        for (int a = 0; a < NUM_ACTIONS; a++) {
+            if (masks[base + a] != 0 && rng.nextInt(++count) == 0) {
+                chosen = a;
+            }
+        }
+        return chosen;
+    }
+
+    public int getNumEnvs() {
+        return numEnvs;
+    }
+
+    public int getPlayerCount() {
+        return names.size();
+    }
+
+    /**
+     * The move played for an action index.
+     */
+    public static int actionMove(int action) {
+        return ACTION_MOVES[action];
+    }
+
+    /**
+     * The action index of a main-action move, or -1 if it has none.
+     */
+    public static int actionIndex(int move) {
+        switch (MoveCodec.type(move)) {
+            case TAKE_TOKENS -> {
+                for (int i = 0; i < TAKE_ACTIONS; i++) {
+                    if (ACTION_MOVES[i] == move) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            case BUY_CARD -> {
+                int index = MoveCodec.index(move);
+                if (MoveCodec.flag(move)) {
+                    return index < Player.MAX_RESERVED_CARDS ? BUY_RESERVED + index : -1;
+                }
+                return marketAction(BUY_MARKET, MoveCodec.level(move), index);
+            }
+            case RESERVE_CARD -> {
+                int level = MoveCodec.level(move);
+                if (MoveCodec.flag(move)) {
+                    return level >= 1 && level <= 3 ? RESERVE_TOP + level - 1 : -1;
+                }
+                return marketAction(RESERVE_MARKET, level, MoveCodec.index(move));
+            }
+            default -> {
+                return -1;
+            }
+        }
+    }
+
+    private static int marketAction(int base, int level, int slot) {
+        if (level < 1 || level > 3 || slot >= Board.FACE_UP_PER_LEVEL) {
+            return -1;
+        }
+        return base + (level - 1) * Board.FACE_UP_PER_LEVEL + slot;
+    }
+
+    /**
+     * Append every game that ends from now on to {@code archive}, or stop
+     * recording if it is null. Games in progress are dealt again so their
+     * records are complete. The caller closes the archive.
+     *
+     * @throws IllegalArgumentException if the catalog's ids do not fit a
+     *                                  record, see {@link GameRecorder#checkCatalog}
+     */
+    public void recordTo(GameArchive archive) {
+        if (archive != null) {
+            GameRecorder.checkCatalog(catalog);
+        }
+        this.archive = archive;
+        if (archive != null && recorders == null) {
+            recorders = new GameRecorder[numEnvs];
+            for (int i = 0; i < numEnvs; i++) {
+                recorders[i] = new GameRecorder();
+            }
+        }
+        reset();
+    }
+
+    /**
+     * Start a new game in every slot.
+     */
+    public void reset() {
+        pendingActions = null;
+        run();
+    }
+
+    /**
+     * Play one action per game. All actions are checked first, so a
+     * rejected step leaves every game as it was.
+     *
+     * @param actions one action index per game, each allowed by its mask
+     * @throws IllegalArgumentException if an action is out of range or masked out
+     */
+    public void step(int[] actions) {
+        if (actions.length < numEnvs) {
+            throw new IllegalArgumentException("Expected " + numEnvs + " actions, got " + actions.length);
+        }
+        int bad = firstIllegalAction(actions);
+        if (bad >= 0) {
+            throw new IllegalArgumentException("Illegal action " + actions[bad] + " in environment " + bad);
+        }
+        pendingActions = actions;
+        run();
+    }
+
+    /**
+     * The first game whose action is out of range or masked out, or -1 if
+     * {@link #step} would accept them all.
+     */
+    public int firstIllegalAction(int[] actions) {
+        for (int i = 0; i < numEnvs; i++) {
+            int a = actions[i];
+            if (a < 0 || a >= NUM_ACTIONS || masks[i * NUM_ACTIONS + a] == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A game, for inspection. Do not modify it between steps.
+     */
+    public Game getGame(int env) {
+        return games[env];
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void run() {
+        if (pool == null) {
+            workers[0].call();
+            return;
+        }
+        try {
+            for (Future<Void> f : pool.invokeAll(tasks)) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while stepping", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Steps one contiguous slice of the games with its own scratch space.
+     */
+    private final class Worker implements Callable<Void> {
+        final int from;
+        final int to;
+        final MoveGenerator generator = new MoveGenerator();
+        final int[] moves = new int[MoveGenerator.MAX_MOVES];
+        final Random rng = new Random(ThreadLocalRandom.current().nextLong());
+        int passesInRow;
+
+        Worker(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Void call() {
+            int[] actions = pendingActions;
+            for (int i = from; i < to; i++) {
+                if (actions == null) {
+                    newGame(i);
+                } else {
+                    stepOne(i, actions[i]);
+                }
+            }
+            return null;
+        }
+
+        private void stepOne(int i, int action) {
+            Game game = games[i];
+            int actor = game.getCurrentPlayerIndex();
+            play(i, ACTION_MOVES[action]);
+            turns[i]++;
+            boolean cutOff = !advance(i);
+
+            rewards[i] = 0;
+            dones[i] = game.isGameOver() || cutOff;
+            truncated[i] = cutOff && !game.isGameOver();
+            Arrays.fill(outcomes, i * MAX_PLAYERS, (i + 1) * MAX_PLAYERS, 0f);
+            if (game.isGameOver()) {
+                Player winner = game.determineWinner();
+                List<Player> players = game.getState().getPlayers();
+                for (int seat = 0; seat < players.size(); seat++) {
+                    outcomes[i * MAX_PLAYERS + seat] = players.get(seat) == winner ? 1f : -1f;
+                }
+                rewards[i] = outcomes[i * MAX_PLAYERS + actor];
+            }
+            if (dones[i]) {
+                save(i);
+                newGame(i);
+            } else {
+                encode(i);
+            }
+        }
+
+        private void newGame(int i) {
+            if (archive != null) {
+                long seed = rng.nextLong();
+                games[i] = StandardGameFactory.createGame(names, catalog, new Random(seed));
+                recorders[i].begin(seed, names.size());
+            } else {
+                games[i] = StandardGameFactory.createGame(names, catalog);
+            }
+            turns[i] = 0;
+            if (!advance(i)) {
+                // A fresh deal always has moves; keep the state usable anyway.
+                Arrays.fill(masks, i * NUM_ACTIONS, (i + 1) * NUM_ACTIONS, (byte) 0);
+            }
+            encode(i);
+        }
+
+        /**
+         * Play forced passes and, without self-play, the random opponents,
+         * until the agent has a decision. Fills the mask for it.
+         *
+         * @return false if the game ended or was cut off instead
+         */
+        private boolean advance(int i) {
+            Game game = games[i];
+            passesInRow = 0;
+            while (!game.isGameOver()) {
+                if (turns[i] >= MAX_TURNS || passesInRow >= names.size()) {
+                    return false;
+                }
+                int count = generator.generate(game, moves);
+                if (count == 0) {
+                    play(i, MoveCodec.NONE);
+                    turns[i]++;
+                    passesInRow++;
+                    continue;
+                }
+                passesInRow = 0;
+                if (!selfPlay && game.getCurrentPlayerIndex() != 0) {
+                    play(i, moves[rng.nextInt(count)]);
+                    turns[i]++;
+                    continue;
+                }
+                int base = i * NUM_ACTIONS;
+                Arrays.fill(masks, base, base + NUM_ACTIONS, (byte) 0);
+                for (int k = 0; k < count; k++) {
+                    masks[base + actionIndex(moves[k])] = 1;
+                }
+                toPlay[i] = game.getCurrentPlayerIndex();
+                return true;
+            }
+            return false;
+        }
+
+        private void play(int i, int move) {
+            if (archive != null) {
+                recorders[i].play(games[i], move);
+            } else {
+                TurnResolver.playTurn(games[i], move);
+            }
+        }
+
+        private void save(int i) {
+            if (archive == null) {
+                return;
+            }
+            recorders[i].end(games[i]);
+            try {
+                archive.append(recorders[i]);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot archive game", e);
+            }
+        }
+
+        private void encode(int i) {
+            Game game = games[i];
+            encodeObservation(game.getState(), game.getCurrentPlayerIndex(), turns[i], game.isFinalRoundTriggered(),
+                    cardRows, observations, i * OBS_SIZE);
+        }
+    }
+
+    /**
+     * Write the observation of {@code state} for seat {@code me} at
+     * {@code out[offset .. offset + OBS_SIZE)}. Only information visible to
+     * that seat is used. Counts are scaled to roughly 0..1.
+     */
+    public static void encodeObservation(GameState state, int me, int turn, boolean finalRound, float[] out, int offset) {
+        encodeObservation(state, me, turn, finalRound, null, out, offset);
+    }
+
+    private static void encodeObservation(GameState state, int me, int turn, boolean finalRound, CardRows rows,
+                                          float[] out, int offset) {
+        int o = offset;
+        Board board = state.getBoard();
+        for (GemType g : GEMS) {
+            out[o++] = board.getSupplyTokens().get(g) / 7f;
+        }
+        for (int level = 1; level <= 3; level++) {
+            out[o++] = board.getDeck(level).size() / 40f;
+        }
+        out[o++] = finalRound ? 1f : 0f;
+        out[o++] = turn / (float) MAX_TURNS;
+
+        for (int level = 1; level <= 3; level++) {
+            for (int slot = 0; slot < Board.FACE_UP_PER_LEVEL; slot++) {
+                o = encodeCard(board.getFaceUpCard(level, slot), rows, out, o);
+            }
+        }
+
+        List<Noble> nobles = board.getNobles();
+        for (int k = 0; k < MAX_NOBLES; k++) {
+            Noble noble = k < nobles.size() ? nobles.get(k) : null;
+            out[o++] = noble != null ? 1f : 0f;
+            for (int c = 0; c < 5; c++) {
+                out[o++] = noble != null ? noble.getRequirement(GEMS[c]) / 4f : 0f;
+            }
+        }
+
+        List<Player> players = state.getPlayers();
+        for (int k = 0; k < MAX_PLAYERS; k++) {
+            Player p = k < players.size() ? players.get((me + k) % players.size()) : null;
+            if (p == null) {
+                Arrays.fill(out, o, o + PLAYER_FEATURES, 0f);
+                o += PLAYER_FEATURES;
+                continue;
+            }
+            out[o++] = 1f;
+            for (GemType g : GEMS) {
+                out[o++] = p.getTokens().get(g) / 7f;
+            }
+            for (int c = 0; c < 5; c++) {
+                out[o++] = p.getBonus(GEMS[c]) / 7f;
+            }
+            out[o++] = p.getPrestigePoints() / 15f;
+            out[o++] = p.getReservedCards().size() / (float) Player.MAX_RESERVED_CARDS;
+            out[o++] = p.getPurchasedCards().size() / 20f;
+        }
+
+        List<Card> reserved = players.get(me).getReservedCards();
+        for (int k = 0; k < Player.MAX_RESERVED_CARDS; k++) {
+            o = encodeCard(k < reserved.size() ? reserved.get(k) : null, rows, out, o);
+        }
+    }
+
+    private static int encodeCard(Card card, CardRows rows, float[] out, int o) {
+        if (card == null) {
+            Arrays.fill(out, o, o + CARD_FEATURES, 0f);
+            return o + CARD_FEATURES;
+        }
+        if (rows != null && rows.copy(card, out, o)) {
+            return o + CARD_FEATURES;
+        }
+        return writeCard(card, out, o);
+    }
+
+    private static int writeCard(Card card, float[] out, int o) {
+        out[o++] = 1f;
+        out[o++] = card.getPrestigePoints() / 5f;
+        int bonus = card.getBonus().ordinal();
+        for (int c = 0; c < 5; c++) {
+            out[o++] = c == bonus ? 1f : 0f;
+        }
+        for (int c = 0; c < 5; c++) {
+            out[o++] = card.getCost(GEMS[c]) / 7f;
+        }
+        return o;
+    }
+
+    /**
+     * The encoded features of every catalog card, computed once, so encoding
+     * a card is one array copy instead of a walk over its cost.
+     */
+    private static final class CardRows {
+        private final Card[] cards;
+        private final float[] rows;
+
+        CardRows(CardCatalog catalog) {
+            int maxId = 0;
+            for (Card card : catalog.getCards()) {
+                maxId = Math.max(maxId, card.getId());
+            }
+            cards = new Card[maxId + 1];
+            rows = new float[(maxId + 1) * CARD_FEATURES];
+            for (Card card : catalog.getCards()) {
+                cards[card.getId()] = card;
+                writeCard(card, rows, card.getId() * CARD_FEATURES);
+            }
+        }
+
+        /**
+         * @return false if the card is not from this catalog
+         */
+        boolean copy(Card card, float[] out, int o) {
+            int id = card.getId();
+            if (id < 0 || id >= cards.length || cards[id] != card) {
+                return false;
+            }
+            System.arraycopy(rows, id * CARD_FEATURES, out, o, CARD_FEATURES);
+            return true;
+        }
+    }
+}
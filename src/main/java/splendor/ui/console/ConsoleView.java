@@ -1,5 +1,6 @@
 package splendor.ui.console;
 
+import splendor.ai.MoveEvaluation;
 import splendor.game.engine.GameState;
 import splendor.model.*;
 
@@ -56,12 +57,12 @@ public class ConsoleView {
 
     private void printLevelCards(int level, List<Card> cards) {
         System.out.println("Level " + level + " cards:");
-        if (cards.isEmpty()) {
+        if (cards.stream().allMatch(c -> c == null)) {
             System.out.println("  (no cards showing)");
         } else {
             for (int i = 0; i < cards.size(); i++) {
                 Card c = cards.get(i);
-                System.out.println("  [" + i + "] " + cardSummary(c));
+                System.out.println("  [" + i + "] " + (c != null ? cardSummary(c) : "(empty)"));
             }
         }
         System.out.println();
@@ -109,6 +110,20 @@ public class ConsoleView {
         }
     }
 
+    public void showHints(List<MoveEvaluation> hints) {
+        if (hints.isEmpty()) {
+            System.out.println("No hints available.");
+            return;
+        }
+        System.out.println("Suggested moves:");
+        for (int i = 0; i < hints.size(); i++) {
+            MoveEvaluation h = hints.get(i);
+            System.out.println("  " + (i + 1) + ") " + h.getMove()
+                    + String.format(" | win chance %.0f%%", h.getScore() * 100)
+                    + " | line: " + h.getPrincipalVariation());
+        }
+    }
+
     public void showWinner(Player winner, List<Player> players) {
         System.out.println();
         System.out.println("========================================");
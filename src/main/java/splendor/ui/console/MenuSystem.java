@@ -27,7 +27,8 @@ public class MenuSystem {
         System.out.println("  1) Take tokens");
         System.out.println("  2) Buy a card");
         System.out.println("  3) Reserve a card");
-        return input.readIntInRange("Enter choice (1-3): ", 1, 3);
+        System.out.println("  4) Show move hints");
+        return input.readIntInRange("Enter choice (1-4): ", 1, 4);
     }
 
     public TakeTokensAction buildTakeTokensAction(Board board, Player player) {
@@ -97,16 +98,11 @@ public class MenuSystem {
             return BuyCardAction.fromReserved(idx);
         } else {
             int level = input.readIntInRange("Choose level (1-3): ", 1, 3);
-            int maxIndex = switch (level) {
-                case 1 -> board.getLevel1FaceUp().size() - 1;
-                case 2 -> board.getLevel2FaceUp().size() - 1;
-                case 3 -> board.getLevel3FaceUp().size() - 1;
-                default -> -1;
-            };
-            if (maxIndex < 0) {
+            if (board.countFaceUp(level) == 0) {
                 System.out.println("No cards available at that level.");
                 return null;
             }
+            int maxIndex = Board.FACE_UP_PER_LEVEL - 1;
             int idx = input.readIntInRange("Choose card index: ", 0, maxIndex);
             return BuyCardAction.fromMarket(level, idx);
         }
@@ -123,16 +119,11 @@ public class MenuSystem {
             return ReserveCardAction.fromTopOfDeck(level);
         } else {
             int level = input.readIntInRange("Choose level (1-3): ", 1, 3);
-            int maxIndex = switch (level) {
-                case 1 -> board.getLevel1FaceUp().size() - 1;
-                case 2 -> board.getLevel2FaceUp().size() - 1;
-                case 3 -> board.getLevel3FaceUp().size() - 1;
-                default -> -1;
-            };
-            if (maxIndex < 0) {
+            if (board.countFaceUp(level) == 0) {
                 System.out.println("No cards available at that level.");
                 return null;
             }
+            int maxIndex = Board.FACE_UP_PER_LEVEL - 1;
             int idx = input.readIntInRange("Choose card index to reserve: ", 0, maxIndex);
             return ReserveCardAction.fromMarket(level, idx);
         }
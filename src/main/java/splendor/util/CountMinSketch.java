@@ -0,0 +1,80 @@
+package splendor.util;
+
+/**
+ * Approximate counts of many distinct keys in fixed memory.
+ *
+ * {@code depth} rows of {@code width} counters; a key adds to one counter
+ * per row and its estimate is the smallest of them. Estimates never
+ * undercount, and overcount by more than {@code 2 * total / width} with
+ * probability below {@code 2^-depth}. Sketches of the same shape and
+ * seed can be merged, so each thread fills its own. Not thread-safe.
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final long seed;
+    private final long[] counts;
+    private long total;
+
+    /**
+     * @param width counters per row, rounded up to a power of two
+     */
+    public CountMinSketch(int width, int depth, long seed) {
+        if (width < 1 || depth < 1 || depth > 16) {
+            throw new IllegalArgumentException("Invalid sketch shape: " + width + "x" + depth);
+        }
+        int w = Integer.highestOneBit(width);
+        this.width = w < width ? w << 1 : w;
+        this.depth = depth;
+        this.seed = seed;
+        this.counts = new long[this.width * depth];
+    }
+
+    public void add(long key, long count) {
+        long h = Hashing.mix64(key ^ seed);
+        for (int row = 0; row < depth; row++) {
+            counts[row * width + index(h, row)] += count;
+        }
+        total += count;
+    }
+
+    public long estimate(long key) {
+        long h = Hashing.mix64(key ^ seed);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[row * width + index(h, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * Sum of everything added.
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Add another sketch of the same shape and seed into this one.
+     */
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth || other.seed != seed) {
+            throw new IllegalArgumentException("Sketches differ in shape or seed");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    /**
+     * Row {@code row}'s counter: double hashing from the two halves of one
+     * 64-bit hash, which is as good as independent hashes for this use.
+     */
+    private int index(long h, int row) {
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        return (h1 + row * h2) & (width - 1);
+    }
+}
@@ -0,0 +1,20 @@
+package splendor.util;
+
+/**
+ * Hash mixing for sketches and hash-based counters.
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * A well-mixed 64-bit hash of {@code x} (the SplitMix64 finalizer), so
+     * keys that differ in a few bits land far apart.
+     */
+    public static long mix64(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+}
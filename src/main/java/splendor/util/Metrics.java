@@ -0,0 +1,55 @@
+package splendor.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide registry of named counters and gauges.
+ *
+ * Counters are cheap to bump from any thread; look one up once and keep
+ * the reference on hot paths. Gauges are read only when a snapshot is
+ * taken.
+ */
+public final class Metrics {
+
+    private static final ConcurrentHashMap<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, LongSupplier> GAUGES = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the counter with the given name, creating it at zero if needed.
+     */
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * Report a value computed on demand, such as a percentile; replaces any
+     * gauge registered under the same name.
+     */
+    public static void gauge(String name, LongSupplier value) {
+        GAUGES.put(name, value);
+    }
+
+    /**
+     * Current value of every counter and gauge, sorted by name.
+     */
+    public static Map<String, Long> snapshot() {
+        Map<String, Long> result = new TreeMap<>();
+        COUNTERS.forEach((name, counter) -> result.put(name, counter.sum()));
+        GAUGES.forEach((name, gauge) -> result.put(name, gauge.getAsLong()));
+        return result;
+    }
+
+    /**
+     * Reset every counter to zero (e.g. between benchmark runs).
+     */
+    public static void reset() {
+        COUNTERS.values().forEach(LongAdder::reset);
+    }
+}
@@ -0,0 +1,76 @@
+package splendor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Runs the behaviour checks without a test framework: every static
+ * no-argument method whose name starts with "test" in the listed classes.
+ * Exits with status 1 if any check fails.
+ *
+ * <pre>
+ * javac -d out $(find src -name '*.java') &amp;&amp; java -cp out splendor.TestRunner
+ * </pre>
+ */
+public final class TestRunner {
+
+    private static final String[] CLASSES = {
+        "splendor.game.engine.GameStateTest",
+        "splendor.game.actions.MoveCodecTest",
+        "splendor.ai.EndgameSolverTest",
+        "splendor.archive.GameArchiveTest",
+        "splendor.network.MessageHandlerTest",
+        "splendor.rating.LeaderboardTest",
+        "splendor.rating.RatingLogTest",
+        "splendor.rl.SharedMemoryBridgeTest",
+    };
+
+    private TestRunner() {
+    }
+
+    public static void main(String[] args) throws ReflectiveOperationException {
+        int run = 0;
+        int failed = 0;
+        for (String name : CLASSES) {
+            Method[] methods = Class.forName(name).getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method m : methods) {
+                if (!m.getName().startsWith("test") || !Modifier.isStatic(m.getModifiers())
+                        || m.getParameterCount() != 0) {
+                    continue;
+                }
+                run++;
+                m.setAccessible(true);
+                try {
+                    m.invoke(null);
+                } catch (InvocationTargetException e) {
+                    failed++;
+                    System.out.println("FAIL " + name + "." + m.getName() + ": " + e.getCause());
+                    e.getCause().printStackTrace(System.out);
+                }
+            }
+        }
+        System.out.println(run + " checks, " + failed + " failed");
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Fail the running check unless {@code condition} holds.
+     */
+    public static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    public static void checkEquals(Object expected, Object actual, String what) {
+        if (!expected.equals(actual)) {
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package splendor.archive;
+
+import static splendor.TestRunner.check;
+import static splendor.TestRunner.checkEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import splendor.ai.MoveGenerator;
+import splendor.ai.PositionKey;
+import splendor.ai.TurnResolver;
+import splendor.game.actions.ActionType;
+import splendor.game.actions.MoveCodec;
+import splendor.game.engine.Game;
+import splendor.game.engine.StandardGameFactory;
+import splendor.model.Board;
+import splendor.model.Card;
+import splendor.model.CardCatalog;
+import splendor.model.GemType;
+import splendor.model.Noble;
+import splendor.model.Player;
+
+/**
+ * Records written to an archive, read back by a scan after reopening, and
+ * replayed from their seeds.
+ */
+final class GameArchiveTest {
+
+    private static final int GAMES = 600;
+    private static final int MAX_TURNS = 200;
+    private static final int SEGMENT_BYTES = 200 * 1024; // just over the longest record, so games span segments
+
+    private GameArchiveTest() {
+    }
+
+    /**
+     * What a record of one game must say, worked out while the game is played.
+     */
+    private static final class Expected {
+        long seed;
+        int players;
+        int[] moves = new int[MAX_TURNS];
+        int[] events = new int[MAX_TURNS];
+        int turns;
+        boolean journaled;
+        boolean finished;
+        int[] scores;
+        int[] places;
+        long position;
+    }
+
+    static void testWriteScanReplay() throws IOException {
+        Path dir = Files.createTempDirectory("archive");
+        try {
+            CardCatalog catalog = CardCatalog.standard();
+            List<Expected> games = new ArrayList<>();
+            try (GameArchive archive = GameArchive.open(dir, SEGMENT_BYTES)) {
+                GameRecorder recorder = new GameRecorder();
+                Random rng = new Random(10);
+                for (int g = 0; g < GAMES; g++) {
+                    games.add(play(1000 + g, 2 + g % 3, g % 2 == 0, catalog, recorder, rng));
+                    archive.append(recorder);
+                }
+            }
+            try (GameArchive archive = GameArchive.open(dir, SEGMENT_BYTES)) {
+                checkEquals((long) GAMES, archive.count(), "records after reopening");
+                check(archive.segmentCount() > 1, "expected several segments, got " + archive.segmentCount());
+                int[] next = {0};
+                long visited = archive.forEach(r -> {
+                    Expected e = games.get(next[0]++);
+                    String which = "record " + (next[0] - 1);
+                    checkEquals(e.seed, r.seed(), "seed of " + which);
+                    checkEquals(e.players, r.players(), "players of " + which);
+                    checkEquals(e.turns, r.turns(), "turns of " + which);
+                    checkEquals(e.finished, r.finished(), "finished flag of " + which);
+                    checkEquals(e.journaled, r.hasEvents(), "events flag of " + which);
+                    for (int seat = 0; seat < e.players; seat++) {
+                        checkEquals(e.scores[seat], r.score(seat), "score of seat " + seat + " in " + which);
+                        checkEquals(e.places[seat], r.place(seat), "place of seat " + seat + " in " + which);
+                    }
+                    for (int t = 0; t < e.turns; t++) {
+                        checkEquals(e.moves[t], r.move(t), "move " + t + " of " + which);
+                        checkEquals(e.events[t], r.event(t), "event " + t + " of " + which);
+                    }
+                    checkEquals(e.position, PositionKey.of(r.replay(catalog)), "replayed position of " + which);
+                });
+                checkEquals((long) GAMES, visited, "records visited");
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(p);
+                }
+            }
+        }
+    }
+
+    static void testSegmentMustHoldTheLongestGame() throws IOException {
+        Path dir = Files.createTempDirectory("archive");
+        try {
+            GameArchive.open(dir, 64 * 1024).close();
+            check(false, "opened an archive whose segments cannot hold the longest game");
+        } catch (IllegalArgumentException expected) {
+            // rejected before anything was created
+        } finally {
+            Files.delete(dir);
+        }
+    }
+
+    static void testCatalogTooLargeForEventsIsRefused() {
+        GameRecorder.checkCatalog(CardCatalog.standard());
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < GameRecord.MAX_CARD_ID + 1; i++) {
+            text.append("card ").append(1 + i % 3).append(" 0 WHITE 0 1 1 1 1\n");
+        }
+        for (int i = 0; i < 5; i++) {
+            text.append("noble 3 3 3 0 0 Noble ").append(i).append('\n');
+        }
+        CardCatalog large = CardCatalog.parse(new StringReader(text.toString()), "large");
+        try {
+            GameRecorder.checkCatalog(large);
+            check(false, "accepted a catalog with " + large.getCards().size() + " cards");
+        } catch (IllegalArgumentException expected) {
+            // refused before any game is recorded
+        }
+    }
+
+    /**
+     * Play a random game into {@code recorder}, through {@link GameRecorder#play}
+     * when {@code journaled} and with {@link GameRecorder#move} otherwise.
+     */
+    private static Expected play(long seed, int players, boolean journaled, CardCatalog catalog,
+            GameRecorder recorder, Random rng) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            names.add("P" + (i + 1));
+        }
+        Game game = StandardGameFactory.createGame(names, catalog, new Random(seed));
+        Expected e = new Expected();
+        e.seed = seed;
+        e.players = players;
+        e.journaled = journaled;
+        recorder.begin(seed, players);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        MoveGenerator generator = new MoveGenerator();
+        while (e.turns < MAX_TURNS && !game.isGameOver()) {
+            int n = generator.generate(game, moves);
+            int move = n == 0 ? MoveCodec.NONE : moves[rng.nextInt(n)];
+            e.moves[e.turns] = move;
+            if (journaled) {
+                e.events[e.turns] = expectedEvent(game, move);
+                recorder.play(game, move);
+            } else {
+                TurnResolver.playTurn(game, move);
+                recorder.move(move);
+            }
+            e.turns++;
+        }
+        recorder.end(game);
+        e.finished = game.isGameOver();
+        e.scores = new int[players];
+        for (int seat = 0; seat < players; seat++) {
+            e.scores[seat] = game.getState().getPlayers().get(seat).getPrestigePoints();
+        }
+        e.places = Arrays.copyOf(game.finishingOrder(), players);
+        e.position = PositionKey.of(game);
+        return e;
+    }
+
+    /**
+     * The event a move will record, worked out from the position and from a
+     * copy of the game played ahead.
+     */
+    private static int expectedEvent(Game game, int move) {
+        if (move == MoveCodec.NONE) {
+            return 0;
+        }
+        Board board = game.getState().getBoard();
+        Player mover = game.getCurrentPlayer();
+        ActionType type = MoveCodec.type(move);
+        Card card = null;
+        if (type == ActionType.BUY_CARD) {
+            card = MoveCodec.flag(move) ? mover.getReservedCards().get(MoveCodec.index(move))
+                    : board.getFaceUpCard(MoveCodec.level(move), MoveCodec.index(move));
+        } else if (type == ActionType.RESERVE_CARD) {
+            card = MoveCodec.flag(move) ? board.getDeck(MoveCodec.level(move)).getCatalog()
+                    .getCard(board.getDeck(MoveCodec.level(move)).peekId())
+                    : board.getFaceUpCard(MoveCodec.level(move), MoveCodec.index(move));
+        }
+        Game after = game.copy();
+        int seat = game.getCurrentPlayerIndex();
+        TurnResolver.playTurn(after, move);
+        Player moved = after.getState().getPlayers().get(seat);
+        int gold = type == ActionType.BUY_CARD ? mover.getTokens().get(GemType.GOLD) - moved.getTokens().get(GemType.GOLD) : 0;
+        int noble = 0;
+        for (Noble n : board.getNobles()) {
+            if (!after.getState().getBoard().getNobles().contains(n)) {
+                noble = n.getId();
+            }
+        }
+        return GameRecord.event(card != null ? card.getId() : 0, gold, noble);
+    }
+}
@@ -0,0 +1,61 @@
+package splendor.game.actions;
+
+import static splendor.TestRunner.check;
+import static splendor.TestRunner.checkEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import splendor.ai.MoveGenerator;
+import splendor.ai.TurnResolver;
+import splendor.game.engine.Game;
+import splendor.game.engine.StandardGameFactory;
+import splendor.model.CardCatalog;
+import splendor.model.GemType;
+
+/**
+ * Encoding and decoding moves, checked on every move of random games.
+ */
+final class MoveCodecTest {
+
+    private static final int MAX_TURNS = 200; // random play can stall with everyone passing
+
+    private MoveCodecTest() {
+    }
+
+    static void testLegalMovesRoundTrip() {
+        MoveGenerator generator = new MoveGenerator();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        Random rng = new Random(4);
+        int checked = 0;
+        for (int g = 0; g < 20; g++) {
+            Game game = StandardGameFactory.createGame(List.of("A", "B"), CardCatalog.standard(), new Random(g));
+            for (int turn = 0; turn < MAX_TURNS && !game.isGameOver(); turn++) {
+                int n = generator.generate(game, moves);
+                for (int i = 0; i < n; i++) {
+                    GameAction action = MoveCodec.decode(moves[i]);
+                    checkEquals(moves[i], MoveCodec.encode(action), "re-encoded " + MoveCodec.toString(moves[i]));
+                    checkEquals(MoveCodec.type(moves[i]), action.getType(), "type of " + MoveCodec.toString(moves[i]));
+                    checked++;
+                }
+                TurnResolver.playTurn(game, n == 0 ? MoveCodec.NONE : moves[rng.nextInt(n)]);
+            }
+        }
+        check(checked > 1000, "only " + checked + " moves checked");
+    }
+
+    static void testDiscardCountsRoundTrip() {
+        int[] counts = new int[GemType.values().length];
+        Random rng = new Random(5);
+        for (int i = 0; i < 1000; i++) {
+            for (int j = 0; j < counts.length; j++) {
+                counts[j] = rng.nextInt(16);
+            }
+            int move = MoveCodec.discardTokens(counts);
+            for (GemType type : GemType.values()) {
+                checkEquals(counts[type.ordinal()], MoveCodec.count(move, type), "discard count of " + type);
+            }
+            checkEquals(move, MoveCodec.encode(MoveCodec.decode(move)), "re-encoded discard");
+        }
+    }
+}
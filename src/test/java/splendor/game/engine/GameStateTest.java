@@ -0,0 +1,184 @@
+package splendor.game.engine;
+
+import static splendor.TestRunner.check;
+import static splendor.TestRunner.checkEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import splendor.ai.MoveGenerator;
+import splendor.ai.TurnResolver;
+import splendor.game.actions.MoveCodec;
+import splendor.model.Board;
+import splendor.model.Card;
+import splendor.model.CardCatalog;
+import splendor.model.Deck;
+import splendor.model.GemType;
+import splendor.model.Noble;
+import splendor.model.Player;
+
+/**
+ * Copying, undoing and determinizing positions, checked on random games.
+ */
+final class GameStateTest {
+
+    private static final List<String> NAMES = List.of("A", "B", "C");
+    private static final int MAX_TURNS = 200; // random play can stall with everyone passing
+
+    private GameStateTest() {
+    }
+
+    static void testCopyIsIndependent() {
+        Random rng = new Random(1);
+        Game game = StandardGameFactory.createGame(NAMES, CardCatalog.standard(), new Random(11));
+        Game copy = game.copy();
+        String before = describe(game);
+        for (int turn = 0; turn < 20 && !game.isGameOver(); turn++) {
+            playRandomTurn(game, rng);
+        }
+        checkEquals(before, describe(copy), "copy after the original moved on");
+        copy.copyFrom(game);
+        checkEquals(describe(game), describe(copy), "copyFrom");
+    }
+
+    static void testUndoRestoresEveryMove() {
+        MoveGenerator generator = new MoveGenerator();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        TurnUndo undo = new TurnUndo();
+        Random rng = new Random(2);
+        for (int g = 0; g < 20; g++) {
+            Game game = StandardGameFactory.createGame(NAMES, CardCatalog.standard(), new Random(g));
+            for (int turn = 0; turn < MAX_TURNS && !game.isGameOver(); turn++) {
+                String before = describe(game);
+                int n = generator.generate(game, moves);
+                for (int i = 0; i < n; i++) {
+                    TurnResolver.playTurn(game, moves[i], undo);
+                    game.undoTurn(undo);
+                    checkEquals(before, describe(game), "after undoing " + MoveCodec.toString(moves[i]));
+                }
+                TurnResolver.playTurn(game, n == 0 ? MoveCodec.NONE : moves[rng.nextInt(n)]);
+            }
+        }
+    }
+
+    static void testDeterminizeConservesCards() {
+        Random rng = new Random(3);
+        for (int g = 0; g < 20; g++) {
+            Game game = StandardGameFactory.createGame(NAMES, CardCatalog.standard(), new Random(100 + g));
+            for (int turn = 0; turn < 30 && !game.isGameOver(); turn++) {
+                playRandomTurn(game, rng);
+            }
+            GameState state = game.getState();
+            List<Integer> cards = allCardIds(state);
+            String seen = describeVisible(state, 0);
+            for (int i = 0; i < 5; i++) {
+                state.determinize(0, rng);
+                checkEquals(cards, allCardIds(state), "cards in play");
+                checkEquals(seen, describeVisible(state, 0), "what seat 0 can see");
+            }
+        }
+    }
+
+    private static void playRandomTurn(Game game, Random rng) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int n = new MoveGenerator().generate(game, moves);
+        TurnResolver.playTurn(game, n == 0 ? MoveCodec.NONE : moves[rng.nextInt(n)]);
+    }
+
+    /**
+     * Every card in the decks, the market and the players' hands, sorted by id.
+     */
+    private static List<Integer> allCardIds(GameState state) {
+        List<Integer> ids = new ArrayList<>();
+        Board board = state.getBoard();
+        for (int level = 1; level <= 3; level++) {
+            ids.addAll(deckIds(board.getDeck(level)));
+            for (int slot = 0; slot < Board.FACE_UP_PER_LEVEL; slot++) {
+                Card card = board.getFaceUpCard(level, slot);
+                if (card != null) {
+                    ids.add(card.getId());
+                }
+            }
+        }
+        for (Player p : state.getPlayers()) {
+            p.getReservedCards().forEach(c -> ids.add(c.getId()));
+            p.getPurchasedCards().forEach(c -> ids.add(c.getId()));
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Deck cards from top to bottom, read from a copy so the deck is untouched.
+     */
+    private static List<Integer> deckIds(Deck deck) {
+        Deck copy = new Deck(deck.getLevel(), deck.getCatalog());
+        copy.copyFrom(deck);
+        List<Integer> ids = new ArrayList<>();
+        while (!copy.isEmpty()) {
+            ids.add(copy.draw().getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Everything about a game that copying and undoing must preserve.
+     */
+    private static String describe(Game game) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("turn ").append(game.getCurrentPlayerIndex())
+          .append(" final ").append(game.isFinalRoundTriggered())
+          .append(" over ").append(game.isGameOver()).append('\n');
+        Board board = game.getState().getBoard();
+        for (int level = 1; level <= 3; level++) {
+            sb.append("deck ").append(level).append(' ').append(deckIds(board.getDeck(level))).append('\n');
+        }
+        sb.append(describeVisible(game.getState(), -1));
+        return sb.toString();
+    }
+
+    /**
+     * What the given seat sees: everything but deck order and other seats'
+     * face-down reserves.
+     */
+    private static String describeVisible(GameState state, int observer) {
+        StringBuilder sb = new StringBuilder();
+        Board board = state.getBoard();
+        sb.append("supply ").append(board.getSupplyTokens()).append('\n');
+        for (int level = 1; level <= 3; level++) {
+            sb.append("market ").append(level).append(" deck ").append(board.getDeck(level).size());
+            for (int slot = 0; slot < Board.FACE_UP_PER_LEVEL; slot++) {
+                Card card = board.getFaceUpCard(level, slot);
+                sb.append(' ').append(card != null ? card.getId() : "-");
+            }
+            sb.append('\n');
+        }
+        sb.append("nobles");
+        for (Noble noble : board.getNobles()) {
+            sb.append(' ').append(noble.getId());
+        }
+        sb.append('\n');
+        for (int seat = 0; seat < state.getPlayers().size(); seat++) {
+            Player p = state.getPlayers().get(seat);
+            sb.append(p.getName()).append(' ').append(p.getPrestigePoints()).append("P ").append(p.getTokens());
+            for (GemType type : GemType.values()) {
+                sb.append(' ').append(p.getBonus(type));
+            }
+            sb.append(" bought");
+            p.getPurchasedCards().forEach(c -> sb.append(' ').append(c.getId()));
+            sb.append(" reserved");
+            for (int i = 0; i < p.getReservedCards().size(); i++) {
+                boolean hidden = p.isReservedFaceDown(i);
+                if (hidden && observer >= 0 && seat != observer) {
+                    sb.append(" L").append(p.getReservedCards().get(i).getLevel()).append('?');
+                } else {
+                    sb.append(' ').append(p.getReservedCards().get(i).getId()).append(hidden ? "d" : "");
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,91 @@
+package splendor.network;
+
+import static splendor.TestRunner.check;
+import static splendor.TestRunner.checkEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import splendor.ai.MoveGenerator;
+import splendor.ai.TurnResolver;
+import splendor.game.actions.MoveCodec;
+import splendor.game.engine.Game;
+import splendor.game.engine.GameState;
+import splendor.game.engine.StandardGameFactory;
+import splendor.model.CardCatalog;
+import splendor.model.GemType;
+import splendor.model.Player;
+
+/**
+ * `SNAP` lines written and read back from every seat of random games.
+ */
+final class MessageHandlerTest {
+
+    private static final int MAX_TURNS = 200; // random play can stall with everyone passing
+
+    private MessageHandlerTest() {
+    }
+
+    static void testSnapshotRoundTrip() {
+        CardCatalog catalog = CardCatalog.standard();
+        MoveGenerator generator = new MoveGenerator();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int[] mirrorMoves = new int[MoveGenerator.MAX_MOVES];
+        Random rng = new Random(9);
+        for (int g = 0; g < 10; g++) {
+            // Odd names check the URL encoding.
+            Game game = StandardGameFactory.createGame(List.of("Ann Lee", "b=2", "Bot%mcts"), catalog, new Random(g));
+            for (int turn = 0; turn < MAX_TURNS && !game.isGameOver(); turn++) {
+                GameState state = game.getState();
+                int current = game.getCurrentPlayerIndex();
+                for (int viewer = 0; viewer < state.getPlayers().size(); viewer++) {
+                    String line = MessageHandler.formatSnapshot(state, current, viewer);
+                    StateSnapshot snap = MessageHandler.parseSnapshot(line, catalog);
+                    checkEquals(viewer, snap.getViewerIndex(), "viewer");
+                    checkEquals(current, snap.getCurrentPlayerIndex(), "current player");
+                    checkEquals(line, MessageHandler.formatSnapshot(snap.getState(), current, viewer), "re-formatted line");
+                    checkEquals(catalog.getCards().size(), cardsInPlay(snap.getState()), "cards in the parsed position");
+                    for (int p = 0; p < state.getPlayers().size(); p++) {
+                        Player original = state.getPlayers().get(p);
+                        Player parsed = snap.getState().getPlayers().get(p);
+                        for (GemType type : GemType.values()) {
+                            checkEquals(original.getBonus(type), parsed.getBonus(type), "bonus " + type + " of seat " + p);
+                        }
+                    }
+                }
+                int n = generator.generate(game, moves);
+                // The mover's mirror must allow exactly the moves the server does.
+                StateSnapshot own = MessageHandler.parseSnapshot(MessageHandler.formatSnapshot(state, current, current), catalog);
+                int m = generator.generate(own.getState(), current, mirrorMoves);
+                checkEquals(Arrays.toString(Arrays.copyOf(moves, n)), Arrays.toString(Arrays.copyOf(mirrorMoves, m)),
+                        "legal moves from the mirror");
+                TurnResolver.playTurn(game, n == 0 ? MoveCodec.NONE : moves[rng.nextInt(n)]);
+            }
+        }
+    }
+
+    static void testSnapshotFromAnotherCatalogIsRejected() {
+        Game game = StandardGameFactory.createGame(List.of("A", "B"), CardCatalog.standard(), new Random(1));
+        String line = MessageHandler.formatSnapshot(game.getState(), 0, 0);
+        String[] fields = line.split(" ");
+        fields[1] = String.valueOf(Integer.parseInt(fields[1]) + 1);
+        try {
+            MessageHandler.parseSnapshot(String.join(" ", fields), CardCatalog.standard());
+            check(false, "accepted a snapshot from a larger catalog");
+        } catch (IllegalArgumentException expected) {
+            // rejected as it should be
+        }
+    }
+
+    private static int cardsInPlay(GameState state) {
+        int count = 0;
+        for (int level = 1; level <= 3; level++) {
+            count += state.getBoard().getDeck(level).size() + state.getBoard().countFaceUp(level);
+        }
+        for (Player p : state.getPlayers()) {
+            count += p.getPurchasedCards().size() + p.getReservedCards().size();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,54 @@
+package splendor.rating;
+
+import static splendor.TestRunner.check;
+import static splendor.TestRunner.checkEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Leaderboard ranks and pages, checked against a sorted list.
+ */
+final class LeaderboardTest {
+
+    private static final Comparator<PlayerRating> ORDER =
+            Comparator.comparingDouble(PlayerRating::getRating).reversed().thenComparing(PlayerRating::getId);
+
+    private LeaderboardTest() {
+    }
+
+    static void testRankAndRangeMatchSortedOrder() {
+        Random rng = new Random(6);
+        Leaderboard board = new Leaderboard();
+        List<PlayerRating> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            // Few distinct ratings, so ties are broken by id
+            PlayerRating entry = new PlayerRating("p" + i, 1000 + rng.nextInt(50) * 10);
+            board.insert(entry);
+            expected.add(entry);
+        }
+        for (int i = 0; i < 500; i++) {
+            PlayerRating gone = expected.remove(rng.nextInt(expected.size()));
+            check(board.remove(gone.getRating(), gone.getId()), "remove " + gone);
+        }
+        check(!board.remove(1.5, "nobody"), "removed a missing entry");
+        expected.sort(ORDER);
+
+        checkEquals(expected.size(), board.size(), "size");
+        for (int rank = 0; rank < expected.size(); rank++) {
+            PlayerRating entry = expected.get(rank);
+            checkEquals(rank, board.rank(entry.getRating(), entry.getId()), "rank of " + entry);
+            check(board.atRank(rank) == entry, "entry at rank " + rank);
+        }
+        check(board.atRank(expected.size()) == null, "entry past the end");
+        checkEquals(-1, board.rank(1000, "nobody"), "rank of a missing entry");
+
+        for (int from : new int[] {0, 1, 700, expected.size() - 3}) {
+            List<PlayerRating> page = new ArrayList<>();
+            board.range(from, 10, page);
+            checkEquals(expected.subList(from, Math.min(from + 10, expected.size())), page, "page at " + from);
+        }
+    }
+}
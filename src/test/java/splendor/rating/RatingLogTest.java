@@ -0,0 +1,44 @@
+package splendor.rating;
+
+import static splendor.TestRunner.checkEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaying and reopening a rating log whose last line was cut short.
+ */
+final class RatingLogTest {
+
+    private RatingLogTest() {
+    }
+
+    static void testTornLastLineIsDropped() throws IOException {
+        Path dir = Files.createTempDirectory("ratinglog");
+        Path file = dir.resolve("ratings.log");
+        try {
+            Files.writeString(file, "alice=0 bob=1\nBot%3Dmcts=1 alice=0\ncarol=0 da", StandardCharsets.UTF_8);
+            checkEquals(List.of("[alice, bob] [0, 1]", "[Bot=mcts, alice] [1, 0]"), replay(file), "replayed games");
+
+            try (RatingLog log = RatingLog.open(file)) {
+                log.append(new GameResult(List.of("carol", "dave"), new int[] {0, 1}));
+            }
+            checkEquals("alice=0 bob=1\nBot%3Dmcts=1 alice=0\ncarol=0 dave=1\n",
+                    Files.readString(file, StandardCharsets.UTF_8), "log after reopening");
+            checkEquals(3, replay(file).size(), "games after reopening");
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    private static List<String> replay(Path file) throws IOException {
+        List<String> games = new ArrayList<>();
+        RatingLog.replay(file, result -> games.add(result.toString()));
+        return games;
+    }
+}
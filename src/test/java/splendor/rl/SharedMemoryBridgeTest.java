@@ -0,0 +1,109 @@
+package splendor.rl;
+
+import static splendor.TestRunner.check;
+import static splendor.TestRunner.checkEquals;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Drives a bridge the way an external trainer does: through its own
+ * mapping of the file, using only the documented header layout.
+ */
+final class SharedMemoryBridgeTest {
+
+    private static final int ENVS = 3;
+    private static final long TIMEOUT_NANOS = 10_000_000_000L;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private SharedMemoryBridgeTest() {
+    }
+
+    static void testTrainerStepsThroughTheFile() throws Exception {
+        Path file = Files.createTempFile("bridge", ".bin");
+        try (VectorEnv env = new VectorEnv(ENVS, 2, true, 1);
+             SharedMemoryBridge bridge = new SharedMemoryBridge(env, file);
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            Thread server = new Thread(bridge::serve, "bridge");
+            server.start();
+
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            map.order(ByteOrder.nativeOrder());
+            checkEquals(SharedMemoryBridge.MAGIC, map.getInt(0), "magic");
+            checkEquals(SharedMemoryBridge.VERSION, map.getInt(4), "version");
+            checkEquals(ENVS, map.getInt(8), "numEnvs");
+            int numActions = map.getInt(16);
+            int[] offsets = new int[8];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = map.getInt(64 + 4 * i);
+                check(offsets[i] % 64 == 0, "region " + i + " is not 64-byte aligned");
+            }
+            checkEquals(128, offsets[0], "actions offset");
+            int masksAt = offsets[2];
+            int toPlayAt = offsets[7];
+
+            // A legal step: pick a legal action for every game from the masks.
+            Random rng = new Random(7);
+            byte[] masks = new byte[ENVS * numActions];
+            map.get(masksAt, masks);
+            for (int e = 0; e < ENVS; e++) {
+                map.putInt(offsets[0] + 4 * e, VectorEnv.randomLegalAction(masks, e, rng));
+            }
+            int[] toPlayBefore = readInts(map, toPlayAt);
+            request(map, 1, SharedMemoryBridge.COMMAND_STEP);
+            checkEquals(SharedMemoryBridge.STATUS_DONE, map.getInt(52), "status after a legal step");
+            checkEquals(-1, map.getInt(56), "errorEnv after a legal step");
+            int[] toPlayAfter = readInts(map, toPlayAt);
+            for (int e = 0; e < ENVS; e++) {
+                check(toPlayAfter[e] != toPlayBefore[e], "game " + e + " did not move on");
+                checkEquals(env.toPlay[e], toPlayAfter[e], "toPlay of game " + e);
+            }
+
+            // An illegal action in the second game rejects the whole step.
+            map.putInt(offsets[0] + 4, -1);
+            request(map, 2, SharedMemoryBridge.COMMAND_STEP);
+            checkEquals(SharedMemoryBridge.STATUS_REJECTED, map.getInt(52), "status after an illegal action");
+            checkEquals(1, map.getInt(56), "errorEnv after an illegal action");
+            checkEquals(Arrays.toString(toPlayAfter), Arrays.toString(readInts(map, toPlayAt)),
+                    "toPlay after a rejected step");
+
+            request(map, 3, SharedMemoryBridge.COMMAND_CLOSE);
+            server.join(TIMEOUT_NANOS / 1_000_000);
+            check(!server.isAlive(), "bridge did not stop on close");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static int[] readInts(MappedByteBuffer map, int at) {
+        int[] values = new int[ENVS];
+        for (int e = 0; e < ENVS; e++) {
+            values[e] = map.getInt(at + 4 * e);
+        }
+        return values;
+    }
+
+    /**
+     * Write the command, bump the request counter and wait for the response.
+     */
+    private static void request(MappedByteBuffer map, long request, int command) throws IOException {
+        map.putInt(48, command);
+        LONGS.setVolatile(map, 32, request);
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        while ((long) LONGS.getVolatile(map, 40) != request) {
+            if (System.nanoTime() > deadline) {
+                throw new IOException("No response to request " + request);
+            }
+            Thread.onSpinWait();
+        }
+    }
+}